@@ -0,0 +1,101 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.AdaptateurSimulateur;
+import com.kerware.simulateurreusine.AdaptateurSimulateurParesseux;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.ICalculateurImpot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de l'adaptateur paresseux face à l'adaptateur standard, selon les
+ * valeurs lues après chaque calcul : le nombre de parts seul, le revenu fiscal de
+ * référence seul, ou toutes les valeurs. Les temps sont donnés par foyer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AdaptateurParesseuxBenchmark {
+    static final int TAILLE = 4096;
+
+    @Param({"standard", "paresseux"})
+    private String adaptateur;
+
+    private ICalculateurImpot calculateur;
+    private DonneesFoyerFiscal[] foyers;
+
+    @Setup
+    public void preparer() {
+        calculateur = "standard".equals(adaptateur)
+                ? new AdaptateurSimulateur() : new AdaptateurSimulateurParesseux();
+        foyers = PopulationFoyers.generer(TAILLE);
+    }
+
+    private void calculer(DonneesFoyerFiscal f) {
+        calculateur.setRevenusNetDeclarant1(f.revenuNetDeclarant1());
+        calculateur.setRevenusNetDeclarant2(f.revenuNetDeclarant2());
+        calculateur.setSituationFamiliale(f.situationFamiliale());
+        calculateur.setNbEnfantsACharge(f.nbEnfantsACharge());
+        calculateur.setNbEnfantsSituationHandicap(f.nbEnfantsSituationHandicap());
+        calculateur.setParentIsole(f.parentIsole());
+        calculateur.calculImpotSurRevenuNet();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void nombrePartsSeul(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            calculer(f);
+            bh.consume(calculateur.getNbPartsFoyerFiscal());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void revenuFiscalReferenceSeul(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            calculer(f);
+            bh.consume(calculateur.getRevenuFiscalReference());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void impotNetSeul(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            calculer(f);
+            bh.consume(calculateur.getImpotSurRevenuNet());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void toutesLesValeurs(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            calculer(f);
+            bh.consume(calculateur.getNbPartsFoyerFiscal());
+            bh.consume(calculateur.getRevenuFiscalReference());
+            bh.consume(calculateur.getAbattement());
+            bh.consume(calculateur.getImpotAvantDecote());
+            bh.consume(calculateur.getDecote());
+            bh.consume(calculateur.getContribExceptionnelle());
+            bh.consume(calculateur.getImpotSurRevenuNet());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.CourbeImpot;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.GenerateurCourbeImpot;
+import com.kerware.simulateurreusine.Simulateur;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût par point d'une courbe d'impôt : balayage incrémental du générateur
+ * contre un appel indépendant du simulateur pour chaque revenu.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CourbeImpotBenchmark {
+    static final int REVENU_MAX = 400_000;
+    static final int PAS = 100;
+    static final int NB_POINTS = REVENU_MAX / PAS + 1;
+
+    private static final DonneesFoyerFiscal PROFIL =
+            new DonneesFoyerFiscal(0, 25000, SituationFamiliale.MARIE, 2, 0, false);
+
+    private final GenerateurCourbeImpot generateur = new GenerateurCourbeImpot();
+    private final Simulateur simulateur = new Simulateur();
+
+    @Benchmark
+    @OperationsPerInvocation(NB_POINTS)
+    public CourbeImpot generateur() {
+        return generateur.generer(PROFIL, REVENU_MAX, PAS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NB_POINTS)
+    public void appelsIndependants(Blackhole bh) {
+        for (int revenu = 0; revenu <= REVENU_MAX; revenu += PAS) {
+            bh.consume(simulateur.calculImpot(revenu, PROFIL.revenuNetDeclarant2(),
+                    PROFIL.situationFamiliale(), PROFIL.nbEnfantsACharge(),
+                    PROFIL.nbEnfantsSituationHandicap(), PROFIL.parentIsole()));
+        }
+    }
+}
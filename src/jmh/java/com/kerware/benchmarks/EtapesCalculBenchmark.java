@@ -0,0 +1,138 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.CalculateurAbattement;
+import com.kerware.simulateurreusine.CalculateurContributionExceptionnelle;
+import com.kerware.simulateurreusine.CalculateurDecote;
+import com.kerware.simulateurreusine.CalculateurImpot;
+import com.kerware.simulateurreusine.CalculateurParts;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.PlafonneurImpot;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de chaque étape du calcul reusine, isolée des autres.
+ * Les entrées de chaque étape sont précalculées sur une population réaliste ;
+ * les temps sont donnés par foyer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EtapesCalculBenchmark {
+    static final int TAILLE = 4096;
+
+    private final CalculateurParts calculateurParts = new CalculateurParts();
+    private final CalculateurAbattement calculateurAbattement = new CalculateurAbattement();
+    private final CalculateurImpot calculateurImpot = new CalculateurImpot();
+    private final PlafonneurImpot plafonneur = new PlafonneurImpot();
+    private final CalculateurDecote calculateurDecote = new CalculateurDecote();
+    private final CalculateurContributionExceptionnelle calculateurContribution =
+            new CalculateurContributionExceptionnelle();
+
+    private DonneesFoyerFiscal[] foyers;
+    private double[] nombresParts;
+    private double[] partsDeclarants;
+    private double[] revenusImposables;
+    private double[] impotsBrutsDeclarants;
+    private double[] impotsBrutsFoyer;
+    private double[] impotsAvantDecote;
+    private boolean[] couples;
+
+    @Setup
+    public void preparer() {
+        foyers = PopulationFoyers.generer(TAILLE);
+        nombresParts = new double[TAILLE];
+        partsDeclarants = new double[TAILLE];
+        revenusImposables = new double[TAILLE];
+        impotsBrutsDeclarants = new double[TAILLE];
+        impotsBrutsFoyer = new double[TAILLE];
+        impotsAvantDecote = new double[TAILLE];
+        couples = new boolean[TAILLE];
+        for (int i = 0; i < TAILLE; i++) {
+            DonneesFoyerFiscal f = foyers[i];
+            SituationFamiliale situation = f.situationFamiliale();
+            couples[i] = situation.estCouple();
+            nombresParts[i] = calculateurParts.calculerNombreParts(situation,
+                    f.nbEnfantsACharge(), f.nbEnfantsSituationHandicap(), f.parentIsole());
+            partsDeclarants[i] = calculateurParts.calculerPartsDeclarants(situation);
+            double abattement = calculateurAbattement.calculerAbattement(
+                    f.revenuNetDeclarant1(), f.revenuNetDeclarant2(), situation);
+            revenusImposables[i] = Math.max(0,
+                    f.revenuNetDeclarant1() + f.revenuNetDeclarant2() - abattement);
+            impotsBrutsDeclarants[i] =
+                    calculateurImpot.calculerImpotBrut(revenusImposables[i], partsDeclarants[i]);
+            impotsBrutsFoyer[i] =
+                    calculateurImpot.calculerImpotBrut(revenusImposables[i], nombresParts[i]);
+            impotsAvantDecote[i] = plafonneur.calculerImpotPlafonne(impotsBrutsDeclarants[i],
+                    impotsBrutsFoyer[i], nombresParts[i], partsDeclarants[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void parts(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            bh.consume(calculateurParts.calculerNombreParts(f.situationFamiliale(),
+                    f.nbEnfantsACharge(), f.nbEnfantsSituationHandicap(), f.parentIsole()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void abattement(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            bh.consume(calculateurAbattement.calculerAbattement(f.revenuNetDeclarant1(),
+                    f.revenuNetDeclarant2(), f.situationFamiliale()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void impotBrut(Blackhole bh) {
+        for (int i = 0; i < TAILLE; i++) {
+            bh.consume(calculateurImpot.calculerImpotBrut(revenusImposables[i], nombresParts[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void plafonnement(Blackhole bh) {
+        for (int i = 0; i < TAILLE; i++) {
+            bh.consume(plafonneur.calculerImpotPlafonne(impotsBrutsDeclarants[i],
+                    impotsBrutsFoyer[i], nombresParts[i], partsDeclarants[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void decote(Blackhole bh) {
+        for (int i = 0; i < TAILLE; i++) {
+            bh.consume(calculateurDecote.calculerDecote(impotsAvantDecote[i], couples[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void contributionExceptionnelle(Blackhole bh) {
+        for (int i = 0; i < TAILLE; i++) {
+            bh.consume(calculateurContribution.calculerContribution(revenusImposables[i],
+                    couples[i]));
+        }
+    }
+}
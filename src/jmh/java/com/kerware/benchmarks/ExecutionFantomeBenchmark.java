@@ -0,0 +1,85 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.AdaptateurSimulateur;
+import com.kerware.simulateurreusine.CalculateurFantome;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.ExecutionFantome;
+import com.kerware.simulateurreusine.ICalculateurImpot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de l'exécution fantôme sur le chemin principal : adaptateur seul, puis
+ * calculateur fantôme avec un calcul comparé sur 64 et sur 1024 (période par défaut).
+ * Les temps sont donnés par foyer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExecutionFantomeBenchmark {
+    static final int TAILLE = 4096;
+
+    private final ExecutionFantome execution = new ExecutionFantome("benchmark");
+    private final AdaptateurSimulateur adaptateur = new AdaptateurSimulateur();
+    private CalculateurFantome calculateurFantome;
+
+    @Param({"64", "1024"})
+    private int periode;
+
+    private DonneesFoyerFiscal[] foyers;
+
+    @Setup
+    public void preparer() {
+        execution.setPeriodeEchantillonnage(periode);
+        calculateurFantome = new CalculateurFantome(execution);
+        foyers = PopulationFoyers.generer(TAILLE);
+    }
+
+    @TearDown
+    public void arreter() {
+        execution.close();
+    }
+
+    private long calculer(ICalculateurImpot calculateur) {
+        long total = 0;
+        for (DonneesFoyerFiscal f : foyers) {
+            calculateur.setRevenusNetDeclarant1(f.revenuNetDeclarant1());
+            calculateur.setRevenusNetDeclarant2(f.revenuNetDeclarant2());
+            calculateur.setSituationFamiliale(f.situationFamiliale());
+            calculateur.setNbEnfantsACharge(f.nbEnfantsACharge());
+            calculateur.setNbEnfantsSituationHandicap(f.nbEnfantsSituationHandicap());
+            calculateur.setParentIsole(f.parentIsole());
+            calculateur.calculImpotSurRevenuNet();
+            total += calculateur.getImpotSurRevenuNet();
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public long adaptateurSeul() {
+        return calculer(adaptateur);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public long calculateurFantome() {
+        return calculer(calculateurFantome);
+    }
+}
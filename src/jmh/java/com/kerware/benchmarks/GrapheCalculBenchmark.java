@@ -0,0 +1,117 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.CalculateurAbattement;
+import com.kerware.simulateurreusine.CalculateurContributionExceptionnelle;
+import com.kerware.simulateurreusine.CalculateurDecote;
+import com.kerware.simulateurreusine.CalculateurImpot;
+import com.kerware.simulateurreusine.CalculateurParts;
+import com.kerware.simulateurreusine.ContexteCalcul;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.EtapeCalcul;
+import com.kerware.simulateurreusine.GrapheCalcul;
+import com.kerware.simulateurreusine.PlafonneurImpot;
+import com.kerware.simulateurreusine.ReferentielBareme;
+import com.kerware.simulateurreusine.Simulateur;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks du graphe de calcul face à l'enchaînement qu'il remplace dans le
+ * simulateur : trois impôts bruts dont un écrasé, deux calculs du nombre de parts,
+ * un plafond de baisse recalculé dans le plafonnement et une contribution
+ * exceptionnelle recalculée par son accesseur. Chaque foyer est calculé puis ses
+ * valeurs lues comme le fait l'adaptateur ; les temps sont donnés par foyer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GrapheCalculBenchmark {
+    static final int TAILLE = 4096;
+
+    private final CalculateurParts calculateurParts = new CalculateurParts();
+    private final CalculateurAbattement calculateurAbattement = new CalculateurAbattement();
+    private final CalculateurImpot calculateurImpot = new CalculateurImpot();
+    private final PlafonneurImpot plafonneur = new PlafonneurImpot();
+    private final CalculateurDecote calculateurDecote = new CalculateurDecote();
+    private final CalculateurContributionExceptionnelle calculateurContribution =
+            new CalculateurContributionExceptionnelle();
+
+    private final Simulateur simulateur = new Simulateur();
+    private final ContexteCalcul contexte =
+            GrapheCalcul.standard().nouveauContexte(ReferentielBareme.global());
+
+    private DonneesFoyerFiscal[] foyers;
+
+    @Setup
+    public void preparer() {
+        foyers = PopulationFoyers.generer(TAILLE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void enchainementRedondant(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            SituationFamiliale situation = f.situationFamiliale();
+            double nombreParts = calculateurParts.calculerNombreParts(situation,
+                    f.nbEnfantsACharge(), f.nbEnfantsSituationHandicap(), f.parentIsole());
+            double abattement = calculateurAbattement.calculerAbattement(
+                    f.revenuNetDeclarant1(), f.revenuNetDeclarant2(), situation);
+            double revenuImposable = Math.max(0,
+                    f.revenuNetDeclarant1() + f.revenuNetDeclarant2() - abattement);
+            bh.consume(calculateurImpot.calculerImpotBrut(revenuImposable, nombreParts));
+            double partsDeclarants = situation.estCouple() ? 2.0 : 1.0;
+            double impotDeclarants =
+                    calculateurImpot.calculerImpotBrut(revenuImposable, partsDeclarants);
+            double nombrePartsTotal = calculateurParts.calculerNombreParts(situation,
+                    f.nbEnfantsACharge(), f.nbEnfantsSituationHandicap(), f.parentIsole());
+            double impotTotal =
+                    calculateurImpot.calculerImpotBrut(revenuImposable, nombrePartsTotal);
+            double impotPlafonne = plafonneur.calculerImpotPlafonne(impotDeclarants,
+                    impotTotal, nombrePartsTotal, partsDeclarants);
+            double decote = calculateurDecote.calculerDecote(impotPlafonne,
+                    situation.estCouple());
+            double contribution = calculateurContribution.calculerContribution(
+                    revenuImposable, situation.estCouple());
+            bh.consume(Math.round(impotPlafonne - decote + contribution));
+            bh.consume(calculateurContribution.calculerContribution(revenuImposable,
+                    situation.estCouple()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void grapheStandard(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            contexte.calculer(f);
+            bh.consume(Math.round(contexte.valeur(EtapeCalcul.IMPOT_NET)));
+            bh.consume(contexte.valeur(EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void simulateurReusine(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            bh.consume(simulateur.calculImpot(f.revenuNetDeclarant1(), f.revenuNetDeclarant2(),
+                    f.situationFamiliale(), f.nbEnfantsACharge(),
+                    f.nbEnfantsSituationHandicap(), f.parentIsole()));
+            bh.consume(simulateur.getContribExceptionnelle());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.kerware.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Point d'entrée du jar des benchmarks.
+ * Accepte les options habituelles de JMH et active toujours le profileur GC
+ * pour mesurer le débit d'allocation de chaque benchmark.
+ *
+ * <pre>
+ * mvn -P benchmarks package -DskipTests
+ * java -jar target/benchmarks.jar               # tous les benchmarks
+ * java -jar target/benchmarks.jar Etapes -f 1   # options JMH habituelles
+ * </pre>
+ */
+public final class LanceurBenchmarks {
+
+    private LanceurBenchmarks() {
+    }
+
+    /**
+     * Lance les benchmarks.
+     *
+     * @param args les options JMH
+     * @throws RunnerException si l'exécution échoue
+     * @throws CommandLineOptionException si les options sont invalides
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(options)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
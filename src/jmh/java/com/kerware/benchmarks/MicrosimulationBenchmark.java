@@ -0,0 +1,72 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.AgregatsMicrosimulation;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.FoyerPondere;
+import com.kerware.simulateurreusine.MicrosimulationImpot;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.ResultatCalculImpot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microsimulation d'un échantillon pondéré d'un million de foyers : passe parallèle
+ * avec agrégats exacts, face à une boucle séquentielle qui calcule chaque foyer avec
+ * le moteur et cumule l'impôt net pondéré en double. Les temps sont donnés par foyer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MicrosimulationBenchmark {
+    static final int TAILLE = 1 << 20;
+    private static final int POIDS_MAX = 2_000_000_000;
+    private static final double MILLIONIEMES = 1e6;
+
+    private final MicrosimulationImpot microsimulation = new MicrosimulationImpot();
+    private final MoteurCalculImpot moteur = new MoteurCalculImpot();
+
+    private List<FoyerPondere> echantillon;
+
+    @Setup
+    public void preparer() {
+        Random aleatoire = new Random(TAILLE);
+        echantillon = Arrays.stream(PopulationFoyers.generer(TAILLE))
+                .map(f -> new FoyerPondere(f, aleatoire.nextInt(POIDS_MAX) / MILLIONIEMES))
+                .toList();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public AgregatsMicrosimulation microsimulation() {
+        return microsimulation.simuler(echantillon.stream());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public double bouclePonderee() {
+        double impotNet = 0;
+        for (FoyerPondere foyerPondere : echantillon) {
+            DonneesFoyerFiscal foyer = foyerPondere.foyer();
+            ResultatCalculImpot resultat = moteur.calculer(foyer);
+            impotNet += foyerPondere.poids() * resultat.impotNet();
+        }
+        return impotNet;
+    }
+}
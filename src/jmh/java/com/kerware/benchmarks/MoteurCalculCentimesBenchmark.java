@@ -0,0 +1,62 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.LotFoyers;
+import com.kerware.simulateurreusine.LotResultats;
+import com.kerware.simulateurreusine.MoteurCalculCentimes;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul par lot en double ({@link MoteurCalculImpot}) et en centimes exacts
+ * ({@link MoteurCalculCentimes}) sur une population réaliste. Les temps sont donnés
+ * par foyer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoteurCalculCentimesBenchmark {
+    static final int TAILLE = 4096;
+
+    private final MoteurCalculImpot moteurDouble = new MoteurCalculImpot();
+    private final MoteurCalculCentimes moteurCentimes = new MoteurCalculCentimes();
+
+    private LotFoyers lot;
+    private LotResultats resultats;
+    private long[] impotsNets;
+
+    @Setup
+    public void preparer() {
+        lot = PopulationFoyers.genererLot(TAILLE);
+        resultats = LotResultats.allouer(TAILLE);
+        impotsNets = new long[TAILLE];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public double[] lotDouble() {
+        moteurDouble.calculerLot(lot, resultats);
+        return resultats.impotsNets();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public long[] lotCentimes() {
+        moteurCentimes.calculerLot(lot, 0, TAILLE, impotsNets);
+        return impotsNets;
+    }
+}
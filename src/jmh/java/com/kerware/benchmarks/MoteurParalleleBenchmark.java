@@ -0,0 +1,65 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.LotFoyers;
+import com.kerware.simulateurreusine.LotResultats;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.MoteurCalculParallele;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passage à l'échelle du moteur parallèle selon le nombre de threads,
+ * sur une population d'un million de foyers. Les temps sont donnés par foyer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoteurParalleleBenchmark {
+    static final int TAILLE = 1 << 20;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelisme;
+
+    private ForkJoinPool pool;
+    private MoteurCalculParallele moteurParallele;
+    private LotFoyers lot;
+    private LotResultats resultats;
+
+    @Setup
+    public void preparer() {
+        pool = new ForkJoinPool(parallelisme);
+        moteurParallele = new MoteurCalculParallele(new MoteurCalculImpot(), pool,
+                MoteurCalculParallele.TAILLE_BLOC_DEFAUT);
+        lot = PopulationFoyers.genererLot(TAILLE);
+        resultats = LotResultats.allouer(TAILLE);
+    }
+
+    @TearDown
+    public void terminer() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public LotResultats lotParallele() {
+        moteurParallele.calculerLot(lot, resultats);
+        return resultats;
+    }
+}
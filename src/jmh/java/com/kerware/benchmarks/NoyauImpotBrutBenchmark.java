@@ -0,0 +1,79 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.Bareme;
+import com.kerware.simulateurreusine.CalculateurAbattement;
+import com.kerware.simulateurreusine.CalculateurParts;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.NoyauImpotBrut;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Impôt brut d'un lot par le noyau scalaire et par le noyau vectoriel, sur les
+ * revenus imposables et les parts d'une population réaliste. Les temps sont donnés
+ * par foyer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class NoyauImpotBrutBenchmark {
+    static final int TAILLE = 4096;
+
+    private final Bareme bareme = Bareme.charger(Bareme.ANNEE_PAR_DEFAUT);
+    private final NoyauImpotBrut scalaire = NoyauImpotBrut.scalaire(bareme);
+    private final NoyauImpotBrut vectoriel = NoyauImpotBrut.pour(bareme);
+
+    private double[] revenusImposables;
+    private double[] nombresParts;
+    private double[] impotsBruts;
+
+    @Setup
+    public void preparer() {
+        if (!vectoriel.estVectoriel()) {
+            throw new IllegalStateException("Module jdk.incubator.vector absent");
+        }
+        CalculateurParts parts = new CalculateurParts();
+        CalculateurAbattement abattement = new CalculateurAbattement(bareme);
+        DonneesFoyerFiscal[] foyers = PopulationFoyers.generer(TAILLE);
+        revenusImposables = new double[TAILLE];
+        nombresParts = new double[TAILLE];
+        impotsBruts = new double[TAILLE];
+        for (int i = 0; i < TAILLE; i++) {
+            DonneesFoyerFiscal f = foyers[i];
+            nombresParts[i] = parts.calculerNombreParts(f.situationFamiliale(),
+                    f.nbEnfantsACharge(), f.nbEnfantsSituationHandicap(), f.parentIsole());
+            revenusImposables[i] = Math.max(0, f.revenuNetDeclarant1()
+                    + f.revenuNetDeclarant2() - abattement.calculerAbattement(
+                    f.revenuNetDeclarant1(), f.revenuNetDeclarant2(),
+                    f.situationFamiliale()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public double[] scalaire() {
+        scalaire.calculer(revenusImposables, nombresParts, impotsBruts, 0, TAILLE);
+        return impotsBruts;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public double[] vectoriel() {
+        vectoriel.calculer(revenusImposables, nombresParts, impotsBruts, 0, TAILLE);
+        return impotsBruts;
+    }
+}
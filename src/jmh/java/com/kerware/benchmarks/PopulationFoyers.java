@@ -0,0 +1,94 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.LotFoyers;
+import com.kerware.simulateurreusine.SituationFamiliale;
+
+import java.util.Random;
+
+/**
+ * Génère une population de foyers fiscaux réaliste et reproductible
+ * pour les benchmarks : répartition des situations familiales, du nombre
+ * d'enfants et des revenus (log-normale, médiane d'environ 25 000 euros).
+ */
+public final class PopulationFoyers {
+    private static final long GRAINE = 2024L;
+    private static final double MEDIANE_REVENU = 25_000;
+    private static final double DISPERSION_REVENU = 0.75;
+    private static final int REVENU_MAX = 2_000_000;
+
+    // Répartitions cumulées en pourcentage
+    private static final int[] CUMUL_SITUATIONS = {45, 53, 83, 95, 100};
+    private static final SituationFamiliale[] SITUATIONS = {
+            SituationFamiliale.CELIBATAIRE, SituationFamiliale.PACSE, SituationFamiliale.MARIE,
+            SituationFamiliale.DIVORCE, SituationFamiliale.VEUF
+    };
+    private static final int[] CUMUL_ENFANTS = {55, 75, 92, 98, 99, 100};
+    private static final int POURCENTAGE_HANDICAP = 3;
+    private static final int POURCENT = 100;
+
+    private PopulationFoyers() {
+    }
+
+    /**
+     * Génère {@code taille} foyers.
+     *
+     * @param taille le nombre de foyers
+     * @return les foyers générés
+     */
+    public static DonneesFoyerFiscal[] generer(int taille) {
+        Random aleatoire = new Random(GRAINE);
+        DonneesFoyerFiscal[] foyers = new DonneesFoyerFiscal[taille];
+        for (int i = 0; i < taille; i++) {
+            foyers[i] = genererFoyer(aleatoire);
+        }
+        return foyers;
+    }
+
+    /**
+     * Génère {@code taille} foyers rangés en colonnes.
+     *
+     * @param taille le nombre de foyers
+     * @return le lot de foyers généré
+     */
+    public static LotFoyers genererLot(int taille) {
+        DonneesFoyerFiscal[] foyers = generer(taille);
+        LotFoyers lot = LotFoyers.allouer(taille);
+        for (int i = 0; i < taille; i++) {
+            DonneesFoyerFiscal f = foyers[i];
+            lot.revenusDeclarant1()[i] = f.revenuNetDeclarant1();
+            lot.revenusDeclarant2()[i] = f.revenuNetDeclarant2();
+            lot.situations()[i] = (byte) f.situationFamiliale().ordinal();
+            lot.nbEnfants()[i] = (byte) f.nbEnfantsACharge();
+            lot.nbEnfantsHandicap()[i] = (byte) f.nbEnfantsSituationHandicap();
+            lot.parentsIsoles()[i] = f.parentIsole();
+        }
+        return lot;
+    }
+
+    private static DonneesFoyerFiscal genererFoyer(Random aleatoire) {
+        SituationFamiliale situation = SITUATIONS[tirer(aleatoire, CUMUL_SITUATIONS)];
+        int nbEnfants = tirer(aleatoire, CUMUL_ENFANTS);
+        int nbEnfantsHandicap = nbEnfants > 0
+                && aleatoire.nextInt(POURCENT) < POURCENTAGE_HANDICAP ? 1 : 0;
+        boolean parentIsole = !situation.estCouple() && nbEnfants > 0 && aleatoire.nextBoolean();
+        int revenu1 = tirerRevenu(aleatoire);
+        int revenu2 = situation.estCouple() ? tirerRevenu(aleatoire) : 0;
+        return new DonneesFoyerFiscal(revenu1, revenu2, situation, nbEnfants,
+                nbEnfantsHandicap, parentIsole);
+    }
+
+    private static int tirer(Random aleatoire, int[] cumuls) {
+        int tirage = aleatoire.nextInt(POURCENT);
+        int i = 0;
+        while (tirage >= cumuls[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int tirerRevenu(Random aleatoire) {
+        double revenu = MEDIANE_REVENU * Math.exp(DISPERSION_REVENU * aleatoire.nextGaussian());
+        return (int) Math.min(revenu, REVENU_MAX);
+    }
+}
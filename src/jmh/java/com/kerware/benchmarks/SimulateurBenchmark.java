@@ -0,0 +1,120 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.InstrumentationCalcul;
+import com.kerware.simulateurreusine.LotFoyers;
+import com.kerware.simulateurreusine.LotResultats;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.MoteurCalculImpotCache;
+import com.kerware.simulateurreusine.ReferentielBareme;
+import com.kerware.simulateurreusine.Simulateur;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de bout en bout des deux moteurs sur une population réaliste :
+ * simulateur legacy, simulateur reusine (seul puis instrumenté avec la période
+ * d'échantillonnage par défaut), moteur sans état, moteur avec cache
+ * (population entièrement en cache) et calcul par lot.
+ * Les temps sont donnés par foyer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulateurBenchmark {
+    static final int TAILLE = 4096;
+
+    private final com.kerware.simulateur.Simulateur simulateurLegacy =
+            new com.kerware.simulateur.Simulateur();
+    private final Simulateur simulateur = new Simulateur();
+    private final Simulateur simulateurInstrumente = new Simulateur(ReferentielBareme.global(),
+            new InstrumentationCalcul("benchmark"));
+    private final MoteurCalculImpot moteur = new MoteurCalculImpot();
+    private final MoteurCalculImpotCache moteurCache = new MoteurCalculImpotCache(4 * TAILLE);
+
+    private DonneesFoyerFiscal[] foyers;
+    private com.kerware.simulateur.SituationFamiliale[] situationsLegacy;
+    private LotFoyers lot;
+    private LotResultats resultats;
+
+    @Setup
+    public void preparer() {
+        foyers = PopulationFoyers.generer(TAILLE);
+        situationsLegacy = new com.kerware.simulateur.SituationFamiliale[TAILLE];
+        for (int i = 0; i < TAILLE; i++) {
+            situationsLegacy[i] = com.kerware.simulateur.SituationFamiliale.valueOf(
+                    foyers[i].situationFamiliale().name());
+        }
+        lot = PopulationFoyers.genererLot(TAILLE);
+        resultats = LotResultats.allouer(TAILLE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void simulateurLegacy(Blackhole bh) {
+        for (int i = 0; i < TAILLE; i++) {
+            DonneesFoyerFiscal f = foyers[i];
+            bh.consume(simulateurLegacy.calculImpot(f.revenuNetDeclarant1(),
+                    f.revenuNetDeclarant2(), situationsLegacy[i], f.nbEnfantsACharge(),
+                    f.nbEnfantsSituationHandicap(), f.parentIsole()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void simulateurReusine(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            bh.consume(simulateur.calculImpot(f.revenuNetDeclarant1(), f.revenuNetDeclarant2(),
+                    f.situationFamiliale(), f.nbEnfantsACharge(),
+                    f.nbEnfantsSituationHandicap(), f.parentIsole()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void simulateurInstrumente(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            bh.consume(simulateurInstrumente.calculImpot(f.revenuNetDeclarant1(),
+                    f.revenuNetDeclarant2(), f.situationFamiliale(), f.nbEnfantsACharge(),
+                    f.nbEnfantsSituationHandicap(), f.parentIsole()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void moteurSansEtat(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            bh.consume(moteur.calculer(f));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void moteurAvecCache(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            bh.consume(moteurCache.calculer(f));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public LotResultats moteurParLot() {
+        moteur.calculerLot(lot, resultats);
+        return resultats;
+    }
+}
@@ -0,0 +1,67 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.Bareme;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.ReferentielBareme;
+import com.kerware.simulateurreusine.SimulateurPluriannuel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks du calcul d'un foyer avec les barèmes 2023 et 2024 : un moteur par
+ * barème, appelés l'un après l'autre, face au simulateur pluriannuel qui ne fait
+ * qu'une fois ce qui ne dépend pas du barème. Les temps sont donnés par foyer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulateurPluriannuelBenchmark {
+    static final int TAILLE = 4096;
+
+    private final List<Bareme> baremes = List.of(Bareme.charger(2023), Bareme.charger(2024));
+    private final List<MoteurCalculImpot> moteurs = baremes.stream()
+            .map(bareme -> new MoteurCalculImpot(new ReferentielBareme(bareme))).toList();
+    private final SimulateurPluriannuel simulateur = new SimulateurPluriannuel(baremes);
+
+    private DonneesFoyerFiscal[] foyers;
+
+    @Setup
+    public void preparer() {
+        foyers = PopulationFoyers.generer(TAILLE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void unMoteurParBareme(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            for (MoteurCalculImpot moteur : moteurs) {
+                bh.consume(moteur.calculer(f));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void simulateurPluriannuel(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            bh.consume(simulateur.calculer(f));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.Simulateur;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import com.kerware.simulateurreusine.SolveurImpotInverse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revenu maximal avant de payer un impôt donné : inversion du barème par le
+ * solveur contre une dichotomie sur le simulateur.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SolveurImpotInverseBenchmark {
+    static final int REVENU_MAX = 10_000_000;
+
+    private static final DonneesFoyerFiscal PROFIL =
+            new DonneesFoyerFiscal(0, 25000, SituationFamiliale.MARIE, 2, 0, false);
+
+    @Param({"1500", "12000", "90000"})
+    private int impotVise;
+
+    private final SolveurImpotInverse solveur = new SolveurImpotInverse();
+    private final Simulateur simulateur = new Simulateur();
+
+    @Benchmark
+    public int solveur() {
+        return solveur.revenuMinimalPourImpot(PROFIL, impotVise) - 1;
+    }
+
+    @Benchmark
+    public int dichotomie() {
+        int bas = -1;
+        int haut = REVENU_MAX;
+        while (haut - bas > 1) {
+            int milieu = (bas + haut) >>> 1;
+            int impot = simulateur.calculImpot(milieu, PROFIL.revenuNetDeclarant2(),
+                    PROFIL.situationFamiliale(), PROFIL.nbEnfantsACharge(),
+                    PROFIL.nbEnfantsSituationHandicap(), PROFIL.parentIsole());
+            if (impot >= impotVise) {
+                haut = milieu;
+            } else {
+                bas = milieu;
+            }
+        }
+        return haut - 1;
+    }
+}
@@ -0,0 +1,95 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.Bareme;
+import com.kerware.simulateurreusine.CalculateurAbattement;
+import com.kerware.simulateurreusine.CalculateurImpot;
+import com.kerware.simulateurreusine.CalculateurParts;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.TableImpotBrut;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Impôt brut par la formule des tranches et par la table précalculée, sur les revenus
+ * imposables arrondis à l'euro d'une population réaliste. Les temps sont donnés par
+ * foyer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TableImpotBrutBenchmark {
+    static final int TAILLE = 4096;
+
+    private final Bareme bareme = Bareme.charger(Bareme.ANNEE_PAR_DEFAUT);
+    private final CalculateurImpot formule = new CalculateurImpot(bareme);
+    private CalculateurImpot calculateurTable;
+    private Path fichier;
+
+    private double[] revenusImposables;
+    private double[] nombresParts;
+
+    @Setup
+    public void preparer() throws IOException {
+        fichier = Files.createTempFile("impot-brut", ".bin");
+        calculateurTable = new CalculateurImpot(bareme, TableImpotBrut.ouvrirOuConstruire(
+                fichier, bareme, TableImpotBrut.REVENU_MAX_DEFAUT));
+
+        CalculateurParts parts = new CalculateurParts();
+        CalculateurAbattement abattement = new CalculateurAbattement(bareme);
+        DonneesFoyerFiscal[] foyers = PopulationFoyers.generer(TAILLE);
+        revenusImposables = new double[TAILLE];
+        nombresParts = new double[TAILLE];
+        for (int i = 0; i < TAILLE; i++) {
+            DonneesFoyerFiscal f = foyers[i];
+            nombresParts[i] = parts.calculerNombreParts(f.situationFamiliale(),
+                    f.nbEnfantsACharge(), f.nbEnfantsSituationHandicap(), f.parentIsole());
+            revenusImposables[i] = Math.max(0, Math.round(f.revenuNetDeclarant1()
+                    + f.revenuNetDeclarant2() - abattement.calculerAbattement(
+                    f.revenuNetDeclarant1(), f.revenuNetDeclarant2(),
+                    f.situationFamiliale())));
+        }
+    }
+
+    @TearDown
+    public void supprimer() throws IOException {
+        Files.deleteIfExists(fichier);
+    }
+
+    private double calculer(CalculateurImpot calculateur) {
+        double total = 0;
+        for (int i = 0; i < TAILLE; i++) {
+            total += calculateur.calculerImpotBrut(revenusImposables[i], nombresParts[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public double formule() {
+        return calculer(formule);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public double table() {
+        return calculer(calculateurTable);
+    }
+}
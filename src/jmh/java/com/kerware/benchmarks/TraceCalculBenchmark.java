@@ -0,0 +1,93 @@
+package com.kerware.benchmarks;
+
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.TraceCalcul;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de la trace des étapes, désactivée puis activée, pour les deux moteurs.
+ * Avec le profileur GC, les variantes sans trace doivent allouer autant que le
+ * calcul seul, et les variantes avec trace ne rien allouer de plus : la trace
+ * est réutilisée d'un foyer à l'autre.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TraceCalculBenchmark {
+    static final int TAILLE = 4096;
+
+    private final com.kerware.simulateur.Simulateur legacySansTrace =
+            new com.kerware.simulateur.Simulateur();
+    private final com.kerware.simulateur.Simulateur legacyAvecTrace =
+            new com.kerware.simulateur.Simulateur();
+    private final MoteurCalculImpot moteur = new MoteurCalculImpot();
+    private final TraceCalcul trace = new TraceCalcul();
+
+    private DonneesFoyerFiscal[] foyers;
+    private com.kerware.simulateur.SituationFamiliale[] situationsLegacy;
+
+    @Setup
+    public void preparer() {
+        foyers = PopulationFoyers.generer(TAILLE);
+        situationsLegacy = new com.kerware.simulateur.SituationFamiliale[TAILLE];
+        for (int i = 0; i < TAILLE; i++) {
+            situationsLegacy[i] = com.kerware.simulateur.SituationFamiliale.valueOf(
+                    foyers[i].situationFamiliale().name());
+        }
+        legacyAvecTrace.setTrace(new TraceCalcul());
+    }
+
+    private void calculerLegacy(com.kerware.simulateur.Simulateur simulateur, Blackhole bh) {
+        for (int i = 0; i < TAILLE; i++) {
+            DonneesFoyerFiscal f = foyers[i];
+            bh.consume(simulateur.calculImpot(f.revenuNetDeclarant1(),
+                    f.revenuNetDeclarant2(), situationsLegacy[i], f.nbEnfantsACharge(),
+                    f.nbEnfantsSituationHandicap(), f.parentIsole()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void legacySansTrace(Blackhole bh) {
+        calculerLegacy(legacySansTrace, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void legacyAvecTrace(Blackhole bh) {
+        calculerLegacy(legacyAvecTrace, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void moteurSansTrace(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            bh.consume(moteur.calculer(f, null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAILLE)
+    public void moteurAvecTrace(Blackhole bh) {
+        for (DonneesFoyerFiscal f : foyers) {
+            bh.consume(moteur.calculer(f, trace));
+        }
+    }
+}
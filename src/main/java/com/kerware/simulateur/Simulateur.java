@@ -1,5 +1,11 @@
 package com.kerware.simulateur;
 
+import com.kerware.simulateurreusine.Bareme;
+import com.kerware.simulateurreusine.BaremeCompile;
+import com.kerware.simulateurreusine.EtapeCalcul;
+import com.kerware.simulateurreusine.ReferentielBareme;
+import com.kerware.simulateurreusine.TraceCalcul;
+
 /**
  *  Cette classe permet de simuler le calcul de l'impôt sur le revenu
  *  en France pour l'année 2024 sur les revenus de l'année 2023 pour
@@ -24,64 +30,40 @@ package com.kerware.simulateur;
 public class Simulateur {
 
 
-    // Les limites des tranches de revenus imposables
-    private int l00 = 0 ;
-    private int l01 = 11294;
-    private int l02 = 28797;
-    private int l03 = 82341;
-    private int l04 = 177106;
-    private int l05 = Integer.MAX_VALUE;
-
-    private int[] limites = new int[6];
-
-    // Les taux d'imposition par tranche
-    private double t00 = 0.0;
-    private double t01 = 0.11;
-    private double t02 = 0.3;
-    private double t03 = 0.41;
-    private double t04 = 0.45;
-
-    private double[] taux = new double[5];
-
-    // Les limites des tranches pour la contribution exceptionnelle sur les hauts revenus
-    private int lce00 = 0;
-    private int lce01 = 250000;
-    private int lce02 = 500000;
-    private int lce03 = 1000000;
-    private int lce04 = Integer.MAX_VALUE;
-
-    private int[] limitesCEHR = new int[5];
+    // Le barème en vigueur, relu à chaque calcul
+    private final ReferentielBareme referentiel;
+    // Le barème dont les valeurs sont chargées dans les champs ci-dessous
+    private Bareme baremeCharge;
 
-    // Les taux de la contribution exceptionnelle sur les hauts revenus pour les celibataires
-    private double tce00 = 0.0;
-    private double tce01 = 0.03;
-    private double tce02 = 0.04;
-    private double tce03 = 0.04;
+    // Trace des étapes du calcul, null par défaut
+    private TraceCalcul trace;
 
-    private double[] tauxCEHRCelibataire = new double[4];
+    // Les limites des tranches de revenus imposables
+    private int[] limites;
 
-    // Les taux de la contribution exceptionnelle sur les hauts revenus pour les couples
-    private double tce00C = 0.0;
-    private double tce01C = 0.0;
-    private double tce02C = 0.03;
-    private double tce03C = 0.04;
+    // Les taux d'imposition par tranche
+    private double[] taux;
 
-    private double[] tauxCEHRCouple = new double[4];
+    // Les limites et taux de la contribution exceptionnelle sur les hauts revenus
+    private int[] limitesCEHRCelibataire;
+    private double[] tauxCEHRCelibataire;
+    private int[] limitesCEHRCouple;
+    private double[] tauxCEHRCouple;
 
     // Abattement
-    private  int lAbtMax = 14171;
-    private  int lAbtMin = 495;
-    private double tAbt = 0.1;
+    private long lAbtMax;
+    private long lAbtMin;
+    private double tAbt;
 
     // Plafond de baisse maximal par demi part
-    private double plafDemiPart = 1759;
+    private double plafDemiPart;
 
-    private double seuilDecoteDeclarantSeul = 1929;
-    private double seuilDecoteDeclarantCouple    = 3191;
+    private double seuilDecoteDeclarantSeul;
+    private double seuilDecoteDeclarantCouple;
 
-    private double decoteMaxDeclarantSeul = 873;
-    private double decoteMaxDeclarantCouple = 1444;
-    private double tauxDecote = 0.4525;
+    private double decoteMaxDeclarantSeul;
+    private double decoteMaxDeclarantCouple;
+    private double tauxDecote;
 
     // revenu net
     private int rNetDecl1 = 0;
@@ -117,6 +99,30 @@ public class Simulateur {
     // Contribution exceptionnelle sur les hauts revenus
     private double contribExceptionnelle = 0;
 
+    public Simulateur() {
+        this(ReferentielBareme.global());
+    }
+
+    public Simulateur(ReferentielBareme referentielBareme) {
+        this.referentiel = referentielBareme;
+    }
+
+    // Trace des étapes : remplie à chaque calcul tant qu'elle n'est pas null
+
+    public void setTrace( TraceCalcul traceCalcul ) {
+        trace = traceCalcul;
+    }
+
+    public TraceCalcul getTrace() {
+        return trace;
+    }
+
+    private void tracer( EtapeCalcul etape, double valeur ) {
+        if ( trace != null ) {
+            trace.enregistrer( etape, valeur );
+        }
+    }
+
     // Getters pour adapter le code legacy pour les tests unitaires
 
     public double getRevenuReference() {
@@ -204,39 +210,33 @@ public class Simulateur {
         nbEnfH = nbEnfantsHandicapes;
         parIso = parentIsol;
 
-        limites[0] = l00;
-        limites[1] = l01;
-        limites[2] = l02;
-        limites[3] = l03;
-        limites[4] = l04;
-        limites[5] = l05;
-
-        taux[0] = t00;
-        taux[1] = t01;
-        taux[2] = t02;
-        taux[3] = t03;
-        taux[4] = t04;
-
-        limitesCEHR[0] = lce00;
-        limitesCEHR[1] = lce01;
-        limitesCEHR[2] = lce02;
-        limitesCEHR[3] = lce03;
-        limitesCEHR[4] = lce04;
-
-        tauxCEHRCelibataire[0] = tce00;
-        tauxCEHRCelibataire[1] = tce01;
-        tauxCEHRCelibataire[2] = tce02;
-        tauxCEHRCelibataire[3] = tce03;
-
-        tauxCEHRCouple[0] = tce00C;
-        tauxCEHRCouple[1] = tce01C;
-        tauxCEHRCouple[2] = tce02C;
-        tauxCEHRCouple[3] = tce03C;
-
-        System.out.println("--------------------------------------------------");
-        System.out.println( "Revenu net declarant1 : " + rNetDecl1 );
-        System.out.println( "Revenu net declarant2 : " + rNetDecl2 );
-        System.out.println( "Situation familiale : " + sitFam.name() );
+        Bareme bareme = referentiel.getBareme();
+        if ( bareme != baremeCharge ) {
+            limites = limites( bareme.getImpot() );
+            taux = taux( bareme.getImpot() );
+
+            limitesCEHRCelibataire = limites( bareme.getContribution( false ) );
+            tauxCEHRCelibataire = taux( bareme.getContribution( false ) );
+            limitesCEHRCouple = limites( bareme.getContribution( true ) );
+            tauxCEHRCouple = taux( bareme.getContribution( true ) );
+
+            lAbtMax = (long) bareme.getAbattementMaximal();
+            lAbtMin = (long) bareme.getAbattementMinimal();
+            tAbt = bareme.getTauxAbattement();
+
+            plafDemiPart = bareme.getPlafondDemiPart();
+
+            seuilDecoteDeclarantSeul = bareme.getSeuilDecote( false );
+            seuilDecoteDeclarantCouple = bareme.getSeuilDecote( true );
+            decoteMaxDeclarantSeul = bareme.getMaximumDecote( false );
+            decoteMaxDeclarantCouple = bareme.getMaximumDecote( true );
+            tauxDecote = bareme.getTauxDecote();
+            baremeCharge = bareme;
+        }
+
+        if ( trace != null ) {
+            trace.reinitialiser();
+        }
 
         // Abattement
         // EXIGENCE : EXG_IMPOT_02
@@ -263,14 +263,14 @@ public class Simulateur {
         }
 
         abt = abt1 + abt2;
-        System.out.println( "Abattement : " + abt );
+        tracer( EtapeCalcul.ABATTEMENT, abt );
 
         rFRef = rNetDecl1 + revNetDecl2 - abt;
         if ( rFRef < 0 ) {
             rFRef = 0;
         }
 
-        System.out.println( "Revenu fiscal de référence : " + rFRef );
+        tracer( EtapeCalcul.REVENU_FISCAL_REFERENCE, rFRef );
 
 
         // parts déclarants
@@ -293,8 +293,7 @@ public class Simulateur {
                 break;
         }
 
-        System.out.println( "Nombre d'enfants  : " + nbEnf );
-        System.out.println( "Nombre d'enfants handicapés : " + nbEnfH );
+        tracer( EtapeCalcul.PARTS_DECLARANTS, nbPtsDecl );
 
         // parts enfants à charge
         if ( nbEnf <= 2 ) {
@@ -305,8 +304,6 @@ public class Simulateur {
 
         // parent isolé
 
-        System.out.println( "Parent isolé : " + parIso );
-
         if ( parIso ) {
             if ( nbEnf > 0 ){
                 nbPts = nbPts + 0.5;
@@ -321,32 +318,26 @@ public class Simulateur {
         // enfant handicapé
         nbPts = nbPts + nbEnfH * 0.5;
 
-        System.out.println( "Nombre de parts : " + nbPts );
+        tracer( EtapeCalcul.NOMBRE_PARTS, nbPts );
 
         // EXIGENCE : EXG_IMPOT_07:
         // Contribution exceptionnelle sur les hauts revenus
         contribExceptionnelle = 0;
+        int[] limitesCEHR = nbPtsDecl == 1 ? limitesCEHRCelibataire : limitesCEHRCouple;
+        double[] tauxCEHR = nbPtsDecl == 1 ? tauxCEHRCelibataire : tauxCEHRCouple;
         int i = 0;
         do {
             if ( rFRef >= limitesCEHR[i] && rFRef < limitesCEHR[i+1] ) {
-                if ( nbPtsDecl == 1 ) {
-                    contribExceptionnelle += ( rFRef - limitesCEHR[i] ) * tauxCEHRCelibataire[i];
-                } else {
-                    contribExceptionnelle += ( rFRef - limitesCEHR[i] ) * tauxCEHRCouple[i];
-                }
+                contribExceptionnelle += ( rFRef - limitesCEHR[i] ) * tauxCEHR[i];
                 break;
             } else {
-                if ( nbPtsDecl == 1 ) {
-                    contribExceptionnelle += ( limitesCEHR[i+1] - limitesCEHR[i] ) * tauxCEHRCelibataire[i];
-                } else {
-                    contribExceptionnelle += ( limitesCEHR[i+1] - limitesCEHR[i] ) * tauxCEHRCouple[i];
-                }
+                contribExceptionnelle += ( limitesCEHR[i+1] - limitesCEHR[i] ) * tauxCEHR[i];
             }
             i++;
-        } while( i < 5);
+        } while( i < tauxCEHR.length);
 
         contribExceptionnelle = Math.round( contribExceptionnelle );
-        System.out.println( "Contribution exceptionnelle sur les hauts revenus : " + contribExceptionnelle );
+        tracer( EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE, contribExceptionnelle );
 
         // Calcul impôt des declarants
         // EXIGENCE : EXG_IMPOT_04
@@ -363,12 +354,12 @@ public class Simulateur {
                 mImpDecl += ( limites[i+1] - limites[i] ) * taux[i];
             }
             i++;
-        } while( i < 5);
+        } while( i < taux.length);
 
         mImpDecl = mImpDecl * nbPtsDecl;
         mImpDecl = Math.round( mImpDecl );
 
-        System.out.println( "Impôt brut des déclarants : " + mImpDecl );
+        tracer( EtapeCalcul.IMPOT_BRUT_DECLARANTS, mImpDecl );
 
         // Calcul impôt foyer fiscal complet
         // EXIGENCE : EXG_IMPOT_04
@@ -384,12 +375,12 @@ public class Simulateur {
                 mImp += ( limites[i+1] - limites[i] ) * taux[i];
             }
             i++;
-        } while( i < 5);
+        } while( i < taux.length);
 
         mImp = mImp * nbPts;
         mImp = Math.round( mImp );
 
-        System.out.println( "Impôt brut du foyer fiscal complet : " + mImp );
+        tracer( EtapeCalcul.IMPOT_BRUT_FOYER, mImp );
 
         // Vérification de la baisse d'impôt autorisée
         // EXIGENCE : EXG_IMPOT_05
@@ -397,20 +388,18 @@ public class Simulateur {
 
         double baisseImpot = mImpDecl - mImp;
 
-        System.out.println( "Baisse d'impôt : " + baisseImpot );
-
         // dépassement plafond
         double ecartPts = nbPts - nbPtsDecl;
 
         double plafond = (ecartPts / 0.5) * plafDemiPart;
 
-        System.out.println( "Plafond de baisse autorisée " + plafond );
+        tracer( EtapeCalcul.PLAFOND_BAISSE, plafond );
 
         if ( baisseImpot >= plafond ) {
             mImp = mImpDecl - plafond;
         }
 
-        System.out.println( "Impôt brut après plafonnement avant decote : " + mImp );
+        tracer( EtapeCalcul.IMPOT_AVANT_DECOTE, mImp );
         mImpAvantDecote = mImp;
 
         // Calcul de la decote
@@ -434,7 +423,7 @@ public class Simulateur {
             decote = mImp;
         }
 
-        System.out.println( "Decote : " + decote );
+        tracer( EtapeCalcul.DECOTE, decote );
 
         mImp = mImp - decote;
 
@@ -442,12 +431,25 @@ public class Simulateur {
 
         mImp = Math.round( mImp );
 
-        System.out.println( "Impôt sur le revenu net final : " + mImp );
+        tracer( EtapeCalcul.IMPOT_NET, mImp );
         return  (int)mImp;
     }
 
+    // Bornes des tranches, suivies de la borne supérieure de la dernière tranche
+    private static int[] limites( BaremeCompile tranches ) {
+        int[] l = new int[tranches.nbSegments() + 1];
+        for ( int k = 0; k < tranches.nbSegments(); k++ ) {
+            l[k] = (int) tranches.abscisse( k );
+        }
+        l[tranches.nbSegments()] = (int) tranches.abscisseMax();
+        return l;
+    }
 
-
-
-
+    private static double[] taux( BaremeCompile tranches ) {
+        double[] t = new double[tranches.nbSegments()];
+        for ( int k = 0; k < tranches.nbSegments(); k++ ) {
+            t[k] = tranches.pente( k );
+        }
+        return t;
+    }
 }
@@ -1,8 +1,13 @@
 package com.kerware.simulateurreusine;
 
+/**
+ * Adaptateur {@link ICalculateurImpot} au-dessus du {@link MoteurCalculImpot} sans état.
+ * L'adaptateur conserve les saisies et le dernier résultat : une instance par appelant,
+ * le moteur pouvant lui être partagé.
+ */
 public class AdaptateurSimulateur implements ICalculateurImpot {
 
-    private final Simulateur simulateur = new Simulateur();
+    private final MoteurCalculImpot moteur;
 
     private int revenusNetDecl1 = 0;
     private int revenusNetDecl2 = 0;
@@ -10,6 +15,24 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
     private int nbEnfantsACharge;
     private int nbEnfantsSituationHandicap;
     private boolean parentIsole;
+    // Zone de travail réutilisée : un calcul n'alloue aucun objet
+    private final EtatCalcul resultat = new EtatCalcul();
+
+    /**
+     * Creates an adapter backed by its own calculation engine.
+     */
+    public AdaptateurSimulateur() {
+        this(new MoteurCalculImpot());
+    }
+
+    /**
+     * Creates an adapter backed by the given, possibly shared, calculation engine.
+     *
+     * @param moteurCalcul the stateless engine performing the calculations
+     */
+    public AdaptateurSimulateur(MoteurCalculImpot moteurCalcul) {
+        this.moteur = moteurCalcul;
+    }
 
 
     /**
@@ -80,7 +103,7 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
      * including both declarants' net incomes,
      * familial situation, number of dependents, number of disabled dependents,
      * and whether the parent is isolated, to determine the applicable tax.
-     * The computation is delegated to the underlying `simulateur` instance, which processes all
+     * The computation is delegated to the underlying `moteur` instance, which processes all
      * necessary validations, fiscal calculations, and adjustments such as abatements, decotes,
      * and contribution exceptions.
      * The calculated net taxes are based on information such as
@@ -93,8 +116,8 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
      */
     @Override
     public void calculImpotSurRevenuNet() {
-         simulateur.calculImpot(revenusNetDecl1, revenusNetDecl2,
-                 situationFamiliale, nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole);
+        moteur.calculer(revenusNetDecl1, revenusNetDecl2, situationFamiliale,
+                nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole, resultat);
     }
 
     /**
@@ -119,7 +142,7 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
 
     /**
      * Retrieves the exceptional contribution amount calculated for the taxpayer.
-     * The calculation is delegated to the underlying simulator, which evaluates
+     * The value comes from the last calculation result, which evaluates
      * the contribution based on taxable income and familial situation
      * (e.g., whether the taxpayer is part of a couple).
      *
@@ -127,21 +150,21 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
      */
     @Override
     public double getContribExceptionnelle() {
-        return simulateur.getContribExceptionnelle();
+        return resultat.getContributionExceptionnelle();
     }
 
     /**
-     * Retrieves the fiscal reference income calculated using the underlying simulator.
+     * Retrieves the fiscal reference income from the last calculation result.
      *
      * @return the fiscal reference income as an integer
      */
     @Override
     public int getRevenuFiscalReference() {
-        return (int)simulateur.getRevenuReference();
+        return (int) resultat.getRevenuFiscalReference();
     }
 
     /**
-     * Retrieves the abatement value calculated by the simulator.
+     * Retrieves the abatement value from the last calculation result.
      * This value represents a deduction applied during tax calculations
      * based on specific fiscal rules and the taxpayer's situation.
      *
@@ -149,7 +172,7 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
      */
     @Override
     public int getAbattement() {
-        return (int)simulateur.getAbattement();
+        return (int) resultat.getAbattement();
     }
 
     /**
@@ -163,36 +186,36 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
      */
     @Override
     public double getNbPartsFoyerFiscal() {
-        return simulateur.getNbParts();
+        return resultat.getNombreParts();
     }
 
     /**
      * Retrieves the gross income tax amount before applying any reductions (decote).
-     * The computation is delegated to the underlying simulateur instance.
+     * The value comes from the last calculation result.
      *
      * @return the gross income tax amount as an integer
      */
     @Override
     public int getImpotAvantDecote() {
-        return (int)simulateur.getImpotAvantDecote();
+        return (int) resultat.getImpotAvantDecote();
     }
 
     /**
      * Retrieves the amount of the "decote" (a reduction applied to the income tax amount
      * under certain conditions) as an integer.
-     * This value is calculated by the underlying simulator (`simulateur`) based on
+     * This value comes from the last calculation result, based on
      * fiscal rules and the taxpayer's situation.
      *
      * @return the "decote" amount as an integer
      */
     @Override
     public int getDecote() {
-        return (int)simulateur.getDecote();
+        return (int) resultat.getDecote();
     }
 
     /**
      * Retrieves the net income tax amount as an integer.
-     * This value is computed using the underlying simulator,
+     * This value comes from the last calculation result,
      * which takes into account all applicable fiscal regulations
      * and adjustments based on the taxpayer's situation (e.g.,
      * familial situation, dependents, abatements, etc.).
@@ -201,6 +224,6 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
      */
     @Override
     public int getImpotSurRevenuNet() {
-        return (int)simulateur.getImpotNet();
+        return (int) resultat.getImpotNet();
     }
 }
@@ -0,0 +1,214 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Adaptateur {@link ICalculateurImpot} qui ne calcule que ce qui est lu : chaque
+ * accesseur calcule l'étape qu'il retourne et celles dont elle dépend, à la première
+ * lecture, puis la garde jusqu'au prochain changement de saisie. Un appelant qui ne
+ * lit que le nombre de parts ne paie que le nombre de parts. Un appelant qui lit tout
+ * calcule aussi chaque étape une fois, mais en plusieurs passes et avec une
+ * vérification par lecture : il reste plus rapide avec {@link AdaptateurSimulateur}.
+ * {@link #calculImpotSurRevenuNet()} valide les saisies et lit le barème en vigueur
+ * sans rien calculer ; un accesseur lu après un changement de saisie sans nouvel
+ * appel le fait de lui-même. Les étapes que chaque accesseur calcule sont celles du
+ * graphe standard. Une instance par appelant.
+ */
+public final class AdaptateurSimulateurParesseux implements ICalculateurImpot {
+
+    // Données du foyer enregistré et valeurs des étapes déjà calculées pour lui
+    private final ContexteCalcul contexte;
+
+    private int revenusNetDecl1;
+    private int revenusNetDecl2;
+    private SituationFamiliale situationFamiliale;
+    private int nbEnfantsACharge;
+    private int nbEnfantsSituationHandicap;
+    private boolean parentIsole;
+    // Vrai si une saisie a changé depuis le dernier foyer enregistré
+    private boolean saisiesModifiees = true;
+
+    /**
+     * Crée un adaptateur paresseux sur le barème global.
+     */
+    public AdaptateurSimulateurParesseux() {
+        this(ReferentielBareme.global());
+    }
+
+    /**
+     * Crée un adaptateur paresseux sur un référentiel de barèmes.
+     *
+     * @param referentielBareme le référentiel qui fournit le barème en vigueur
+     */
+    public AdaptateurSimulateurParesseux(ReferentielBareme referentielBareme) {
+        this(referentielBareme, GrapheCalcul.standard());
+    }
+
+    /**
+     * Crée un adaptateur paresseux qui évalue un graphe dérivé du graphe standard.
+     *
+     * @param referentielBareme le référentiel qui fournit le barème en vigueur
+     * @param grapheCalcul le graphe dont les accesseurs retournent les étapes standard
+     */
+    public AdaptateurSimulateurParesseux(ReferentielBareme referentielBareme,
+                                         GrapheCalcul grapheCalcul) {
+        this.contexte = grapheCalcul.nouveauContexte(referentielBareme);
+    }
+
+    @Override
+    public void setRevenusNetDeclarant1(int rn) {
+        saisiesModifiees |= rn != revenusNetDecl1;
+        this.revenusNetDecl1 = rn;
+    }
+
+    @Override
+    public void setRevenusNetDeclarant2(int rn) {
+        saisiesModifiees |= rn != revenusNetDecl2;
+        this.revenusNetDecl2 = rn;
+    }
+
+    @Override
+    public void setSituationFamiliale(SituationFamiliale sf) {
+        saisiesModifiees |= sf != situationFamiliale;
+        this.situationFamiliale = sf;
+    }
+
+    @Override
+    public void setNbEnfantsACharge(int nbe) {
+        saisiesModifiees |= nbe != nbEnfantsACharge;
+        this.nbEnfantsACharge = nbe;
+    }
+
+    @Override
+    public void setNbEnfantsSituationHandicap(int nbesh) {
+        saisiesModifiees |= nbesh != nbEnfantsSituationHandicap;
+        this.nbEnfantsSituationHandicap = nbesh;
+    }
+
+    @Override
+    public void setParentIsole(boolean pi) {
+        saisiesModifiees |= pi != parentIsole;
+        this.parentIsole = pi;
+    }
+
+    /**
+     * Valide les saisies et lit le barème en vigueur ; les étapes sont calculées à la
+     * première lecture d'un accesseur qui en a besoin.
+     *
+     * @throws IllegalArgumentException si les saisies sont incohérentes
+     */
+    @Override
+    public void calculImpotSurRevenuNet() {
+        enregistrerFoyer();
+    }
+
+    private void enregistrerFoyer() {
+        DonneesFoyerFiscal.valider(revenusNetDecl1, revenusNetDecl2, situationFamiliale,
+                nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole);
+        contexte.initialiser(revenusNetDecl1, revenusNetDecl2, situationFamiliale,
+                nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole);
+        saisiesModifiees = false;
+    }
+
+    // Valeur d'une étape, calculée avec ses prérequis à la première lecture
+    private double exiger(EtapeCalcul etape) {
+        if (saisiesModifiees) {
+            enregistrerFoyer();
+        }
+        return contexte.exiger(etape);
+    }
+
+    /**
+     * Retourne le revenu net saisi du premier déclarant, sans rien calculer.
+     *
+     * @return le revenu net du premier déclarant
+     */
+    @Override
+    public int getRevenuNetDeclatant1() {
+        return revenusNetDecl1;
+    }
+
+    /**
+     * Retourne le revenu net saisi du second déclarant, sans rien calculer.
+     *
+     * @return le revenu net du second déclarant
+     */
+    @Override
+    public int getRevenuNetDeclatant2() {
+        return revenusNetDecl2;
+    }
+
+    /**
+     * Retourne la contribution exceptionnelle sur les hauts revenus. Calcule au besoin
+     * l'abattement, le revenu fiscal de référence et la contribution.
+     *
+     * @return la contribution exceptionnelle, sans troncature
+     */
+    @Override
+    public double getContribExceptionnelle() {
+        return exiger(EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE);
+    }
+
+    /**
+     * Retourne le revenu fiscal de référence. Calcule au besoin l'abattement et le
+     * revenu fiscal de référence.
+     *
+     * @return le revenu fiscal de référence, tronqué en entier
+     */
+    @Override
+    public int getRevenuFiscalReference() {
+        return (int) exiger(EtapeCalcul.REVENU_FISCAL_REFERENCE);
+    }
+
+    /**
+     * Retourne l'abattement. Ne calcule que l'abattement.
+     *
+     * @return l'abattement, tronqué en entier
+     */
+    @Override
+    public int getAbattement() {
+        return (int) exiger(EtapeCalcul.ABATTEMENT);
+    }
+
+    /**
+     * Retourne le nombre de parts du foyer fiscal. Ne calcule que le nombre de parts.
+     *
+     * @return le nombre de parts
+     */
+    @Override
+    public double getNbPartsFoyerFiscal() {
+        return exiger(EtapeCalcul.NOMBRE_PARTS);
+    }
+
+    /**
+     * Retourne l'impôt après plafonnement, avant décote. Calcule au besoin l'abattement,
+     * le revenu fiscal de référence, les parts des déclarants et du foyer, les impôts
+     * bruts, le plafond de baisse et l'impôt avant décote, mais ni la décote ni la
+     * contribution exceptionnelle.
+     *
+     * @return l'impôt avant décote, tronqué en entier
+     */
+    @Override
+    public int getImpotAvantDecote() {
+        return (int) exiger(EtapeCalcul.IMPOT_AVANT_DECOTE);
+    }
+
+    /**
+     * Retourne la décote. Calcule au besoin les étapes de l'impôt avant décote, puis
+     * la décote, mais pas la contribution exceptionnelle.
+     *
+     * @return la décote, tronquée en entier
+     */
+    @Override
+    public int getDecote() {
+        return (int) exiger(EtapeCalcul.DECOTE);
+    }
+
+    /**
+     * Retourne l'impôt sur le revenu net. Calcule au besoin toutes les étapes.
+     *
+     * @return l'impôt net, tronqué en entier
+     */
+    @Override
+    public int getImpotSurRevenuNet() {
+        return (int) exiger(EtapeCalcul.IMPOT_NET);
+    }
+}
@@ -0,0 +1,196 @@
+package com.kerware.simulateurreusine;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Agrégats pondérés d'une microsimulation, par situation familiale et nombre d'enfants.
+ * Les montants sont cumulés en centimes multipliés par des poids en millionièmes, sur
+ * des entiers de 128 bits : les cumuls sont exacts, donc la fusion est associative et
+ * commutative, et le résultat ne dépend ni de l'ordre des foyers ni du découpage du
+ * calcul parallèle. La taille des agrégats ne dépend pas du nombre de foyers.
+ * Une instance retournée par {@link MicrosimulationImpot} n'est plus modifiée.
+ */
+public final class AgregatsMicrosimulation {
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+    private static final int NB_GROUPES_ENFANTS = Simulateur.NB_ENFANTS_MAX + 1;
+    private static final int NB_GROUPES = SITUATIONS.length * NB_GROUPES_ENFANTS;
+
+    // Effectifs d'un groupe
+    private static final int FOYERS = 0;
+    private static final int IMPOSABLES = 1;
+    private static final int NB_EFFECTIFS = 2;
+
+    // Sommes d'un groupe, chacune sur deux long : poids forts puis poids faibles
+    private static final int POIDS = 0;
+    private static final int POIDS_IMPOSABLES = 2;
+    private static final int IMPOT_BRUT = 4;
+    private static final int DECOTE = 6;
+    private static final int CONTRIBUTION = 8;
+    private static final int IMPOT_NET = 10;
+    private static final int NB_SOMMES = 12;
+
+    private static final double CENTIMES = 100;
+    private static final int DECIMALES_POIDS = 6;
+    private static final int DECIMALES_MONTANTS = 8;
+
+    private final long[] effectifs = new long[NB_GROUPES * NB_EFFECTIFS];
+    private final long[] sommes = new long[NB_GROUPES * NB_SOMMES];
+
+    AgregatsMicrosimulation() {
+    }
+
+    // Cumule un foyer calculé, de poids en millionièmes
+    void ajouter(SituationFamiliale situation, int nbEnfants, EtatCalcul etat, long poids) {
+        int groupe = situation.ordinal() * NB_GROUPES_ENFANTS + nbEnfants;
+        boolean imposable = etat.getImpotNet() > 0;
+        effectifs[groupe * NB_EFFECTIFS + FOYERS]++;
+        int base = groupe * NB_SOMMES;
+        ajouterProduit(base + POIDS, 1, poids);
+        ajouterProduit(base + IMPOT_BRUT, centimes(etat.getImpotAvantDecote()), poids);
+        ajouterProduit(base + DECOTE, centimes(etat.getDecote()), poids);
+        ajouterProduit(base + CONTRIBUTION, centimes(etat.getContributionExceptionnelle()), poids);
+        ajouterProduit(base + IMPOT_NET, centimes(etat.getImpotNet()), poids);
+        if (imposable) {
+            effectifs[groupe * NB_EFFECTIFS + IMPOSABLES]++;
+            ajouterProduit(base + POIDS_IMPOSABLES, 1, poids);
+        }
+    }
+
+    // Ajoute les agrégats d'une autre instance à celle-ci
+    void cumuler(AgregatsMicrosimulation autre) {
+        for (int i = 0; i < effectifs.length; i++) {
+            effectifs[i] += autre.effectifs[i];
+        }
+        for (int i = 0; i < sommes.length; i += 2) {
+            ajouter(sommes, i, autre.sommes[i], autre.sommes[i + 1]);
+        }
+    }
+
+    private static long centimes(double montant) {
+        return Math.round(montant * CENTIMES);
+    }
+
+    private void ajouterProduit(int indice, long montant, long poids) {
+        ajouter(sommes, indice, Math.multiplyHigh(montant, poids), montant * poids);
+    }
+
+    // Addition sur 128 bits, avec la retenue des poids faibles
+    private static void ajouter(long[] cumuls, int indice, long fort, long faible) {
+        long somme = cumuls[indice + 1] + faible;
+        cumuls[indice] += fort + (Long.compareUnsigned(somme, faible) < 0 ? 1 : 0);
+        cumuls[indice + 1] = somme;
+    }
+
+    /**
+     * Retourne de nouveaux agrégats qui cumulent ceux-ci et ceux d'une autre
+     * microsimulation, par exemple sur une autre partie de l'échantillon.
+     *
+     * @param autre les agrégats à ajouter
+     * @return les agrégats des deux microsimulations
+     */
+    public AgregatsMicrosimulation fusionner(AgregatsMicrosimulation autre) {
+        AgregatsMicrosimulation fusion = new AgregatsMicrosimulation();
+        fusion.cumuler(this);
+        fusion.cumuler(autre);
+        return fusion;
+    }
+
+    /**
+     * Retourne les totaux de tous les foyers.
+     *
+     * @return les totaux pondérés
+     */
+    public TotauxMicrosimulation total() {
+        return totaliser(0, SITUATIONS.length, 0, NB_GROUPES_ENFANTS);
+    }
+
+    /**
+     * Retourne les totaux des foyers d'une situation familiale.
+     *
+     * @param situation la situation familiale
+     * @return les totaux pondérés
+     */
+    public TotauxMicrosimulation parSituation(SituationFamiliale situation) {
+        return totaliser(situation.ordinal(), situation.ordinal() + 1, 0, NB_GROUPES_ENFANTS);
+    }
+
+    /**
+     * Retourne les totaux des foyers qui ont un nombre donné d'enfants à charge.
+     *
+     * @param nbEnfants le nombre d'enfants à charge
+     * @return les totaux pondérés
+     * @throws IllegalArgumentException si le nombre d'enfants est hors des limites
+     */
+    public TotauxMicrosimulation parNbEnfants(int nbEnfants) {
+        verifierNbEnfants(nbEnfants);
+        return totaliser(0, SITUATIONS.length, nbEnfants, nbEnfants + 1);
+    }
+
+    /**
+     * Retourne les totaux des foyers d'une situation familiale avec un nombre donné
+     * d'enfants à charge.
+     *
+     * @param situation la situation familiale
+     * @param nbEnfants le nombre d'enfants à charge
+     * @return les totaux pondérés
+     * @throws IllegalArgumentException si le nombre d'enfants est hors des limites
+     */
+    public TotauxMicrosimulation pour(SituationFamiliale situation, int nbEnfants) {
+        verifierNbEnfants(nbEnfants);
+        return totaliser(situation.ordinal(), situation.ordinal() + 1, nbEnfants, nbEnfants + 1);
+    }
+
+    private static void verifierNbEnfants(int nbEnfants) {
+        if (nbEnfants < 0 || nbEnfants > Simulateur.NB_ENFANTS_MAX) {
+            throw new IllegalArgumentException("Le nombre d'enfants doit être entre 0 et "
+                    + Simulateur.NB_ENFANTS_MAX);
+        }
+    }
+
+    private TotauxMicrosimulation totaliser(int premiereSituation, int finSituations,
+                                            int premierNbEnfants, int finNbEnfants) {
+        long[] effectifsGroupes = new long[NB_EFFECTIFS];
+        long[] sommesGroupes = new long[NB_SOMMES];
+        for (int s = premiereSituation; s < finSituations; s++) {
+            for (int e = premierNbEnfants; e < finNbEnfants; e++) {
+                int groupe = s * NB_GROUPES_ENFANTS + e;
+                for (int i = 0; i < NB_EFFECTIFS; i++) {
+                    effectifsGroupes[i] += effectifs[groupe * NB_EFFECTIFS + i];
+                }
+                for (int i = 0; i < NB_SOMMES; i += 2) {
+                    ajouter(sommesGroupes, i, sommes[groupe * NB_SOMMES + i],
+                            sommes[groupe * NB_SOMMES + i + 1]);
+                }
+            }
+        }
+        return new TotauxMicrosimulation(effectifsGroupes[FOYERS], effectifsGroupes[IMPOSABLES],
+                enDouble(sommesGroupes, POIDS, DECIMALES_POIDS),
+                enDouble(sommesGroupes, POIDS_IMPOSABLES, DECIMALES_POIDS),
+                enDouble(sommesGroupes, IMPOT_BRUT, DECIMALES_MONTANTS),
+                enDouble(sommesGroupes, DECOTE, DECIMALES_MONTANTS),
+                enDouble(sommesGroupes, CONTRIBUTION, DECIMALES_MONTANTS),
+                enDouble(sommesGroupes, IMPOT_NET, DECIMALES_MONTANTS));
+    }
+
+    // Valeur exacte de l'entier de 128 bits, divisée par 10^decimales puis arrondie
+    private static double enDouble(long[] cumuls, int indice, int decimales) {
+        BigInteger valeur = BigInteger.valueOf(cumuls[indice]).shiftLeft(Long.SIZE)
+                .add(new BigInteger(Long.toUnsignedString(cumuls[indice + 1])));
+        return new BigDecimal(valeur, decimales).doubleValue();
+    }
+
+    @Override
+    public boolean equals(Object autre) {
+        return autre instanceof AgregatsMicrosimulation agregats
+                && Arrays.equals(effectifs, agregats.effectifs)
+                && Arrays.equals(sommes, agregats.sommes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(Arrays.hashCode(effectifs), Arrays.hashCode(sommes));
+    }
+}
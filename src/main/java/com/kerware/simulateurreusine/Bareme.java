@@ -0,0 +1,246 @@
+package com.kerware.simulateurreusine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/**
+ * Barème de l'impôt d'une année fiscale : tranches d'imposition, abattement,
+ * plafonnement du quotient familial, décote et contribution exceptionnelle.
+ * Un barème est lu et validé une seule fois depuis un fichier de propriétés,
+ * puis ses fonctions par tranches sont compilées en {@link BaremeCompile}.
+ * Il est immuable : une même instance est partagée par tous les calculateurs.
+ */
+public final class Bareme {
+    /** Année fiscale du barème chargé par défaut. */
+    public static final int ANNEE_PAR_DEFAUT = 2024;
+
+    private static final String RESSOURCE = "/baremes/bareme-%d.properties";
+    private static final String SEPARATEUR = ",";
+
+    private final int annee;
+    private final BaremeCompile impot;
+    private final double tauxAbattement;
+    private final double abattementMinimal;
+    private final double abattementMaximal;
+    private final double revenuMinimalAbattementDeclarant2;
+    private final double plafondDemiPart;
+    private final double seuilDecoteSeul;
+    private final double maximumDecoteSeul;
+    private final double seuilDecoteCouple;
+    private final double maximumDecoteCouple;
+    private final double tauxDecote;
+    private final BaremeCompile decoteSeul;
+    private final BaremeCompile decoteCouple;
+    private final BaremeCompile contributionSeul;
+    private final BaremeCompile contributionCouple;
+
+    private Bareme(Properties proprietes) {
+        this.annee = (int) lireMontant(proprietes, "annee");
+        this.impot = lireTranches(proprietes, "impot");
+        this.tauxAbattement = lireTaux(proprietes, "abattement.taux");
+        this.abattementMinimal = lireMontant(proprietes, "abattement.minimum");
+        this.abattementMaximal = lireMontant(proprietes, "abattement.maximum");
+        this.revenuMinimalAbattementDeclarant2 =
+                lireMontant(proprietes, "abattement.revenuMinimalDeclarant2");
+        this.plafondDemiPart = lireMontant(proprietes, "plafonnement.demiPart");
+        this.seuilDecoteSeul = lireMontant(proprietes, "decote.seul.seuil");
+        this.maximumDecoteSeul = lireMontant(proprietes, "decote.seul.maximum");
+        this.seuilDecoteCouple = lireMontant(proprietes, "decote.couple.seuil");
+        this.maximumDecoteCouple = lireMontant(proprietes, "decote.couple.maximum");
+        this.tauxDecote = lireTaux(proprietes, "decote.taux");
+        this.contributionSeul = lireTranches(proprietes, "contribution.seul");
+        this.contributionCouple = lireTranches(proprietes, "contribution.couple");
+
+        if (abattementMinimal > abattementMaximal) {
+            throw invalide("l'abattement minimum dépasse l'abattement maximum");
+        }
+        if (seuilDecoteSeul <= 0 || seuilDecoteCouple <= 0) {
+            throw invalide("les seuils de décote doivent être positifs");
+        }
+        // Décote = maximum - taux * impôt brut sous le seuil, nulle au-delà
+        this.decoteSeul = BaremeCompile.depuisSegments(new double[] {0, seuilDecoteSeul},
+                new double[] {maximumDecoteSeul, 0}, new double[] {-tauxDecote, 0});
+        this.decoteCouple = BaremeCompile.depuisSegments(new double[] {0, seuilDecoteCouple},
+                new double[] {maximumDecoteCouple, 0}, new double[] {-tauxDecote, 0});
+    }
+
+    /**
+     * Charge le barème d'une année depuis les ressources de l'application.
+     *
+     * @param anneeFiscale l'année fiscale du barème
+     * @return le barème validé
+     * @throws IllegalArgumentException si aucun barème n'existe pour cette année
+     *                                  ou si le barème est invalide
+     */
+    public static Bareme charger(int anneeFiscale) {
+        String ressource = String.format(RESSOURCE, anneeFiscale);
+        try (InputStream flux = Bareme.class.getResourceAsStream(ressource)) {
+            if (flux == null) {
+                throw new IllegalArgumentException("Aucun barème pour l'année " + anneeFiscale);
+            }
+            Properties proprietes = new Properties();
+            try (Reader lecteur = new InputStreamReader(flux, StandardCharsets.UTF_8)) {
+                proprietes.load(lecteur);
+            }
+            Bareme bareme = new Bareme(proprietes);
+            if (bareme.annee != anneeFiscale) {
+                throw bareme.invalide("le fichier " + ressource + " ne porte pas sur "
+                        + anneeFiscale);
+            }
+            return bareme;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du barème " + anneeFiscale + " impossible", e);
+        }
+    }
+
+    /**
+     * Construit un barème à partir de ses propriétés, au format des fichiers de barème.
+     *
+     * @param proprietes les propriétés du barème
+     * @return le barème validé
+     * @throws IllegalArgumentException si une propriété manque ou est invalide
+     */
+    public static Bareme depuisProprietes(Properties proprietes) {
+        return new Bareme(proprietes);
+    }
+
+    private static String lire(Properties proprietes, String cle) {
+        String valeur = proprietes.getProperty(cle);
+        if (valeur == null || valeur.isBlank()) {
+            throw new IllegalArgumentException("Barème : propriété manquante " + cle);
+        }
+        return valeur.trim();
+    }
+
+    private static double lireNombre(String cle, String valeur) {
+        try {
+            return Double.parseDouble(valeur.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Barème : valeur invalide pour " + cle
+                    + " (" + valeur + ")", e);
+        }
+    }
+
+    private static double lireMontant(Properties proprietes, String cle) {
+        double montant = lireNombre(cle, lire(proprietes, cle));
+        if (!(montant >= 0) || Double.isInfinite(montant)) {
+            throw new IllegalArgumentException("Barème : montant invalide pour " + cle);
+        }
+        return montant;
+    }
+
+    private static double lireTaux(Properties proprietes, String cle) {
+        double taux = lireNombre(cle, lire(proprietes, cle));
+        if (!(taux >= 0 && taux <= 1)) {
+            throw new IllegalArgumentException("Barème : taux hors de [0, 1] pour " + cle);
+        }
+        return taux;
+    }
+
+    private static BaremeCompile lireTranches(Properties proprietes, String prefixe) {
+        String[] bornes = lire(proprietes, prefixe + ".bornes").split(SEPARATEUR);
+        String[] taux = lire(proprietes, prefixe + ".taux").split(SEPARATEUR);
+        if (bornes.length != taux.length) {
+            throw new IllegalArgumentException("Barème : " + prefixe
+                    + " doit avoir autant de bornes que de taux");
+        }
+        int[] bornesInferieures = new int[bornes.length];
+        double[] tauxTranches = new double[taux.length];
+        for (int i = 0; i < bornes.length; i++) {
+            double borne = lireNombre(prefixe + ".bornes", bornes[i]);
+            if (borne != Math.rint(borne) || borne < 0 || borne >= Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Barème : borne invalide pour " + prefixe);
+            }
+            bornesInferieures[i] = (int) borne;
+            tauxTranches[i] = lireNombre(prefixe + ".taux", taux[i]);
+            if (!(tauxTranches[i] >= 0 && tauxTranches[i] <= 1)) {
+                throw new IllegalArgumentException("Barème : taux hors de [0, 1] pour " + prefixe);
+            }
+        }
+        if (bornesInferieures[0] != 0) {
+            throw new IllegalArgumentException("Barème : la première tranche de " + prefixe
+                    + " doit commencer à 0");
+        }
+        try {
+            return BaremeCompile.depuisTranches(bornesInferieures, tauxTranches,
+                    Integer.MAX_VALUE);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Barème : " + prefixe + " : " + e.getMessage(), e);
+        }
+    }
+
+    private IllegalArgumentException invalide(String message) {
+        return new IllegalArgumentException("Barème " + annee + " : " + message);
+    }
+
+    public int getAnnee() {
+        return annee;
+    }
+
+    /**
+     * Retourne l'impôt d'une part en fonction du revenu imposable par part.
+     */
+    public BaremeCompile getImpot() {
+        return impot;
+    }
+
+    public double getTauxAbattement() {
+        return tauxAbattement;
+    }
+
+    public double getAbattementMinimal() {
+        return abattementMinimal;
+    }
+
+    public double getAbattementMaximal() {
+        return abattementMaximal;
+    }
+
+    /**
+     * Retourne le revenu du second déclarant au-delà duquel il bénéficie de l'abattement.
+     */
+    public double getRevenuMinimalAbattementDeclarant2() {
+        return revenuMinimalAbattementDeclarant2;
+    }
+
+    public double getPlafondDemiPart() {
+        return plafondDemiPart;
+    }
+
+    public double getSeuilDecote(boolean estCouple) {
+        return estCouple ? seuilDecoteCouple : seuilDecoteSeul;
+    }
+
+    public double getMaximumDecote(boolean estCouple) {
+        return estCouple ? maximumDecoteCouple : maximumDecoteSeul;
+    }
+
+    public double getTauxDecote() {
+        return tauxDecote;
+    }
+
+    /**
+     * Retourne la décote, avant arrondi, en fonction de l'impôt brut.
+     */
+    public BaremeCompile getDecote(boolean estCouple) {
+        return estCouple ? decoteCouple : decoteSeul;
+    }
+
+    /**
+     * Retourne la contribution exceptionnelle, avant arrondi, en fonction du
+     * revenu fiscal de référence.
+     */
+    public BaremeCompile getContribution(boolean estCouple) {
+        return estCouple ? contributionCouple : contributionSeul;
+    }
+
+    @Override
+    public String toString() {
+        return "Bareme[annee=" + annee + "]";
+    }
+}
@@ -0,0 +1,100 @@
+package com.kerware.simulateurreusine;
+
+import static com.kerware.simulateurreusine.BaremeEntier.CENTIMES;
+import static com.kerware.simulateurreusine.BaremeEntier.ECHELLE_TAUX;
+import static com.kerware.simulateurreusine.BaremeEntier.entier;
+
+/**
+ * Règles d'un {@link Bareme} converties pour le calcul en centimes de
+ * {@link MoteurCalculCentimes}. Tous les montants sont en centimes et les taux en
+ * millionièmes ; chaque arrondi est explicite et suit celui du moteur reusine.
+ */
+final class BaremeCentimes {
+    private final Bareme bareme;
+    private final BaremeEntier impot;
+    private final BaremeEntier decoteSeul;
+    private final BaremeEntier decoteCouple;
+    private final BaremeEntier contributionSeul;
+    private final BaremeEntier contributionCouple;
+    private final long tauxAbattement;
+    private final long abattementMinimal;
+    private final long abattementMaximal;
+    private final long revenuMinimalAbattementDeclarant2;
+    private final long plafondDemiPart;
+
+    BaremeCentimes(Bareme source) {
+        this.bareme = source;
+        this.impot = BaremeEntier.depuis(source.getImpot());
+        this.decoteSeul = BaremeEntier.depuis(source.getDecote(false));
+        this.decoteCouple = BaremeEntier.depuis(source.getDecote(true));
+        this.contributionSeul = BaremeEntier.depuis(source.getContribution(false));
+        this.contributionCouple = BaremeEntier.depuis(source.getContribution(true));
+        this.tauxAbattement =
+                entier(source.getTauxAbattement() * ECHELLE_TAUX, "taux d'abattement");
+        this.abattementMinimal =
+                entier(source.getAbattementMinimal() * CENTIMES, "abattement minimal");
+        this.abattementMaximal =
+                entier(source.getAbattementMaximal() * CENTIMES, "abattement maximal");
+        this.revenuMinimalAbattementDeclarant2 =
+                entier(source.getRevenuMinimalAbattementDeclarant2() * CENTIMES,
+                        "revenu minimal d'abattement");
+        this.plafondDemiPart =
+                entier(source.getPlafondDemiPart() * CENTIMES, "plafond par demi-part");
+    }
+
+    Bareme getBareme() {
+        return bareme;
+    }
+
+    /**
+     * Abattement total, arrondi au centime le plus proche pour chaque déclarant.
+     */
+    long abattement(long revenu1, long revenu2, boolean estCouple) {
+        long abattement1 = abattementIndividuel(revenu1);
+        long abattement2 = estCouple && revenu2 > revenuMinimalAbattementDeclarant2
+                ? abattementIndividuel(revenu2) : 0;
+        return abattement1 + abattement2;
+    }
+
+    private long abattementIndividuel(long revenu) {
+        long abattement = Math.floorDiv(revenu * tauxAbattement + ECHELLE_TAUX / 2,
+                ECHELLE_TAUX);
+        return Math.max(abattementMinimal, Math.min(abattement, abattementMaximal));
+    }
+
+    /**
+     * Impôt brut du quotient familial, arrondi à l'euro, sans division par les parts.
+     */
+    long impotBrut(long revenuImposable, int demiParts) {
+        return BaremeEntier.arrondirEuroMoitie(impot.evaluerDouble(revenuImposable, demiParts));
+    }
+
+    /**
+     * Impôt après plafonnement de la baisse due aux demi-parts supplémentaires.
+     */
+    long impotPlafonne(long impotBrutDeclarants, long impotBrutFoyer, int demiParts,
+                       int demiPartsDeclarants) {
+        long plafond = (demiParts - demiPartsDeclarants) * plafondDemiPart;
+        if (impotBrutDeclarants - impotBrutFoyer >= plafond) {
+            return impotBrutDeclarants - plafond;
+        }
+        return impotBrutFoyer;
+    }
+
+    /**
+     * Décote arrondie à l'euro, au plus égale à l'impôt.
+     */
+    long decote(long impotAvantDecote, boolean estCouple) {
+        BaremeEntier decote = estCouple ? decoteCouple : decoteSeul;
+        return Math.min(BaremeEntier.arrondirEuro(decote.evaluer(impotAvantDecote)),
+                impotAvantDecote);
+    }
+
+    /**
+     * Contribution exceptionnelle sur les hauts revenus, arrondie à l'euro.
+     */
+    long contribution(long revenuFiscalReference, boolean estCouple) {
+        BaremeEntier contribution = estCouple ? contributionCouple : contributionSeul;
+        return BaremeEntier.arrondirEuro(contribution.evaluer(revenuFiscalReference));
+    }
+}
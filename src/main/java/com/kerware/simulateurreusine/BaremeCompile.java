@@ -0,0 +1,226 @@
+package com.kerware.simulateurreusine;
+
+import java.util.Arrays;
+
+/**
+ * Fonction linéaire par morceaux précompilée, utilisée pour les barèmes.
+ * Chaque segment commence à une abscisse et porte la valeur de la fonction à
+ * cette abscisse ainsi que sa pente. L'évaluation se limite à la recherche
+ * du segment, dans un tableau entrelacé parcouru depuis le premier segment
+ * (les barèmes n'en comptent que quelques-uns et la plupart des revenus
+ * tombent dans les premiers), suivie d'une seule multiplication-addition.
+ * Pour un barème par tranches, la valeur à chaque borne est le cumul des
+ * tranches précédentes, calculé dans le même ordre que le parcours des
+ * tranches : les résultats sont identiques au bit près.
+ */
+public final class BaremeCompile {
+    private static final int TAILLE_SEGMENT = 3;
+
+    private final double[] abscisses;
+    private final double[] ordonnees;
+    private final double[] pentes;
+    private final double abscisseMax;
+    // Segments entrelacés (abscisse, ordonnée, pente) pour l'évaluation
+    private final double[] segments;
+
+    private BaremeCompile(double[] debutsSegments, double[] valeurs, double[] coefficients,
+                          double borneMax) {
+        for (int i = 1; i < debutsSegments.length; i++) {
+            if (!(debutsSegments[i] > debutsSegments[i - 1])) {
+                throw new IllegalArgumentException(
+                        "Les bornes du barème doivent être strictement croissantes");
+            }
+        }
+        if (debutsSegments.length == 0 || valeurs.length != debutsSegments.length
+                || coefficients.length != debutsSegments.length
+                || !(borneMax > debutsSegments[debutsSegments.length - 1])) {
+            throw new IllegalArgumentException("Barème incohérent");
+        }
+        this.abscisses = debutsSegments;
+        this.ordonnees = valeurs;
+        this.pentes = coefficients;
+        this.abscisseMax = borneMax;
+        this.segments = new double[debutsSegments.length * TAILLE_SEGMENT];
+        for (int k = 0; k < debutsSegments.length; k++) {
+            segments[k * TAILLE_SEGMENT] = debutsSegments[k];
+            segments[k * TAILLE_SEGMENT + 1] = valeurs[k];
+            segments[k * TAILLE_SEGMENT + 2] = coefficients[k];
+        }
+    }
+
+    /**
+     * Compile un barème par tranches : chaque tranche, de sa borne inférieure
+     * à la suivante, est imposée à son taux.
+     *
+     * @param bornesInferieures les bornes inférieures des tranches, croissantes
+     * @param taux le taux de chaque tranche
+     * @param borneSuperieure la borne supérieure de la dernière tranche
+     * @return le barème compilé
+     */
+    public static BaremeCompile depuisTranches(int[] bornesInferieures, double[] taux,
+                                               int borneSuperieure) {
+        int n = bornesInferieures.length;
+        if (taux.length != n) {
+            throw new IllegalArgumentException("Une tranche doit avoir un taux");
+        }
+        double[] debuts = new double[n];
+        double[] cumuls = new double[n];
+        double cumul = 0;
+        for (int i = 0; i < n; i++) {
+            debuts[i] = bornesInferieures[i];
+            cumuls[i] = cumul;
+            int borneSuivante = i + 1 < n ? bornesInferieures[i + 1] : borneSuperieure;
+            cumul += ((double) borneSuivante - bornesInferieures[i]) * taux[i];
+        }
+        return new BaremeCompile(debuts, cumuls, taux.clone(), borneSuperieure);
+    }
+
+    /**
+     * Compile une fonction à partir de ses segments, sans borne supérieure.
+     *
+     * @param debutsSegments l'abscisse de début de chaque segment, croissante
+     * @param valeurs la valeur de la fonction au début de chaque segment
+     * @param coefficients la pente de chaque segment
+     * @return la fonction compilée
+     */
+    public static BaremeCompile depuisSegments(double[] debutsSegments, double[] valeurs,
+                                               double[] coefficients) {
+        return new BaremeCompile(debutsSegments.clone(), valeurs.clone(), coefficients.clone(),
+                Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Évalue la fonction. En dessous de la première abscisse, la fonction vaut sa
+     * valeur à cette abscisse ; au-delà de la borne supérieure, sa valeur à la borne.
+     *
+     * @param x l'abscisse
+     * @return la valeur de la fonction en x
+     */
+    public double evaluer(double x) {
+        double[] s = segments;
+        double borne = x;
+        if (borne < s[0]) {
+            borne = s[0];
+        } else if (borne > abscisseMax) {
+            borne = abscisseMax;
+        }
+        int k = 0;
+        int dernier = s.length - TAILLE_SEGMENT;
+        while (k < dernier && s[k + TAILLE_SEGMENT] <= borne) {
+            k += TAILLE_SEGMENT;
+        }
+        return s[k + 1] + (borne - s[k]) * s[k + 2];
+    }
+
+    /**
+     * Évalue la fonction sur un segment déjà connu, par exemple suivi avec
+     * {@link #avancer(int, double)}. Le résultat est identique à {@link #evaluer(double)}
+     * lorsque le segment est celui qui contient x.
+     *
+     * @param x l'abscisse
+     * @param k l'indice du segment contenant x
+     * @return la valeur de la fonction en x
+     */
+    public double evaluer(double x, int k) {
+        double borne = x;
+        if (borne < abscisses[0]) {
+            borne = abscisses[0];
+        } else if (borne > abscisseMax) {
+            borne = abscisseMax;
+        }
+        return ordonnees[k] + (borne - abscisses[k]) * pentes[k];
+    }
+
+    /**
+     * Déplace un curseur de segment jusqu'au segment contenant x. Pour une suite
+     * d'abscisses croissantes, le parcours complet coûte au plus le nombre de
+     * segments en plus d'une comparaison par abscisse.
+     *
+     * @param k le segment courant du curseur
+     * @param x la nouvelle abscisse
+     * @return l'indice du segment contenant x
+     */
+    public int avancer(int k, double x) {
+        int segment = k;
+        while (segment + 1 < abscisses.length && abscisses[segment + 1] <= x) {
+            segment++;
+        }
+        while (segment > 0 && abscisses[segment] > x) {
+            segment--;
+        }
+        return segment;
+    }
+
+    /**
+     * Retourne l'indice du segment contenant x : le dernier segment dont
+     * l'abscisse de début est inférieure ou égale à x, ou 0.
+     *
+     * @param x l'abscisse
+     * @return l'indice du segment
+     */
+    public int segment(double x) {
+        int k = 0;
+        for (int pas = Integer.highestOneBit(abscisses.length); pas > 0; pas >>= 1) {
+            int candidat = k + pas;
+            if (candidat < abscisses.length && abscisses[candidat] <= x) {
+                k = candidat;
+            }
+        }
+        return k;
+    }
+
+    /**
+     * Retourne le nombre de segments.
+     *
+     * @return le nombre de segments
+     */
+    public int nbSegments() {
+        return abscisses.length;
+    }
+
+    /**
+     * Retourne l'abscisse de début d'un segment.
+     *
+     * @param k l'indice du segment
+     * @return l'abscisse de début du segment
+     */
+    public double abscisse(int k) {
+        return abscisses[k];
+    }
+
+    /**
+     * Retourne la valeur de la fonction au début d'un segment.
+     *
+     * @param k l'indice du segment
+     * @return la valeur au début du segment
+     */
+    public double ordonnee(int k) {
+        return ordonnees[k];
+    }
+
+    /**
+     * Retourne la pente d'un segment.
+     *
+     * @param k l'indice du segment
+     * @return la pente du segment
+     */
+    public double pente(int k) {
+        return pentes[k];
+    }
+
+    /**
+     * Retourne la borne supérieure du domaine de la fonction.
+     *
+     * @return la borne supérieure, éventuellement infinie
+     */
+    public double abscisseMax() {
+        return abscisseMax;
+    }
+
+    @Override
+    public String toString() {
+        return "BaremeCompile[abscisses=" + Arrays.toString(abscisses)
+                + ", ordonnees=" + Arrays.toString(ordonnees)
+                + ", pentes=" + Arrays.toString(pentes) + "]";
+    }
+}
@@ -0,0 +1,127 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Fonction linéaire par morceaux d'un {@link BaremeCompile}, convertie en entiers
+ * exacts : abscisses en centimes, pentes en millionièmes et valeurs en millionièmes
+ * de centime. Un produit pente × centimes est ainsi directement une valeur, sans
+ * arrondi. Pour des montants issus de revenus {@code int}, aucun calcul ne dépasse
+ * la capacité d'un {@code long}.
+ */
+final class BaremeEntier {
+    /** Nombre de millionièmes dans une unité de taux. */
+    static final long ECHELLE_TAUX = 1_000_000;
+    /** Nombre de centimes dans un euro. */
+    static final long CENTIMES = 100;
+    /** Nombre de millionièmes de centime dans un euro. */
+    static final long UNITE_EURO = CENTIMES * ECHELLE_TAUX;
+
+    // Écart toléré entre un nombre du barème et son équivalent entier
+    private static final double TOLERANCE = 1e-3;
+
+    private final long[] abscisses;
+    private final long[] ordonnees;
+    private final long[] pentes;
+
+    private BaremeEntier(long[] debutsSegments, long[] valeurs, long[] coefficients) {
+        this.abscisses = debutsSegments;
+        this.ordonnees = valeurs;
+        this.pentes = coefficients;
+    }
+
+    /**
+     * Convertit une fonction compilée. Une borne supérieure finie devient un dernier
+     * segment de pente nulle, comme la valeur constante de
+     * {@link BaremeCompile#evaluer(double)} au-delà de la borne.
+     *
+     * @throws IllegalArgumentException si une abscisse n'est pas un nombre entier de
+     *                                  centimes ou une pente pas un nombre entier de
+     *                                  millionièmes
+     */
+    static BaremeEntier depuis(BaremeCompile bareme) {
+        int n = bareme.nbSegments();
+        boolean borne = bareme.abscisseMax() != Double.POSITIVE_INFINITY;
+        int taille = borne ? n + 1 : n;
+        long[] abscisses = new long[taille];
+        long[] ordonnees = new long[taille];
+        long[] pentes = new long[taille];
+        for (int k = 0; k < n; k++) {
+            abscisses[k] = entier(bareme.abscisse(k) * CENTIMES, "abscisse");
+            ordonnees[k] = entier(bareme.ordonnee(k) * UNITE_EURO, "valeur");
+            pentes[k] = entier(bareme.pente(k) * ECHELLE_TAUX, "taux");
+        }
+        if (borne) {
+            abscisses[n] = entier(bareme.abscisseMax() * CENTIMES, "abscisse");
+            ordonnees[n] = ordonnees[n - 1] + pentes[n - 1] * (abscisses[n] - abscisses[n - 1]);
+        }
+        return new BaremeEntier(abscisses, ordonnees, pentes);
+    }
+
+    // Valeur entière, à l'imprécision de la lecture décimale près
+    static long entier(double valeur, String nature) {
+        double arrondi = Math.rint(valeur);
+        if (Math.abs(valeur - arrondi) > TOLERANCE || Math.abs(arrondi) >= Long.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Barème non représentable en entiers : " + nature + " " + valeur);
+        }
+        return (long) arrondi;
+    }
+
+    /**
+     * Évalue la fonction en un montant.
+     *
+     * @param centimes le montant en centimes
+     * @return la valeur en millionièmes de centime
+     */
+    long evaluer(long centimes) {
+        if (centimes < abscisses[0]) {
+            return ordonnees[0];
+        }
+        int k = 0;
+        while (k + 1 < abscisses.length && abscisses[k + 1] <= centimes) {
+            k++;
+        }
+        return ordonnees[k] + pentes[k] * (centimes - abscisses[k]);
+    }
+
+    /**
+     * Évalue la fonction par part pour l'ensemble des parts, sans division : pour
+     * {@code p} parts, {@code p × f(R / p)} vaut {@code p × y + t × (R - p × x)} sur le
+     * segment {@code (x, y, t)}, qui se choisit en comparant {@code R} à {@code p × x}.
+     * Avec {@code 2p} demi-parts, tous ces produits restent entiers.
+     *
+     * @param centimes le montant total en centimes
+     * @param demiParts le nombre de demi-parts
+     * @return le double de la valeur en millionièmes de centime
+     */
+    long evaluerDouble(long centimes, int demiParts) {
+        long deuxMontants = 2 * centimes;
+        if (deuxMontants < demiParts * abscisses[0]) {
+            return demiParts * ordonnees[0];
+        }
+        int k = 0;
+        while (k + 1 < abscisses.length && demiParts * abscisses[k + 1] <= deuxMontants) {
+            k++;
+        }
+        return demiParts * ordonnees[k] + pentes[k] * (deuxMontants - demiParts * abscisses[k]);
+    }
+
+    /**
+     * Arrondit à l'euro le plus proche, les demis vers le haut comme {@link Math#round}.
+     *
+     * @param valeur une valeur en millionièmes de centime
+     * @return la valeur arrondie, en centimes
+     */
+    static long arrondirEuro(long valeur) {
+        return Math.floorDiv(valeur + UNITE_EURO / 2, UNITE_EURO) * CENTIMES;
+    }
+
+    /**
+     * Arrondit à l'euro le plus proche la moitié d'une valeur.
+     *
+     * @param valeurDouble le double d'une valeur en millionièmes de centime
+     * @return la valeur arrondie, en centimes
+     */
+    static long arrondirEuroMoitie(long valeurDouble) {
+        return Math.floorDiv(valeurDouble + UNITE_EURO, 2 * UNITE_EURO) * CENTIMES;
+    }
+}
@@ -4,27 +4,54 @@ package com.kerware.simulateurreusine;
  * Calcule l'abattement fiscal selon les règles en vigueur
  */
 public class CalculateurAbattement {
-    // Constantes pour les abattements
-    private static final int REVENU_MINIMAL = 4950;
-    private static final int MONTANT_MINIMAL = 495;
-    private static final int MONTANT_MAXIMAL = 14171;
-    private static final double TAUX = 0.1;
+    private final double revenuMinimal;
+    private final double montantMinimal;
+    private final double montantMaximal;
+    private final double taux;
+
+    /**
+     * Crée un calculateur sur le barème en vigueur du référentiel global.
+     */
+    public CalculateurAbattement() {
+        this(ReferentielBareme.global().getBareme());
+    }
+
+    /**
+     * Crée un calculateur sur les règles d'abattement d'un barème.
+     *
+     * @param bareme le barème de l'année
+     */
+    public CalculateurAbattement(Bareme bareme) {
+        this.revenuMinimal = bareme.getRevenuMinimalAbattementDeclarant2();
+        this.montantMinimal = bareme.getAbattementMinimal();
+        this.montantMaximal = bareme.getAbattementMaximal();
+        this.taux = bareme.getTauxAbattement();
+    }
 
     /**
      * Calcule l'abattement total pour le foyer fiscal
      */
     public double calculerAbattement(FoyerFiscal foyer) {
-        double abattement1 = calculerAbattementIndividuel(foyer.getRevenuNetDeclarant1());
-        double abattement2 = foyer.getSituationFamiliale().estCouple() &&
-                             foyer.getRevenuNetDeclarant2() > REVENU_MINIMAL ?
-                calculerAbattementIndividuel(foyer.getRevenuNetDeclarant2()) : 0;
+        return calculerAbattement(foyer.getRevenuNetDeclarant1(),
+                foyer.getRevenuNetDeclarant2(), foyer.getSituationFamiliale());
+    }
+
+    /**
+     * Calcule l'abattement total à partir des revenus des déclarants
+     */
+    public double calculerAbattement(int revenuNetDeclarant1, int revenuNetDeclarant2,
+                                     SituationFamiliale situation) {
+        double abattement1 = calculerAbattementIndividuel(revenuNetDeclarant1);
+        double abattement2 = situation.estCouple() &&
+                             revenuNetDeclarant2 > revenuMinimal ?
+                calculerAbattementIndividuel(revenuNetDeclarant2) : 0;
 
         return abattement1 + abattement2;
     }
 
     private double calculerAbattementIndividuel(int revenu) {
-        double abattement = revenu * TAUX;
-        return Math.max(MONTANT_MINIMAL,
-                Math.min(abattement, MONTANT_MAXIMAL));
+        double abattement = revenu * taux;
+        return Math.max(montantMinimal,
+                Math.min(abattement, montantMaximal));
     }
 }
\ No newline at end of file
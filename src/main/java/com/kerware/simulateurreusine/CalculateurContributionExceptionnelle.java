@@ -4,18 +4,25 @@ package com.kerware.simulateurreusine;
  * Calculateur de la contribution exceptionnelle sur les hauts revenus
  */
 public class CalculateurContributionExceptionnelle {
-    private static final ContributionTranche[] TRANCHES_CELIBATAIRE = {
-            new ContributionTranche(0, 250000, 0.0),
-            new ContributionTranche(250000, 500000, 0.03),
-            new ContributionTranche(500000, 1000000, 0.04),
-            new ContributionTranche(1000000, Integer.MAX_VALUE, 0.04)
-    };
+    private final BaremeCompile baremeCelibataire;
+    private final BaremeCompile baremeCouple;
 
-    private static final ContributionTranche[] TRANCHES_COUPLE = {
-            new ContributionTranche(0, 500000, 0.0),
-            new ContributionTranche(500000, 1000000, 0.03),
-            new ContributionTranche(1000000, Integer.MAX_VALUE, 0.04)
-    };
+    /**
+     * Crée un calculateur sur le barème en vigueur du référentiel global.
+     */
+    public CalculateurContributionExceptionnelle() {
+        this(ReferentielBareme.global().getBareme());
+    }
+
+    /**
+     * Crée un calculateur sur les tranches de contribution d'un barème.
+     *
+     * @param bareme le barème de l'année
+     */
+    public CalculateurContributionExceptionnelle(Bareme bareme) {
+        this.baremeCelibataire = bareme.getContribution(false);
+        this.baremeCouple = bareme.getContribution(true);
+    }
 
     /**
      * Calcule la contribution exceptionnelle sur les hauts revenus en fonction
@@ -27,19 +34,7 @@ public class CalculateurContributionExceptionnelle {
      * @return le montant de la contribution exceptionnelle arrondi
      */
     public double calculerContribution(double revenuFiscalReference, boolean estCouple) {
-        ContributionTranche[] tranches = estCouple ? TRANCHES_COUPLE : TRANCHES_CELIBATAIRE;
-        double contribution = 0;
-
-        for (ContributionTranche tranche : tranches) {
-            if (revenuFiscalReference > tranche.min) {
-                double revenuDansLaTranche = Math.min(revenuFiscalReference, tranche.max)
-                                             - tranche.min;
-                contribution += revenuDansLaTranche * tranche.taux;
-            }
-        }
-
-        return Math.round(contribution);
+        BaremeCompile bareme = estCouple ? baremeCouple : baremeCelibataire;
+        return Math.round(bareme.evaluer(revenuFiscalReference));
     }
-
-    private record ContributionTranche(int min, int max, double taux) {}
-}
\ No newline at end of file
+}
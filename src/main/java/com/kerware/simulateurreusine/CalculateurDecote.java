@@ -4,24 +4,32 @@ package com.kerware.simulateurreusine;
  * Calculateur de la décote fiscale
  */
 public class CalculateurDecote {
-    private static final double SEUIL_DECLARANT_SEUL = 1929;
-    private static final double SEUIL_DECLARANT_COUPLE = 3191;
-    private static final double MAXIMUM_DECLARANT_SEUL = 873;
-    private static final double MAXIMUM_DECLARANT_COUPLE = 1444;
-    private static final double TAUX_DECOTE = 0.4525;
+    // Décote = maximum - taux * impôt brut sous le seuil, nulle au-delà
+    private final BaremeCompile decoteSeul;
+    private final BaremeCompile decoteCouple;
 
     /**
-     * Calcule la décote selon la situation familiale
+     * Crée un calculateur sur le barème en vigueur du référentiel global.
      */
-    public double calculerDecote(double impotBrut, boolean estCouple) {
-        double seuil = estCouple ? SEUIL_DECLARANT_COUPLE : SEUIL_DECLARANT_SEUL;
-        double maximum = estCouple ? MAXIMUM_DECLARANT_COUPLE : MAXIMUM_DECLARANT_SEUL;
+    public CalculateurDecote() {
+        this(ReferentielBareme.global().getBareme());
+    }
 
-        if (impotBrut < seuil) {
-            double decote = maximum - (impotBrut * TAUX_DECOTE);
-            return Math.min(Math.round(decote), impotBrut);
-        }
+    /**
+     * Crée un calculateur sur la décote d'un barème.
+     *
+     * @param bareme le barème de l'année
+     */
+    public CalculateurDecote(Bareme bareme) {
+        this.decoteSeul = bareme.getDecote(false);
+        this.decoteCouple = bareme.getDecote(true);
+    }
 
-        return 0;
+    /**
+     * Calcule la décote selon la situation familiale
+     */
+    public double calculerDecote(double impotBrut, boolean estCouple) {
+        BaremeCompile decote = estCouple ? decoteCouple : decoteSeul;
+        return Math.min(Math.round(decote.evaluer(impotBrut)), impotBrut);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,140 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Calculateur {@link ICalculateurImpot} qui délègue au calculateur principal et soumet
+ * un échantillon de ses calculs à une {@link ExecutionFantome}. Entre deux calculs
+ * échantillonnés, le surcoût est un décrément de compteur ; un calcul échantillonné
+ * copie en plus les valeurs du résultat avant de les soumettre, sans attendre.
+ * Comme l'adaptateur, une instance par appelant ; l'exécution fantôme est partagée.
+ */
+public final class CalculateurFantome implements ICalculateurImpot {
+
+    private final ICalculateurImpot principal;
+    private final ExecutionFantome execution;
+
+    private int revenusNetDecl1;
+    private int revenusNetDecl2;
+    private SituationFamiliale situationFamiliale;
+    private int nbEnfantsACharge;
+    private int nbEnfantsSituationHandicap;
+    private boolean parentIsole;
+    // Calculs restant avant le prochain calcul comparé
+    private int calculsAvantComparaison;
+
+    /**
+     * Crée un calculateur fantôme sur un adaptateur reusine.
+     *
+     * @param executionFantome l'exécution fantôme partagée
+     */
+    public CalculateurFantome(ExecutionFantome executionFantome) {
+        this(new AdaptateurSimulateur(), executionFantome);
+    }
+
+    /**
+     * Crée un calculateur fantôme.
+     *
+     * @param calculateurPrincipal le calculateur dont les résultats sont retournés
+     * @param executionFantome l'exécution fantôme partagée
+     */
+    public CalculateurFantome(ICalculateurImpot calculateurPrincipal,
+                              ExecutionFantome executionFantome) {
+        this.principal = calculateurPrincipal;
+        this.execution = executionFantome;
+        this.calculsAvantComparaison = executionFantome.getPeriodeEchantillonnage();
+    }
+
+    @Override
+    public void setRevenusNetDeclarant1(int rn) {
+        principal.setRevenusNetDeclarant1(rn);
+        this.revenusNetDecl1 = rn;
+    }
+
+    @Override
+    public void setRevenusNetDeclarant2(int rn) {
+        principal.setRevenusNetDeclarant2(rn);
+        this.revenusNetDecl2 = rn;
+    }
+
+    @Override
+    public void setSituationFamiliale(SituationFamiliale sf) {
+        principal.setSituationFamiliale(sf);
+        this.situationFamiliale = sf;
+    }
+
+    @Override
+    public void setNbEnfantsACharge(int nbe) {
+        principal.setNbEnfantsACharge(nbe);
+        this.nbEnfantsACharge = nbe;
+    }
+
+    @Override
+    public void setNbEnfantsSituationHandicap(int nbesh) {
+        principal.setNbEnfantsSituationHandicap(nbesh);
+        this.nbEnfantsSituationHandicap = nbesh;
+    }
+
+    @Override
+    public void setParentIsole(boolean pi) {
+        principal.setParentIsole(pi);
+        this.parentIsole = pi;
+    }
+
+    /**
+     * Calcule avec le calculateur principal ; un calcul qui échoue n'est pas comparé.
+     */
+    @Override
+    public void calculImpotSurRevenuNet() {
+        principal.calculImpotSurRevenuNet();
+        if (--calculsAvantComparaison <= 0) {
+            calculsAvantComparaison = execution.getPeriodeEchantillonnage();
+            execution.soumettre(revenusNetDecl1, revenusNetDecl2, situationFamiliale,
+                    nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole,
+                    ValeurComparee.lire(principal));
+        }
+    }
+
+    @Override
+    public int getRevenuNetDeclatant1() {
+        return principal.getRevenuNetDeclatant1();
+    }
+
+    @Override
+    public int getRevenuNetDeclatant2() {
+        return principal.getRevenuNetDeclatant2();
+    }
+
+    @Override
+    public double getContribExceptionnelle() {
+        return principal.getContribExceptionnelle();
+    }
+
+    @Override
+    public int getRevenuFiscalReference() {
+        return principal.getRevenuFiscalReference();
+    }
+
+    @Override
+    public int getAbattement() {
+        return principal.getAbattement();
+    }
+
+    @Override
+    public double getNbPartsFoyerFiscal() {
+        return principal.getNbPartsFoyerFiscal();
+    }
+
+    @Override
+    public int getImpotAvantDecote() {
+        return principal.getImpotAvantDecote();
+    }
+
+    @Override
+    public int getDecote() {
+        return principal.getDecote();
+    }
+
+    @Override
+    public int getImpotSurRevenuNet() {
+        return principal.getImpotSurRevenuNet();
+    }
+}
@@ -4,13 +4,41 @@ package com.kerware.simulateurreusine;
  * Calculateur de l'impôt brut selon les tranches d'imposition
  */
 public class CalculateurImpot {
-    private static final Tranche[] TRANCHES = {
-            new Tranche(0, 11294, 0.0),
-            new Tranche(11294, 28797, 0.11),
-            new Tranche(28797, 82341, 0.30),
-            new Tranche(82341, 177106, 0.41),
-            new Tranche(177106, Integer.MAX_VALUE, 0.45)
-    };
+    private final BaremeCompile tranches;
+    private final TableImpotBrut table;
+
+    /**
+     * Crée un calculateur sur le barème en vigueur du référentiel global.
+     */
+    public CalculateurImpot() {
+        this(ReferentielBareme.global().getBareme());
+    }
+
+    /**
+     * Crée un calculateur sur les tranches d'un barème.
+     *
+     * @param bareme le barème de l'année
+     */
+    public CalculateurImpot(Bareme bareme) {
+        this.tranches = bareme.getImpot();
+        this.table = null;
+    }
+
+    /**
+     * Crée un calculateur qui lit l'impôt brut dans une table précalculée, et
+     * applique la formule hors de la table.
+     *
+     * @param bareme le barème de l'année
+     * @param tableImpot la table construite pour ce barème
+     * @throws IllegalArgumentException si la table a été construite pour un autre barème
+     */
+    public CalculateurImpot(Bareme bareme, TableImpotBrut tableImpot) {
+        if (!tableImpot.correspondA(bareme)) {
+            throw new IllegalArgumentException("Table d'impôt brut d'un autre barème");
+        }
+        this.tranches = bareme.getImpot();
+        this.table = tableImpot;
+    }
 
     /**
      * Calcule l'impôt brut selon les tranches d'imposition
@@ -19,18 +47,15 @@ public class CalculateurImpot {
      * @return Montant de l'impôt brut
      */
     public double calculerImpotBrut(double revenuImposable, double nombreParts) {
-        double revenuParPart = revenuImposable / nombreParts;
-        double impotParPart = 0;
-
-        for (Tranche tranche : TRANCHES) {
-            if (revenuParPart > tranche.min) {
-                double revenuDansLaTranche = Math.min(revenuParPart, tranche.max) - tranche.min;
-                impotParPart += revenuDansLaTranche * tranche.taux;
+        if (table != null) {
+            double impot = table.impotBrut(revenuImposable, nombreParts);
+            if (impot != TableImpotBrut.ABSENT) {
+                return impot;
             }
         }
+        double revenuParPart = revenuImposable / nombreParts;
+        double impotParPart = tranches.evaluer(revenuParPart);
 
         return Math.round(impotParPart * nombreParts);
     }
-
-    private record Tranche(int min, int max, double taux) {}
-}
\ No newline at end of file
+}
@@ -14,22 +14,37 @@ public class CalculateurParts {
      * Calcule le nombre total de parts du foyer fiscal
      */
     public double calculerNombreParts(FoyerFiscal foyer) {
-        double parts = getPartsBase(foyer.getSituationFamiliale());
-        parts += calculerPartsEnfants(foyer.getNbEnfantsACharge());
-        parts += calculerPartsHandicap(foyer.getNbEnfantsSituationHandicap());
+        return calculerNombreParts(foyer.getSituationFamiliale(), foyer.getNbEnfantsACharge(),
+                foyer.getNbEnfantsSituationHandicap(), foyer.isParentIsole());
+    }
+
+    /**
+     * Calcule le nombre total de parts à partir des données brutes du foyer
+     */
+    public double calculerNombreParts(SituationFamiliale situation, int nbEnfants,
+                                      int nbEnfantsHandicap, boolean parentIsole) {
+        double parts = getPartsBase(situation);
+        parts += calculerPartsEnfants(nbEnfants);
+        parts += calculerPartsHandicap(nbEnfantsHandicap);
 
-        if (foyer.isParentIsole() && foyer.getNbEnfantsACharge() > 0) {
+        if (parentIsole && nbEnfants > 0) {
             parts += PART_PARENT_ISOLE;
         }
 
-        if (foyer.getSituationFamiliale() == SituationFamiliale.VEUF &&
-                foyer.getNbEnfantsACharge() > 0) {
+        if (situation == SituationFamiliale.VEUF && nbEnfants > 0) {
             parts += PART_VEUF_AVEC_ENFANT;
         }
 
         return parts;
     }
 
+    /**
+     * Calcule le nombre de parts des seuls déclarants (sans les enfants)
+     */
+    public double calculerPartsDeclarants(SituationFamiliale situation) {
+        return getPartsBase(situation);
+    }
+
     private double getPartsBase(SituationFamiliale situation) {
         return switch (situation) {
             case CELIBATAIRE, DIVORCE, VEUF -> 1.0;
@@ -0,0 +1,14 @@
+package com.kerware.simulateurreusine;
+
+import java.util.List;
+
+/**
+ * Résultat de la comparaison des façons de déclarer d'un couple.
+ *
+ * @param meilleure l'option dont l'impôt net est le plus faible, l'imposition
+ *                  commune en cas d'égalité
+ * @param options toutes les options évaluées, l'imposition commune en premier
+ */
+public record ComparaisonDeclarations(OptionDeclaration meilleure,
+                                      List<OptionDeclaration> options) {
+}
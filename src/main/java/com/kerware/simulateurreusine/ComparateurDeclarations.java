@@ -0,0 +1,119 @@
+package com.kerware.simulateurreusine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compare, l'année du mariage ou du PACS, l'imposition commune du couple avec
+ * deux déclarations séparées de célibataires, pour chaque répartition des enfants.
+ * Toutes les options sont évaluées en une passe sur le même barème : l'abattement
+ * et le revenu imposable de chaque déclarant seul sont calculés une fois, et
+ * l'impôt d'une déclaration séparée, qui ne dépend des enfants qu'à travers le
+ * nombre de parts, n'est calculé qu'une fois par nombre de parts.
+ */
+public class ComparateurDeclarations {
+    private final ReferentielBareme referentiel;
+
+    /**
+     * Crée un comparateur sur le référentiel de barème global.
+     */
+    public ComparateurDeclarations() {
+        this(ReferentielBareme.global());
+    }
+
+    /**
+     * Crée un comparateur sur un référentiel de barème.
+     *
+     * @param referentielBareme le référentiel qui fournit le barème en vigueur
+     */
+    public ComparateurDeclarations(ReferentielBareme referentielBareme) {
+        this.referentiel = referentielBareme;
+    }
+
+    /**
+     * Évalue l'imposition commune et toutes les répartitions des enfants entre deux
+     * déclarations séparées.
+     *
+     * @param revenuNetDecl1 le revenu net du premier déclarant
+     * @param revenuNetDecl2 le revenu net du second déclarant
+     * @param nbEnfants le nombre d'enfants à charge du couple
+     * @param nbEnfantsHandicap le nombre d'enfants en situation de handicap
+     * @return les options évaluées et la moins imposée
+     * @throws IllegalArgumentException si les données sont incohérentes
+     */
+    public ComparaisonDeclarations comparer(int revenuNetDecl1, int revenuNetDecl2,
+                                            int nbEnfants, int nbEnfantsHandicap) {
+        DonneesFoyerFiscal.valider(revenuNetDecl1, revenuNetDecl2, SituationFamiliale.MARIE,
+                nbEnfants, nbEnfantsHandicap, false);
+        JeuCalculateurs jeu = referentiel.jeu();
+        EtatCalcul etat = new EtatCalcul();
+        List<OptionDeclaration> options = new ArrayList<>();
+
+        etat.initialiser(revenuNetDecl1, revenuNetDecl2, SituationFamiliale.MARIE, nbEnfants,
+                nbEnfantsHandicap, false);
+        MoteurCalculImpot.calculerParts(jeu, etat);
+        MoteurCalculImpot.calculerRevenuImposable(jeu, etat);
+        MoteurCalculImpot.calculerImpot(jeu, etat);
+        ResultatCalculImpot commune = etat.versResultat();
+        OptionDeclaration meilleure = new OptionDeclaration(true, nbEnfants, nbEnfantsHandicap,
+                List.of(commune), commune.impotNet());
+        options.add(meilleure);
+
+        DeclarationSeparee declarant1 = new DeclarationSeparee(jeu, etat, revenuNetDecl1);
+        DeclarationSeparee declarant2 = new DeclarationSeparee(jeu, etat, revenuNetDecl2);
+        for (int enfants1 = 0; enfants1 <= nbEnfants; enfants1++) {
+            int enfants2 = nbEnfants - enfants1;
+            int handicapMin = Math.max(0, nbEnfantsHandicap - enfants2);
+            for (int handicap1 = handicapMin; handicap1 <= Math.min(nbEnfantsHandicap, enfants1);
+                 handicap1++) {
+                ResultatCalculImpot resultat1 = declarant1.calculer(etat, enfants1, handicap1);
+                ResultatCalculImpot resultat2 = declarant2.calculer(etat, enfants2,
+                        nbEnfantsHandicap - handicap1);
+                OptionDeclaration option = new OptionDeclaration(false, enfants1, handicap1,
+                        List.of(resultat1, resultat2), resultat1.impotNet() + resultat2.impotNet());
+                options.add(option);
+                if (option.impotNet() < meilleure.impotNet()) {
+                    meilleure = option;
+                }
+            }
+        }
+        return new ComparaisonDeclarations(meilleure, List.copyOf(options));
+    }
+
+    /**
+     * Déclaration d'un seul déclarant, dont l'impôt est mémorisé par nombre de parts.
+     */
+    private static final class DeclarationSeparee {
+        private final JeuCalculateurs jeu;
+        private final int revenu;
+        private final double abattement;
+        private final double revenuImposable;
+        private final Map<Double, ResultatCalculImpot> resultatsParParts = new HashMap<>();
+
+        DeclarationSeparee(JeuCalculateurs jeuCalculateurs, EtatCalcul etat, int revenuNet) {
+            this.jeu = jeuCalculateurs;
+            this.revenu = revenuNet;
+            etat.initialiser(revenuNet, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+            MoteurCalculImpot.calculerRevenuImposable(jeu, etat);
+            this.abattement = etat.getAbattement();
+            this.revenuImposable = etat.getRevenuFiscalReference();
+        }
+
+        ResultatCalculImpot calculer(EtatCalcul etat, int nbEnfants, int nbEnfantsHandicap) {
+            etat.initialiser(revenu, 0, SituationFamiliale.CELIBATAIRE, nbEnfants,
+                    nbEnfantsHandicap, false);
+            MoteurCalculImpot.calculerParts(jeu, etat);
+            ResultatCalculImpot resultat = resultatsParParts.get(etat.getNombreParts());
+            if (resultat == null) {
+                etat.setAbattement(abattement);
+                etat.setRevenuImposable(revenuImposable);
+                MoteurCalculImpot.calculerImpot(jeu, etat);
+                resultat = etat.versResultat();
+                resultatsParParts.put(etat.getNombreParts(), resultat);
+            }
+            return resultat;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.kerware.simulateurreusine;
+
+import java.util.Arrays;
+
+/**
+ * Données d'un foyer et valeurs des nœuds d'un {@link GrapheCalcul} calculées pour
+ * ce foyer. Chaque valeur est calculée une seule fois par calcul puis lue autant de
+ * fois que nécessaire ; une valeur pas encore calculée ne peut pas être lue.
+ * Un contexte est réutilisé d'un foyer à l'autre et n'est pas partagé entre threads.
+ */
+public final class ContexteCalcul {
+    private final GrapheCalcul graphe;
+    private final ReferentielBareme referentiel;
+    private final double[] valeurs;
+    // Calcul où chaque valeur a été calculée ; seules celles du calcul courant sont lisibles.
+    // 0 signifie « jamais calculée » et n'est jamais un numéro de calcul
+    private final int[] calculs;
+    private int calcul;
+
+    private int revenuNetDeclarant1;
+    private int revenuNetDeclarant2;
+    private SituationFamiliale situation;
+    private int nbEnfants;
+    private int nbEnfantsHandicap;
+    private boolean parentIsole;
+    // Calculateurs du barème lu au début du calcul
+    private JeuCalculateurs jeu;
+
+    ContexteCalcul(GrapheCalcul grapheCalcul, ReferentielBareme referentielBareme) {
+        this.graphe = grapheCalcul;
+        this.referentiel = referentielBareme;
+        this.valeurs = new double[grapheCalcul.getNbEmplacements()];
+        this.calculs = new int[valeurs.length];
+    }
+
+    /**
+     * Calcule tous les nœuds du graphe pour un foyer, avec le barème en vigueur.
+     *
+     * @param foyer les données du foyer fiscal, déjà validées
+     */
+    public void calculer(DonneesFoyerFiscal foyer) {
+        preparer(foyer);
+        graphe.calculer(this);
+    }
+
+    /**
+     * Enregistre un foyer sans rien calculer : les valeurs seront calculées à la demande
+     * par {@link #exiger(NoeudCalcul)}, avec le barème en vigueur maintenant.
+     *
+     * @param foyer les données du foyer fiscal, déjà validées
+     */
+    public void preparer(DonneesFoyerFiscal foyer) {
+        initialiser(foyer.revenuNetDeclarant1(), foyer.revenuNetDeclarant2(),
+                foyer.situationFamiliale(), foyer.nbEnfantsACharge(),
+                foyer.nbEnfantsSituationHandicap(), foyer.parentIsole());
+    }
+
+    /**
+     * Retourne la valeur d'un nœud pour le foyer courant, en calculant d'abord ceux de
+     * ses prérequis, directs ou non, qui ne le sont pas encore. Les autres nœuds du
+     * graphe ne sont pas calculés.
+     *
+     * @param noeud le nœud
+     * @return la valeur du nœud
+     * @throws IllegalArgumentException si le nœud n'appartient pas au graphe
+     * @throws IllegalStateException si aucun foyer n'est enregistré
+     */
+    public double exiger(NoeudCalcul noeud) {
+        int emplacement = emplacement(noeud);
+        if (!estCalcule(emplacement)) {
+            if (calcul == 0) {
+                throw new IllegalStateException("Aucun foyer à calculer");
+            }
+            graphe.exiger(this, emplacement);
+        }
+        return valeurs[emplacement];
+    }
+
+    // Enregistre les données d'un foyer et oublie les valeurs du foyer précédent
+    void initialiser(int revenu1, int revenu2, SituationFamiliale situationFamiliale,
+                     int enfants, int enfantsHandicap, boolean estParentIsole) {
+        revenuNetDeclarant1 = revenu1;
+        revenuNetDeclarant2 = revenu2;
+        situation = situationFamiliale;
+        nbEnfants = enfants;
+        nbEnfantsHandicap = enfantsHandicap;
+        parentIsole = estParentIsole;
+        jeu = referentiel.jeu();
+        calcul++;
+        if (calcul == 0) {
+            // Après un tour complet, une valeur ancienne porterait un numéro à venir
+            Arrays.fill(calculs, 0);
+            calcul = 1;
+        }
+    }
+
+    void ranger(int emplacement, double valeur) {
+        valeurs[emplacement] = valeur;
+        calculs[emplacement] = calcul;
+    }
+
+    void ranger(EtapeCalcul etape, double valeur) {
+        ranger(etape.ordinal(), valeur);
+    }
+
+    // Valeur d'une étape au dernier calcul, 0 avant le premier ; les étapes lisent ainsi
+    // leurs prérequis, que l'ordre du graphe garantit déjà calculés
+    double lire(EtapeCalcul etape) {
+        return valeurs[etape.ordinal()];
+    }
+
+    /**
+     * Retourne la valeur calculée d'un nœud. La valeur d'une étape standard remplacée
+     * est celle du nœud qui la remplace.
+     *
+     * @param noeud le nœud
+     * @return la valeur du nœud pour le foyer courant
+     * @throws IllegalArgumentException si le nœud n'appartient pas au graphe
+     * @throws IllegalStateException si le nœud n'est pas encore calculé
+     */
+    public double valeur(NoeudCalcul noeud) {
+        int emplacement = emplacement(noeud);
+        if (!estCalcule(emplacement)) {
+            throw new IllegalStateException("Nœud pas encore calculé : " + noeud.getNom());
+        }
+        return valeurs[emplacement];
+    }
+
+    private int emplacement(NoeudCalcul noeud) {
+        int emplacement = graphe.emplacement(noeud);
+        if (emplacement < 0) {
+            throw new IllegalArgumentException("Nœud absent du graphe : " + noeud.getNom());
+        }
+        return emplacement;
+    }
+
+    boolean estCalcule(int emplacement) {
+        return calcul != 0 && calculs[emplacement] == calcul;
+    }
+
+    public int getRevenuNetDeclarant1() {
+        return revenuNetDeclarant1;
+    }
+
+    public int getRevenuNetDeclarant2() {
+        return revenuNetDeclarant2;
+    }
+
+    public SituationFamiliale getSituationFamiliale() {
+        return situation;
+    }
+
+    public int getNbEnfantsACharge() {
+        return nbEnfants;
+    }
+
+    public int getNbEnfantsSituationHandicap() {
+        return nbEnfantsHandicap;
+    }
+
+    public boolean isParentIsole() {
+        return parentIsole;
+    }
+
+    JeuCalculateurs getJeu() {
+        return jeu;
+    }
+
+    // Modification d'une donnée par une session, qui invalide elle-même les étapes
+    void setRevenuNetDeclarant1(int valeur) {
+        this.revenuNetDeclarant1 = valeur;
+    }
+
+    void setRevenuNetDeclarant2(int valeur) {
+        this.revenuNetDeclarant2 = valeur;
+    }
+
+    void setSituationFamiliale(SituationFamiliale valeur) {
+        this.situation = valeur;
+    }
+
+    void setNbEnfantsACharge(int valeur) {
+        this.nbEnfants = valeur;
+    }
+
+    void setNbEnfantsSituationHandicap(int valeur) {
+        this.nbEnfantsHandicap = valeur;
+    }
+
+    void setParentIsole(boolean valeur) {
+        this.parentIsole = valeur;
+    }
+
+    void setJeu(JeuCalculateurs valeur) {
+        this.jeu = valeur;
+    }
+
+    /**
+     * Retourne le barème lu au début du calcul courant.
+     *
+     * @return le barème
+     */
+    public Bareme getBareme() {
+        return jeu.bareme();
+    }
+}
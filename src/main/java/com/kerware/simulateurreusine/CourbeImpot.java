@@ -0,0 +1,35 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Impôt net d'un profil de foyer en fonction du revenu du premier déclarant, en
+ * colonnes : le point {@code i} est décrit par l'élément {@code i} de chaque tableau.
+ * Le taux effectif rapporte l'impôt net au revenu net du foyer ; le taux marginal est
+ * la pente de l'impôt net avant arrondis, à droite du point.
+ *
+ * @param revenus les revenus nets du premier déclarant
+ * @param impotsNets l'impôt net de chaque point
+ * @param tauxEffectifs l'impôt net divisé par la somme des revenus nets
+ * @param tauxMarginaux la part d'un euro supplémentaire prélevée par l'impôt
+ */
+public record CourbeImpot(int[] revenus,
+                          double[] impotsNets,
+                          double[] tauxEffectifs,
+                          double[] tauxMarginaux) {
+
+    public CourbeImpot {
+        int n = revenus.length;
+        if (impotsNets.length != n || tauxEffectifs.length != n || tauxMarginaux.length != n) {
+            throw new IllegalArgumentException(
+                    "Les colonnes de la courbe n'ont pas la même taille");
+        }
+    }
+
+    /**
+     * Retourne le nombre de points de la courbe.
+     *
+     * @return le nombre de points
+     */
+    public int taille() {
+        return revenus.length;
+    }
+}
@@ -0,0 +1,53 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Données d'entrée immuables d'un foyer fiscal.
+ * Les règles de cohérence sont vérifiées à la construction : une instance
+ * existante est toujours valide et peut être partagée entre threads.
+ *
+ * @param revenuNetDeclarant1 revenu net du premier déclarant
+ * @param revenuNetDeclarant2 revenu net du second déclarant (0 pour une personne seule)
+ * @param situationFamiliale situation familiale du foyer
+ * @param nbEnfantsACharge nombre d'enfants à charge
+ * @param nbEnfantsSituationHandicap nombre d'enfants à charge en situation de handicap
+ * @param parentIsole indique si le déclarant est un parent isolé
+ */
+public record DonneesFoyerFiscal(int revenuNetDeclarant1, int revenuNetDeclarant2,
+                                 SituationFamiliale situationFamiliale, int nbEnfantsACharge,
+                                 int nbEnfantsSituationHandicap, boolean parentIsole) {
+
+    /**
+     * Valide les données du foyer fiscal.
+     *
+     * @throws IllegalArgumentException si les données sont incohérentes
+     */
+    public DonneesFoyerFiscal {
+        valider(revenuNetDeclarant1, revenuNetDeclarant2, situationFamiliale, nbEnfantsACharge,
+                nbEnfantsSituationHandicap, parentIsole);
+    }
+
+    static void valider(int revenuNetDeclarant1, int revenuNetDeclarant2,
+                        SituationFamiliale situationFamiliale, int nbEnfantsACharge,
+                        int nbEnfantsSituationHandicap, boolean parentIsole) {
+        if (revenuNetDeclarant1 < 0 || revenuNetDeclarant2 < 0) {
+            throw new IllegalArgumentException("Les revenus ne peuvent pas être négatifs");
+        }
+        if (situationFamiliale == null) {
+            throw new IllegalArgumentException("La situation familiale ne peut pas être null");
+        }
+        if (nbEnfantsACharge < 0 || nbEnfantsACharge > Simulateur.NB_ENFANTS_MAX) {
+            throw new IllegalArgumentException("Le nombre d'enfants doit être" +
+                    "entre 0 et " + Simulateur.NB_ENFANTS_MAX);
+        }
+        if (nbEnfantsSituationHandicap < 0 || nbEnfantsSituationHandicap > nbEnfantsACharge) {
+            throw new IllegalArgumentException(
+                    "Le nombre d'enfants en situation de handicap invalide");
+        }
+        if (parentIsole && situationFamiliale.estCouple()) {
+            throw new IllegalArgumentException("Un parent isolé ne peut pas être marié ou pacsé");
+        }
+        if (!situationFamiliale.estCouple() && revenuNetDeclarant2 > 0) {
+            throw new IllegalArgumentException("Un célibataire ne peut pas avoir de second revenu");
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.kerware.simulateurreusine;
+
+import java.util.Set;
+
+/**
+ * Exemple de désaccord relevé par l'{@link ExecutionFantome} entre le calculateur
+ * principal et le simulateur legacy exécuté en fantôme.
+ *
+ * @param foyer les données du foyer calculé
+ * @param ecarts les valeurs qui diffèrent
+ * @param valeursPrincipales les valeurs du calculateur principal, par rang de
+ *                           {@link ValeurComparee}
+ * @param valeursFantome les valeurs du simulateur legacy, par rang de {@link ValeurComparee}
+ */
+public record EcartFantome(DonneesFoyerFiscal foyer, Set<ValeurComparee> ecarts,
+                           double[] valeursPrincipales, double[] valeursFantome) {
+
+    public double principale(ValeurComparee valeur) {
+        return valeursPrincipales[valeur.ordinal()];
+    }
+
+    public double fantome(ValeurComparee valeur) {
+        return valeursFantome[valeur.ordinal()];
+    }
+}
@@ -0,0 +1,152 @@
+package com.kerware.simulateurreusine;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Écrivain JSON des réponses du {@link ServiceSimulation}. Un résultat est un objet
+ * qui reprend les revenus du foyer et toutes les valeurs exposées par
+ * {@link ICalculateurImpot}, avec les mêmes conversions que l'adaptateur ; un lot
+ * est un tableau de résultats. Les nombres sont écrits chiffre par chiffre dans un
+ * tampon d'octets qui grandit au besoin, sans créer de chaîne.
+ */
+final class EcrivainJson {
+    private static final int TAILLE_INITIALE = 512;
+    // Majorant de la longueur d'un résultat
+    private static final int LONGUEUR_MAX_RESULTAT = 384;
+    private static final int BASE = 10;
+    private static final int CHIFFRES_LONG_MAX = 20;
+
+    private static final byte[] REVENU_1 = champ("revenuNetDeclarant1", true);
+    private static final byte[] REVENU_2 = champ("revenuNetDeclarant2", false);
+    private static final byte[] NB_PARTS = champ("nbPartsFoyerFiscal", false);
+    private static final byte[] ABATTEMENT = champ("abattement", false);
+    private static final byte[] REVENU_FISCAL = champ("revenuFiscalReference", false);
+    private static final byte[] AVANT_DECOTE = champ("impotAvantDecote", false);
+    private static final byte[] DECOTE = champ("decote", false);
+    private static final byte[] CONTRIBUTION = champ("contribExceptionnelle", false);
+    private static final byte[] IMPOT_NET = champ("impotSurRevenuNet", false);
+    private static final byte[] DEBUT_ERREUR = LecteurJson.octets("{\"erreur\":\"");
+    private static final byte[] FIN_ERREUR = LecteurJson.octets("\"}");
+    private static final byte[] DEMI = LecteurJson.octets(".5");
+    private static final byte[] ENTIER = LecteurJson.octets(".0");
+
+    private byte[] sortie = new byte[TAILLE_INITIALE];
+    private int longueur;
+    private final byte[] chiffres = new byte[CHIFFRES_LONG_MAX];
+
+    private static byte[] champ(String nom, boolean premier) {
+        return LecteurJson.octets((premier ? "{\"" : ",\"") + nom + "\":");
+    }
+
+    byte[] octets() {
+        return sortie;
+    }
+
+    int longueur() {
+        return longueur;
+    }
+
+    /**
+     * Écrit le résultat d'un foyer d'un lot calculé.
+     */
+    void ecrireResultat(LotFoyers foyers, LotResultats resultats, int i) {
+        reserver(LONGUEUR_MAX_RESULTAT);
+        ecrire(REVENU_1);
+        ecrireEntier(foyers.revenusDeclarant1()[i]);
+        ecrire(REVENU_2);
+        ecrireEntier(foyers.revenusDeclarant2()[i]);
+        ecrire(NB_PARTS);
+        ecrireDecimal(resultats.nombresParts()[i]);
+        ecrire(ABATTEMENT);
+        ecrireEntier((int) resultats.abattements()[i]);
+        ecrire(REVENU_FISCAL);
+        ecrireEntier((int) resultats.revenusFiscauxReference()[i]);
+        ecrire(AVANT_DECOTE);
+        ecrireEntier((int) resultats.impotsAvantDecote()[i]);
+        ecrire(DECOTE);
+        ecrireEntier((int) resultats.decotes()[i]);
+        ecrire(CONTRIBUTION);
+        ecrireDecimal(resultats.contributionsExceptionnelles()[i]);
+        ecrire(IMPOT_NET);
+        ecrireEntier((int) resultats.impotsNets()[i]);
+        sortie[longueur++] = '}';
+    }
+
+    /**
+     * Écrit les résultats de tous les foyers d'un lot calculé, dans un tableau.
+     */
+    void ecrireLot(LotFoyers foyers, LotResultats resultats) {
+        reserver(1);
+        sortie[longueur++] = '[';
+        for (int i = 0; i < foyers.taille(); i++) {
+            if (i > 0) {
+                reserver(1);
+                sortie[longueur++] = ',';
+            }
+            ecrireResultat(foyers, resultats, i);
+        }
+        reserver(1);
+        sortie[longueur++] = ']';
+    }
+
+    /**
+     * Écrit un objet d'erreur. Les guillemets et caractères de contrôle du message sont
+     * remplacés par des espaces plutôt qu'échappés.
+     */
+    void ecrireErreur(String message) {
+        byte[] texte = message.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < texte.length; i++) {
+            if (texte[i] == '"' || texte[i] == '\\' || (texte[i] >= 0 && texte[i] < ' ')) {
+                texte[i] = ' ';
+            }
+        }
+        reserver(DEBUT_ERREUR.length + texte.length + FIN_ERREUR.length);
+        ecrire(DEBUT_ERREUR);
+        ecrire(texte);
+        ecrire(FIN_ERREUR);
+    }
+
+    private void reserver(int nbOctets) {
+        if (sortie.length - longueur < nbOctets) {
+            sortie = Arrays.copyOf(sortie, Math.max(sortie.length * 2, longueur + nbOctets));
+        }
+    }
+
+    private void ecrire(byte[] octets) {
+        System.arraycopy(octets, 0, sortie, longueur, octets.length);
+        longueur += octets.length;
+    }
+
+    private void ecrireEntier(long valeur) {
+        long reste = valeur;
+        if (reste < 0) {
+            sortie[longueur++] = '-';
+            reste = -reste;
+        }
+        int n = 0;
+        do {
+            chiffres[n++] = (byte) ('0' + reste % BASE);
+            reste /= BASE;
+        } while (reste > 0);
+        while (n > 0) {
+            sortie[longueur++] = chiffres[--n];
+        }
+    }
+
+    // Nombre de parts ou montant arrondi : entier ou demi-entier. Le signe est écrit à
+    // part, sinon la partie entière par défaut écrirait -0.5 en -1.5
+    private void ecrireDecimal(double valeur) {
+        double double2 = valeur * 2;
+        if (double2 == Math.rint(double2)) {
+            if (valeur < 0) {
+                reserver(1);
+                sortie[longueur++] = '-';
+            }
+            ecrireEntier((long) Math.abs(valeur));
+            ecrire(double2 % 2 == 0 ? ENTIER : DEMI);
+        } else {
+            ecrire(LecteurJson.octets(Double.toString(valeur)));
+        }
+    }
+}
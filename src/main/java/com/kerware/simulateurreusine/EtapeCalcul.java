@@ -0,0 +1,174 @@
+package com.kerware.simulateurreusine;
+
+import java.util.List;
+
+/**
+ * Étapes du calcul de l'impôt enregistrées par une {@link TraceCalcul}, dans
+ * l'ordre où le calcul les franchit. Ce sont aussi les nœuds du
+ * {@link GrapheCalcul#standard() graphe de calcul standard} : chaque étape déclare
+ * les étapes dont elle lit la valeur.
+ */
+public enum EtapeCalcul implements NoeudCalcul {
+    ABATTEMENT("Abattement"),
+    REVENU_FISCAL_REFERENCE("Revenu fiscal de référence"),
+    PARTS_DECLARANTS("Nombre de parts des déclarants"),
+    NOMBRE_PARTS("Nombre de parts"),
+    CONTRIBUTION_EXCEPTIONNELLE("Contribution exceptionnelle sur les hauts revenus"),
+    IMPOT_BRUT_DECLARANTS("Impôt brut des déclarants"),
+    IMPOT_BRUT_FOYER("Impôt brut du foyer fiscal complet"),
+    PLAFOND_BAISSE("Plafond de baisse autorisée"),
+    IMPOT_AVANT_DECOTE("Impôt brut après plafonnement avant décote"),
+    DECOTE("Décote"),
+    IMPOT_NET("Impôt sur le revenu net final");
+
+    private final String libelle;
+
+    EtapeCalcul(String libelleEtape) {
+        this.libelle = libelleEtape;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+
+    @Override
+    public String getNom() {
+        return name();
+    }
+
+    @Override
+    public List<EtapeCalcul> getPrerequis() {
+        return switch (this) {
+            case ABATTEMENT, PARTS_DECLARANTS, NOMBRE_PARTS -> List.of();
+            case REVENU_FISCAL_REFERENCE -> List.of(ABATTEMENT);
+            case CONTRIBUTION_EXCEPTIONNELLE -> List.of(REVENU_FISCAL_REFERENCE);
+            case IMPOT_BRUT_DECLARANTS -> List.of(REVENU_FISCAL_REFERENCE, PARTS_DECLARANTS);
+            case IMPOT_BRUT_FOYER -> List.of(REVENU_FISCAL_REFERENCE, NOMBRE_PARTS);
+            case PLAFOND_BAISSE -> List.of(PARTS_DECLARANTS, NOMBRE_PARTS);
+            case IMPOT_AVANT_DECOTE -> List.of(IMPOT_BRUT_DECLARANTS, IMPOT_BRUT_FOYER,
+                    PLAFOND_BAISSE);
+            case DECOTE -> List.of(IMPOT_AVANT_DECOTE);
+            case IMPOT_NET -> List.of(IMPOT_AVANT_DECOTE, DECOTE, CONTRIBUTION_EXCEPTIONNELLE);
+        };
+    }
+
+    @Override
+    public double evaluer(ContexteCalcul contexte) {
+        return switch (this) {
+            case ABATTEMENT -> abattement(contexte);
+            case REVENU_FISCAL_REFERENCE -> revenuFiscalReference(contexte);
+            case PARTS_DECLARANTS -> partsDeclarants(contexte);
+            case NOMBRE_PARTS -> nombreParts(contexte);
+            case CONTRIBUTION_EXCEPTIONNELLE -> contributionExceptionnelle(contexte);
+            case IMPOT_BRUT_DECLARANTS -> impotBrutDeclarants(contexte);
+            case IMPOT_BRUT_FOYER -> impotBrutFoyer(contexte);
+            case PLAFOND_BAISSE -> plafondBaisse(contexte);
+            case IMPOT_AVANT_DECOTE -> impotAvantDecote(contexte);
+            case DECOTE -> decote(contexte);
+            case IMPOT_NET -> impotNet(contexte);
+        };
+    }
+
+    // Calcule dans l'ordre de déclaration les étapes d'un masque qui ne sont pas encore
+    // calculées, d'un seul tenant : le compilateur peut ainsi intégrer chaque étape, ce
+    // qu'il ne fait pas de evaluer appelé nœud par nœud
+    static void calculerManquantes(ContexteCalcul contexte, int masque) {
+        if (manque(contexte, masque, ABATTEMENT)) {
+            contexte.ranger(ABATTEMENT, abattement(contexte));
+        }
+        if (manque(contexte, masque, REVENU_FISCAL_REFERENCE)) {
+            contexte.ranger(REVENU_FISCAL_REFERENCE, revenuFiscalReference(contexte));
+        }
+        if (manque(contexte, masque, PARTS_DECLARANTS)) {
+            contexte.ranger(PARTS_DECLARANTS, partsDeclarants(contexte));
+        }
+        if (manque(contexte, masque, NOMBRE_PARTS)) {
+            contexte.ranger(NOMBRE_PARTS, nombreParts(contexte));
+        }
+        if (manque(contexte, masque, CONTRIBUTION_EXCEPTIONNELLE)) {
+            contexte.ranger(CONTRIBUTION_EXCEPTIONNELLE, contributionExceptionnelle(contexte));
+        }
+        if (manque(contexte, masque, IMPOT_BRUT_DECLARANTS)) {
+            contexte.ranger(IMPOT_BRUT_DECLARANTS, impotBrutDeclarants(contexte));
+        }
+        if (manque(contexte, masque, IMPOT_BRUT_FOYER)) {
+            contexte.ranger(IMPOT_BRUT_FOYER, impotBrutFoyer(contexte));
+        }
+        calculerManquantesApresImpotBrut(contexte, masque);
+    }
+
+    private static void calculerManquantesApresImpotBrut(ContexteCalcul contexte, int masque) {
+        if (manque(contexte, masque, PLAFOND_BAISSE)) {
+            contexte.ranger(PLAFOND_BAISSE, plafondBaisse(contexte));
+        }
+        if (manque(contexte, masque, IMPOT_AVANT_DECOTE)) {
+            contexte.ranger(IMPOT_AVANT_DECOTE, impotAvantDecote(contexte));
+        }
+        if (manque(contexte, masque, DECOTE)) {
+            contexte.ranger(DECOTE, decote(contexte));
+        }
+        if (manque(contexte, masque, IMPOT_NET)) {
+            contexte.ranger(IMPOT_NET, impotNet(contexte));
+        }
+    }
+
+    private static boolean manque(ContexteCalcul contexte, int masque, EtapeCalcul etape) {
+        return (masque & 1 << etape.ordinal()) != 0 && !contexte.estCalcule(etape.ordinal());
+    }
+
+    private static double abattement(ContexteCalcul contexte) {
+        return contexte.getJeu().abattement().calculerAbattement(contexte.getRevenuNetDeclarant1(),
+                contexte.getRevenuNetDeclarant2(), contexte.getSituationFamiliale());
+    }
+
+    private static double revenuFiscalReference(ContexteCalcul contexte) {
+        return Math.max(0, contexte.getRevenuNetDeclarant1() + contexte.getRevenuNetDeclarant2()
+                - contexte.lire(ABATTEMENT));
+    }
+
+    private static double partsDeclarants(ContexteCalcul contexte) {
+        return contexte.getJeu().parts().calculerPartsDeclarants(contexte.getSituationFamiliale());
+    }
+
+    private static double nombreParts(ContexteCalcul contexte) {
+        return contexte.getJeu().parts().calculerNombreParts(contexte.getSituationFamiliale(),
+                contexte.getNbEnfantsACharge(), contexte.getNbEnfantsSituationHandicap(),
+                contexte.isParentIsole());
+    }
+
+    private static double contributionExceptionnelle(ContexteCalcul contexte) {
+        return contexte.getJeu().contribution().calculerContribution(
+                contexte.lire(REVENU_FISCAL_REFERENCE),
+                contexte.getSituationFamiliale().estCouple());
+    }
+
+    private static double impotBrutDeclarants(ContexteCalcul contexte) {
+        return contexte.getJeu().impot().calculerImpotBrut(contexte.lire(REVENU_FISCAL_REFERENCE),
+                contexte.lire(PARTS_DECLARANTS));
+    }
+
+    private static double impotBrutFoyer(ContexteCalcul contexte) {
+        return contexte.getJeu().impot().calculerImpotBrut(contexte.lire(REVENU_FISCAL_REFERENCE),
+                contexte.lire(NOMBRE_PARTS));
+    }
+
+    private static double plafondBaisse(ContexteCalcul contexte) {
+        return contexte.getJeu().plafonneur().calculerPlafondBaisse(contexte.lire(NOMBRE_PARTS),
+                contexte.lire(PARTS_DECLARANTS));
+    }
+
+    private static double impotAvantDecote(ContexteCalcul contexte) {
+        return contexte.getJeu().plafonneur().appliquerPlafond(contexte.lire(IMPOT_BRUT_DECLARANTS),
+                contexte.lire(IMPOT_BRUT_FOYER), contexte.lire(PLAFOND_BAISSE));
+    }
+
+    private static double decote(ContexteCalcul contexte) {
+        return contexte.getJeu().decote().calculerDecote(contexte.lire(IMPOT_AVANT_DECOTE),
+                contexte.getSituationFamiliale().estCouple());
+    }
+
+    private static double impotNet(ContexteCalcul contexte) {
+        return contexte.lire(IMPOT_AVANT_DECOTE) - contexte.lire(DECOTE)
+                + contexte.lire(CONTRIBUTION_EXCEPTIONNELLE);
+    }
+}
@@ -0,0 +1,16 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Étapes du calcul dont la durée est mesurée par une {@link InstrumentationCalcul}.
+ */
+public enum EtapeInstrumentee {
+    VALIDATION,
+    PARTS,
+    ABATTEMENT,
+    IMPOT_BRUT_DECLARANTS,
+    IMPOT_BRUT_TOTAL,
+    PLAFONNEMENT,
+    DECOTE,
+    CONTRIBUTION_EXCEPTIONNELLE,
+    CALCUL_COMPLET
+}
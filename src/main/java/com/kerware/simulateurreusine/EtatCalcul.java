@@ -0,0 +1,169 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Zone de travail mutable d'un calcul d'impôt : données du foyer et valeurs
+ * intermédiaires. Une instance n'est jamais partagée entre threads ; elle est
+ * réutilisée d'un foyer à l'autre par les calculs par lot.
+ * Un appelant peut aussi en fournir une à
+ * {@link MoteurCalculImpot#calculer(int, int, SituationFamiliale, int, int, boolean, EtatCalcul)}
+ * pour calculer sans aucune allocation, puis lire le résultat par ses accesseurs.
+ */
+public final class EtatCalcul {
+    // Données du foyer
+    private int revenuNetDeclarant1;
+    private int revenuNetDeclarant2;
+    private SituationFamiliale situation;
+    private int nbEnfants;
+    private int nbEnfantsHandicap;
+    private boolean parentIsole;
+
+    // Valeurs intermédiaires
+    private double nombreParts;
+    private double partsDeclarants;
+    private double abattement;
+    private double revenuImposable;
+    private double impotBrutDeclarants;
+    private double impotBrutFoyer;
+    private double impotAvantDecote;
+    private double decote;
+    private double contributionExceptionnelle;
+    private double impotNet;
+
+    /**
+     * Crée une zone de travail vide, à réutiliser d'un calcul à l'autre.
+     */
+    public EtatCalcul() {
+        // Les valeurs sont renseignées par le moteur
+    }
+
+    void initialiser(int revenu1, int revenu2, SituationFamiliale situationFamiliale,
+                     int enfants, int enfantsHandicap, boolean estParentIsole) {
+        this.revenuNetDeclarant1 = revenu1;
+        this.revenuNetDeclarant2 = revenu2;
+        this.situation = situationFamiliale;
+        this.nbEnfants = enfants;
+        this.nbEnfantsHandicap = enfantsHandicap;
+        this.parentIsole = estParentIsole;
+    }
+
+    void initialiser(DonneesFoyerFiscal foyer) {
+        initialiser(foyer.revenuNetDeclarant1(), foyer.revenuNetDeclarant2(),
+                foyer.situationFamiliale(), foyer.nbEnfantsACharge(),
+                foyer.nbEnfantsSituationHandicap(), foyer.parentIsole());
+    }
+
+    int getRevenuNetDeclarant1() {
+        return revenuNetDeclarant1;
+    }
+
+    int getRevenuNetDeclarant2() {
+        return revenuNetDeclarant2;
+    }
+
+    SituationFamiliale getSituation() {
+        return situation;
+    }
+
+    int getNbEnfants() {
+        return nbEnfants;
+    }
+
+    int getNbEnfantsHandicap() {
+        return nbEnfantsHandicap;
+    }
+
+    boolean isParentIsole() {
+        return parentIsole;
+    }
+
+    public double getNombreParts() {
+        return nombreParts;
+    }
+
+    public double getAbattement() {
+        return abattement;
+    }
+
+    public double getRevenuFiscalReference() {
+        return revenuImposable;
+    }
+
+    double getPartsDeclarants() {
+        return partsDeclarants;
+    }
+
+    double getImpotBrutDeclarants() {
+        return impotBrutDeclarants;
+    }
+
+    double getImpotBrutFoyer() {
+        return impotBrutFoyer;
+    }
+
+    public double getImpotAvantDecote() {
+        return impotAvantDecote;
+    }
+
+    public double getDecote() {
+        return decote;
+    }
+
+    public double getContributionExceptionnelle() {
+        return contributionExceptionnelle;
+    }
+
+    public double getImpotNet() {
+        return impotNet;
+    }
+
+    // Écriture des valeurs intermédiaires par les étapes du calcul
+    void setNombreParts(double valeur) {
+        this.nombreParts = valeur;
+    }
+
+    void setPartsDeclarants(double valeur) {
+        this.partsDeclarants = valeur;
+    }
+
+    void setAbattement(double valeur) {
+        this.abattement = valeur;
+    }
+
+    void setRevenuImposable(double valeur) {
+        this.revenuImposable = valeur;
+    }
+
+    void setImpotBrutDeclarants(double valeur) {
+        this.impotBrutDeclarants = valeur;
+    }
+
+    void setImpotBrutFoyer(double valeur) {
+        this.impotBrutFoyer = valeur;
+    }
+
+    void setImpotAvantDecote(double valeur) {
+        this.impotAvantDecote = valeur;
+    }
+
+    void setDecote(double valeur) {
+        this.decote = valeur;
+    }
+
+    void setContributionExceptionnelle(double valeur) {
+        this.contributionExceptionnelle = valeur;
+    }
+
+    void setImpotNet(double valeur) {
+        this.impotNet = valeur;
+    }
+
+    /**
+     * Copie le résultat du dernier calcul dans un résultat immuable.
+     *
+     * @return le résultat du dernier calcul
+     */
+    public ResultatCalculImpot versResultat() {
+        return new ResultatCalculImpot(nombreParts, abattement, revenuImposable,
+                impotAvantDecote, decote, contributionExceptionnelle, impotNet);
+    }
+}
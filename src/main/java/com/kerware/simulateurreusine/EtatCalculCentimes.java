@@ -0,0 +1,104 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Zone de travail mutable d'un calcul en centimes de {@link MoteurCalculCentimes} :
+ * données du foyer et valeurs intermédiaires.
+ * Comme {@link EtatCalcul}, une instance n'est jamais partagée entre threads ; elle
+ * est réutilisée d'un foyer à l'autre par les calculs par lot.
+ */
+final class EtatCalculCentimes {
+    // Données du foyer
+    private int revenuNetDeclarant1;
+    private int revenuNetDeclarant2;
+    private SituationFamiliale situation;
+    private int nbEnfants;
+    private int nbEnfantsHandicap;
+    private boolean parentIsole;
+
+    // Valeurs intermédiaires, en centimes
+    private int nombreDemiParts;
+    private long abattement;
+    private long revenuImposable;
+    private long impotAvantDecote;
+    private long decote;
+    private long contributionExceptionnelle;
+    private long impotNet;
+
+    void initialiser(int revenu1, int revenu2, SituationFamiliale situationFamiliale,
+                     int enfants, int enfantsHandicap, boolean estParentIsole) {
+        this.revenuNetDeclarant1 = revenu1;
+        this.revenuNetDeclarant2 = revenu2;
+        this.situation = situationFamiliale;
+        this.nbEnfants = enfants;
+        this.nbEnfantsHandicap = enfantsHandicap;
+        this.parentIsole = estParentIsole;
+    }
+
+    void initialiser(DonneesFoyerFiscal foyer) {
+        initialiser(foyer.revenuNetDeclarant1(), foyer.revenuNetDeclarant2(),
+                foyer.situationFamiliale(), foyer.nbEnfantsACharge(),
+                foyer.nbEnfantsSituationHandicap(), foyer.parentIsole());
+    }
+
+    int getRevenuNetDeclarant1() {
+        return revenuNetDeclarant1;
+    }
+
+    int getRevenuNetDeclarant2() {
+        return revenuNetDeclarant2;
+    }
+
+    SituationFamiliale getSituation() {
+        return situation;
+    }
+
+    int getNbEnfants() {
+        return nbEnfants;
+    }
+
+    int getNbEnfantsHandicap() {
+        return nbEnfantsHandicap;
+    }
+
+    boolean isParentIsole() {
+        return parentIsole;
+    }
+
+    long getImpotNet() {
+        return impotNet;
+    }
+
+    // Écriture des valeurs intermédiaires par les étapes du calcul
+    void setNombreDemiParts(int valeur) {
+        this.nombreDemiParts = valeur;
+    }
+
+    void setAbattement(long valeur) {
+        this.abattement = valeur;
+    }
+
+    void setRevenuImposable(long valeur) {
+        this.revenuImposable = valeur;
+    }
+
+    void setImpotAvantDecote(long valeur) {
+        this.impotAvantDecote = valeur;
+    }
+
+    void setDecote(long valeur) {
+        this.decote = valeur;
+    }
+
+    void setContributionExceptionnelle(long valeur) {
+        this.contributionExceptionnelle = valeur;
+    }
+
+    void setImpotNet(long valeur) {
+        this.impotNet = valeur;
+    }
+
+    ResultatCalculCentimes versResultat() {
+        return new ResultatCalculCentimes(nombreDemiParts, abattement, revenuImposable,
+                impotAvantDecote, decote, contributionExceptionnelle, impotNet);
+    }
+}
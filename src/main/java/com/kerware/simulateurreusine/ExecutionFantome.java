@@ -0,0 +1,277 @@
+package com.kerware.simulateurreusine;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exécution fantôme du simulateur legacy {@code com.kerware.simulateur}, pour vérifier
+ * pendant la migration qu'il s'accorde avec le calculateur principal sur le trafic
+ * réel. Les {@link CalculateurFantome} soumettent un calcul sur
+ * {@link #getPeriodeEchantillonnage()} ; le simulateur legacy le refait en arrière-plan
+ * et toutes les valeurs de {@link ValeurComparee} sont comparées à l'identique.
+ * Les désaccords sont comptés par valeur et les derniers sont gardés en exemple.
+ * Le chemin principal n'attend jamais : la file d'attente est bornée et un calcul
+ * soumis quand elle est pleine est abandonné et compté.
+ * Une instance est partagée par tous les calculateurs d'une application.
+ */
+public final class ExecutionFantome implements ExecutionFantomeMBean, AutoCloseable {
+    /** Période d'échantillonnage par défaut : un calcul comparé sur 1024. */
+    public static final int PERIODE_ECHANTILLONNAGE_DEFAUT = 1024;
+    /** Capacité par défaut de la file d'attente des comparaisons. */
+    public static final int CAPACITE_FILE_DEFAUT = 1024;
+    /** Nombre par défaut d'exemples de désaccords conservés. */
+    public static final int NB_EXEMPLES_DEFAUT = 64;
+
+    private static final String DOMAINE_JMX = "com.kerware.simulateurreusine";
+    private static final int ATTENTE_ARRET_S = 10;
+
+    private final String nom;
+    private final ThreadPoolExecutor executeur;
+    // Le simulateur legacy conserve son état entre deux calculs : un par thread
+    private final ThreadLocal<com.kerware.simulateur.AdaptateurSimulateur> legacy =
+            ThreadLocal.withInitial(com.kerware.simulateur.AdaptateurSimulateur::new);
+
+    private final LongAdder nbSoumissions = new LongAdder();
+    private final LongAdder nbComparaisons = new LongAdder();
+    private final LongAdder nbEcarts = new LongAdder();
+    private final LongAdder nbAbandons = new LongAdder();
+    private final LongAdder nbErreursFantome = new LongAdder();
+    private final LongAdder[] ecartsParValeur = new LongAdder[ValeurComparee.NB_VALEURS];
+    // Tampon circulaire des derniers désaccords
+    private final AtomicReferenceArray<EcartFantome> exemples;
+    private final AtomicLong nbExemples = new AtomicLong();
+    private volatile int periodeEchantillonnage = PERIODE_ECHANTILLONNAGE_DEFAUT;
+
+    /**
+     * Crée une exécution fantôme sur un thread, avec les capacités par défaut.
+     *
+     * @param nomExecution le nom qui distingue le MBean de cette exécution
+     */
+    public ExecutionFantome(String nomExecution) {
+        this(nomExecution, 1, CAPACITE_FILE_DEFAUT, NB_EXEMPLES_DEFAUT);
+    }
+
+    /**
+     * Crée une exécution fantôme.
+     *
+     * @param nomExecution le nom qui distingue le MBean de cette exécution
+     * @param nbThreads le nombre de threads d'arrière-plan
+     * @param capaciteFile le nombre de comparaisons en attente au-delà duquel les
+     *                     soumissions sont abandonnées
+     * @param nbExemplesMax le nombre de désaccords conservés en exemple
+     */
+    public ExecutionFantome(String nomExecution, int nbThreads, int capaciteFile,
+                            int nbExemplesMax) {
+        if (nbThreads < 1 || capaciteFile < 1 || nbExemplesMax < 1) {
+            throw new IllegalArgumentException(
+                    "Threads, capacité de file et exemples doivent être positifs");
+        }
+        this.nom = nomExecution;
+        AtomicInteger numero = new AtomicInteger();
+        this.executeur = new ThreadPoolExecutor(nbThreads, nbThreads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capaciteFile), tache -> {
+                    Thread thread = new Thread(tache,
+                            "fantome-" + nomExecution + "-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }, (tache, executeurPlein) -> nbAbandons.increment());
+        this.exemples = new AtomicReferenceArray<>(nbExemplesMax);
+        for (int i = 0; i < ecartsParValeur.length; i++) {
+            ecartsParValeur[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Soumet un calcul réussi du calculateur principal à la comparaison.
+     */
+    void soumettre(int revenu1, int revenu2, SituationFamiliale situation, int nbEnfants,
+                   int nbEnfantsHandicap, boolean parentIsole, double[] valeursPrincipales) {
+        nbSoumissions.increment();
+        executeur.execute(() -> comparer(revenu1, revenu2, situation, nbEnfants,
+                nbEnfantsHandicap, parentIsole, valeursPrincipales));
+    }
+
+    private void comparer(int revenu1, int revenu2, SituationFamiliale situation,
+                          int nbEnfants, int nbEnfantsHandicap, boolean parentIsole,
+                          double[] valeursPrincipales) {
+        DonneesFoyerFiscal foyer;
+        double[] valeursFantome;
+        try {
+            foyer = new DonneesFoyerFiscal(revenu1, revenu2, situation, nbEnfants,
+                    nbEnfantsHandicap, parentIsole);
+            com.kerware.simulateur.AdaptateurSimulateur simulateur = legacy.get();
+            simulateur.setRevenusNetDeclarant1(revenu1);
+            simulateur.setRevenusNetDeclarant2(revenu2);
+            simulateur.setSituationFamiliale(
+                    com.kerware.simulateur.SituationFamiliale.valueOf(situation.name()));
+            simulateur.setNbEnfantsACharge(nbEnfants);
+            simulateur.setNbEnfantsSituationHandicap(nbEnfantsHandicap);
+            simulateur.setParentIsole(parentIsole);
+            simulateur.calculImpotSurRevenuNet();
+            valeursFantome = ValeurComparee.lire(simulateur);
+        } catch (RuntimeException e) {
+            nbErreursFantome.increment();
+            return;
+        }
+        nbComparaisons.increment();
+
+        Set<ValeurComparee> ecarts = EnumSet.noneOf(ValeurComparee.class);
+        for (ValeurComparee valeur : ValeurComparee.values()) {
+            int rang = valeur.ordinal();
+            if (Double.compare(valeursPrincipales[rang], valeursFantome[rang]) != 0) {
+                ecarts.add(valeur);
+                ecartsParValeur[rang].increment();
+            }
+        }
+        if (!ecarts.isEmpty()) {
+            nbEcarts.increment();
+            EcartFantome ecart =
+                    new EcartFantome(foyer, ecarts, valeursPrincipales, valeursFantome);
+            exemples.set((int) (nbExemples.getAndIncrement() % exemples.length()), ecart);
+        }
+    }
+
+    /**
+     * Retourne le nombre de comparaisons où une valeur diffère.
+     *
+     * @param valeur la valeur comparée
+     * @return le nombre de désaccords sur cette valeur
+     */
+    public long getNbEcarts(ValeurComparee valeur) {
+        return ecartsParValeur[valeur.ordinal()].sum();
+    }
+
+    /**
+     * Retourne les derniers désaccords, du plus ancien au plus récent.
+     *
+     * @return au plus {@code nbExemplesMax} désaccords
+     */
+    public List<EcartFantome> getExemples() {
+        long fin = nbExemples.get();
+        long debut = Math.max(0, fin - exemples.length());
+        List<EcartFantome> liste = new ArrayList<>((int) (fin - debut));
+        for (long i = debut; i < fin; i++) {
+            EcartFantome ecart = exemples.get((int) (i % exemples.length()));
+            if (ecart != null) {
+                liste.add(ecart);
+            }
+        }
+        return liste;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    @Override
+    public long getNbSoumissions() {
+        return nbSoumissions.sum();
+    }
+
+    @Override
+    public long getNbComparaisons() {
+        return nbComparaisons.sum();
+    }
+
+    @Override
+    public long getNbEcarts() {
+        return nbEcarts.sum();
+    }
+
+    @Override
+    public long getNbAbandons() {
+        return nbAbandons.sum();
+    }
+
+    @Override
+    public long getNbErreursFantome() {
+        return nbErreursFantome.sum();
+    }
+
+    @Override
+    public int getPeriodeEchantillonnage() {
+        return periodeEchantillonnage;
+    }
+
+    /**
+     * Modifie la période d'échantillonnage ; 1 compare tous les calculs.
+     *
+     * @param periode le nombre de calculs pour un calcul comparé
+     */
+    @Override
+    public void setPeriodeEchantillonnage(int periode) {
+        if (periode < 1) {
+            throw new IllegalArgumentException("La période d'échantillonnage doit être positive");
+        }
+        this.periodeEchantillonnage = periode;
+    }
+
+    @Override
+    public void reinitialiser() {
+        nbSoumissions.reset();
+        nbComparaisons.reset();
+        nbEcarts.reset();
+        nbAbandons.reset();
+        nbErreursFantome.reset();
+        for (LongAdder compteur : ecartsParValeur) {
+            compteur.reset();
+        }
+        for (int i = 0; i < exemples.length(); i++) {
+            exemples.set(i, null);
+        }
+        nbExemples.set(0);
+    }
+
+    /**
+     * Publie les compteurs sur le serveur MBean de la plateforme, sous le nom
+     * {@code com.kerware.simulateurreusine:type=ExecutionFantome,name=<nom>}.
+     *
+     * @throws IllegalStateException si un MBean de même nom est déjà publié
+     */
+    public void publier() {
+        publier(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Publie les compteurs sur un serveur MBean.
+     *
+     * @param serveur le serveur MBean
+     * @throws IllegalStateException si un MBean de même nom est déjà publié
+     */
+    public void publier(MBeanServer serveur) {
+        try {
+            serveur.registerMBean(this, new ObjectName(DOMAINE_JMX
+                    + ":type=ExecutionFantome,name=" + ObjectName.quote(nom)));
+        } catch (JMException e) {
+            throw new IllegalStateException("Publication JMX impossible : " + nom, e);
+        }
+    }
+
+    /**
+     * Arrête l'exécution après les comparaisons en attente ; les soumissions suivantes
+     * sont abandonnées.
+     */
+    @Override
+    public void close() {
+        executeur.shutdown();
+        try {
+            executeur.awaitTermination(ATTENTE_ARRET_S, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Interface JMX des compteurs d'une {@link ExecutionFantome}.
+ */
+public interface ExecutionFantomeMBean {
+    long getNbSoumissions();
+
+    long getNbComparaisons();
+
+    long getNbEcarts();
+
+    long getNbAbandons();
+
+    long getNbErreursFantome();
+
+    int getPeriodeEchantillonnage();
+
+    void setPeriodeEchantillonnage(int periode);
+
+    void reinitialiser();
+}
@@ -0,0 +1,193 @@
+package com.kerware.simulateurreusine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Format binaire à largeur fixe des fichiers de foyers et de résultats, lus et écrits
+ * par {@link SimulationMasseBinaire}. Un fichier commence par un en-tête de
+ * {@value #TAILLE_EN_TETE} octets (signature, version, taille d'un enregistrement,
+ * nombre d'enregistrements), suivi des enregistrements, en ordre petit-boutiste.
+ * <pre>
+ * foyer    : [identifiant long] revenu1 int, revenu2 int, composition short
+ * résultat : nombreParts double, abattement, revenuFiscalReference, impotAvantDecote,
+ *            decote, contributionExceptionnelle, impotNet int
+ * </pre>
+ * La composition du foyer tient sur 10 bits : situation familiale (3 bits), enfants
+ * à charge (3 bits), enfants en situation de handicap (3 bits) et parent isolé.
+ * Les montants des résultats suivent les conversions de l'adaptateur.
+ */
+public final class FichierFoyersBinaire {
+    /** Taille de l'en-tête d'un fichier, en octets. */
+    public static final int TAILLE_EN_TETE = 16;
+    /** Taille d'un enregistrement de foyer sans identifiant. */
+    public static final int TAILLE_FOYER = 10;
+    /** Taille d'un enregistrement de foyer avec identifiant. */
+    public static final int TAILLE_FOYER_IDENTIFIE = 18;
+    /** Taille d'un enregistrement de résultat. */
+    public static final int TAILLE_RESULTAT = 32;
+    /** Ordre des octets des fichiers. */
+    public static final ByteOrder ORDRE = ByteOrder.LITTLE_ENDIAN;
+
+    static final int SIGNATURE_FOYERS = 0x52594F46;     // "FOYR"
+    static final int SIGNATURE_RESULTATS = 0x544C5352;  // "RSLT"
+    static final short VERSION = 1;
+
+    private static final int POSITION_VERSION = 4;
+    private static final int POSITION_TAILLE = 6;
+    private static final int POSITION_NOMBRE = 8;
+
+    private static final int BITS_CHAMP = 3;
+    private static final int MASQUE_CHAMP = (1 << BITS_CHAMP) - 1;
+    private static final int DECALAGE_ENFANTS = BITS_CHAMP;
+    private static final int DECALAGE_HANDICAP = 2 * BITS_CHAMP;
+    private static final int BIT_PARENT_ISOLE = 1 << (DECALAGE_HANDICAP + BITS_CHAMP);
+    private static final int TAILLE_TAMPON = 65_536;
+    private static final int NB_COLONNES_CSV = 6;
+    private static final int COLONNE_ENFANTS = 3;
+    private static final int COLONNE_HANDICAP = 4;
+    private static final int COLONNE_ISOLE = 5;
+
+    private FichierFoyersBinaire() {
+    }
+
+    /**
+     * Emballe la composition d'un foyer déjà validé dans un short.
+     */
+    static short composition(SituationFamiliale situation, int nbEnfants,
+                             int nbEnfantsHandicap, boolean parentIsole) {
+        return (short) (situation.ordinal() | nbEnfants << DECALAGE_ENFANTS
+                | nbEnfantsHandicap << DECALAGE_HANDICAP | (parentIsole ? BIT_PARENT_ISOLE : 0));
+    }
+
+    static int rangSituation(short composition) {
+        return composition & MASQUE_CHAMP;
+    }
+
+    static int nbEnfants(short composition) {
+        return composition >> DECALAGE_ENFANTS & MASQUE_CHAMP;
+    }
+
+    static int nbEnfantsHandicap(short composition) {
+        return composition >> DECALAGE_HANDICAP & MASQUE_CHAMP;
+    }
+
+    static boolean parentIsole(short composition) {
+        return (composition & BIT_PARENT_ISOLE) != 0;
+    }
+
+    static void ecrireEnTete(ByteBuffer tampon, int signature, int tailleEnregistrement,
+                             long nbEnregistrements) {
+        tampon.putInt(0, signature).putShort(POSITION_VERSION, VERSION)
+                .putShort(POSITION_TAILLE, (short) tailleEnregistrement)
+                .putLong(POSITION_NOMBRE, nbEnregistrements);
+    }
+
+    /**
+     * Vérifie l'en-tête d'un fichier et retourne la taille de ses enregistrements.
+     */
+    static int lireTailleEnregistrement(ByteBuffer enTete, int signature) {
+        if (enTete.limit() < TAILLE_EN_TETE || enTete.getInt(0) != signature
+                || enTete.getShort(POSITION_VERSION) != VERSION) {
+            throw new IllegalArgumentException("En-tête de fichier binaire invalide");
+        }
+        return enTete.getShort(POSITION_TAILLE);
+    }
+
+    static long lireNombre(ByteBuffer enTete) {
+        return enTete.getLong(POSITION_NOMBRE);
+    }
+
+    /**
+     * Convertit un fichier CSV au format de {@code datasImposition.csv} en fichier
+     * binaire de foyers. Comme pour {@link SimulationMasseCsv}, les colonnes au-delà
+     * de la sixième et les lignes vides sont ignorées, ainsi que la première ligne non
+     * vide si elle ne commence pas par un chiffre : c'est l'en-tête.
+     *
+     * @param csv le fichier CSV des foyers
+     * @param binaire le fichier binaire à écrire, écrasé s'il existe
+     * @param avecIdentifiants si vrai, chaque foyer est identifié par son numéro de
+     *                         ligne dans le fichier CSV
+     * @return le nombre de foyers convertis
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     * @throws IllegalArgumentException si une ligne est mal formée ou incohérente
+     */
+    public static long convertirCsv(Path csv, Path binaire, boolean avecIdentifiants)
+            throws IOException {
+        int taille = avecIdentifiants ? TAILLE_FOYER_IDENTIFIE : TAILLE_FOYER;
+        ByteBuffer tampon = ByteBuffer.allocateDirect(TAILLE_TAMPON).order(ORDRE);
+        long nbFoyers = 0;
+        try (BufferedReader lecteur = Files.newBufferedReader(csv, StandardCharsets.US_ASCII);
+             FileChannel sortie = FileChannel.open(binaire, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            sortie.position(TAILLE_EN_TETE);
+            long numeroLigne = 0;
+            boolean enTetePossible = true;
+            for (String ligne = lecteur.readLine(); ligne != null; ligne = lecteur.readLine()) {
+                numeroLigne++;
+                String contenu = ligne.strip();
+                if (contenu.isEmpty()) {
+                    continue;
+                }
+                boolean enTete = enTetePossible && !Character.isDigit(contenu.charAt(0));
+                enTetePossible = false;
+                if (enTete) {
+                    continue;
+                }
+                if (tampon.remaining() < taille) {
+                    vider(tampon, sortie);
+                }
+                if (avecIdentifiants) {
+                    tampon.putLong(numeroLigne);
+                }
+                ecrireFoyer(tampon, contenu, numeroLigne);
+                nbFoyers++;
+            }
+            vider(tampon, sortie);
+            ecrireEnTete(tampon, SIGNATURE_FOYERS, taille, nbFoyers);
+            tampon.limit(TAILLE_EN_TETE);
+            sortie.write(tampon, 0);
+        }
+        return nbFoyers;
+    }
+
+    private static void ecrireFoyer(ByteBuffer tampon, String ligne, long numeroLigne) {
+        String[] colonnes = ligne.split(",", -1);
+        try {
+            if (colonnes.length < NB_COLONNES_CSV) {
+                throw new IllegalArgumentException("six colonnes attendues");
+            }
+            int revenu1 = Integer.parseInt(colonnes[0].strip());
+            int revenu2 = Integer.parseInt(colonnes[1].strip());
+            SituationFamiliale situation = SituationFamiliale.valueOf(colonnes[2].strip());
+            int nbEnfants = Integer.parseInt(colonnes[COLONNE_ENFANTS].strip());
+            int nbEnfantsHandicap = Integer.parseInt(colonnes[COLONNE_HANDICAP].strip());
+            String isole = colonnes[COLONNE_ISOLE].strip();
+            if (!"true".equals(isole) && !"false".equals(isole)) {
+                throw new IllegalArgumentException("true ou false attendu");
+            }
+            boolean parentIsole = Boolean.parseBoolean(isole);
+            DonneesFoyerFiscal.valider(revenu1, revenu2, situation, nbEnfants,
+                    nbEnfantsHandicap, parentIsole);
+            tampon.putInt(revenu1).putInt(revenu2)
+                    .putShort(composition(situation, nbEnfants, nbEnfantsHandicap, parentIsole));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ligne " + numeroLigne + " : " + e.getMessage(), e);
+        }
+    }
+
+    private static void vider(ByteBuffer tampon, FileChannel sortie) throws IOException {
+        tampon.flip();
+        while (tampon.hasRemaining()) {
+            sortie.write(tampon);
+        }
+        tampon.clear();
+    }
+}
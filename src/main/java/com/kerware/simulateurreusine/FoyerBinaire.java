@@ -0,0 +1,146 @@
+package com.kerware.simulateurreusine;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Vue poids mouche d'un enregistrement de foyer du {@link FichierFoyersBinaire}.
+ * Une seule instance parcourt tous les enregistrements d'un tampon, par exemple une
+ * fenêtre projetée en mémoire : {@link #positionner(int)} déplace la vue et les
+ * accesseurs lisent directement les octets, sans copie ni objet par foyer.
+ * Une instance n'est pas partagée entre threads.
+ */
+public final class FoyerBinaire {
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+    private static final int TAILLE_IDENTIFIANT = Long.BYTES;
+
+    private final ByteBuffer enregistrements;
+    private final int tailleEnregistrement;
+    private final int decalageDonnees;
+    private int position;
+
+    /**
+     * Crée une vue sur des enregistrements de foyers contigus.
+     *
+     * @param tampon le tampon dont l'octet 0 est le début du premier enregistrement,
+     *               en ordre {@link FichierFoyersBinaire#ORDRE}
+     * @param avecIdentifiants si les enregistrements commencent par un identifiant
+     */
+    public FoyerBinaire(ByteBuffer tampon, boolean avecIdentifiants) {
+        this.enregistrements = tampon;
+        this.tailleEnregistrement = avecIdentifiants
+                ? FichierFoyersBinaire.TAILLE_FOYER_IDENTIFIE : FichierFoyersBinaire.TAILLE_FOYER;
+        this.decalageDonnees = avecIdentifiants ? TAILLE_IDENTIFIANT : 0;
+    }
+
+    /**
+     * Retourne le nombre d'enregistrements complets du tampon.
+     *
+     * @return le nombre de foyers
+     */
+    public int taille() {
+        return enregistrements.limit() / tailleEnregistrement;
+    }
+
+    /**
+     * Place la vue sur un enregistrement.
+     *
+     * @param index le rang de l'enregistrement dans le tampon
+     * @return cette vue
+     */
+    public FoyerBinaire positionner(int index) {
+        position = index * tailleEnregistrement;
+        return this;
+    }
+
+    /**
+     * Retourne l'identifiant du foyer, ou -1 si les enregistrements n'en ont pas.
+     *
+     * @return l'identifiant
+     */
+    public long getIdentifiant() {
+        return decalageDonnees == 0 ? -1 : enregistrements.getLong(position);
+    }
+
+    /**
+     * Retourne le revenu net du premier déclarant.
+     *
+     * @return le revenu net, en euros
+     */
+    public int getRevenuNetDeclarant1() {
+        return enregistrements.getInt(position + decalageDonnees);
+    }
+
+    /**
+     * Retourne le revenu net du second déclarant, 0 hors couple.
+     *
+     * @return le revenu net, en euros
+     */
+    public int getRevenuNetDeclarant2() {
+        return enregistrements.getInt(position + decalageDonnees + Integer.BYTES);
+    }
+
+    private short composition() {
+        return enregistrements.getShort(position + decalageDonnees + 2 * Integer.BYTES);
+    }
+
+    /**
+     * Retourne la situation familiale du foyer.
+     *
+     * @return la situation familiale
+     * @throws IllegalArgumentException si le rang enregistré ne correspond à aucune situation
+     */
+    public SituationFamiliale getSituationFamiliale() {
+        int rang = FichierFoyersBinaire.rangSituation(composition());
+        if (rang >= SITUATIONS.length) {
+            throw new IllegalArgumentException("situation familiale inconnue (" + rang + ")");
+        }
+        return SITUATIONS[rang];
+    }
+
+    /**
+     * Retourne le nombre d'enfants à charge du foyer.
+     *
+     * @return le nombre d'enfants à charge
+     */
+    public int getNbEnfantsACharge() {
+        return FichierFoyersBinaire.nbEnfants(composition());
+    }
+
+    /**
+     * Retourne le nombre d'enfants à charge en situation de handicap.
+     *
+     * @return le nombre d'enfants en situation de handicap
+     */
+    public int getNbEnfantsSituationHandicap() {
+        return FichierFoyersBinaire.nbEnfantsHandicap(composition());
+    }
+
+    /**
+     * Indique si le déclarant est un parent isolé.
+     *
+     * @return vrai pour un parent isolé
+     */
+    public boolean isParentIsole() {
+        return FichierFoyersBinaire.parentIsole(composition());
+    }
+
+    /**
+     * Copie le foyer courant dans une zone de travail, après validation.
+     */
+    void copierDans(EtatCalcul etat) {
+        short donnees = composition();
+        int rang = FichierFoyersBinaire.rangSituation(donnees);
+        if (rang >= SITUATIONS.length) {
+            throw new IllegalArgumentException("situation familiale inconnue (" + rang + ")");
+        }
+        int revenu1 = getRevenuNetDeclarant1();
+        int revenu2 = getRevenuNetDeclarant2();
+        int nbEnfants = FichierFoyersBinaire.nbEnfants(donnees);
+        int nbEnfantsHandicap = FichierFoyersBinaire.nbEnfantsHandicap(donnees);
+        boolean parentIsole = FichierFoyersBinaire.parentIsole(donnees);
+        DonneesFoyerFiscal.valider(revenu1, revenu2, SITUATIONS[rang], nbEnfants,
+                nbEnfantsHandicap, parentIsole);
+        etat.initialiser(revenu1, revenu2, SITUATIONS[rang], nbEnfants, nbEnfantsHandicap,
+                parentIsole);
+    }
+}
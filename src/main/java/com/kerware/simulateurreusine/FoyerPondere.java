@@ -0,0 +1,36 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Foyer fiscal d'un échantillon, avec son poids de sondage : le nombre de foyers
+ * de la population qu'il représente.
+ *
+ * @param foyer les données du foyer fiscal, déjà validées
+ * @param poids le poids de sondage, compté au millionième près
+ */
+public record FoyerPondere(DonneesFoyerFiscal foyer, double poids) {
+    /** Poids maximal d'un foyer. */
+    public static final double POIDS_MAX = 1e9;
+
+    static final double MILLIONIEMES = 1e6;
+
+    /**
+     * Valide le foyer pondéré.
+     *
+     * @throws IllegalArgumentException si le foyer est null, ou si le poids est négatif,
+     *                                  n'est pas un nombre ou dépasse {@link #POIDS_MAX}
+     */
+    public FoyerPondere {
+        if (foyer == null) {
+            throw new IllegalArgumentException("Le foyer ne peut pas être null");
+        }
+        if (!(poids >= 0 && poids <= POIDS_MAX)) {
+            throw new IllegalArgumentException("Le poids doit être compris entre 0 et "
+                    + POIDS_MAX + " : " + poids);
+        }
+    }
+
+    // Poids en millionièmes entiers, pour des cumuls exacts
+    long poidsMillioniemes() {
+        return Math.round(poids * MILLIONIEMES);
+    }
+}
@@ -0,0 +1,171 @@
+package com.kerware.simulateurreusine;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Générateur de charge du {@link ServiceSimulation}. Des clients concurrents envoient
+ * chacun une requête à la fois, en boucle fermée, pendant une durée donnée ; les
+ * latences sont mesurées par un {@link HistogrammeLatence}. Les corps des requêtes
+ * sont des foyers aléatoires préparés avant le tir, pour ne mesurer que le service.
+ */
+public final class GenerateurCharge {
+    private static final int NB_CORPS = 1024;
+    private static final int REVENU_MAX = 200_000;
+    private static final int NB_ENFANTS_MAX = 4;
+    private static final int OK = 200;
+    private static final double NS_PAR_SECONDE = 1e9;
+    private static final int DUREE_DEFAUT_S = 10;
+    private static final int NB_CLIENTS_DEFAUT = 16;
+    private static final int ARG_ADRESSE = 3;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1).build();
+    private final URI cible;
+    private final List<HttpRequest.BodyPublisher> corps;
+
+    /**
+     * Prépare un générateur de charge.
+     *
+     * @param uri l'adresse du point d'accès visé, {@code /impot} ou {@code /impot/lot}
+     * @param tailleLot le nombre de foyers par requête ; 0 envoie un foyer seul,
+     *                  hors tableau, au point d'accès {@code /impot}
+     * @param graine la graine des foyers aléatoires
+     */
+    public GenerateurCharge(URI uri, int tailleLot, long graine) {
+        if (tailleLot < 0) {
+            throw new IllegalArgumentException("La taille de lot doit être positive ou nulle");
+        }
+        this.cible = uri;
+        this.corps = new ArrayList<>(NB_CORPS);
+        Random aleatoire = new Random(graine);
+        for (int i = 0; i < NB_CORPS; i++) {
+            StringBuilder json = new StringBuilder();
+            if (tailleLot == 0) {
+                ecrireFoyer(json, aleatoire);
+            } else {
+                json.append('[');
+                for (int j = 0; j < tailleLot; j++) {
+                    if (j > 0) {
+                        json.append(',');
+                    }
+                    ecrireFoyer(json, aleatoire);
+                }
+                json.append(']');
+            }
+            corps.add(HttpRequest.BodyPublishers.ofString(json.toString()));
+        }
+    }
+
+    private static void ecrireFoyer(StringBuilder json, Random aleatoire) {
+        boolean couple = aleatoire.nextBoolean();
+        int enfants = aleatoire.nextInt(NB_ENFANTS_MAX + 1);
+        json.append("{\"revenuNetDeclarant1\":").append(aleatoire.nextInt(REVENU_MAX))
+                .append(",\"revenuNetDeclarant2\":")
+                .append(couple ? aleatoire.nextInt(REVENU_MAX) : 0)
+                .append(",\"situationFamiliale\":\"")
+                .append(couple ? SituationFamiliale.MARIE : SituationFamiliale.CELIBATAIRE)
+                .append("\",\"nbEnfantsACharge\":").append(enfants)
+                .append(",\"nbEnfantsSituationHandicap\":").append(aleatoire.nextInt(enfants + 1))
+                .append(",\"parentIsole\":").append(!couple && enfants > 0).append('}');
+    }
+
+    /**
+     * Lance un tir de charge et attend sa fin.
+     *
+     * @param nbClients le nombre de clients concurrents
+     * @param duree la durée du tir
+     * @return le rapport du tir
+     * @throws InterruptedException si le thread appelant est interrompu
+     */
+    public RapportCharge tirer(int nbClients, Duration duree) throws InterruptedException {
+        HistogrammeLatence latences = new HistogrammeLatence();
+        LongAdder erreurs = new LongAdder();
+        long debut = System.nanoTime();
+        long fin = debut + duree.toNanos();
+        Thread[] clients = new Thread[nbClients];
+        for (int c = 0; c < nbClients; c++) {
+            int premier = c;
+            clients[c] = new Thread(() -> envoyer(premier, fin, latences, erreurs),
+                    "charge-" + c);
+            clients[c].start();
+        }
+        for (Thread thread : clients) {
+            thread.join();
+        }
+        double secondes = (System.nanoTime() - debut) / NS_PAR_SECONDE;
+        long nbRequetes = latences.getNbMesures();
+        return new RapportCharge(nbRequetes, erreurs.sum(), nbRequetes / secondes,
+                latences.getP50Ns(), latences.getP99Ns(), latences.getP999Ns());
+    }
+
+    private void envoyer(int premier, long fin, HistogrammeLatence latences, LongAdder erreurs) {
+        int i = premier;
+        while (System.nanoTime() < fin) {
+            HttpRequest requete = HttpRequest.newBuilder(cible)
+                    .header("Content-Type", "application/json")
+                    .POST(corps.get(i++ % NB_CORPS)).build();
+            long depart = System.nanoTime();
+            try {
+                HttpResponse<Void> reponse =
+                        client.send(requete, HttpResponse.BodyHandlers.discarding());
+                if (reponse.statusCode() != OK) {
+                    erreurs.increment();
+                }
+            } catch (IOException e) {
+                erreurs.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            latences.enregistrer(System.nanoTime() - depart);
+        }
+    }
+
+    /**
+     * Lance un tir de charge en ligne de commande. Sans adresse, un service est démarré
+     * dans le processus sur un port libre de la boucle locale.
+     *
+     * @param args la durée en secondes, le nombre de clients, la taille de lot, puis
+     *             éventuellement l'adresse du point d'accès
+     * @throws IOException si le service embarqué ne peut pas démarrer
+     * @throws InterruptedException si le tir est interrompu
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int dureeS = args.length > 0 ? Integer.parseInt(args[0]) : DUREE_DEFAUT_S;
+        int nbClients = args.length > 1 ? Integer.parseInt(args[1]) : NB_CLIENTS_DEFAUT;
+        int tailleLot = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        ServiceSimulation service = null;
+        URI uri;
+        if (args.length > ARG_ADRESSE) {
+            uri = URI.create(args[ARG_ADRESSE]);
+        } else {
+            ServiceSimulation.activerSansDelai();
+            service = ServiceSimulation.demarrer(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    new MoteurCalculImpot());
+            uri = URI.create("http://127.0.0.1:" + service.getPort()
+                    + (tailleLot == 0 ? ServiceSimulation.CHEMIN_CALCUL
+                    : ServiceSimulation.CHEMIN_LOT));
+        }
+        try {
+            RapportCharge rapport = new GenerateurCharge(uri, tailleLot, 1)
+                    .tirer(nbClients, Duration.ofSeconds(dureeS));
+            System.out.println(rapport);
+        } finally {
+            if (service != null) {
+                service.close();
+            }
+        }
+    }
+}
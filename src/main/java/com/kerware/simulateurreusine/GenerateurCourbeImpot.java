@@ -0,0 +1,157 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Génère la courbe de l'impôt net d'un profil de foyer sur une plage de revenus.
+ * Le nombre de parts et le plafond du quotient familial ne dépendent pas du revenu :
+ * ils sont calculés une fois. Les tranches, la décote et la contribution
+ * exceptionnelle sont parcourues avec un curseur par fonction : le revenu imposable
+ * et l'impôt avant décote croissent avec le revenu, chaque curseur ne fait donc
+ * qu'avancer d'une borne à la suivante au lieu de rechercher son segment à chaque
+ * point. Les impôts obtenus sont identiques à ceux du {@link MoteurCalculImpot}.
+ */
+public class GenerateurCourbeImpot {
+    /** Nombre maximal de points d'une courbe. */
+    public static final int NB_POINTS_MAX = 10_000_000;
+
+    private final ReferentielBareme referentiel;
+
+    /**
+     * Crée un générateur sur le référentiel de barème global.
+     */
+    public GenerateurCourbeImpot() {
+        this(ReferentielBareme.global());
+    }
+
+    /**
+     * Crée un générateur sur un référentiel de barème.
+     *
+     * @param referentielBareme le référentiel qui fournit le barème en vigueur
+     */
+    public GenerateurCourbeImpot(ReferentielBareme referentielBareme) {
+        this.referentiel = referentielBareme;
+    }
+
+    /**
+     * Calcule l'impôt net d'un profil pour des revenus du premier déclarant allant de
+     * celui du profil jusqu'à un maximum, par pas constant. Les autres données du
+     * profil, dont le revenu du second déclarant, restent fixes.
+     *
+     * @param profil le foyer qui donne le premier revenu et le profil familial
+     * @param revenuMax le dernier revenu de la plage, inclus s'il tombe sur un pas
+     * @param pas l'écart entre deux revenus successifs
+     * @return la courbe de l'impôt net
+     * @throws IllegalArgumentException si le pas n'est pas positif, si la plage est vide ou
+     *                                  si la courbe aurait plus de {@link #NB_POINTS_MAX} points
+     */
+    public CourbeImpot generer(DonneesFoyerFiscal profil, int revenuMax, int pas) {
+        int revenuMin = profil.revenuNetDeclarant1();
+        if (pas < 1) {
+            throw new IllegalArgumentException("Le pas doit être positif");
+        }
+        if (revenuMax < revenuMin) {
+            throw new IllegalArgumentException("Le revenu maximum est inférieur au revenu minimum");
+        }
+        long nbPointsPlage = ((long) revenuMax - revenuMin) / pas + 1;
+        if (nbPointsPlage > NB_POINTS_MAX) {
+            throw new IllegalArgumentException("La courbe aurait " + nbPointsPlage
+                    + " points, au-delà du maximum de " + NB_POINTS_MAX);
+        }
+        int nbPoints = (int) nbPointsPlage;
+        CourbeImpot courbe = new CourbeImpot(new int[nbPoints], new double[nbPoints],
+                new double[nbPoints], new double[nbPoints]);
+
+        Balayage balayage = new Balayage(referentiel.jeu(), profil);
+        for (int i = 0; i < nbPoints; i++) {
+            balayage.calculer(courbe, i, revenuMin + i * pas);
+        }
+        return courbe;
+    }
+
+    /**
+     * Constantes du profil et curseurs des fonctions par morceaux pendant un balayage.
+     */
+    private static final class Balayage {
+        private final JeuCalculateurs jeu;
+        private final Bareme bareme;
+        private final BaremeCompile tranches;
+        private final BaremeCompile decote;
+        private final BaremeCompile contribution;
+        private final SituationFamiliale situation;
+        private final int revenu2;
+        private final double nombreParts;
+        private final double partsDeclarants;
+        private final double plafondBaisse;
+
+        private int segmentDeclarants;
+        private int segmentFoyer;
+        private int segmentDecote;
+        private int segmentContribution;
+
+        Balayage(JeuCalculateurs jeuCalculateurs, DonneesFoyerFiscal profil) {
+            this.jeu = jeuCalculateurs;
+            this.bareme = jeuCalculateurs.bareme();
+            this.situation = profil.situationFamiliale();
+            boolean estCouple = situation.estCouple();
+            this.tranches = bareme.getImpot();
+            this.decote = bareme.getDecote(estCouple);
+            this.contribution = bareme.getContribution(estCouple);
+            this.revenu2 = profil.revenuNetDeclarant2();
+            this.nombreParts = jeu.parts().calculerNombreParts(situation,
+                    profil.nbEnfantsACharge(), profil.nbEnfantsSituationHandicap(),
+                    profil.parentIsole());
+            this.partsDeclarants = jeu.parts().calculerPartsDeclarants(situation);
+            this.plafondBaisse =
+                    jeu.plafonneur().calculerPlafondBaisse(nombreParts, partsDeclarants);
+        }
+
+        void calculer(CourbeImpot courbe, int i, int revenu1) {
+            // Mêmes opérations, dans le même ordre, que le moteur de calcul
+            double abattement = jeu.abattement().calculerAbattement(revenu1, revenu2, situation);
+            double revenuImposable = Math.max(0, revenu1 + revenu2 - abattement);
+
+            double quotientDeclarants = revenuImposable / partsDeclarants;
+            segmentDeclarants = tranches.avancer(segmentDeclarants, quotientDeclarants);
+            double impotBrutDeclarants = Math.round(
+                    tranches.evaluer(quotientDeclarants, segmentDeclarants) * partsDeclarants);
+            double quotientFoyer = revenuImposable / nombreParts;
+            segmentFoyer = tranches.avancer(segmentFoyer, quotientFoyer);
+            double impotBrutFoyer = Math.round(
+                    tranches.evaluer(quotientFoyer, segmentFoyer) * nombreParts);
+            double impotAvantDecote = jeu.plafonneur().calculerImpotPlafonne(
+                    impotBrutDeclarants, impotBrutFoyer, nombreParts, partsDeclarants);
+
+            segmentDecote = decote.avancer(segmentDecote, impotAvantDecote);
+            double montantDecote = Math.min(
+                    Math.round(decote.evaluer(impotAvantDecote, segmentDecote)), impotAvantDecote);
+            segmentContribution = contribution.avancer(segmentContribution, revenuImposable);
+            double montantContribution = Math.round(
+                    contribution.evaluer(revenuImposable, segmentContribution));
+            double impotNet = impotAvantDecote - montantDecote + montantContribution;
+
+            long revenuFoyer = (long) revenu1 + revenu2;
+            courbe.revenus()[i] = revenu1;
+            courbe.impotsNets()[i] = impotNet;
+            courbe.tauxEffectifs()[i] = revenuFoyer == 0 ? 0 : impotNet / revenuFoyer;
+            courbe.tauxMarginaux()[i] = tauxMarginal(revenu1, revenu1 + revenu2 - abattement,
+                    impotBrutDeclarants - impotBrutFoyer >= plafondBaisse,
+                    montantDecote >= impotAvantDecote);
+        }
+
+        // Pente à droite de l'impôt net avant arrondis, par dérivation de chaque étape
+        private double tauxMarginal(int revenu1, double revenuAvantPlancher,
+                                    boolean plafonnementAtteint, boolean impotAnnule) {
+            double abattementProportionnel = revenu1 * bareme.getTauxAbattement();
+            double penteAbattement = abattementProportionnel >= bareme.getAbattementMinimal()
+                    && abattementProportionnel < bareme.getAbattementMaximal()
+                    ? bareme.getTauxAbattement() : 0;
+            double penteRevenuImposable = revenuAvantPlancher >= 0 ? 1 - penteAbattement : 0;
+
+            double penteImpotAvantDecote = penteRevenuImposable * (plafonnementAtteint
+                    ? tranches.pente(segmentDeclarants) : tranches.pente(segmentFoyer));
+            double penteApresDecote = impotAnnule ? 0
+                    : penteImpotAvantDecote * (1 - decote.pente(segmentDecote));
+            return penteApresDecote
+                    + penteRevenuImposable * contribution.pente(segmentContribution);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.kerware.simulateurreusine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Graphe acyclique des nœuds du calcul de l'impôt. Le graphe standard est formé des
+ * étapes de {@link EtapeCalcul} ; on peut lui ajouter des nœuds, ou remplacer une
+ * étape par un autre nœud dont la valeur est alors lue à la place de l'étape par les
+ * nœuds qui en dépendent.
+ * L'ordre de calcul est fixé à la construction : chaque nœud suit ses prérequis et
+ * est évalué une seule fois par foyer, sa valeur étant ensuite lue dans le
+ * {@link ContexteCalcul}. Un graphe est immuable et peut être partagé entre threads.
+ */
+public final class GrapheCalcul {
+    private static final EtapeCalcul[] ETAPES = EtapeCalcul.values();
+    private static final int TOUTES_ETAPES = (1 << ETAPES.length) - 1;
+    private static final GrapheCalcul STANDARD = new GrapheCalcul(List.of(ETAPES));
+
+    // Nœud qui calcule chaque emplacement : les étapes standard d'abord, à leur rang
+    private final List<NoeudCalcul> producteurs;
+    // Emplacement des nœuds qui ne sont pas des étapes standard
+    private final Map<NoeudCalcul, Integer> emplacementsNoeuds = new IdentityHashMap<>();
+    private final NoeudCalcul[] ordre;
+    private final int[] emplacementsOrdre;
+    // Emplacements des prérequis directs de chaque emplacement
+    private final int[][] prerequis;
+    // Rangs, dans l'ordre de calcul, de chaque emplacement et de ses prérequis directs
+    // ou non : ce qu'il faut calculer pour l'obtenir
+    private final int[][] fermetures;
+    // Vrai si aucune étape standard n'est remplacée : elles sont alors calculées en tête
+    private final boolean etapesStandard;
+    // Pour chaque emplacement, masque des étapes standard dont il dépend, lui compris
+    private final int[] masquesEtapes;
+
+    private GrapheCalcul(List<NoeudCalcul> noeuds) {
+        this.producteurs = List.copyOf(noeuds);
+        for (int i = 0; i < producteurs.size(); i++) {
+            NoeudCalcul noeud = producteurs.get(i);
+            boolean estEtape = noeud instanceof EtapeCalcul etape && etape.ordinal() == i;
+            if (!estEtape && (noeud instanceof EtapeCalcul
+                    || emplacementsNoeuds.put(noeud, i) != null)) {
+                throw new IllegalArgumentException("Nœud présent deux fois dans le graphe : "
+                        + noeud.getNom());
+            }
+        }
+        this.etapesStandard = producteurs.subList(0, ETAPES.length).equals(List.of(ETAPES));
+        this.ordre = new NoeudCalcul[producteurs.size()];
+        this.emplacementsOrdre = new int[producteurs.size()];
+        this.prerequis = new int[producteurs.size()][];
+        ordonner();
+        this.masquesEtapes = new int[producteurs.size()];
+        this.fermetures = fermer();
+    }
+
+    /**
+     * Retourne le graphe des étapes standard du calcul.
+     *
+     * @return le graphe standard
+     */
+    public static GrapheCalcul standard() {
+        return STANDARD;
+    }
+
+    /**
+     * Retourne un graphe formé de ce graphe et de nouveaux nœuds.
+     *
+     * @param noeuds les nœuds à ajouter
+     * @return le nouveau graphe
+     * @throws IllegalArgumentException si un nœud est déjà présent, si un prérequis
+     *                                  n'appartient pas au graphe ou si le graphe a un cycle
+     */
+    public GrapheCalcul ajouter(NoeudCalcul... noeuds) {
+        List<NoeudCalcul> nouveaux = new ArrayList<>(producteurs);
+        nouveaux.addAll(Arrays.asList(noeuds));
+        return new GrapheCalcul(nouveaux);
+    }
+
+    /**
+     * Retourne un graphe où une étape standard est calculée par un autre nœud.
+     *
+     * @param etape l'étape à remplacer
+     * @param noeud le nœud qui calcule la valeur de l'étape
+     * @return le nouveau graphe
+     * @throws IllegalArgumentException si le nœud est déjà présent, si un prérequis
+     *                                  n'appartient pas au graphe ou si le graphe a un cycle
+     */
+    public GrapheCalcul remplacer(EtapeCalcul etape, NoeudCalcul noeud) {
+        List<NoeudCalcul> nouveaux = new ArrayList<>(producteurs);
+        nouveaux.set(etape.ordinal(), noeud);
+        return new GrapheCalcul(nouveaux);
+    }
+
+    /**
+     * Crée une zone de calcul pour ce graphe.
+     *
+     * @param referentiel le référentiel qui fournit le barème en vigueur à chaque calcul
+     * @return un contexte vide
+     */
+    public ContexteCalcul nouveauContexte(ReferentielBareme referentiel) {
+        return new ContexteCalcul(this, referentiel);
+    }
+
+    // Tri topologique en profondeur : à prérequis satisfaits, l'ordre de déclaration
+    // est conservé, si bien que le graphe standard suit l'ordre de EtapeCalcul
+    private void ordonner() {
+        byte[] etats = new byte[producteurs.size()];
+        int rang = 0;
+        for (int emplacement = 0; emplacement < producteurs.size(); emplacement++) {
+            rang = visiter(emplacement, etats, rang);
+        }
+    }
+
+    private int[][] fermer() {
+        BitSet[] rangsNecessaires = new BitSet[ordre.length];
+        int[][] rangs = new int[ordre.length][];
+        for (int rang = 0; rang < ordre.length; rang++) {
+            int emplacement = emplacementsOrdre[rang];
+            BitSet necessaires = new BitSet(ordre.length);
+            necessaires.set(rang);
+            for (int source : prerequis[emplacement]) {
+                necessaires.or(rangsNecessaires[source]);
+            }
+            rangsNecessaires[emplacement] = necessaires;
+            rangs[emplacement] = necessaires.stream().toArray();
+            for (int necessaire : rangs[emplacement]) {
+                if (emplacementsOrdre[necessaire] < ETAPES.length) {
+                    masquesEtapes[emplacement] |= 1 << emplacementsOrdre[necessaire];
+                }
+            }
+        }
+        return rangs;
+    }
+
+    private int visiter(int emplacement, byte[] etats, int rang) {
+        NoeudCalcul noeud = producteurs.get(emplacement);
+        if (etats[emplacement] == 2) {
+            return rang;
+        }
+        if (etats[emplacement] == 1) {
+            throw new IllegalArgumentException("Cycle dans le graphe de calcul : "
+                    + noeud.getNom());
+        }
+        etats[emplacement] = 1;
+        int suivant = rang;
+        List<? extends NoeudCalcul> noeudsPrerequis = noeud.getPrerequis();
+        prerequis[emplacement] = new int[noeudsPrerequis.size()];
+        for (int i = 0; i < noeudsPrerequis.size(); i++) {
+            int source = emplacement(noeudsPrerequis.get(i));
+            if (source < 0) {
+                throw new IllegalArgumentException("Prérequis de " + noeud.getNom()
+                        + " absent du graphe : " + noeudsPrerequis.get(i).getNom());
+            }
+            prerequis[emplacement][i] = source;
+            suivant = visiter(source, etats, suivant);
+        }
+        etats[emplacement] = 2;
+        ordre[suivant] = noeud;
+        emplacementsOrdre[suivant] = emplacement;
+        return suivant + 1;
+    }
+
+    // Emplacement de la valeur d'un nœud, -1 s'il n'appartient pas au graphe.
+    // Une étape standard remplacée garde son emplacement, rempli par son remplaçant.
+    int emplacement(NoeudCalcul noeud) {
+        if (noeud instanceof EtapeCalcul etape) {
+            return etape.ordinal();
+        }
+        Integer emplacement = emplacementsNoeuds.get(noeud);
+        return emplacement == null ? -1 : emplacement;
+    }
+
+    int getNbEmplacements() {
+        return producteurs.size();
+    }
+
+    int getNbNoeuds() {
+        return ordre.length;
+    }
+
+    // Emplacement de la valeur du nœud de rang donné dans l'ordre de calcul
+    int emplacementAuRang(int rang) {
+        return emplacementsOrdre[rang];
+    }
+
+    // Évalue le nœud de rang donné ; ses prérequis sont déjà calculés
+    void evaluer(ContexteCalcul contexte, int rang) {
+        contexte.ranger(emplacementsOrdre[rang], ordre[rang].evaluer(contexte));
+    }
+
+    // Calcule à la demande un emplacement et ceux de ses prérequis pas encore calculés
+    void exiger(ContexteCalcul contexte, int emplacement) {
+        if (etapesStandard) {
+            EtapeCalcul.calculerManquantes(contexte, masquesEtapes[emplacement]);
+            if (emplacement < ETAPES.length) {
+                return;
+            }
+        }
+        for (int rang : fermetures[emplacement]) {
+            if (!contexte.estCalcule(emplacementsOrdre[rang])) {
+                evaluer(contexte, rang);
+            }
+        }
+    }
+
+    void calculer(ContexteCalcul contexte) {
+        int debut = 0;
+        if (etapesStandard) {
+            // Les étapes standard ne dépendent que d'elles-mêmes : l'ordre les place en tête
+            EtapeCalcul.calculerManquantes(contexte, TOUTES_ETAPES);
+            debut = ETAPES.length;
+        }
+        for (int rang = debut; rang < ordre.length; rang++) {
+            evaluer(contexte, rang);
+        }
+    }
+}
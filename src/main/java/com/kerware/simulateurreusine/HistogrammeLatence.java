@@ -0,0 +1,154 @@
+package com.kerware.simulateurreusine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme de durées sans verrou. Les classes sont logarithmiques : chaque
+ * puissance de deux est découpée en {@value #NB_SOUS_CLASSES} sous-classes, soit
+ * une erreur relative d'au plus 25 %. Les comptes sont répartis en bandes
+ * indexées par thread pour que des threads concurrents n'incrémentent pas les
+ * mêmes cases ; les bandes sont sommées à la lecture.
+ */
+public final class HistogrammeLatence implements HistogrammeLatenceMBean {
+    private static final int BITS_SOUS_CLASSES = 2;
+    private static final int NB_SOUS_CLASSES = 1 << BITS_SOUS_CLASSES;
+    private static final int NB_CLASSES = (Long.SIZE - BITS_SOUS_CLASSES) * NB_SOUS_CLASSES;
+    private static final int NB_BANDES_MAX = 64;
+    private static final int MELANGE_THREAD = 0x9E3779B9;
+    // Les bits de poids fort du produit, les mieux mélangés, choisissent la bande
+    private static final int DECALAGE_BANDE = 16;
+    private static final double P50 = 0.5;
+    private static final double P90 = 0.9;
+    private static final double P99 = 0.99;
+    private static final double P999 = 0.999;
+
+    private final AtomicLongArray comptes;
+    private final int masqueBandes;
+    private final LongAdder somme = new LongAdder();
+    private final LongAccumulator maximum = new LongAccumulator(Math::max, 0);
+
+    public HistogrammeLatence() {
+        int nbBandes = Math.min(NB_BANDES_MAX,
+                Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+        this.comptes = new AtomicLongArray(nbBandes * NB_CLASSES);
+        this.masqueBandes = nbBandes - 1;
+    }
+
+    /**
+     * Enregistre une durée.
+     *
+     * @param dureeNs la durée en nanosecondes ; une durée négative compte pour 0
+     */
+    public void enregistrer(long dureeNs) {
+        long duree = Math.max(0, dureeNs);
+        int bande = (int) Thread.currentThread().getId() * MELANGE_THREAD >>> DECALAGE_BANDE
+                & masqueBandes;
+        comptes.getAndIncrement(bande * NB_CLASSES + classe(duree));
+        somme.add(duree);
+        maximum.accumulate(duree);
+    }
+
+    static int classe(long duree) {
+        if (duree < NB_SOUS_CLASSES) {
+            return (int) duree;
+        }
+        int exposant = Long.SIZE - 1 - Long.numberOfLeadingZeros(duree);
+        int sousClasse = (int) (duree >>> (exposant - BITS_SOUS_CLASSES)) & (NB_SOUS_CLASSES - 1);
+        return (exposant - BITS_SOUS_CLASSES + 1) * NB_SOUS_CLASSES + sousClasse;
+    }
+
+    static long borneSuperieure(int classe) {
+        if (classe < NB_SOUS_CLASSES) {
+            return classe;
+        }
+        int exposant = classe / NB_SOUS_CLASSES + BITS_SOUS_CLASSES - 1;
+        long largeur = 1L << (exposant - BITS_SOUS_CLASSES);
+        return (1L << exposant) + (classe % NB_SOUS_CLASSES + 1) * largeur - 1;
+    }
+
+    private long[] sommerBandes() {
+        long[] totaux = new long[NB_CLASSES];
+        for (int i = 0; i < comptes.length(); i++) {
+            totaux[i % NB_CLASSES] += comptes.get(i);
+        }
+        return totaux;
+    }
+
+    /**
+     * Retourne la durée sous laquelle se trouve une fraction des mesures.
+     *
+     * @param fraction la fraction des mesures, entre 0 et 1
+     * @return la borne supérieure de la classe du centile, 0 sans mesure
+     */
+    public long quantile(double fraction) {
+        long[] totaux = sommerBandes();
+        long nbMesures = 0;
+        for (long total : totaux) {
+            nbMesures += total;
+        }
+        long rang = (long) Math.ceil(fraction * nbMesures);
+        long cumul = 0;
+        for (int classe = 0; classe < NB_CLASSES; classe++) {
+            cumul += totaux[classe];
+            if (cumul >= rang && cumul > 0) {
+                return Math.min(borneSuperieure(classe), maximum.get());
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public long getNbMesures() {
+        long nbMesures = 0;
+        for (int i = 0; i < comptes.length(); i++) {
+            nbMesures += comptes.get(i);
+        }
+        return nbMesures;
+    }
+
+    @Override
+    public double getMoyenneNs() {
+        long nbMesures = getNbMesures();
+        return nbMesures == 0 ? 0 : (double) somme.sum() / nbMesures;
+    }
+
+    @Override
+    public long getMaxNs() {
+        return maximum.get();
+    }
+
+    @Override
+    public long getP50Ns() {
+        return quantile(P50);
+    }
+
+    @Override
+    public long getP90Ns() {
+        return quantile(P90);
+    }
+
+    @Override
+    public long getP99Ns() {
+        return quantile(P99);
+    }
+
+    @Override
+    public long getP999Ns() {
+        return quantile(P999);
+    }
+
+    /**
+     * Remet l'histogramme à zéro. Les mesures enregistrées pendant la remise à zéro
+     * peuvent être perdues.
+     */
+    @Override
+    public void reinitialiser() {
+        for (int i = 0; i < comptes.length(); i++) {
+            comptes.set(i, 0);
+        }
+        somme.reset();
+        maximum.reset();
+    }
+}
@@ -0,0 +1,23 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Interface JMX d'un {@link HistogrammeLatence}. Les durées sont en nanosecondes ;
+ * un centile est la borne supérieure de la classe qui le contient.
+ */
+public interface HistogrammeLatenceMBean {
+    long getNbMesures();
+
+    double getMoyenneNs();
+
+    long getMaxNs();
+
+    long getP50Ns();
+
+    long getP90Ns();
+
+    long getP99Ns();
+
+    long getP999Ns();
+
+    void reinitialiser();
+}
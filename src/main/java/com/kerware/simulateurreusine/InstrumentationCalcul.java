@@ -0,0 +1,168 @@
+package com.kerware.simulateurreusine;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Mesures d'exécution des simulateurs : nombre de calculs et d'erreurs, et un
+ * {@link HistogrammeLatence} par {@link EtapeInstrumentee}. Une instance peut être
+ * partagée par tous les simulateurs d'une application ; rien n'y est verrouillé.
+ * Seul un calcul sur {@link #getPeriodeEchantillonnage()} est chronométré, pour
+ * que le coût des mesures reste négligeable à plusieurs millions de calculs par
+ * seconde ; pour la même raison, chaque simulateur ne reporte ses calculs qu'au
+ * calcul mesuré, le nombre de calculs retarde donc d'au plus une période par
+ * simulateur. Les mesures peuvent être publiées comme MBeans JMX.
+ */
+public final class InstrumentationCalcul implements InstrumentationCalculMBean {
+    /** Période d'échantillonnage par défaut : un calcul mesuré sur 1024. */
+    public static final int PERIODE_ECHANTILLONNAGE_DEFAUT = 1024;
+
+    private static final String DOMAINE_JMX = "com.kerware.simulateurreusine";
+
+    private final String nom;
+    private final LongAdder nbCalculs = new LongAdder();
+    private final LongAdder nbErreurs = new LongAdder();
+    // Un histogramme par étape, indexé par rang d'étape
+    private final HistogrammeLatence[] histogrammesParEtape;
+    private volatile int periodeEchantillonnage = PERIODE_ECHANTILLONNAGE_DEFAUT;
+
+    /**
+     * Crée une instrumentation.
+     *
+     * @param nomInstrumentation le nom qui distingue les MBeans de cette instrumentation
+     */
+    public InstrumentationCalcul(String nomInstrumentation) {
+        this.nom = nomInstrumentation;
+        EtapeInstrumentee[] etapes = EtapeInstrumentee.values();
+        this.histogrammesParEtape = new HistogrammeLatence[etapes.length];
+        for (EtapeInstrumentee etape : etapes) {
+            histogrammesParEtape[etape.ordinal()] = new HistogrammeLatence();
+        }
+    }
+
+    void compterCalculs(int nombre) {
+        nbCalculs.add(nombre);
+    }
+
+    void compterErreur() {
+        nbErreurs.increment();
+    }
+
+    /**
+     * Enregistre la durée d'une étape commencée à l'instant donné.
+     *
+     * @return l'instant de fin de l'étape, début de la suivante
+     */
+    long mesurer(EtapeInstrumentee etape, long debut) {
+        long fin = System.nanoTime();
+        histogrammesParEtape[etape.ordinal()].enregistrer(fin - debut);
+        return fin;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public HistogrammeLatence getHistogramme(EtapeInstrumentee etape) {
+        return histogrammesParEtape[etape.ordinal()];
+    }
+
+    @Override
+    public long getNbCalculs() {
+        return nbCalculs.sum();
+    }
+
+    @Override
+    public long getNbErreurs() {
+        return nbErreurs.sum();
+    }
+
+    @Override
+    public long getNbCalculsMesures() {
+        return histogrammesParEtape[EtapeInstrumentee.CALCUL_COMPLET.ordinal()].getNbMesures();
+    }
+
+    @Override
+    public int getPeriodeEchantillonnage() {
+        return periodeEchantillonnage;
+    }
+
+    /**
+     * Modifie la période d'échantillonnage ; 1 mesure tous les calculs.
+     *
+     * @param periode le nombre de calculs pour un calcul mesuré
+     */
+    @Override
+    public void setPeriodeEchantillonnage(int periode) {
+        if (periode < 1) {
+            throw new IllegalArgumentException("La période d'échantillonnage doit être positive");
+        }
+        this.periodeEchantillonnage = periode;
+    }
+
+    @Override
+    public void reinitialiser() {
+        nbCalculs.reset();
+        nbErreurs.reset();
+        for (HistogrammeLatence histogramme : histogrammesParEtape) {
+            histogramme.reinitialiser();
+        }
+    }
+
+    /**
+     * Publie les compteurs et les histogrammes sur le serveur MBean de la plateforme.
+     *
+     * @throws IllegalStateException si des MBeans de même nom sont déjà publiés
+     */
+    public void publier() {
+        publier(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Publie les compteurs et les histogrammes sur un serveur MBean, sous les noms
+     * {@code com.kerware.simulateurreusine:type=InstrumentationCalcul,name=<nom>}
+     * et {@code ...,name=<nom>,etape=<étape>}.
+     *
+     * @param serveur le serveur MBean
+     * @throws IllegalStateException si des MBeans de même nom sont déjà publiés
+     */
+    public void publier(MBeanServer serveur) {
+        try {
+            serveur.registerMBean(this, nomJmx(null));
+            for (EtapeInstrumentee etape : EtapeInstrumentee.values()) {
+                serveur.registerMBean(getHistogramme(etape), nomJmx(etape));
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Publication JMX impossible : " + nom, e);
+        }
+    }
+
+    /**
+     * Retire de la publication JMX les MBeans de cette instrumentation.
+     *
+     * @param serveur le serveur MBean
+     */
+    public void retirer(MBeanServer serveur) {
+        try {
+            if (serveur.isRegistered(nomJmx(null))) {
+                serveur.unregisterMBean(nomJmx(null));
+            }
+            for (EtapeInstrumentee etape : EtapeInstrumentee.values()) {
+                if (serveur.isRegistered(nomJmx(etape))) {
+                    serveur.unregisterMBean(nomJmx(etape));
+                }
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Retrait JMX impossible : " + nom, e);
+        }
+    }
+
+    private ObjectName nomJmx(EtapeInstrumentee etape) throws JMException {
+        String nomObjet = DOMAINE_JMX + ":type=InstrumentationCalcul,name="
+                + ObjectName.quote(nom);
+        return new ObjectName(etape == null ? nomObjet : nomObjet + ",etape=" + etape.name());
+    }
+}
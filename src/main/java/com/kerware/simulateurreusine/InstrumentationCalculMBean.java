@@ -0,0 +1,18 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Interface JMX des compteurs d'une {@link InstrumentationCalcul}.
+ */
+public interface InstrumentationCalculMBean {
+    long getNbCalculs();
+
+    long getNbErreurs();
+
+    long getNbCalculsMesures();
+
+    int getPeriodeEchantillonnage();
+
+    void setPeriodeEchantillonnage(int periode);
+
+    void reinitialiser();
+}
@@ -0,0 +1,30 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Calculateurs construits pour un même barème. Un jeu est publié en une seule
+ * fois par le {@link ReferentielBareme} : un calcul qui le lit au début n'utilise
+ * que des valeurs de ce barème, même si le barème est remplacé pendant le calcul.
+ */
+record JeuCalculateurs(Bareme bareme,
+                       CalculateurParts parts,
+                       CalculateurAbattement abattement,
+                       CalculateurImpot impot,
+                       PlafonneurImpot plafonneur,
+                       CalculateurDecote decote,
+                       CalculateurContributionExceptionnelle contribution) {
+
+    static JeuCalculateurs pour(Bareme bareme) {
+        return pour(bareme, new CalculateurImpot(bareme));
+    }
+
+    static JeuCalculateurs pour(Bareme bareme, TableImpotBrut table) {
+        return pour(bareme, new CalculateurImpot(bareme, table));
+    }
+
+    private static JeuCalculateurs pour(Bareme bareme, CalculateurImpot impot) {
+        return new JeuCalculateurs(bareme, new CalculateurParts(),
+                new CalculateurAbattement(bareme), impot,
+                new PlafonneurImpot(bareme), new CalculateurDecote(bareme),
+                new CalculateurContributionExceptionnelle(bareme));
+    }
+}
@@ -0,0 +1,263 @@
+package com.kerware.simulateurreusine;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lecteur JSON des requêtes du {@link ServiceSimulation}, limité à leur forme fixe :
+ * un foyer est un objet dont les champs portent les noms des données de
+ * {@link ICalculateurImpot}, un lot est un tableau de foyers.
+ * <pre>{"revenuNetDeclarant1": 45000, "revenuNetDeclarant2": 30000,
+ *  "situationFamiliale": "MARIE", "nbEnfantsACharge": 2,
+ *  "nbEnfantsSituationHandicap": 0, "parentIsole": false}</pre>
+ * Le premier revenu et la situation sont obligatoires, les autres champs valent 0
+ * ou false par défaut. Les octets sont analysés en place, sans créer de chaîne :
+ * les foyers sont rangés directement dans les colonnes d'un {@link LotFoyers}.
+ */
+final class LecteurJson {
+    private static final int TAILLE_LOT_INITIALE = 16;
+    private static final int BASE = 10;
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+    private static final byte[][] NOMS_SITUATIONS = new byte[SITUATIONS.length][];
+
+    private static final byte[] REVENU_1 = octets("revenuNetDeclarant1");
+    private static final byte[] REVENU_2 = octets("revenuNetDeclarant2");
+    private static final byte[] SITUATION = octets("situationFamiliale");
+    private static final byte[] ENFANTS = octets("nbEnfantsACharge");
+    private static final byte[] ENFANTS_HANDICAP = octets("nbEnfantsSituationHandicap");
+    private static final byte[] PARENT_ISOLE = octets("parentIsole");
+    private static final byte[] VRAI = octets("true");
+    private static final byte[] FAUX = octets("false");
+
+    static {
+        for (SituationFamiliale situation : SITUATIONS) {
+            NOMS_SITUATIONS[situation.ordinal()] = octets(situation.name());
+        }
+    }
+
+    private final byte[] entree;
+    private final int fin;
+    private int curseur;
+
+    private int[] revenus1 = new int[TAILLE_LOT_INITIALE];
+    private int[] revenus2 = new int[TAILLE_LOT_INITIALE];
+    private byte[] situations = new byte[TAILLE_LOT_INITIALE];
+    private byte[] enfants = new byte[TAILLE_LOT_INITIALE];
+    private byte[] enfantsHandicap = new byte[TAILLE_LOT_INITIALE];
+    private boolean[] parentsIsoles = new boolean[TAILLE_LOT_INITIALE];
+    private int nbFoyers;
+
+    /**
+     * Crée un lecteur sur les premiers octets d'un tableau.
+     *
+     * @param octetsEntree le tableau qui contient le document JSON
+     * @param longueur le nombre d'octets du document
+     */
+    LecteurJson(byte[] octetsEntree, int longueur) {
+        this.entree = octetsEntree;
+        this.fin = longueur;
+    }
+
+    static byte[] octets(String texte) {
+        return texte.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Lit un document composé d'un seul foyer.
+     *
+     * @return un lot d'un foyer
+     * @throws IllegalArgumentException si le document est mal formé
+     */
+    LotFoyers lireFoyer() {
+        lireObjet();
+        finirDocument();
+        return lot();
+    }
+
+    /**
+     * Lit un document composé d'un tableau de foyers.
+     *
+     * @param tailleMax le nombre maximal de foyers acceptés
+     * @return le lot des foyers, dans l'ordre du tableau
+     * @throws IllegalArgumentException si le document est mal formé ou trop grand
+     */
+    LotFoyers lireLot(int tailleMax) {
+        attendre('[');
+        if (!consommer(']')) {
+            do {
+                if (nbFoyers == tailleMax) {
+                    throw erreur("plus de " + tailleMax + " foyers");
+                }
+                lireObjet();
+            } while (consommer(','));
+            attendre(']');
+        }
+        finirDocument();
+        return lot();
+    }
+
+    private LotFoyers lot() {
+        int n = nbFoyers;
+        return new LotFoyers(Arrays.copyOf(revenus1, n), Arrays.copyOf(revenus2, n),
+                Arrays.copyOf(situations, n), Arrays.copyOf(enfants, n),
+                Arrays.copyOf(enfantsHandicap, n), Arrays.copyOf(parentsIsoles, n));
+    }
+
+    private void lireObjet() {
+        if (nbFoyers == revenus1.length) {
+            agrandir();
+        }
+        int i = nbFoyers;
+        boolean revenuLu = false;
+        boolean situationLue = false;
+        attendre('{');
+        if (!consommer('}')) {
+            do {
+                int debutCle = lireDebutChaine();
+                int finCle = finChaine(debutCle);
+                attendre(':');
+                if (egal(REVENU_1, debutCle, finCle)) {
+                    revenus1[i] = lireEntier();
+                    revenuLu = true;
+                } else if (egal(REVENU_2, debutCle, finCle)) {
+                    revenus2[i] = lireEntier();
+                } else if (egal(SITUATION, debutCle, finCle)) {
+                    situations[i] = (byte) lireSituation().ordinal();
+                    situationLue = true;
+                } else if (egal(ENFANTS, debutCle, finCle)) {
+                    enfants[i] = octetEntier(lireEntier());
+                } else if (egal(ENFANTS_HANDICAP, debutCle, finCle)) {
+                    enfantsHandicap[i] = octetEntier(lireEntier());
+                } else if (egal(PARENT_ISOLE, debutCle, finCle)) {
+                    parentsIsoles[i] = lireBooleen();
+                } else {
+                    throw erreur("champ inconnu " + new String(entree, debutCle,
+                            finCle - debutCle, StandardCharsets.UTF_8));
+                }
+            } while (consommer(','));
+            attendre('}');
+        }
+        if (!revenuLu || !situationLue) {
+            throw erreur("revenuNetDeclarant1 et situationFamiliale sont obligatoires");
+        }
+        nbFoyers++;
+    }
+
+    private void agrandir() {
+        int taille = revenus1.length * 2;
+        revenus1 = Arrays.copyOf(revenus1, taille);
+        revenus2 = Arrays.copyOf(revenus2, taille);
+        situations = Arrays.copyOf(situations, taille);
+        enfants = Arrays.copyOf(enfants, taille);
+        enfantsHandicap = Arrays.copyOf(enfantsHandicap, taille);
+        parentsIsoles = Arrays.copyOf(parentsIsoles, taille);
+    }
+
+    private byte octetEntier(int valeur) {
+        // Les valeurs hors de l'octet sont ramenées à -1, rejeté par la validation
+        return valeur < Byte.MIN_VALUE || valeur > Byte.MAX_VALUE ? -1 : (byte) valeur;
+    }
+
+    private int lireEntier() {
+        sauterEspaces();
+        boolean negatif = consommer('-');
+        long valeur = 0;
+        int debut = curseur;
+        while (curseur < fin && entree[curseur] >= '0' && entree[curseur] <= '9') {
+            valeur = valeur * BASE + (entree[curseur] - '0');
+            if (valeur > Integer.MAX_VALUE) {
+                throw erreur("nombre trop grand");
+            }
+            curseur++;
+        }
+        if (curseur == debut) {
+            throw erreur("nombre entier attendu");
+        }
+        return (int) (negatif ? -valeur : valeur);
+    }
+
+    private SituationFamiliale lireSituation() {
+        int debut = lireDebutChaine();
+        int finValeur = finChaine(debut);
+        for (SituationFamiliale situation : SITUATIONS) {
+            if (egal(NOMS_SITUATIONS[situation.ordinal()], debut, finValeur)) {
+                return situation;
+            }
+        }
+        throw erreur("situation familiale inconnue");
+    }
+
+    private boolean lireBooleen() {
+        sauterEspaces();
+        if (egal(VRAI, curseur, Math.min(fin, curseur + VRAI.length))) {
+            curseur += VRAI.length;
+            return true;
+        }
+        if (egal(FAUX, curseur, Math.min(fin, curseur + FAUX.length))) {
+            curseur += FAUX.length;
+            return false;
+        }
+        throw erreur("true ou false attendu");
+    }
+
+    private int lireDebutChaine() {
+        attendre('"');
+        return curseur;
+    }
+
+    // Les noms attendus n'ont pas de caractère échappé : une barre oblique est refusée
+    private int finChaine(int debut) {
+        int i = debut;
+        while (i < fin && entree[i] != '"') {
+            if (entree[i] == '\\') {
+                throw erreur("caractère échappé non supporté");
+            }
+            i++;
+        }
+        if (i == fin) {
+            throw erreur("chaîne non terminée");
+        }
+        curseur = i + 1;
+        return i;
+    }
+
+    private boolean egal(byte[] attendu, int debut, int finValeur) {
+        return Arrays.equals(attendu, 0, attendu.length, entree, debut, finValeur);
+    }
+
+    private void sauterEspaces() {
+        while (curseur < fin && estEspace(entree[curseur])) {
+            curseur++;
+        }
+    }
+
+    private static boolean estEspace(byte octet) {
+        return octet == ' ' || octet == '\n' || octet == '\r' || octet == '\t';
+    }
+
+    private boolean consommer(char caractere) {
+        sauterEspaces();
+        if (curseur < fin && entree[curseur] == caractere) {
+            curseur++;
+            return true;
+        }
+        return false;
+    }
+
+    private void attendre(char caractere) {
+        if (!consommer(caractere)) {
+            throw erreur("'" + caractere + "' attendu");
+        }
+    }
+
+    private void finirDocument() {
+        sauterEspaces();
+        if (curseur != fin) {
+            throw erreur("contenu inattendu après le document");
+        }
+    }
+
+    private IllegalArgumentException erreur(String message) {
+        return new IllegalArgumentException("JSON, position " + curseur + " : " + message);
+    }
+}
@@ -0,0 +1,57 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Lot de foyers fiscaux en colonnes : une case par foyer dans chaque tableau.
+ * Les tableaux ne sont pas copiés ; l'appelant peut les remplir et les
+ * réutiliser d'un lot à l'autre.
+ *
+ * @param revenusDeclarant1 revenus nets des premiers déclarants
+ * @param revenusDeclarant2 revenus nets des seconds déclarants
+ * @param situations rang ({@link SituationFamiliale#ordinal()}) de la situation familiale
+ * @param nbEnfants nombres d'enfants à charge
+ * @param nbEnfantsHandicap nombres d'enfants en situation de handicap
+ * @param parentsIsoles indicateurs de parent isolé
+ */
+public record LotFoyers(int[] revenusDeclarant1, int[] revenusDeclarant2, byte[] situations,
+                        byte[] nbEnfants, byte[] nbEnfantsHandicap, boolean[] parentsIsoles) {
+
+    /**
+     * Vérifie que toutes les colonnes ont la même taille.
+     *
+     * @throws IllegalArgumentException si les colonnes ont des tailles différentes
+     */
+    public LotFoyers {
+        int taille = revenusDeclarant1.length;
+        verifierTailles(taille, revenusDeclarant2.length, situations.length, nbEnfants.length,
+                nbEnfantsHandicap.length, parentsIsoles.length);
+    }
+
+    private static void verifierTailles(int taille, int... tailles) {
+        for (int t : tailles) {
+            if (t != taille) {
+                throw new IllegalArgumentException(
+                        "Les colonnes du lot doivent avoir la même taille");
+            }
+        }
+    }
+
+    /**
+     * Alloue un lot vide de la taille donnée.
+     *
+     * @param taille le nombre de foyers du lot
+     * @return le lot alloué
+     */
+    public static LotFoyers allouer(int taille) {
+        return new LotFoyers(new int[taille], new int[taille], new byte[taille],
+                new byte[taille], new byte[taille], new boolean[taille]);
+    }
+
+    /**
+     * Retourne le nombre de foyers du lot.
+     *
+     * @return la taille du lot
+     */
+    public int taille() {
+        return revenusDeclarant1.length;
+    }
+}
@@ -0,0 +1,70 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Résultats d'un lot de foyers en colonnes, alloués une fois par l'appelant
+ * et remplis par {@link MoteurCalculImpot#calculerLot}.
+ *
+ * @param nombresParts nombres de parts des foyers
+ * @param abattements abattements totaux
+ * @param revenusFiscauxReference revenus fiscaux de référence
+ * @param impotsAvantDecote impôts bruts après plafonnement
+ * @param decotes montants de décote
+ * @param contributionsExceptionnelles contributions exceptionnelles sur les hauts revenus
+ * @param impotsNets impôts sur le revenu nets
+ */
+public record LotResultats(double[] nombresParts, double[] abattements,
+                           double[] revenusFiscauxReference, double[] impotsAvantDecote,
+                           double[] decotes, double[] contributionsExceptionnelles,
+                           double[] impotsNets) {
+
+    /**
+     * Vérifie que toutes les colonnes ont la même taille.
+     *
+     * @throws IllegalArgumentException si les colonnes ont des tailles différentes
+     */
+    public LotResultats {
+        int taille = nombresParts.length;
+        verifierTailles(taille, abattements.length, revenusFiscauxReference.length,
+                impotsAvantDecote.length, decotes.length, contributionsExceptionnelles.length,
+                impotsNets.length);
+    }
+
+    private static void verifierTailles(int taille, int... tailles) {
+        for (int t : tailles) {
+            if (t != taille) {
+                throw new IllegalArgumentException(
+                        "Les colonnes de résultats doivent avoir la même taille");
+            }
+        }
+    }
+
+    /**
+     * Alloue les colonnes de résultats pour un lot de la taille donnée.
+     *
+     * @param taille le nombre de foyers du lot
+     * @return les résultats alloués
+     */
+    public static LotResultats allouer(int taille) {
+        return new LotResultats(new double[taille], new double[taille], new double[taille],
+                new double[taille], new double[taille], new double[taille], new double[taille]);
+    }
+
+    /**
+     * Retourne le nombre de foyers pouvant être stockés.
+     *
+     * @return la taille du lot
+     */
+    public int taille() {
+        return nombresParts.length;
+    }
+
+    void enregistrer(int index, EtatCalcul etat) {
+        nombresParts[index] = etat.getNombreParts();
+        abattements[index] = etat.getAbattement();
+        revenusFiscauxReference[index] = etat.getRevenuFiscalReference();
+        impotsAvantDecote[index] = etat.getImpotAvantDecote();
+        decotes[index] = etat.getDecote();
+        contributionsExceptionnelles[index] = etat.getContributionExceptionnelle();
+        impotsNets[index] = etat.getImpotNet();
+    }
+}
@@ -0,0 +1,117 @@
+package com.kerware.simulateurreusine;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Microsimulation de l'impôt sur un échantillon pondéré de foyers fiscaux.
+ * Les foyers sont calculés par le moteur reusine en une seule passe parallèle sur
+ * le flux, et seuls les agrégats pondérés sont conservés : chaque tâche cumule ses
+ * foyers dans ses propres agrégats, avec sa propre zone de travail, puis les agrégats
+ * des tâches sont fusionnés. Un flux qui ne se découpe pas en parties de taille connue,
+ * par exemple les lignes d'un fichier, est lu séquentiellement par blocs de
+ * {@value #TAILLE_BLOC} foyers, chacun calculé en parallèle : la mémoire utilisée ne
+ * dépend alors pas du nombre de foyers.
+ * Le barème est lu une seule fois par simulation et s'applique à tous les foyers.
+ */
+public class MicrosimulationImpot {
+    /** Nombre de foyers lus à la fois d'un flux qui ne se découpe pas. */
+    public static final int TAILLE_BLOC = 65_536;
+
+    private final ReferentielBareme referentiel;
+
+    /**
+     * Crée une microsimulation sur le référentiel de barème global.
+     */
+    public MicrosimulationImpot() {
+        this(ReferentielBareme.global());
+    }
+
+    /**
+     * Crée une microsimulation sur un référentiel de barème.
+     *
+     * @param referentielBareme le référentiel qui fournit le barème en vigueur
+     */
+    public MicrosimulationImpot(ReferentielBareme referentielBareme) {
+        this.referentiel = referentielBareme;
+    }
+
+    /**
+     * Calcule les agrégats pondérés des foyers d'un flux, parcouru en parallèle.
+     *
+     * @param foyers les foyers pondérés de l'échantillon
+     * @return les agrégats de l'échantillon
+     */
+    public AgregatsMicrosimulation simuler(Stream<FoyerPondere> foyers) {
+        JeuCalculateurs jeu = referentiel.jeu();
+        Spliterator<FoyerPondere> source = foyers.spliterator();
+        if (source.hasCharacteristics(Spliterator.SUBSIZED)) {
+            return accumuler(StreamSupport.stream(source, true), jeu).agregats;
+        }
+        // Le découpage parallèle d'une telle source copierait des lots toujours plus grands
+        AgregatsMicrosimulation agregats = new AgregatsMicrosimulation();
+        Bloc bloc = new Bloc();
+        while (bloc.remplir(source)) {
+            agregats.cumuler(accumuler(bloc.flux(), jeu).agregats);
+        }
+        return agregats;
+    }
+
+    private static Accumulateur accumuler(Stream<FoyerPondere> foyers, JeuCalculateurs jeu) {
+        return foyers.parallel().collect(() -> new Accumulateur(jeu), Accumulateur::ajouter,
+                Accumulateur::cumuler);
+    }
+
+    // Foyers lus d'une source séquentielle, réutilisé d'un bloc à l'autre
+    private static final class Bloc implements Consumer<FoyerPondere> {
+        private final FoyerPondere[] foyers = new FoyerPondere[TAILLE_BLOC];
+        private int taille;
+
+        @Override
+        public void accept(FoyerPondere foyer) {
+            foyers[taille++] = foyer;
+        }
+
+        // Lit les foyers suivants de la source ; faux si elle n'en a plus
+        boolean remplir(Spliterator<FoyerPondere> source) {
+            taille = 0;
+            boolean suite = true;
+            while (suite && taille < foyers.length) {
+                suite = source.tryAdvance(this);
+            }
+            return taille > 0;
+        }
+
+        Stream<FoyerPondere> flux() {
+            return Arrays.stream(foyers, 0, taille);
+        }
+    }
+
+    // Agrégats d'une tâche et zone de travail pour en calculer les foyers
+    private static final class Accumulateur {
+        private final JeuCalculateurs jeu;
+        private final EtatCalcul etat = new EtatCalcul();
+        private final AgregatsMicrosimulation agregats = new AgregatsMicrosimulation();
+
+        Accumulateur(JeuCalculateurs jeuCalculateurs) {
+            this.jeu = jeuCalculateurs;
+        }
+
+        void ajouter(FoyerPondere foyerPondere) {
+            DonneesFoyerFiscal foyer = foyerPondere.foyer();
+            etat.initialiser(foyer);
+            MoteurCalculImpot.calculerParts(jeu, etat);
+            MoteurCalculImpot.calculerRevenuImposable(jeu, etat);
+            MoteurCalculImpot.calculerImpot(jeu, etat);
+            agregats.ajouter(foyer.situationFamiliale(), foyer.nbEnfantsACharge(), etat,
+                    foyerPondere.poidsMillioniemes());
+        }
+
+        void cumuler(Accumulateur autre) {
+            agregats.cumuler(autre.agregats);
+        }
+    }
+}
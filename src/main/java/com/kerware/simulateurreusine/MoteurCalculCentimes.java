@@ -0,0 +1,136 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Moteur de calcul de l'impôt en arithmétique entière exacte : tous les montants
+ * sont des centimes dans des {@code long}, les taux des millionièmes, et les
+ * arrondis sont ceux du moteur reusine (abattement au centime, impôt brut, décote
+ * et contribution à l'euro, demis vers le haut). Les résultats ne dépendent ni de
+ * la JVM ni de la plateforme.
+ * Le quotient familial est calculé sans division par le nombre de parts (voir
+ * {@link BaremeEntier#evaluerDouble(long, int)}) ; les seules divisions restantes
+ * sont par des constantes.
+ * Comme {@link MoteurCalculImpot}, le moteur ne garde aucune donnée de foyer et
+ * lit le barème en vigueur d'un {@link ReferentielBareme} ; sa conversion en
+ * entiers est refaite au premier calcul qui suit un remplacement.
+ */
+public final class MoteurCalculCentimes {
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+
+    private final ReferentielBareme referentiel;
+    private final CalculateurParts calculateurParts = new CalculateurParts();
+    // Dernier barème converti ; recalculé si le référentiel a changé de barème
+    private volatile BaremeCentimes baremeCentimes;
+
+    /**
+     * Crée un moteur sur le référentiel de barème global.
+     */
+    public MoteurCalculCentimes() {
+        this(ReferentielBareme.global());
+    }
+
+    /**
+     * Crée un moteur sur un référentiel de barème.
+     *
+     * @param referentielBareme le référentiel qui fournit le barème en vigueur
+     * @throws IllegalArgumentException si le barème en vigueur n'est pas représentable
+     *                                  en centimes et millionièmes
+     */
+    public MoteurCalculCentimes(ReferentielBareme referentielBareme) {
+        this.referentiel = referentielBareme;
+        this.baremeCentimes = new BaremeCentimes(referentielBareme.getBareme());
+    }
+
+    private BaremeCentimes bareme() {
+        BaremeCentimes courant = baremeCentimes;
+        Bareme enVigueur = referentiel.getBareme();
+        if (courant.getBareme() != enVigueur) {
+            courant = new BaremeCentimes(enVigueur);
+            baremeCentimes = courant;
+        }
+        return courant;
+    }
+
+    /**
+     * Calcule l'impôt d'un foyer fiscal et l'ensemble des valeurs intermédiaires.
+     *
+     * @param foyer les données du foyer fiscal, déjà validées
+     * @return le résultat exact, en centimes
+     */
+    public ResultatCalculCentimes calculer(DonneesFoyerFiscal foyer) {
+        EtatCalculCentimes etat = new EtatCalculCentimes();
+        etat.initialiser(foyer);
+        calculer(bareme(), etat);
+        return etat.versResultat();
+    }
+
+    /**
+     * Calcule l'impôt net des foyers d'indice {@code debut} inclus à {@code fin} exclus,
+     * entièrement avec le barème en vigueur au début de l'appel.
+     *
+     * @param foyers les foyers à calculer
+     * @param debut l'indice du premier foyer à calculer
+     * @param fin l'indice suivant le dernier foyer à calculer
+     * @param impotsNets les impôts nets en centimes, rangés au même indice que le foyer
+     * @throws IllegalArgumentException si un foyer de l'intervalle est incohérent
+     */
+    public void calculerLot(LotFoyers foyers, int debut, int fin, long[] impotsNets) {
+        if (debut < 0 || fin > foyers.taille() || fin > impotsNets.length || debut > fin) {
+            throw new IndexOutOfBoundsException("Intervalle de foyers invalide");
+        }
+        BaremeCentimes bareme = bareme();
+        int[] revenus1 = foyers.revenusDeclarant1();
+        int[] revenus2 = foyers.revenusDeclarant2();
+        byte[] situations = foyers.situations();
+        byte[] enfants = foyers.nbEnfants();
+        byte[] enfantsHandicap = foyers.nbEnfantsHandicap();
+        boolean[] parentsIsoles = foyers.parentsIsoles();
+
+        EtatCalculCentimes etat = new EtatCalculCentimes();
+        for (int i = debut; i < fin; i++) {
+            byte rang = situations[i];
+            if (rang < 0 || rang >= SITUATIONS.length) {
+                throw new IllegalArgumentException("Foyer " + i
+                        + " : situation familiale inconnue (" + rang + ")");
+            }
+            SituationFamiliale situation = SITUATIONS[rang];
+            try {
+                DonneesFoyerFiscal.valider(revenus1[i], revenus2[i], situation, enfants[i],
+                        enfantsHandicap[i], parentsIsoles[i]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Foyer " + i + " : " + e.getMessage(), e);
+            }
+            etat.initialiser(revenus1[i], revenus2[i], situation, enfants[i],
+                    enfantsHandicap[i], parentsIsoles[i]);
+            calculer(bareme, etat);
+            impotsNets[i] = etat.getImpotNet();
+        }
+    }
+
+    private void calculer(BaremeCentimes bareme, EtatCalculCentimes etat) {
+        SituationFamiliale situation = etat.getSituation();
+        boolean estCouple = situation.estCouple();
+        // Les parts sont des multiples exacts d'une demi-part
+        int demiParts = (int) (2 * calculateurParts.calculerNombreParts(situation,
+                etat.getNbEnfants(), etat.getNbEnfantsHandicap(), etat.isParentIsole()));
+        int demiPartsDeclarants = (int) (2 * calculateurParts.calculerPartsDeclarants(situation));
+
+        long revenuNet1 = etat.getRevenuNetDeclarant1() * BaremeEntier.CENTIMES;
+        long revenuNet2 = etat.getRevenuNetDeclarant2() * BaremeEntier.CENTIMES;
+        long abattement = bareme.abattement(revenuNet1, revenuNet2, estCouple);
+        long revenuImposable = Math.max(0, revenuNet1 + revenuNet2 - abattement);
+        etat.setNombreDemiParts(demiParts);
+        etat.setAbattement(abattement);
+        etat.setRevenuImposable(revenuImposable);
+
+        long impotAvantDecote = bareme.impotPlafonne(
+                bareme.impotBrut(revenuImposable, demiPartsDeclarants),
+                bareme.impotBrut(revenuImposable, demiParts), demiParts,
+                demiPartsDeclarants);
+        long decote = bareme.decote(impotAvantDecote, estCouple);
+        long contribution = bareme.contribution(revenuImposable, estCouple);
+        etat.setImpotAvantDecote(impotAvantDecote);
+        etat.setDecote(decote);
+        etat.setContributionExceptionnelle(contribution);
+        etat.setImpotNet(impotAvantDecote - decote + contribution);
+    }
+}
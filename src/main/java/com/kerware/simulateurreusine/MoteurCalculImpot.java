@@ -0,0 +1,247 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Moteur de calcul de l'impôt sans état.
+ * Contrairement à {@link Simulateur}, le moteur ne conserve aucune donnée entre
+ * deux calculs : une seule instance peut être partagée par tous les threads
+ * sans synchronisation.
+ * Le barème est lu dans un {@link ReferentielBareme} une fois par calcul ou par
+ * lot : son remplacement prend effet au calcul suivant, sans recréer le moteur.
+ */
+public class MoteurCalculImpot {
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+
+    private final ReferentielBareme referentiel;
+
+    /**
+     * Crée un moteur sur le référentiel de barème global.
+     */
+    public MoteurCalculImpot() {
+        this(ReferentielBareme.global());
+    }
+
+    /**
+     * Crée un moteur sur un référentiel de barème.
+     *
+     * @param referentielBareme le référentiel qui fournit le barème en vigueur
+     */
+    public MoteurCalculImpot(ReferentielBareme referentielBareme) {
+        this.referentiel = referentielBareme;
+    }
+
+    public final ReferentielBareme getReferentiel() {
+        return referentiel;
+    }
+
+    /**
+     * Calcule l'impôt d'un foyer fiscal et l'ensemble des valeurs intermédiaires.
+     *
+     * @param foyer les données du foyer fiscal, déjà validées
+     * @return le résultat du calcul
+     */
+    public ResultatCalculImpot calculer(DonneesFoyerFiscal foyer) {
+        return calculer(referentiel.jeu(), foyer);
+    }
+
+    /**
+     * Calcule l'impôt d'un foyer fiscal en enregistrant chaque étape dans une trace.
+     * Le calcul ne passe par aucun cache.
+     *
+     * @param foyer les données du foyer fiscal, déjà validées
+     * @param trace la trace à remplir, ou null pour ne pas tracer
+     * @return le résultat du calcul
+     */
+    public final ResultatCalculImpot calculer(DonneesFoyerFiscal foyer, TraceCalcul trace) {
+        JeuCalculateurs jeu = referentiel.jeu();
+        EtatCalcul etat = new EtatCalcul();
+        etat.initialiser(foyer);
+        enchainerEtapes(jeu, etat);
+        if (trace != null) {
+            trace.enregistrer(etat, jeu.plafonneur());
+        }
+        return etat.versResultat();
+    }
+
+    final ResultatCalculImpot calculer(JeuCalculateurs jeu, DonneesFoyerFiscal foyer) {
+        EtatCalcul etat = new EtatCalcul();
+        etat.initialiser(foyer);
+        calculer(jeu, etat);
+        return etat.versResultat();
+    }
+
+    /**
+     * Calcule l'impôt d'un foyer fiscal à partir de ses données brutes.
+     *
+     * @param revenuNetDecl1 le revenu net du premier déclarant
+     * @param revenuNetDecl2 le revenu net du second déclarant
+     * @param situation la situation familiale du foyer
+     * @param nbEnfants le nombre d'enfants à charge
+     * @param nbEnfantsHandicap le nombre d'enfants en situation de handicap
+     * @param parentIsole indique si le déclarant est un parent isolé
+     * @return le résultat du calcul
+     * @throws IllegalArgumentException si les données sont incohérentes
+     */
+    public final ResultatCalculImpot calculer(int revenuNetDecl1, int revenuNetDecl2,
+                                              SituationFamiliale situation, int nbEnfants,
+                                              int nbEnfantsHandicap, boolean parentIsole) {
+        return calculer(new DonneesFoyerFiscal(revenuNetDecl1, revenuNetDecl2, situation,
+                nbEnfants, nbEnfantsHandicap, parentIsole));
+    }
+
+    /**
+     * Calcule l'impôt d'un foyer fiscal dans une zone de travail fournie par
+     * l'appelant. Pour des données valides, le calcul n'alloue aucun objet ; la zone
+     * n'est modifiée que si les données sont valides.
+     *
+     * @param revenuNetDecl1 le revenu net du premier déclarant
+     * @param revenuNetDecl2 le revenu net du second déclarant
+     * @param situation la situation familiale du foyer
+     * @param nbEnfants le nombre d'enfants à charge
+     * @param nbEnfantsHandicap le nombre d'enfants en situation de handicap
+     * @param parentIsole indique si le déclarant est un parent isolé
+     * @param etat la zone de travail qui reçoit le résultat
+     * @throws IllegalArgumentException si les données sont incohérentes
+     */
+    public final void calculer(int revenuNetDecl1, int revenuNetDecl2,
+                               SituationFamiliale situation, int nbEnfants,
+                               int nbEnfantsHandicap, boolean parentIsole, EtatCalcul etat) {
+        DonneesFoyerFiscal.valider(revenuNetDecl1, revenuNetDecl2, situation, nbEnfants,
+                nbEnfantsHandicap, parentIsole);
+        etat.initialiser(revenuNetDecl1, revenuNetDecl2, situation, nbEnfants,
+                nbEnfantsHandicap, parentIsole);
+        calculer(referentiel.jeu(), etat);
+    }
+
+    /**
+     * Calcule l'impôt de tous les foyers d'un lot.
+     *
+     * @param foyers les foyers à calculer
+     * @param resultats les colonnes de résultats, au moins aussi grandes que le lot
+     * @throws IllegalArgumentException si un foyer du lot est incohérent
+     */
+    public final void calculerLot(LotFoyers foyers, LotResultats resultats) {
+        calculerLot(foyers, 0, foyers.taille(), resultats);
+    }
+
+    /**
+     * Calcule l'impôt des foyers d'indice {@code debut} inclus à {@code fin} exclus.
+     * Les résultats sont rangés au même indice que le foyer. Aucun objet n'est
+     * alloué par foyer : une seule zone de travail sert à tout l'intervalle,
+     * calculé entièrement avec le barème en vigueur au début de l'appel.
+     *
+     * @param foyers les foyers à calculer
+     * @param debut l'indice du premier foyer à calculer
+     * @param fin l'indice suivant le dernier foyer à calculer
+     * @param resultats les colonnes de résultats
+     * @throws IllegalArgumentException si un foyer de l'intervalle est incohérent
+     */
+    public final void calculerLot(LotFoyers foyers, int debut, int fin,
+                                  LotResultats resultats) {
+        calculerLot(referentiel.jeu(), foyers, debut, fin, resultats);
+    }
+
+    final void calculerLot(JeuCalculateurs jeu, LotFoyers foyers, int debut, int fin,
+                           LotResultats resultats) {
+        if (debut < 0 || fin > foyers.taille() || fin > resultats.taille() || debut > fin) {
+            throw new IndexOutOfBoundsException("Intervalle de foyers invalide");
+        }
+        int[] revenus1 = foyers.revenusDeclarant1();
+        int[] revenus2 = foyers.revenusDeclarant2();
+        byte[] situations = foyers.situations();
+        byte[] enfants = foyers.nbEnfants();
+        byte[] enfantsHandicap = foyers.nbEnfantsHandicap();
+        boolean[] parentsIsoles = foyers.parentsIsoles();
+
+        EtatCalcul etat = new EtatCalcul();
+        for (int i = debut; i < fin; i++) {
+            SituationFamiliale situation = situation(situations[i], i);
+            try {
+                DonneesFoyerFiscal.valider(revenus1[i], revenus2[i], situation, enfants[i],
+                        enfantsHandicap[i], parentsIsoles[i]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Foyer " + i + " : " + e.getMessage(), e);
+            }
+            etat.initialiser(revenus1[i], revenus2[i], situation, enfants[i],
+                    enfantsHandicap[i], parentsIsoles[i]);
+            calculer(jeu, etat);
+            resultats.enregistrer(i, etat);
+        }
+    }
+
+    private static SituationFamiliale situation(byte rang, int index) {
+        if (rang < 0 || rang >= SITUATIONS.length) {
+            throw new IllegalArgumentException("Foyer " + index
+                    + " : situation familiale inconnue (" + rang + ")");
+        }
+        return SITUATIONS[rang];
+    }
+
+    /**
+     * Calcule un foyer déjà validé. Tous les calculs du moteur, sauf le calcul tracé,
+     * passent par cette méthode : une sous-classe peut la redéfinir pour intercepter
+     * chaque foyer, à condition de laisser dans la zone de travail toutes les valeurs
+     * intermédiaires que les étapes y auraient rangées.
+     */
+    void calculer(JeuCalculateurs jeu, EtatCalcul etat) {
+        enchainerEtapes(jeu, etat);
+    }
+
+    /**
+     * Enchaîne toutes les étapes du calcul avec le barème en vigueur.
+     */
+    final void calculer(EtatCalcul etat) {
+        calculer(referentiel.jeu(), etat);
+    }
+
+    final JeuCalculateurs jeu() {
+        return referentiel.jeu();
+    }
+
+    static void enchainerEtapes(JeuCalculateurs jeu, EtatCalcul etat) {
+        calculerParts(jeu, etat);
+        calculerRevenuImposable(jeu, etat);
+        calculerImpot(jeu, etat);
+    }
+
+    static void calculerParts(JeuCalculateurs jeu, EtatCalcul etat) {
+        SituationFamiliale situation = etat.getSituation();
+        etat.setNombreParts(jeu.parts().calculerNombreParts(situation, etat.getNbEnfants(),
+                etat.getNbEnfantsHandicap(), etat.isParentIsole()));
+        etat.setPartsDeclarants(jeu.parts().calculerPartsDeclarants(situation));
+    }
+
+    static void calculerRevenuImposable(JeuCalculateurs jeu, EtatCalcul etat) {
+        int revenu1 = etat.getRevenuNetDeclarant1();
+        int revenu2 = etat.getRevenuNetDeclarant2();
+        double abattement =
+                jeu.abattement().calculerAbattement(revenu1, revenu2, etat.getSituation());
+        etat.setAbattement(abattement);
+        etat.setRevenuImposable(Math.max(0, revenu1 + revenu2 - abattement));
+    }
+
+    /**
+     * Calcule l'impôt à partir des parts et du revenu imposable déjà calculés.
+     */
+    static void calculerImpot(JeuCalculateurs jeu, EtatCalcul etat) {
+        boolean estCouple = etat.getSituation().estCouple();
+        double revenuImposable = etat.getRevenuFiscalReference();
+        double nombreParts = etat.getNombreParts();
+        double partsDeclarants = etat.getPartsDeclarants();
+
+        // Impôt brut des déclarants seuls puis du foyer complet, et plafonnement
+        double impotBrutDeclarants =
+                jeu.impot().calculerImpotBrut(revenuImposable, partsDeclarants);
+        double impotBrutFoyer = jeu.impot().calculerImpotBrut(revenuImposable, nombreParts);
+        double impotAvantDecote = jeu.plafonneur().calculerImpotPlafonne(impotBrutDeclarants,
+                impotBrutFoyer, nombreParts, partsDeclarants);
+        etat.setImpotBrutDeclarants(impotBrutDeclarants);
+        etat.setImpotBrutFoyer(impotBrutFoyer);
+        etat.setImpotAvantDecote(impotAvantDecote);
+
+        double decote = jeu.decote().calculerDecote(impotAvantDecote, estCouple);
+        double contribution = jeu.contribution().calculerContribution(revenuImposable, estCouple);
+        etat.setDecote(decote);
+        etat.setContributionExceptionnelle(contribution);
+        etat.setImpotNet(impotAvantDecote - decote + contribution);
+    }
+}
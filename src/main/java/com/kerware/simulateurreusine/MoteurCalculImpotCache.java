@@ -0,0 +1,331 @@
+package com.kerware.simulateurreusine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Moteur de calcul avec un cache borné des résultats par foyer.
+ * Les données du foyer sont compactées dans une clé {@code long} ; les entrées sont
+ * rangées dans des segments à adressage ouvert, chacun protégé par son propre
+ * {@link StampedLock} : les lectures sont optimistes et ne bloquent pas, seules les
+ * insertions d'un même segment s'excluent. Quand la fenêtre de sondage d'une clé est
+ * pleine, une entrée est évincée selon l'algorithme de l'horloge (seconde chance).
+ * Chaque segment mémorise le barème de ses entrées et se vide quand le barème change.
+ * Tous les calculs du moteur passent par le cache : foyer par foyer, par lot, dans
+ * une zone de travail fournie par l'appelant ou depuis les moteurs qui s'appuient
+ * sur celui-ci. Seul le calcul tracé le contourne.
+ */
+public final class MoteurCalculImpotCache extends MoteurCalculImpot {
+    /** Revenu au-delà duquel un foyer n'est pas mis en cache. */
+    public static final int REVENU_MAX_CACHE = 16_777_215;
+
+    private static final int NB_SEGMENTS = 16;
+    // Les bits de poids fort du hachage choisissent le segment, les autres la case
+    private static final int DECALAGE_SEGMENT =
+            Long.SIZE - Integer.numberOfTrailingZeros(NB_SEGMENTS);
+    private static final int FENETRE_SONDAGE = 8;
+    private static final int BITS_REVENU = 24;
+    private static final int BITS_COMPTE = 3;
+    private static final int DECALAGE_SITUATION = 2 * BITS_REVENU;
+    private static final int DECALAGE_ENFANTS = DECALAGE_SITUATION + BITS_COMPTE;
+    private static final int DECALAGE_HANDICAP = DECALAGE_ENFANTS + BITS_COMPTE;
+    private static final int DECALAGE_PARENT_ISOLE = DECALAGE_HANDICAP + BITS_COMPTE;
+    // Marque les cases occupées : une case vide contient 0
+    private static final long OCCUPEE = Long.MIN_VALUE;
+    private static final long NON_CACHABLE = 0;
+
+    // Constantes du finaliseur de MurmurHash3
+    private static final int DECALAGE_MELANGE = 33;
+    private static final long MULTIPLICATEUR_MELANGE_1 = 0xff51afd7ed558ccdL;
+    private static final long MULTIPLICATEUR_MELANGE_2 = 0xc4ceb9fe1a85ec53L;
+
+    private final Segment[] segments;
+    private final LongAdder succes = new LongAdder();
+    private final LongAdder echecs = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Crée un moteur avec cache sur le référentiel de barème global.
+     *
+     * @param capacite le nombre d'entrées que le cache peut contenir
+     */
+    public MoteurCalculImpotCache(int capacite) {
+        this(ReferentielBareme.global(), capacite);
+    }
+
+    /**
+     * Crée un moteur avec cache sur un référentiel de barème.
+     *
+     * @param referentielBareme le référentiel qui fournit le barème en vigueur
+     * @param capacite le nombre d'entrées que le cache peut contenir, arrondi
+     *                 à une puissance de deux par segment
+     */
+    public MoteurCalculImpotCache(ReferentielBareme referentielBareme, int capacite) {
+        super(referentielBareme);
+        if (capacite < NB_SEGMENTS) {
+            throw new IllegalArgumentException("La capacité du cache doit être au moins "
+                    + NB_SEGMENTS);
+        }
+        int tailleSegment = Integer.highestOneBit(capacite / NB_SEGMENTS - 1) << 1;
+        this.segments = new Segment[NB_SEGMENTS];
+        for (int i = 0; i < NB_SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(FENETRE_SONDAGE, tailleSegment));
+        }
+    }
+
+    /**
+     * Calcule l'impôt d'un foyer fiscal ; en cas de succès du cache, le résultat
+     * mémorisé est retourné sans aucune allocation.
+     *
+     * @param foyer les données du foyer fiscal, déjà validées
+     * @return le résultat du calcul
+     */
+    @Override
+    public ResultatCalculImpot calculer(DonneesFoyerFiscal foyer) {
+        long cle = cle(foyer.revenuNetDeclarant1(), foyer.revenuNetDeclarant2(),
+                foyer.situationFamiliale(), foyer.nbEnfantsACharge(),
+                foyer.nbEnfantsSituationHandicap(), foyer.parentIsole());
+        if (cle == NON_CACHABLE) {
+            return super.calculer(foyer);
+        }
+        JeuCalculateurs jeu = jeu();
+        Entree entree = chercher(cle, jeu);
+        if (entree == null) {
+            EtatCalcul etat = new EtatCalcul();
+            etat.initialiser(foyer);
+            entree = calculerEtInserer(cle, jeu, etat);
+        }
+        return entree.resultat();
+    }
+
+    /**
+     * Calcule un foyer déjà validé dans une zone de travail. Tous les autres calculs
+     * du moteur passent par cette méthode ; en cas de succès du cache, les valeurs
+     * mémorisées sont copiées dans la zone sans aucune allocation.
+     */
+    @Override
+    void calculer(JeuCalculateurs jeu, EtatCalcul etat) {
+        long cle = cle(etat.getRevenuNetDeclarant1(), etat.getRevenuNetDeclarant2(),
+                etat.getSituation(), etat.getNbEnfants(), etat.getNbEnfantsHandicap(),
+                etat.isParentIsole());
+        if (cle == NON_CACHABLE) {
+            enchainerEtapes(jeu, etat);
+            return;
+        }
+        Entree entree = chercher(cle, jeu);
+        if (entree != null) {
+            entree.copierDans(etat);
+        } else {
+            calculerEtInserer(cle, jeu, etat);
+        }
+    }
+
+    private Entree chercher(long cle, JeuCalculateurs jeu) {
+        long hache = melanger(cle);
+        Entree entree = segment(hache).chercher(cle, (int) hache, jeu);
+        if (entree != null) {
+            succes.increment();
+        } else {
+            echecs.increment();
+        }
+        return entree;
+    }
+
+    private Entree calculerEtInserer(long cle, JeuCalculateurs jeu, EtatCalcul etat) {
+        enchainerEtapes(jeu, etat);
+        Entree entree = new Entree(etat);
+        long hache = melanger(cle);
+        if (segment(hache).inserer(cle, (int) hache, entree, jeu)) {
+            evictions.increment();
+        }
+        return entree;
+    }
+
+    private Segment segment(long hache) {
+        return segments[(int) (hache >>> DECALAGE_SEGMENT)];
+    }
+
+    /**
+     * Compacte les données d'un foyer dans une clé : 24 bits par revenu, 3 bits pour
+     * la situation, le nombre d'enfants et d'enfants handicapés, 1 bit pour le parent
+     * isolé, et le bit de poids fort qui marque une case occupée.
+     *
+     * @return la clé, ou {@link #NON_CACHABLE} si un revenu dépasse {@link #REVENU_MAX_CACHE}
+     */
+    private static long cle(int revenu1, int revenu2, SituationFamiliale situation,
+                            int nbEnfants, int nbEnfantsHandicap, boolean parentIsole) {
+        if (revenu1 > REVENU_MAX_CACHE || revenu2 > REVENU_MAX_CACHE) {
+            return NON_CACHABLE;
+        }
+        long cle = OCCUPEE | revenu1;
+        cle |= (long) revenu2 << BITS_REVENU;
+        cle |= (long) situation.ordinal() << DECALAGE_SITUATION;
+        cle |= (long) nbEnfants << DECALAGE_ENFANTS;
+        cle |= (long) nbEnfantsHandicap << DECALAGE_HANDICAP;
+        if (parentIsole) {
+            cle |= 1L << DECALAGE_PARENT_ISOLE;
+        }
+        return cle;
+    }
+
+    // Finaliseur de MurmurHash3 : répartit les bits de la clé sur tout le mot
+    private static long melanger(long cle) {
+        long h = cle;
+        h ^= h >>> DECALAGE_MELANGE;
+        h *= MULTIPLICATEUR_MELANGE_1;
+        h ^= h >>> DECALAGE_MELANGE;
+        h *= MULTIPLICATEUR_MELANGE_2;
+        h ^= h >>> DECALAGE_MELANGE;
+        return h;
+    }
+
+    /**
+     * Vide le cache. Les compteurs sont conservés.
+     */
+    public void vider() {
+        for (Segment segment : segments) {
+            segment.vider();
+        }
+    }
+
+    public long getNbSucces() {
+        return succes.sum();
+    }
+
+    public long getNbEchecs() {
+        return echecs.sum();
+    }
+
+    public long getNbEvictions() {
+        return evictions.sum();
+    }
+
+    // Résultat mémorisé, avec les valeurs intermédiaires qu'il ne contient pas
+    private record Entree(ResultatCalculImpot resultat, double partsDeclarants,
+                          double impotBrutDeclarants, double impotBrutFoyer) {
+
+        Entree(EtatCalcul etat) {
+            this(etat.versResultat(), etat.getPartsDeclarants(),
+                    etat.getImpotBrutDeclarants(), etat.getImpotBrutFoyer());
+        }
+
+        void copierDans(EtatCalcul etat) {
+            etat.setNombreParts(resultat.nombreParts());
+            etat.setPartsDeclarants(partsDeclarants);
+            etat.setAbattement(resultat.abattement());
+            etat.setRevenuImposable(resultat.revenuFiscalReference());
+            etat.setImpotBrutDeclarants(impotBrutDeclarants);
+            etat.setImpotBrutFoyer(impotBrutFoyer);
+            etat.setImpotAvantDecote(resultat.impotAvantDecote());
+            etat.setDecote(resultat.decote());
+            etat.setContributionExceptionnelle(resultat.contributionExceptionnelle());
+            etat.setImpotNet(resultat.impotNet());
+        }
+    }
+
+    private static final class Segment {
+        private final StampedLock verrou = new StampedLock();
+        private final long[] cles;
+        private final Entree[] entrees;
+        // Bits de référence de l'horloge, mis à jour sans verrou lors des lectures
+        private final byte[] references;
+        private final int masque;
+        // Calculateurs du barème des entrées présentes
+        private JeuCalculateurs jeu;
+
+        Segment(int taille) {
+            this.cles = new long[taille];
+            this.entrees = new Entree[taille];
+            this.references = new byte[taille];
+            this.masque = taille - 1;
+        }
+
+        Entree chercher(long cle, int hache, JeuCalculateurs jeuCourant) {
+            long tampon = verrou.tryOptimisticRead();
+            Entree entree = lire(cle, hache, jeuCourant);
+            if (!verrou.validate(tampon)) {
+                tampon = verrou.readLock();
+                try {
+                    entree = lire(cle, hache, jeuCourant);
+                } finally {
+                    verrou.unlockRead(tampon);
+                }
+            }
+            return entree;
+        }
+
+        private Entree lire(long cle, int hache, JeuCalculateurs jeuCourant) {
+            if (jeu != jeuCourant) {
+                return null;
+            }
+            // Les cases ne sont jamais libérées : la première case vide termine la recherche
+            for (int d = 0; d < FENETRE_SONDAGE; d++) {
+                int i = (hache + d) & masque;
+                long occupant = cles[i];
+                if (occupant == cle) {
+                    references[i] = 1;
+                    return entrees[i];
+                }
+                if (occupant == 0) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Insère une entrée calculée avec un jeu de calculateurs.
+         *
+         * @return vrai si une entrée a été évincée pour faire de la place
+         */
+        boolean inserer(long cle, int hache, Entree entree, JeuCalculateurs jeuCalcul) {
+            long tampon = verrou.writeLock();
+            try {
+                if (jeu != jeuCalcul) {
+                    effacer(jeuCalcul);
+                }
+                int victime = -1;
+                for (int d = 0; d < FENETRE_SONDAGE; d++) {
+                    int i = (hache + d) & masque;
+                    if (cles[i] == cle || cles[i] == 0) {
+                        ranger(i, cle, entree);
+                        return false;
+                    }
+                    // Seconde chance : une entrée référencée perd sa marque
+                    if (references[i] == 0 && victime < 0) {
+                        victime = i;
+                    }
+                    references[i] = 0;
+                }
+                ranger(victime < 0 ? hache & masque : victime, cle, entree);
+                return true;
+            } finally {
+                verrou.unlockWrite(tampon);
+            }
+        }
+
+        private void ranger(int i, long cle, Entree entree) {
+            cles[i] = cle;
+            entrees[i] = entree;
+            references[i] = 1;
+        }
+
+        void vider() {
+            long tampon = verrou.writeLock();
+            try {
+                effacer(null);
+            } finally {
+                verrou.unlockWrite(tampon);
+            }
+        }
+
+        // Appelé avec le verrou en écriture
+        private void effacer(JeuCalculateurs nouveauJeu) {
+            Arrays.fill(cles, 0);
+            Arrays.fill(entrees, null);
+            Arrays.fill(references, (byte) 0);
+            jeu = nouveauJeu;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.kerware.simulateurreusine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calcul parallèle d'une population de foyers fiscaux en mémoire.
+ * La population est découpée récursivement en blocs répartis sur un
+ * {@link ForkJoinPool} ; chaque bloc est calculé par le {@link MoteurCalculImpot}
+ * avec sa propre zone de travail, sans aucun état partagé entre les threads.
+ * Les résultats sont identiques à ceux du calcul séquentiel ; le barème est
+ * lu une seule fois par appel et s'applique à tous les blocs.
+ */
+public class MoteurCalculParallele {
+    /** Nombre de foyers par bloc par défaut. */
+    public static final int TAILLE_BLOC_DEFAUT = 16_384;
+
+    private final MoteurCalculImpot moteur;
+    private final ForkJoinPool pool;
+    private final int tailleBloc;
+
+    /**
+     * Crée un moteur parallèle sur le pool commun avec des blocs de taille par défaut.
+     */
+    public MoteurCalculParallele() {
+        this(new MoteurCalculImpot(), ForkJoinPool.commonPool(), TAILLE_BLOC_DEFAUT);
+    }
+
+    /**
+     * Crée un moteur parallèle.
+     *
+     * @param moteurCalcul le moteur sans état qui calcule chaque bloc
+     * @param poolCalcul le pool de threads à utiliser
+     * @param nbFoyersParBloc le nombre maximal de foyers calculés par une même tâche
+     */
+    public MoteurCalculParallele(MoteurCalculImpot moteurCalcul, ForkJoinPool poolCalcul,
+                                 int nbFoyersParBloc) {
+        if (nbFoyersParBloc < 1) {
+            throw new IllegalArgumentException("La taille des blocs doit être positive");
+        }
+        this.moteur = moteurCalcul;
+        this.pool = poolCalcul;
+        this.tailleBloc = nbFoyersParBloc;
+    }
+
+    /**
+     * Calcule en parallèle l'impôt de tous les foyers d'un lot.
+     *
+     * @param foyers les foyers à calculer
+     * @param resultats les colonnes de résultats, au moins aussi grandes que le lot
+     * @throws IllegalArgumentException si un foyer du lot est incohérent
+     */
+    public void calculerLot(LotFoyers foyers, LotResultats resultats) {
+        if (resultats.taille() < foyers.taille()) {
+            throw new IllegalArgumentException("Les colonnes de résultats sont trop petites");
+        }
+        pool.invoke(new TacheLot(moteur.jeu(), foyers, resultats, 0, foyers.taille()));
+    }
+
+    /**
+     * Calcule en parallèle l'impôt d'un tableau de foyers.
+     *
+     * @param foyers les foyers à calculer
+     * @return les résultats, dans l'ordre des foyers
+     */
+    public ResultatCalculImpot[] calculer(DonneesFoyerFiscal[] foyers) {
+        ResultatCalculImpot[] resultats = new ResultatCalculImpot[foyers.length];
+        pool.invoke(new TacheFoyers(moteur.jeu(), foyers, resultats, 0, foyers.length));
+        return resultats;
+    }
+
+    private final class TacheLot extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient JeuCalculateurs jeu;
+        private final transient LotFoyers foyers;
+        private final transient LotResultats resultats;
+        private final int debut;
+        private final int fin;
+
+        TacheLot(JeuCalculateurs calculateurs, LotFoyers lot, LotResultats sortie,
+                 int premier, int dernier) {
+            this.jeu = calculateurs;
+            this.foyers = lot;
+            this.resultats = sortie;
+            this.debut = premier;
+            this.fin = dernier;
+        }
+
+        @Override
+        protected void compute() {
+            if (fin - debut <= tailleBloc) {
+                moteur.calculerLot(jeu, foyers, debut, fin, resultats);
+                return;
+            }
+            int milieu = (debut + fin) >>> 1;
+            invokeAll(new TacheLot(jeu, foyers, resultats, debut, milieu),
+                    new TacheLot(jeu, foyers, resultats, milieu, fin));
+        }
+    }
+
+    private final class TacheFoyers extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient JeuCalculateurs jeu;
+        private final transient DonneesFoyerFiscal[] foyers;
+        private final transient ResultatCalculImpot[] resultats;
+        private final int debut;
+        private final int fin;
+
+        TacheFoyers(JeuCalculateurs calculateurs, DonneesFoyerFiscal[] entree,
+                    ResultatCalculImpot[] sortie, int premier, int dernier) {
+            this.jeu = calculateurs;
+            this.foyers = entree;
+            this.resultats = sortie;
+            this.debut = premier;
+            this.fin = dernier;
+        }
+
+        @Override
+        protected void compute() {
+            if (fin - debut <= tailleBloc) {
+                EtatCalcul etat = new EtatCalcul();
+                for (int i = debut; i < fin; i++) {
+                    etat.initialiser(foyers[i]);
+                    moteur.calculer(jeu, etat);
+                    resultats[i] = etat.versResultat();
+                }
+                return;
+            }
+            int milieu = (debut + fin) >>> 1;
+            invokeAll(new TacheFoyers(jeu, foyers, resultats, debut, milieu),
+                    new TacheFoyers(jeu, foyers, resultats, milieu, fin));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.kerware.simulateurreusine;
+
+import java.util.List;
+
+/**
+ * Nœud d'un {@link GrapheCalcul} : une valeur calculée à partir des données du foyer
+ * et des valeurs de ses prérequis, lues dans le {@link ContexteCalcul}.
+ * Les étapes standard sont les constantes de {@link EtapeCalcul} ; un nœud ajouté au
+ * graphe, ou qui remplace une étape standard, implémente cette interface.
+ */
+public interface NoeudCalcul {
+
+    /**
+     * Retourne le nom du nœud, utilisé dans les messages d'erreur.
+     *
+     * @return le nom du nœud
+     */
+    String getNom();
+
+    /**
+     * Retourne les nœuds dont la valeur est lue par {@link #evaluer(ContexteCalcul)}.
+     *
+     * @return les prérequis du nœud, vide s'il ne dépend que des données du foyer
+     */
+    List<? extends NoeudCalcul> getPrerequis();
+
+    /**
+     * Calcule la valeur du nœud ; les prérequis sont déjà calculés dans le contexte.
+     *
+     * @param contexte les données du foyer et les valeurs déjà calculées
+     * @return la valeur du nœud
+     */
+    double evaluer(ContexteCalcul contexte);
+}
@@ -0,0 +1,62 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Calcul de l'impôt brut d'un lot de foyers en colonnes : pour chaque foyer, revenu
+ * par part, évaluation des tranches, multiplication par les parts et arrondi à
+ * l'euro, avec un résultat identique au bit près à
+ * {@link CalculateurImpot#calculerImpotBrut(double, double)}.
+ * Le noyau vectoriel traite plusieurs foyers par instruction avec l'API
+ * {@code jdk.incubator.vector} ; il n'est disponible que si la JVM a été lancée avec
+ * {@code --add-modules jdk.incubator.vector}. Sinon, {@link #pour(Bareme)} retourne
+ * le noyau scalaire.
+ */
+public interface NoyauImpotBrut {
+
+    /**
+     * Retourne le noyau le plus rapide disponible dans cette JVM.
+     *
+     * @param bareme le barème de l'année
+     * @return le noyau vectoriel si le module est présent, le noyau scalaire sinon
+     */
+    static NoyauImpotBrut pour(Bareme bareme) {
+        return vectorielDisponible() ? new NoyauImpotBrutVectoriel(bareme) : scalaire(bareme);
+    }
+
+    /**
+     * Retourne le noyau scalaire, qui calcule les foyers un par un.
+     *
+     * @param bareme le barème de l'année
+     * @return le noyau scalaire
+     */
+    static NoyauImpotBrut scalaire(Bareme bareme) {
+        return new NoyauImpotBrutScalaire(bareme);
+    }
+
+    /**
+     * Indique si le module {@code jdk.incubator.vector} est chargé dans cette JVM.
+     *
+     * @return vrai si le noyau vectoriel peut être utilisé
+     */
+    static boolean vectorielDisponible() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    /**
+     * Calcule l'impôt brut des foyers d'indice {@code debut} inclus à {@code fin} exclus.
+     *
+     * @param revenusImposables les revenus imposables, positifs
+     * @param nombresParts les nombres de parts
+     * @param impotsBruts les impôts bruts, rangés au même indice que le foyer
+     * @param debut l'indice du premier foyer
+     * @param fin l'indice suivant le dernier foyer
+     */
+    void calculer(double[] revenusImposables, double[] nombresParts, double[] impotsBruts,
+                  int debut, int fin);
+
+    /**
+     * Indique si le noyau est vectoriel.
+     *
+     * @return vrai pour le noyau vectoriel
+     */
+    boolean estVectoriel();
+}
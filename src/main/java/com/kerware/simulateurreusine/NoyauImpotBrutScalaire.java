@@ -0,0 +1,25 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Noyau scalaire : le {@link CalculateurImpot} appliqué à chaque foyer.
+ */
+final class NoyauImpotBrutScalaire implements NoyauImpotBrut {
+    private final CalculateurImpot calculateur;
+
+    NoyauImpotBrutScalaire(Bareme bareme) {
+        this.calculateur = new CalculateurImpot(bareme);
+    }
+
+    @Override
+    public void calculer(double[] revenusImposables, double[] nombresParts,
+                         double[] impotsBruts, int debut, int fin) {
+        for (int i = debut; i < fin; i++) {
+            impotsBruts[i] = calculateur.calculerImpotBrut(revenusImposables[i], nombresParts[i]);
+        }
+    }
+
+    @Override
+    public boolean estVectoriel() {
+        return false;
+    }
+}
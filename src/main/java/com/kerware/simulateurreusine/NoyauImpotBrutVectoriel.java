@@ -0,0 +1,85 @@
+package com.kerware.simulateurreusine;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Noyau vectoriel : autant de foyers par instruction que la plus grande largeur de
+ * vecteur de la machine. Chaque opération est celle de {@link BaremeCompile#evaluer}
+ * et de {@link CalculateurImpot}, dans le même ordre et sans multiplication-addition
+ * fusionnée : les résultats sont identiques au bit près.
+ * Seule cette classe dépend de {@code jdk.incubator.vector} ; elle n'est chargée que
+ * par {@link NoyauImpotBrut#pour(Bareme)}, lorsque le module est présent.
+ */
+final class NoyauImpotBrutVectoriel implements NoyauImpotBrut {
+    private static final VectorSpecies<Double> ESPECE = DoubleVector.SPECIES_PREFERRED;
+    // Ajouté puis retranché, arrondit à l'entier le plus proche (demis au pair)
+    // tout nombre positif inférieur à 2^52
+    private static final double DEUX_PUISSANCE_52 = 0x1p52;
+    private static final double DEMI = 0.5;
+
+    private final BaremeCompile tranches;
+    private final double[] abscisses;
+    private final double[] ordonnees;
+    private final double[] pentes;
+    private final double abscisseMax;
+
+    NoyauImpotBrutVectoriel(Bareme bareme) {
+        this.tranches = bareme.getImpot();
+        int n = tranches.nbSegments();
+        this.abscisses = new double[n];
+        this.ordonnees = new double[n];
+        this.pentes = new double[n];
+        for (int k = 0; k < n; k++) {
+            abscisses[k] = tranches.abscisse(k);
+            ordonnees[k] = tranches.ordonnee(k);
+            pentes[k] = tranches.pente(k);
+        }
+        this.abscisseMax = tranches.abscisseMax();
+    }
+
+    @Override
+    public void calculer(double[] revenusImposables, double[] nombresParts,
+                         double[] impotsBruts, int debut, int fin) {
+        int i = debut;
+        int finVectorielle = debut + ESPECE.loopBound(fin - debut);
+        for (; i < finVectorielle; i += ESPECE.length()) {
+            DoubleVector revenus = DoubleVector.fromArray(ESPECE, revenusImposables, i);
+            DoubleVector parts = DoubleVector.fromArray(ESPECE, nombresParts, i);
+            impotBrut(revenus, parts).intoArray(impotsBruts, i);
+        }
+        for (; i < fin; i++) {
+            impotsBruts[i] = Math.round(
+                    tranches.evaluer(revenusImposables[i] / nombresParts[i]) * nombresParts[i]);
+        }
+    }
+
+    private DoubleVector impotBrut(DoubleVector revenus, DoubleVector parts) {
+        DoubleVector revenuParPart = revenus.div(parts).max(abscisses[0]).min(abscisseMax);
+
+        // Segment de chaque foyer : le dernier dont l'abscisse est atteinte
+        DoubleVector abscisse = DoubleVector.broadcast(ESPECE, abscisses[0]);
+        DoubleVector ordonnee = DoubleVector.broadcast(ESPECE, ordonnees[0]);
+        DoubleVector pente = DoubleVector.broadcast(ESPECE, pentes[0]);
+        for (int k = 1; k < abscisses.length; k++) {
+            VectorMask<Double> atteint = revenuParPart.compare(VectorOperators.GE, abscisses[k]);
+            abscisse = abscisse.blend(abscisses[k], atteint);
+            ordonnee = ordonnee.blend(ordonnees[k], atteint);
+            pente = pente.blend(pentes[k], atteint);
+        }
+        DoubleVector impot = ordonnee.add(revenuParPart.sub(abscisse).mul(pente)).mul(parts);
+
+        // Math.round : arrondi au plus proche, puis un demi arrondi au pair inférieur
+        // est remonté
+        DoubleVector arrondi = impot.add(DEUX_PUISSANCE_52).sub(DEUX_PUISSANCE_52);
+        VectorMask<Double> demi = impot.sub(arrondi).compare(VectorOperators.EQ, DEMI);
+        return arrondi.add(1, demi);
+    }
+
+    @Override
+    public boolean estVectoriel() {
+        return true;
+    }
+}
@@ -0,0 +1,23 @@
+package com.kerware.simulateurreusine;
+
+import java.util.List;
+
+/**
+ * Une façon de déclarer les revenus d'un couple l'année du mariage ou du PACS :
+ * une imposition commune, ou deux déclarations séparées avec les enfants répartis
+ * entre les déclarants.
+ *
+ * @param impositionCommune vrai pour une seule déclaration du couple
+ * @param nbEnfantsDeclarant1 les enfants rattachés à la déclaration du premier déclarant,
+ *                            tous pour une imposition commune
+ * @param nbEnfantsHandicapDeclarant1 parmi eux, les enfants en situation de handicap
+ * @param declarations le résultat de chaque déclaration, celle du premier déclarant
+ *                     en premier
+ * @param impotNet la somme des impôts nets des déclarations
+ */
+public record OptionDeclaration(boolean impositionCommune,
+                                int nbEnfantsDeclarant1,
+                                int nbEnfantsHandicapDeclarant1,
+                                List<ResultatCalculImpot> declarations,
+                                double impotNet) {
+}
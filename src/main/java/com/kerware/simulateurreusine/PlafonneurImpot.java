@@ -5,7 +5,23 @@ package com.kerware.simulateurreusine;
  */
 public class PlafonneurImpot {
     private static final double NOMBRE_PARTS = 0.5;
-    private static final double PLAFOND_DEMI_PART = 1759; // Valeur du plafond pour une demi-part
+    private final double plafondDemiPart;
+
+    /**
+     * Crée un plafonneur sur le barème en vigueur du référentiel global.
+     */
+    public PlafonneurImpot() {
+        this(ReferentielBareme.global().getBareme());
+    }
+
+    /**
+     * Crée un plafonneur sur le plafond par demi-part d'un barème.
+     *
+     * @param bareme le barème de l'année
+     */
+    public PlafonneurImpot(Bareme bareme) {
+        this.plafondDemiPart = bareme.getPlafondDemiPart();
+    }
 
     /**
      * Calcule l'impôt plafonné selon les règles du quotient familial
@@ -17,13 +33,34 @@ public class PlafonneurImpot {
      */
     public double calculerImpotPlafonne(double impotBrutDeclarants, double impotBrutTotal,
                                         double nombrePartsTotal, double nombrePartsDeclarants) {
-        double baisseImpot = impotBrutDeclarants - impotBrutTotal;
-        double ecartParts = nombrePartsTotal - nombrePartsDeclarants;
-        double plafondBaisseAutorisee = (ecartParts / NOMBRE_PARTS) * PLAFOND_DEMI_PART;
+        return appliquerPlafond(impotBrutDeclarants, impotBrutTotal,
+                calculerPlafondBaisse(nombrePartsTotal, nombrePartsDeclarants));
+    }
 
+    /**
+     * Applique un plafond de baisse déjà calculé
+     * @param impotBrutDeclarants Impôt brut calculé avec les parts des déclarants uniquement
+     * @param impotBrutTotal Impôt brut calculé avec toutes les parts
+     * @param plafondBaisseAutorisee Plafond de la baisse d'impôt
+     * @return Impôt après plafonnement
+     */
+    public double appliquerPlafond(double impotBrutDeclarants, double impotBrutTotal,
+                                   double plafondBaisseAutorisee) {
+        double baisseImpot = impotBrutDeclarants - impotBrutTotal;
         if (baisseImpot >= plafondBaisseAutorisee) {
             return impotBrutDeclarants - plafondBaisseAutorisee;
         }
         return impotBrutTotal;
     }
-}
\ No newline at end of file
+
+    /**
+     * Calcule la baisse d'impôt maximale autorisée par les parts supplémentaires
+     * @param nombrePartsTotal Nombre total de parts du foyer
+     * @param nombrePartsDeclarants Nombre de parts des déclarants
+     * @return Plafond de la baisse d'impôt
+     */
+    public double calculerPlafondBaisse(double nombrePartsTotal, double nombrePartsDeclarants) {
+        double ecartParts = nombrePartsTotal - nombrePartsDeclarants;
+        return (ecartParts / NOMBRE_PARTS) * plafondDemiPart;
+    }
+}
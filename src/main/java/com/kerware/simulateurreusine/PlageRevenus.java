@@ -0,0 +1,20 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Plage de revenus entiers, bornes incluses. La plage est vide quand le début
+ * dépasse la fin.
+ *
+ * @param debut le premier revenu de la plage
+ * @param fin le dernier revenu de la plage
+ */
+public record PlageRevenus(int debut, int fin) {
+
+    /**
+     * Indique si la plage ne contient aucun revenu.
+     *
+     * @return vrai si la plage est vide
+     */
+    public boolean estVide() {
+        return debut > fin;
+    }
+}
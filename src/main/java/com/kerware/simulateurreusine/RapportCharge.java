@@ -0,0 +1,25 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Rapport d'un tir de charge du {@link GenerateurCharge}.
+ *
+ * @param nbRequetes le nombre de requêtes terminées, en succès ou en erreur
+ * @param nbErreurs le nombre de requêtes sans réponse 200
+ * @param debitParSeconde le nombre de requêtes terminées par seconde
+ * @param p50Ns la latence médiane, en nanosecondes
+ * @param p99Ns le 99e centile de latence, en nanosecondes
+ * @param p999Ns le 999e millile de latence, en nanosecondes
+ */
+public record RapportCharge(long nbRequetes, long nbErreurs, double debitParSeconde,
+                            long p50Ns, long p99Ns, long p999Ns) {
+    private static final long NS_PAR_MICROSECONDE = 1000;
+
+    @Override
+    public String toString() {
+        return String.format("%d requêtes, %d erreurs, %.0f req/s, "
+                        + "p50 %d µs, p99 %d µs, p999 %d µs",
+                nbRequetes, nbErreurs, debitParSeconde,
+                p50Ns / NS_PAR_MICROSECONDE,
+                p99Ns / NS_PAR_MICROSECONDE, p999Ns / NS_PAR_MICROSECONDE);
+    }
+}
@@ -0,0 +1,90 @@
+package com.kerware.simulateurreusine;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Référence vers le barème en vigueur, partagée par les moteurs de calcul.
+ * Le remplacement du barème est un simple échange de référence atomique :
+ * les calculs en cours terminent avec l'ancien barème, les suivants utilisent
+ * le nouveau, sans redémarrer ni recréer les moteurs.
+ */
+public final class ReferentielBareme {
+    private final AtomicReference<JeuCalculateurs> jeu;
+
+    /**
+     * Crée un référentiel sur un barème donné.
+     *
+     * @param bareme le barème initial
+     */
+    public ReferentielBareme(Bareme bareme) {
+        this.jeu = new AtomicReference<>(JeuCalculateurs.pour(Objects.requireNonNull(bareme)));
+    }
+
+    /**
+     * Crée un référentiel sur un barème dont l'impôt brut est lu dans une table
+     * précalculée.
+     *
+     * @param bareme le barème initial
+     * @param table la table d'impôt brut construite pour ce barème
+     * @throws IllegalArgumentException si la table a été construite pour un autre barème
+     */
+    public ReferentielBareme(Bareme bareme, TableImpotBrut table) {
+        this.jeu = new AtomicReference<>(
+                JeuCalculateurs.pour(Objects.requireNonNull(bareme), table));
+    }
+
+    /**
+     * Retourne le référentiel partagé par les moteurs créés sans référentiel,
+     * initialisé au premier appel avec le barème de {@link Bareme#ANNEE_PAR_DEFAUT}.
+     *
+     * @return le référentiel global
+     */
+    public static ReferentielBareme global() {
+        return Global.INSTANCE;
+    }
+
+    /**
+     * Retourne le barème en vigueur.
+     *
+     * @return le barème en vigueur
+     */
+    public Bareme getBareme() {
+        return jeu.get().bareme();
+    }
+
+    /**
+     * Remplace le barème en vigueur. Les calculateurs du nouveau barème sont
+     * construits avant l'échange, qui est atomique.
+     *
+     * @param nouveauBareme le barème à mettre en vigueur
+     * @return le barème remplacé
+     */
+    public Bareme remplacer(Bareme nouveauBareme) {
+        JeuCalculateurs nouveauJeu = JeuCalculateurs.pour(Objects.requireNonNull(nouveauBareme));
+        return jeu.getAndSet(nouveauJeu).bareme();
+    }
+
+    /**
+     * Remplace le barème en vigueur et sa table d'impôt brut.
+     *
+     * @param nouveauBareme le barème à mettre en vigueur
+     * @param table la table d'impôt brut construite pour ce barème
+     * @return le barème remplacé
+     * @throws IllegalArgumentException si la table a été construite pour un autre barème
+     */
+    public Bareme remplacer(Bareme nouveauBareme, TableImpotBrut table) {
+        JeuCalculateurs nouveauJeu =
+                JeuCalculateurs.pour(Objects.requireNonNull(nouveauBareme), table);
+        return jeu.getAndSet(nouveauJeu).bareme();
+    }
+
+    JeuCalculateurs jeu() {
+        return jeu.get();
+    }
+
+    private static final class Global {
+        private static final ReferentielBareme INSTANCE =
+                new ReferentielBareme(Bareme.charger(Bareme.ANNEE_PAR_DEFAUT));
+    }
+}
@@ -0,0 +1,133 @@
+package com.kerware.simulateurreusine;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Vue poids mouche d'un enregistrement de résultat du {@link FichierFoyersBinaire}.
+ * Le résultat d'indice {@code i} est celui du foyer d'indice {@code i} du fichier
+ * d'entrée. Une instance n'est pas partagée entre threads.
+ */
+public final class ResultatBinaire {
+    private static final int ABATTEMENT = Double.BYTES;
+    private static final int REVENU_FISCAL = ABATTEMENT + Integer.BYTES;
+    private static final int AVANT_DECOTE = REVENU_FISCAL + Integer.BYTES;
+    private static final int DECOTE = AVANT_DECOTE + Integer.BYTES;
+    private static final int CONTRIBUTION = DECOTE + Integer.BYTES;
+    private static final int IMPOT_NET = CONTRIBUTION + Integer.BYTES;
+
+    private final ByteBuffer enregistrements;
+    private int position;
+
+    /**
+     * Crée une vue sur des enregistrements de résultats contigus.
+     *
+     * @param tampon le tampon dont l'octet 0 est le début du premier enregistrement,
+     *               en ordre {@link FichierFoyersBinaire#ORDRE}
+     */
+    public ResultatBinaire(ByteBuffer tampon) {
+        this.enregistrements = tampon;
+    }
+
+    /**
+     * Retourne le nombre d'enregistrements complets du tampon.
+     *
+     * @return le nombre de résultats
+     */
+    public int taille() {
+        return enregistrements.limit() / FichierFoyersBinaire.TAILLE_RESULTAT;
+    }
+
+    /**
+     * Place la vue sur un enregistrement.
+     *
+     * @param index le rang de l'enregistrement dans le tampon
+     * @return cette vue
+     */
+    public ResultatBinaire positionner(int index) {
+        position = index * FichierFoyersBinaire.TAILLE_RESULTAT;
+        return this;
+    }
+
+    /**
+     * Retourne le nombre de parts du foyer, enregistré sans conversion.
+     *
+     * @return le nombre de parts
+     */
+    public double getNbPartsFoyerFiscal() {
+        return enregistrements.getDouble(position);
+    }
+
+    /**
+     * Retourne l'abattement, en euros, tronqué en entier comme par
+     * {@link AdaptateurSimulateur#getAbattement()}.
+     *
+     * @return l'abattement
+     */
+    public int getAbattement() {
+        return enregistrements.getInt(position + ABATTEMENT);
+    }
+
+    /**
+     * Retourne le revenu fiscal de référence, en euros, tronqué en entier comme par
+     * {@link AdaptateurSimulateur#getRevenuFiscalReference()}.
+     *
+     * @return le revenu fiscal de référence
+     */
+    public int getRevenuFiscalReference() {
+        return enregistrements.getInt(position + REVENU_FISCAL);
+    }
+
+    /**
+     * Retourne l'impôt avant décote, en euros, tronqué en entier comme par
+     * {@link AdaptateurSimulateur#getImpotAvantDecote()}.
+     *
+     * @return l'impôt avant décote
+     */
+    public int getImpotAvantDecote() {
+        return enregistrements.getInt(position + AVANT_DECOTE);
+    }
+
+    /**
+     * Retourne la décote, en euros, tronquée en entier comme par
+     * {@link AdaptateurSimulateur#getDecote()}.
+     *
+     * @return la décote
+     */
+    public int getDecote() {
+        return enregistrements.getInt(position + DECOTE);
+    }
+
+    /**
+     * Retourne la contribution exceptionnelle, en euros, tronquée en entier ;
+     * {@link AdaptateurSimulateur#getContribExceptionnelle()} la donne sans troncature.
+     *
+     * @return la contribution exceptionnelle
+     */
+    public int getContribExceptionnelle() {
+        return enregistrements.getInt(position + CONTRIBUTION);
+    }
+
+    /**
+     * Retourne l'impôt net, en euros, tronqué en entier comme par
+     * {@link AdaptateurSimulateur#getImpotSurRevenuNet()}.
+     *
+     * @return l'impôt net
+     */
+    public int getImpotSurRevenuNet() {
+        return enregistrements.getInt(position + IMPOT_NET);
+    }
+
+    /**
+     * Écrit le résultat d'un calcul à la position courante, avec les conversions
+     * de l'adaptateur.
+     */
+    void ecrire(EtatCalcul etat) {
+        enregistrements.putDouble(position, etat.getNombreParts())
+                .putInt(position + ABATTEMENT, (int) etat.getAbattement())
+                .putInt(position + REVENU_FISCAL, (int) etat.getRevenuFiscalReference())
+                .putInt(position + AVANT_DECOTE, (int) etat.getImpotAvantDecote())
+                .putInt(position + DECOTE, (int) etat.getDecote())
+                .putInt(position + CONTRIBUTION, (int) etat.getContributionExceptionnelle())
+                .putInt(position + IMPOT_NET, (int) etat.getImpotNet());
+    }
+}
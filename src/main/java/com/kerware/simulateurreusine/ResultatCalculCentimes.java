@@ -0,0 +1,40 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Résultat exact du calcul en centimes de {@link MoteurCalculCentimes}.
+ *
+ * @param nombreDemiParts nombre de demi-parts du foyer fiscal
+ * @param abattement abattement total, en centimes
+ * @param revenuFiscalReference revenu fiscal de référence, en centimes
+ * @param impotAvantDecote impôt brut après plafonnement, en centimes
+ * @param decote montant de la décote, en centimes
+ * @param contributionExceptionnelle contribution exceptionnelle, en centimes
+ * @param impotNet impôt sur le revenu net, en centimes
+ */
+public record ResultatCalculCentimes(int nombreDemiParts, long abattement,
+                                     long revenuFiscalReference, long impotAvantDecote,
+                                     long decote, long contributionExceptionnelle,
+                                     long impotNet) {
+
+    private static final double CENTIMES = 100.0;
+
+    /**
+     * Convertit le résultat en euros, dans la forme des autres moteurs.
+     *
+     * @return le résultat en euros
+     */
+    public ResultatCalculImpot enEuros() {
+        return new ResultatCalculImpot(nombreDemiParts / 2.0, abattement / CENTIMES,
+                revenuFiscalReference / CENTIMES, impotAvantDecote / CENTIMES,
+                decote / CENTIMES, contributionExceptionnelle / CENTIMES, impotNet / CENTIMES);
+    }
+
+    /**
+     * Retourne l'impôt net en euros ; il est toujours un nombre entier d'euros.
+     *
+     * @return l'impôt net
+     */
+    public long impotNetEuros() {
+        return impotNet / (long) CENTIMES;
+    }
+}
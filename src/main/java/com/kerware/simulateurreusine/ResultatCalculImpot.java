@@ -0,0 +1,33 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Résultat immuable du calcul de l'impôt d'un foyer fiscal,
+ * avec l'ensemble des valeurs intermédiaires.
+ *
+ * @param nombreParts nombre de parts du foyer fiscal
+ * @param abattement abattement total appliqué aux revenus
+ * @param revenuFiscalReference revenu fiscal de référence (revenu imposable)
+ * @param impotAvantDecote impôt brut après plafonnement du quotient familial
+ * @param decote montant de la décote
+ * @param contributionExceptionnelle contribution exceptionnelle sur les hauts revenus
+ * @param impotNet impôt sur le revenu net
+ */
+public record ResultatCalculImpot(double nombreParts, double abattement,
+                                  double revenuFiscalReference, double impotAvantDecote,
+                                  double decote, double contributionExceptionnelle,
+                                  double impotNet) {
+
+    /**
+     * Résultat neutre, utilisé avant tout calcul.
+     */
+    public static final ResultatCalculImpot VIDE = new ResultatCalculImpot(0, 0, 0, 0, 0, 0, 0);
+
+    /**
+     * Retourne l'impôt net arrondi à l'euro, comme {@link Simulateur#calculImpot}.
+     *
+     * @return l'impôt net arrondi
+     */
+    public int impotNetArrondi() {
+        return (int) Math.round(impotNet);
+    }
+}
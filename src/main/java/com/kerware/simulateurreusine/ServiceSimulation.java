@@ -0,0 +1,229 @@
+package com.kerware.simulateurreusine;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service HTTP/JSON embarqué de simulation, sur le serveur HTTP du JDK.
+ * <ul>
+ *   <li>{@code POST /impot} calcule un foyer ;</li>
+ *   <li>{@code POST /impot/lot} calcule un tableau de foyers, résultats dans le même ordre.</li>
+ * </ul>
+ * Le format des foyers et des résultats est décrit par {@link LecteurJson} et
+ * {@link EcrivainJson}. Une requête invalide reçoit un code 400 et un objet
+ * {@code {"erreur": "..."}}.
+ * Le service ne partage aucun état mutable entre requêtes : chacune est calculée
+ * par le {@link MoteurCalculImpot}, sans état, dans son propre thread. Sur un JDK qui
+ * les propose, ce thread est un thread virtuel ; sinon, un pool de threads le remplace.
+ */
+public final class ServiceSimulation implements AutoCloseable {
+    /** Chemin du calcul d'un foyer. */
+    public static final String CHEMIN_CALCUL = "/impot";
+    /** Chemin du calcul d'un lot de foyers. */
+    public static final String CHEMIN_LOT = "/impot/lot";
+    /** Taille maximale d'un corps de requête, en octets. */
+    public static final int TAILLE_REQUETE_MAX = 16_777_216;
+    /** Port d'écoute du service lancé en ligne de commande, sans argument. */
+    public static final int PORT_DEFAUT = 8080;
+    /** Nombre maximal de foyers d'un lot. */
+    public static final int TAILLE_LOT_MAX = 100_000;
+
+    private static final int OK = 200;
+    private static final int REQUETE_INVALIDE = 400;
+    private static final int INTROUVABLE = 404;
+    private static final int METHODE_NON_AUTORISEE = 405;
+    private static final int REQUETE_TROP_GRANDE = 413;
+    private static final int ERREUR_INTERNE = 500;
+    private static final int THREADS_PAR_PROCESSEUR = 4;
+    private static final int ATTENTE_ARRET_S = 5;
+    private static final String ERREUR_SANS_MESSAGE = "Requête invalide";
+    // Lue une fois par le serveur du JDK, au premier démarrage
+    private static final String SANS_DELAI = "sun.net.httpserver.nodelay";
+
+    private final HttpServer serveur;
+    private final ExecutorService executeur;
+    private final MoteurCalculImpot moteur;
+    // Échanges en cours de traitement, que l'arrêt laisse se terminer
+    private final AtomicInteger enCours = new AtomicInteger();
+
+    private ServiceSimulation(HttpServer serveurHttp, ExecutorService executeurRequetes,
+                              MoteurCalculImpot moteurCalcul) {
+        this.serveur = serveurHttp;
+        this.executeur = executeurRequetes;
+        this.moteur = moteurCalcul;
+    }
+
+    /**
+     * Démarre le service sur un port, avec le moteur du barème global.
+     *
+     * @param port le port d'écoute, 0 pour un port libre
+     * @return le service démarré
+     * @throws IOException si le port ne peut pas être ouvert
+     */
+    public static ServiceSimulation demarrer(int port) throws IOException {
+        return demarrer(new InetSocketAddress(port), new MoteurCalculImpot());
+    }
+
+    /**
+     * Démarre le service.
+     * Sans la propriété système {@code sun.net.httpserver.nodelay} à {@code true},
+     * l'algorithme de Nagle et l'acquittement retardé du client ajoutent jusqu'à
+     * 40 ms à chaque réponse : il revient à l'appelant de la positionner avant le
+     * premier démarrage d'un serveur HTTP du JDK, par exemple avec
+     * {@link #activerSansDelai()}.
+     *
+     * @param adresse l'adresse d'écoute
+     * @param moteurCalcul le moteur qui calcule les requêtes
+     * @return le service démarré
+     * @throws IOException si l'adresse ne peut pas être ouverte
+     */
+    public static ServiceSimulation demarrer(InetSocketAddress adresse,
+                                             MoteurCalculImpot moteurCalcul) throws IOException {
+        HttpServer serveur = HttpServer.create(adresse, 0);
+        ExecutorService executeur = executeurParRequete();
+        ServiceSimulation service = new ServiceSimulation(serveur, executeur, moteurCalcul);
+        serveur.createContext(CHEMIN_CALCUL, echange -> service.traiter(echange, false));
+        serveur.createContext(CHEMIN_LOT, echange -> service.traiter(echange, true));
+        serveur.setExecutor(executeur);
+        serveur.start();
+        return service;
+    }
+
+    /**
+     * Active TCP_NODELAY pour les serveurs HTTP du JDK, si la propriété système
+     * {@code sun.net.httpserver.nodelay} n'est pas déjà définie. Elle n'est lue qu'une
+     * fois, au premier démarrage d'un serveur : l'appel doit le précéder.
+     */
+    public static void activerSansDelai() {
+        if (System.getProperty(SANS_DELAI) == null) {
+            System.setProperty(SANS_DELAI, "true");
+        }
+    }
+
+    /**
+     * Crée l'exécuteur des requêtes : un thread virtuel par requête quand le JDK en
+     * dispose, sinon un pool de threads plates-formes démons.
+     */
+    static ExecutorService executeurParRequete() {
+        try {
+            Method fabrique = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) fabrique.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger numero = new AtomicInteger();
+            ThreadFactory fabriqueThreads = tache -> {
+                Thread thread = new Thread(tache, "simulation-http-" + numero.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors() * THREADS_PAR_PROCESSEUR,
+                    fabriqueThreads);
+        }
+    }
+
+    /**
+     * Retourne le port d'écoute du service.
+     *
+     * @return le port
+     */
+    public int getPort() {
+        return serveur.getAddress().getPort();
+    }
+
+    private void traiter(HttpExchange echange, boolean lot) throws IOException {
+        enCours.incrementAndGet();
+        EcrivainJson reponse = new EcrivainJson();
+        int code;
+        try {
+            // Un contexte reçoit aussi les chemins qui le prolongent
+            String chemin = lot ? CHEMIN_LOT : CHEMIN_CALCUL;
+            if (!chemin.equals(echange.getRequestURI().getPath())) {
+                code = INTROUVABLE;
+                reponse.ecrireErreur("Chemin inconnu");
+            } else if (!"POST".equals(echange.getRequestMethod())) {
+                echange.getResponseHeaders().set("Allow", "POST");
+                code = METHODE_NON_AUTORISEE;
+                reponse.ecrireErreur("Seule la méthode POST est acceptée");
+            } else {
+                code = calculer(echange.getRequestBody(), lot, reponse);
+            }
+            echange.getResponseHeaders().set("Content-Type", "application/json");
+            echange.sendResponseHeaders(code, reponse.longueur());
+            try (OutputStream corps = echange.getResponseBody()) {
+                corps.write(reponse.octets(), 0, reponse.longueur());
+            }
+        } finally {
+            echange.close();
+            enCours.decrementAndGet();
+        }
+    }
+
+    private int calculer(InputStream requete, boolean lot, EcrivainJson reponse)
+            throws IOException {
+        byte[] corps = requete.readNBytes(TAILLE_REQUETE_MAX + 1);
+        if (corps.length > TAILLE_REQUETE_MAX) {
+            reponse.ecrireErreur("Requête de plus de " + TAILLE_REQUETE_MAX + " octets");
+            return REQUETE_TROP_GRANDE;
+        }
+        try {
+            LecteurJson lecteur = new LecteurJson(corps, corps.length);
+            LotFoyers foyers = lot ? lecteur.lireLot(TAILLE_LOT_MAX) : lecteur.lireFoyer();
+            LotResultats resultats = LotResultats.allouer(foyers.taille());
+            moteur.calculerLot(foyers, resultats);
+            if (lot) {
+                reponse.ecrireLot(foyers, resultats);
+            } else {
+                reponse.ecrireResultat(foyers, resultats, 0);
+            }
+            return OK;
+        } catch (IllegalArgumentException e) {
+            String message = e.getMessage();
+            reponse.ecrireErreur(message != null ? message : ERREUR_SANS_MESSAGE);
+            return REQUETE_INVALIDE;
+        } catch (RuntimeException e) {
+            reponse.ecrireErreur("Erreur interne");
+            return ERREUR_INTERNE;
+        }
+    }
+
+    /**
+     * Arrête le service : le serveur n'accepte plus de requête et celles en cours ont
+     * quelques secondes pour se terminer, réponse comprise.
+     */
+    @Override
+    public void close() {
+        // Attend la fin des échanges en cours avant de fermer leurs connexions ; sans
+        // échange en cours, le serveur du JDK 17 attendrait quand même tout le délai
+        serveur.stop(enCours.get() > 0 ? ATTENTE_ARRET_S : 0);
+        executeur.shutdown();
+        try {
+            executeur.awaitTermination(ATTENTE_ARRET_S, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Lance le service en ligne de commande, jusqu'à l'arrêt du processus.
+     *
+     * @param args le port d'écoute, {@link #PORT_DEFAUT} par défaut
+     * @throws IOException si le port ne peut pas être ouvert
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : PORT_DEFAUT;
+        activerSansDelai();
+        ServiceSimulation service = demarrer(port);
+        System.out.println("Service de simulation à l'écoute sur le port " + service.getPort());
+    }
+}
@@ -0,0 +1,218 @@
+package com.kerware.simulateurreusine;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Session de calcul d'un foyer dont les données changent une à une, par exemple
+ * dans un outil de conseil. La session connaît les données et les étapes dont
+ * dépend chaque étape du calcul : un changement n'invalide que les étapes qui en
+ * dépendent, et une étape recalculée dont la valeur ne change pas n'invalide pas
+ * les suivantes. Ajouter un enfant, par exemple, recalcule le nombre de parts et
+ * le plafonnement mais ni l'abattement ni le revenu imposable.
+ * Une session n'est pas partagée entre threads.
+ */
+public final class SessionCalcul {
+    private static final EtapeCalcul[] ETAPES = EtapeCalcul.values();
+    private static final int TOUTES = (1 << ETAPES.length) - 1;
+    // Étapes qui dépendent directement de chaque donnée du foyer
+    private static final int DEPEND_REVENUS = masque(EtapeCalcul.ABATTEMENT,
+            EtapeCalcul.REVENU_FISCAL_REFERENCE);
+    private static final int DEPEND_SITUATION = masque(EtapeCalcul.ABATTEMENT,
+            EtapeCalcul.PARTS_DECLARANTS, EtapeCalcul.NOMBRE_PARTS,
+            EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE, EtapeCalcul.DECOTE);
+    private static final int DEPEND_ENFANTS = masque(EtapeCalcul.NOMBRE_PARTS);
+    // Pour chaque étape, les étapes qui utilisent directement sa valeur
+    private static final int[] DEPENDANTES = new int[ETAPES.length];
+
+    static {
+        for (EtapeCalcul etape : ETAPES) {
+            for (EtapeCalcul source : ETAPES) {
+                if (etape.getPrerequis().contains(source)) {
+                    DEPENDANTES[source.ordinal()] |= masque(etape);
+                }
+            }
+        }
+    }
+
+    private final ReferentielBareme referentiel;
+    // Données du foyer et valeurs des étapes, calculées par les étapes du graphe standard
+    private final ContexteCalcul contexte;
+
+    private JeuCalculateurs jeu;
+    private int invalides = TOUTES;
+    private int recalculees;
+
+    /**
+     * Ouvre une session sur le référentiel de barème global.
+     *
+     * @param foyer les données initiales du foyer
+     */
+    public SessionCalcul(DonneesFoyerFiscal foyer) {
+        this(ReferentielBareme.global(), foyer);
+    }
+
+    /**
+     * Ouvre une session sur un référentiel de barème. Un remplacement du barème
+     * invalide toutes les étapes au calcul suivant.
+     *
+     * @param referentielBareme le référentiel qui fournit le barème en vigueur
+     * @param foyer les données initiales du foyer
+     */
+    public SessionCalcul(ReferentielBareme referentielBareme, DonneesFoyerFiscal foyer) {
+        this.referentiel = referentielBareme;
+        this.contexte = GrapheCalcul.standard().nouveauContexte(referentielBareme);
+        contexte.setRevenuNetDeclarant1(foyer.revenuNetDeclarant1());
+        contexte.setRevenuNetDeclarant2(foyer.revenuNetDeclarant2());
+        contexte.setSituationFamiliale(foyer.situationFamiliale());
+        contexte.setNbEnfantsACharge(foyer.nbEnfantsACharge());
+        contexte.setNbEnfantsSituationHandicap(foyer.nbEnfantsSituationHandicap());
+        contexte.setParentIsole(foyer.parentIsole());
+    }
+
+    private static int masque(EtapeCalcul... etapes) {
+        int bits = 0;
+        for (EtapeCalcul etape : etapes) {
+            bits |= 1 << etape.ordinal();
+        }
+        return bits;
+    }
+
+    public void setRevenuNetDeclarant1(int revenu) {
+        if (revenu != contexte.getRevenuNetDeclarant1()) {
+            contexte.setRevenuNetDeclarant1(revenu);
+            invalides |= DEPEND_REVENUS;
+        }
+    }
+
+    public void setRevenuNetDeclarant2(int revenu) {
+        if (revenu != contexte.getRevenuNetDeclarant2()) {
+            contexte.setRevenuNetDeclarant2(revenu);
+            invalides |= DEPEND_REVENUS;
+        }
+    }
+
+    public void setSituationFamiliale(SituationFamiliale situationFamiliale) {
+        if (situationFamiliale != contexte.getSituationFamiliale()) {
+            contexte.setSituationFamiliale(situationFamiliale);
+            invalides |= DEPEND_SITUATION;
+        }
+    }
+
+    public void setNbEnfantsACharge(int enfants) {
+        if (enfants != contexte.getNbEnfantsACharge()) {
+            contexte.setNbEnfantsACharge(enfants);
+            invalides |= DEPEND_ENFANTS;
+        }
+    }
+
+    public void setNbEnfantsSituationHandicap(int enfantsHandicap) {
+        if (enfantsHandicap != contexte.getNbEnfantsSituationHandicap()) {
+            contexte.setNbEnfantsSituationHandicap(enfantsHandicap);
+            invalides |= DEPEND_ENFANTS;
+        }
+    }
+
+    public void setParentIsole(boolean estParentIsole) {
+        if (estParentIsole != contexte.isParentIsole()) {
+            contexte.setParentIsole(estParentIsole);
+            invalides |= DEPEND_ENFANTS;
+        }
+    }
+
+    /**
+     * Recalcule les étapes invalidées depuis le calcul précédent. Les données ne sont
+     * validées qu'ici : plusieurs changements peuvent traverser un état incohérent,
+     * par exemple pour passer d'un couple à un célibataire.
+     *
+     * @return les étapes dont la valeur a changé, toutes au premier calcul
+     * @throws IllegalArgumentException si les données sont incohérentes ; les changements
+     *                                  restent alors à prendre en compte
+     */
+    public Set<EtapeCalcul> calculer() {
+        DonneesFoyerFiscal.valider(contexte.getRevenuNetDeclarant1(),
+                contexte.getRevenuNetDeclarant2(), contexte.getSituationFamiliale(),
+                contexte.getNbEnfantsACharge(), contexte.getNbEnfantsSituationHandicap(),
+                contexte.isParentIsole());
+        JeuCalculateurs jeuCourant = referentiel.jeu();
+        int aCalculer = jeuCourant == jeu ? invalides : TOUTES;
+        int modifiees = jeu == null ? TOUTES : 0;
+        jeu = jeuCourant;
+        contexte.setJeu(jeuCourant);
+        recalculees = 0;
+        // Les étapes sont déclarées dans un ordre où chacune suit ses prérequis
+        for (EtapeCalcul etape : ETAPES) {
+            int bit = 1 << etape.ordinal();
+            if ((aCalculer & bit) == 0) {
+                continue;
+            }
+            recalculees |= bit;
+            double valeur = etape.evaluer(contexte);
+            boolean change = Double.compare(valeur, contexte.lire(etape)) != 0;
+            contexte.ranger(etape.ordinal(), valeur);
+            if (change) {
+                modifiees |= bit;
+                aCalculer |= DEPENDANTES[etape.ordinal()];
+            }
+        }
+        invalides = 0;
+        return etapes(modifiees);
+    }
+
+    private static Set<EtapeCalcul> etapes(int bits) {
+        Set<EtapeCalcul> etapes = EnumSet.noneOf(EtapeCalcul.class);
+        for (EtapeCalcul etape : ETAPES) {
+            if ((bits & 1 << etape.ordinal()) != 0) {
+                etapes.add(etape);
+            }
+        }
+        return etapes;
+    }
+
+    /**
+     * Retourne la valeur d'une étape au dernier calcul.
+     *
+     * @param etape l'étape
+     * @return la valeur de l'étape
+     */
+    public double getValeur(EtapeCalcul etape) {
+        return contexte.lire(etape);
+    }
+
+    /**
+     * Retourne les étapes recalculées au dernier calcul, que leur valeur ait changé
+     * ou non.
+     *
+     * @return les étapes recalculées
+     */
+    public Set<EtapeCalcul> getEtapesRecalculees() {
+        return etapes(recalculees);
+    }
+
+    /**
+     * Retourne le résultat du dernier calcul.
+     *
+     * @return le résultat, identique à celui du {@link MoteurCalculImpot}
+     */
+    public ResultatCalculImpot getResultat() {
+        return new ResultatCalculImpot(getValeur(EtapeCalcul.NOMBRE_PARTS),
+                getValeur(EtapeCalcul.ABATTEMENT),
+                getValeur(EtapeCalcul.REVENU_FISCAL_REFERENCE),
+                getValeur(EtapeCalcul.IMPOT_AVANT_DECOTE), getValeur(EtapeCalcul.DECOTE),
+                getValeur(EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE),
+                getValeur(EtapeCalcul.IMPOT_NET));
+    }
+
+    /**
+     * Retourne les données courantes du foyer.
+     *
+     * @return les données du foyer
+     * @throws IllegalArgumentException si les données sont incohérentes
+     */
+    public DonneesFoyerFiscal getDonnees() {
+        return new DonneesFoyerFiscal(contexte.getRevenuNetDeclarant1(),
+                contexte.getRevenuNetDeclarant2(), contexte.getSituationFamiliale(),
+                contexte.getNbEnfantsACharge(), contexte.getNbEnfantsSituationHandicap(),
+                contexte.isParentIsole());
+    }
+}
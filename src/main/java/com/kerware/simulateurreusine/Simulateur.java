@@ -3,23 +3,68 @@ package com.kerware.simulateurreusine;
 /**
  * Simulateur de calcul d'impôt sur le revenu pour l'année 2024 (revenus 2023)
  * Cette classe implémente les règles de calcul de l'impôt sur le revenu en France.
+ * Les valeurs du barème viennent du {@link ReferentielBareme}, lu au début de chaque calcul.
  */
 public class Simulateur {
     public static final int NB_ENFANTS_MAX = 7;
-    private final FoyerFiscal foyerFiscal;
-    private final CalculateurParts calculateurParts;
-    private final CalculateurAbattement calculateurAbattement;
-    private final CalculateurImpot calculateurImpot;
-    private final CalculateurDecote calculateurDecote;
-    private final CalculateurContributionExceptionnelle calculateurContribution;
+    // Étape mesurée pour chaque étape du graphe standard ; l'impôt net n'est compté
+    // que dans le calcul complet
+    private static final EtapeInstrumentee[] MESURES = {
+        EtapeInstrumentee.ABATTEMENT, EtapeInstrumentee.ABATTEMENT,
+        EtapeInstrumentee.PARTS, EtapeInstrumentee.PARTS,
+        EtapeInstrumentee.CONTRIBUTION_EXCEPTIONNELLE, EtapeInstrumentee.IMPOT_BRUT_DECLARANTS,
+        EtapeInstrumentee.IMPOT_BRUT_TOTAL, EtapeInstrumentee.PLAFONNEMENT,
+        EtapeInstrumentee.PLAFONNEMENT, EtapeInstrumentee.DECOTE, null};
+
+    private final GrapheCalcul graphe;
+    // Données et valeurs des étapes du dernier calcul
+    private final ContexteCalcul contexte;
+
+    // Instrumentation des étapes, null si le simulateur n'est pas instrumenté
+    private final InstrumentationCalcul instrumentation;
+    private boolean mesureEnCours;
+    private int calculsAvantMesure;
+    // Calculs pas encore reportés dans l'instrumentation partagée
+    private int calculsNonComptes;
 
     public Simulateur() {
-        this.foyerFiscal = new FoyerFiscal();
-        this.calculateurParts = new CalculateurParts();
-        this.calculateurAbattement = new CalculateurAbattement();
-        this.calculateurImpot = new CalculateurImpot();
-        this.calculateurDecote = new CalculateurDecote();
-        this.calculateurContribution = new CalculateurContributionExceptionnelle();
+        this(ReferentielBareme.global());
+    }
+
+    /**
+     * Crée un simulateur sur un référentiel de barème.
+     *
+     * @param referentielBareme le référentiel qui fournit le barème en vigueur
+     */
+    public Simulateur(ReferentielBareme referentielBareme) {
+        this(referentielBareme, null);
+    }
+
+    /**
+     * Crée un simulateur instrumenté : la durée des étapes d'un calcul sur
+     * {@link InstrumentationCalcul#getPeriodeEchantillonnage()} est mesurée.
+     *
+     * @param referentielBareme le référentiel qui fournit le barème en vigueur
+     * @param instrumentationCalcul les mesures à alimenter, éventuellement partagées
+     */
+    public Simulateur(ReferentielBareme referentielBareme,
+                      InstrumentationCalcul instrumentationCalcul) {
+        this(referentielBareme, instrumentationCalcul, GrapheCalcul.standard());
+    }
+
+    /**
+     * Crée un simulateur qui calcule un graphe dérivé du graphe standard, par exemple
+     * avec une étape remplacée ; les accesseurs donnent les valeurs des étapes standard.
+     *
+     * @param referentielBareme le référentiel qui fournit le barème en vigueur
+     * @param instrumentationCalcul les mesures à alimenter, null pour ne rien mesurer
+     * @param grapheCalcul le graphe à calculer pour chaque foyer
+     */
+    public Simulateur(ReferentielBareme referentielBareme,
+                      InstrumentationCalcul instrumentationCalcul, GrapheCalcul grapheCalcul) {
+        this.graphe = grapheCalcul;
+        this.contexte = grapheCalcul.nouveauContexte(referentielBareme);
+        this.instrumentation = instrumentationCalcul;
     }
 
     /**
@@ -38,69 +83,77 @@ public class Simulateur {
                            SituationFamiliale situation, int nbEnfants,
                            int nbEnfantsHandicap, boolean parentIsole) {
 
-        validerEtInitialiserDonnees(revenuNetDecl1, revenuNetDecl2, situation, nbEnfants,
+        long debut = demarrerMesure();
+        validerDonneesMesurees(revenuNetDecl1, revenuNetDecl2, situation, nbEnfants,
                 nbEnfantsHandicap, parentIsole);
+        long instant = mesurer(EtapeInstrumentee.VALIDATION, debut);
+        contexte.initialiser(revenuNetDecl1, revenuNetDecl2, situation,
+                nbEnfants, nbEnfantsHandicap, parentIsole);
 
-        double nombreParts = foyerFiscal.getNombreParts();
-        double revenuImposable = foyerFiscal.getRevenuImposable();
-
-        // Calcul de l'impôt et des ajustements
-        double impotBrut = calculateurImpot.calculerImpotBrut(revenuImposable, nombreParts);
-        foyerFiscal.setImpotBrut(impotBrut);
-
-        // Calcul de l'impôt brut pour les déclarants seuls
-        double partsDeclarants = situation.estCouple() ? 2.0 : 1.0;
-        double impotBrutDeclarants =
-                calculateurImpot.calculerImpotBrut(revenuImposable, partsDeclarants);
-
-        // Calcul de l'impôt brut avec toutes les parts
-        double nombrePartsTotal = calculateurParts.calculerNombreParts(foyerFiscal);
-        double impotBrutTotal =
-                calculateurImpot.calculerImpotBrut(revenuImposable, nombrePartsTotal);
-
-        // Application du plafonnement
-        PlafonneurImpot plafonneur = new PlafonneurImpot();
-        double impotBrutPlafonne = plafonneur.calculerImpotPlafonne(
-                impotBrutDeclarants,
-                impotBrutTotal,
-                nombrePartsTotal,
-                partsDeclarants
-        );
-
-        foyerFiscal.setNombreParts(nombrePartsTotal);
-        foyerFiscal.setImpotBrut(impotBrutPlafonne);
-
-        // Calcul de la décote et de la contribution exceptionnelle
-        double decote = calculateurDecote.calculerDecote(impotBrutPlafonne, situation.estCouple());
-        foyerFiscal.setDecote(decote);
-
-        double contribution = calculateurContribution.calculerContribution(revenuImposable,
-                situation.estCouple());
-
-        double impotNet = impotBrutPlafonne - decote + contribution;
-        foyerFiscal.setImpotNet(impotNet);
+        // Chaque étape est calculée une fois ; les accesseurs lisent ensuite sa valeur
+        if (mesureEnCours) {
+            calculerMesure(instant);
+        } else {
+            graphe.calculer(contexte);
+        }
+        mesurer(EtapeInstrumentee.CALCUL_COMPLET, debut);
 
-        return (int) Math.round(impotNet);
+        return (int) Math.round(contexte.lire(EtapeCalcul.IMPOT_NET));
     }
 
-    private void validerEtInitialiserDonnees(int revenuNetDecl1, int revenuNetDecl2,
-                                                SituationFamiliale situation, int nbEnfants,
-                                                int nbEnfantsHandicap, boolean parentIsole) {
+    // Calcule le graphe en mesurant chaque suite d'étapes rattachées à la même mesure
+    private void calculerMesure(long debut) {
+        long instant = debut;
+        int nbNoeuds = graphe.getNbNoeuds();
+        for (int rang = 0; rang < nbNoeuds; rang++) {
+            graphe.evaluer(contexte, rang);
+            EtapeInstrumentee mesure = mesureAuRang(rang);
+            if (mesure != null && (rang + 1 == nbNoeuds || mesureAuRang(rang + 1) != mesure)) {
+                instant = mesurer(mesure, instant);
+            }
+        }
+    }
 
-        validerDonnees(revenuNetDecl1, revenuNetDecl2, situation, nbEnfants,
-                nbEnfantsHandicap, parentIsole);
-        initialiserFoyerFiscal(revenuNetDecl1, revenuNetDecl2, situation,
-                nbEnfants, nbEnfantsHandicap, parentIsole);
+    private EtapeInstrumentee mesureAuRang(int rang) {
+        int emplacement = graphe.emplacementAuRang(rang);
+        return emplacement < MESURES.length ? MESURES[emplacement] : null;
+    }
 
-        // Calcul des différents éléments
-        double nombreParts = calculateurParts.calculerNombreParts(foyerFiscal);
-        foyerFiscal.setNombreParts(nombreParts);
+    // Décide si le calcul est mesuré ; retourne l'instant de début de la mesure.
+    // Les calculs sont reportés dans l'instrumentation par paquets, au calcul mesuré.
+    private long demarrerMesure() {
+        if (instrumentation == null) {
+            return 0;
+        }
+        calculsNonComptes++;
+        mesureEnCours = --calculsAvantMesure <= 0;
+        if (!mesureEnCours) {
+            return 0;
+        }
+        instrumentation.compterCalculs(calculsNonComptes);
+        calculsNonComptes = 0;
+        calculsAvantMesure = instrumentation.getPeriodeEchantillonnage();
+        return System.nanoTime();
+    }
 
-        double abattement = calculateurAbattement.calculerAbattement(foyerFiscal);
-        foyerFiscal.setAbattement(abattement);
+    // Enregistre la durée d'une étape commencée à debut ; retourne la fin de l'étape
+    private long mesurer(EtapeInstrumentee etape, long debut) {
+        return mesureEnCours ? instrumentation.mesurer(etape, debut) : debut;
+    }
 
-        double revenuImposable = calculerRevenuImposable(abattement);
-        foyerFiscal.setRevenuImposable(revenuImposable);
+    private void validerDonneesMesurees(int revenuNetDecl1, int revenuNetDecl2,
+                                        SituationFamiliale situation, int nbEnfants,
+                                        int nbEnfantsHandicap, boolean parentIsole) {
+        try {
+            validerDonnees(revenuNetDecl1, revenuNetDecl2, situation, nbEnfants,
+                    nbEnfantsHandicap, parentIsole);
+        } catch (IllegalArgumentException e) {
+            if (instrumentation != null) {
+                mesureEnCours = false;
+                instrumentation.compterErreur();
+            }
+            throw e;
+        }
     }
 
     private void validerDonnees(int revenuNetDecl1, int revenuNetDecl2,
@@ -128,22 +181,6 @@ public class Simulateur {
         }
     }
 
-    private void initialiserFoyerFiscal(int revenuNetDecl1, int revenuNetDecl2,
-                                        SituationFamiliale situation, int nbEnfants,
-                                        int nbEnfantsHandicap, boolean parentIsole) {
-        foyerFiscal.setRevenuNetDeclarant1(revenuNetDecl1);
-        foyerFiscal.setRevenuNetDeclarant2(revenuNetDecl2);
-        foyerFiscal.setSituationFamiliale(situation);
-        foyerFiscal.setNbEnfantsACharge(nbEnfants);
-        foyerFiscal.setNbEnfantsSituationHandicap(nbEnfantsHandicap);
-        foyerFiscal.setParentIsole(parentIsole);
-    }
-
-    private double calculerRevenuImposable(double abattement) {
-        return Math.max(0, foyerFiscal.getRevenuNetDeclarant1() +
-                foyerFiscal.getRevenuNetDeclarant2() - abattement);
-    }
-
     // Getters pour l'adaptateur
 
     /**
@@ -153,7 +190,7 @@ public class Simulateur {
      * @return the reference income as a double
      */
     public double getRevenuReference() {
-        return foyerFiscal.getRevenuImposable();
+        return contexte.lire(EtapeCalcul.REVENU_FISCAL_REFERENCE);
     }
 
     /**
@@ -162,7 +199,7 @@ public class Simulateur {
      * @return the abatement value as a double
      */
     public double getAbattement() {
-        return foyerFiscal.getAbattement();
+        return contexte.lire(EtapeCalcul.ABATTEMENT);
     }
 
     /**
@@ -171,7 +208,7 @@ public class Simulateur {
      * @return the number of tax parts as a double
      */
     public double getNbParts() {
-        return foyerFiscal.getNombreParts();
+        return contexte.lire(EtapeCalcul.NOMBRE_PARTS);
     }
 
     /**
@@ -180,7 +217,7 @@ public class Simulateur {
      * @return the gross tax amount as a double
      */
     public double getImpotAvantDecote() {
-        return foyerFiscal.getImpotBrut();
+        return contexte.lire(EtapeCalcul.IMPOT_AVANT_DECOTE);
     }
 
     /**
@@ -189,7 +226,7 @@ public class Simulateur {
      * @return the decote value as a double
      */
     public double getDecote() {
-        return foyerFiscal.getDecote();
+        return contexte.lire(EtapeCalcul.DECOTE);
     }
 
     /**
@@ -199,19 +236,29 @@ public class Simulateur {
      * @return the net income tax amount as a double
      */
     public double getImpotNet() {
-        return foyerFiscal.getImpotNet();
+        return contexte.lire(EtapeCalcul.IMPOT_NET);
     }
 
     /**
-     * Retrieves the exceptional contribution amount for the tax household.
-     * The calculation is based on the taxable income and familial situation.
+     * Retrieves the exceptional contribution amount for the tax household, as computed
+     * by the last calculation.
      *
      * @return the exceptional contribution amount as a double
      */
     public double getContribExceptionnelle() {
-        return calculateurContribution.calculerContribution(
-                foyerFiscal.getRevenuImposable(),
-                foyerFiscal.getSituationFamiliale().estCouple()
-        );
+        return contexte.lire(EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE);
+    }
+
+    /**
+     * Retourne la valeur d'un nœud du graphe au dernier calcul, par exemple d'un nœud
+     * ajouté au graphe standard.
+     *
+     * @param noeud le nœud
+     * @return la valeur du nœud
+     * @throws IllegalArgumentException si le nœud n'appartient pas au graphe
+     * @throws IllegalStateException si aucun calcul n'a encore abouti
+     */
+    public double getValeur(NoeudCalcul noeud) {
+        return contexte.valeur(noeud);
     }
-}
\ No newline at end of file
+}
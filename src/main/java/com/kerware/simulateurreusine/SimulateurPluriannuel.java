@@ -0,0 +1,81 @@
+package com.kerware.simulateurreusine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calcule l'impôt d'un foyer avec plusieurs barèmes en une passe, par exemple ceux de
+ * l'année précédente, de l'année en cours et une projection de l'année suivante.
+ * Ce qui ne dépend pas du barème est fait une fois par foyer : validation des données
+ * et nombre de parts ; seules les étapes qui en dépendent, de l'abattement à l'impôt
+ * net, sont refaites pour chaque barème, par les étapes de {@link MoteurCalculImpot}.
+ * Les calculateurs de chaque barème sont construits une fois, à la création ;
+ * un simulateur sans état propre peut être partagé entre threads.
+ */
+public final class SimulateurPluriannuel {
+    private final List<Bareme> baremes;
+    private final List<JeuCalculateurs> jeux = new ArrayList<>();
+
+    /**
+     * Crée un simulateur sur des barèmes.
+     *
+     * @param baremesAnnees les barèmes, dans l'ordre où les résultats sont retournés
+     * @throws IllegalArgumentException si la liste est vide
+     */
+    public SimulateurPluriannuel(List<Bareme> baremesAnnees) {
+        if (baremesAnnees.isEmpty()) {
+            throw new IllegalArgumentException("Au moins un barème est nécessaire");
+        }
+        this.baremes = List.copyOf(baremesAnnees);
+        for (Bareme bareme : baremes) {
+            jeux.add(JeuCalculateurs.pour(bareme));
+        }
+    }
+
+    /**
+     * Crée un simulateur sur les barèmes fournis avec l'application.
+     *
+     * @param annees les années fiscales, dans l'ordre où les résultats sont retournés
+     * @return le simulateur
+     * @throws IllegalArgumentException si aucune année n'est donnée ou si le barème
+     *                                  d'une année n'existe pas
+     */
+    public static SimulateurPluriannuel pourAnnees(int... annees) {
+        List<Bareme> baremesAnnees = new ArrayList<>();
+        for (int annee : annees) {
+            baremesAnnees.add(Bareme.charger(annee));
+        }
+        return new SimulateurPluriannuel(baremesAnnees);
+    }
+
+    /**
+     * Retourne les barèmes du simulateur.
+     *
+     * @return les barèmes, non modifiables, dans l'ordre des résultats
+     */
+    public List<Bareme> getBaremes() {
+        return baremes;
+    }
+
+    /**
+     * Calcule l'impôt du foyer avec chaque barème.
+     *
+     * @param foyer les données du foyer fiscal, déjà validées
+     * @return les résultats, dans l'ordre des barèmes
+     */
+    public SimulationPluriannuelle calculer(DonneesFoyerFiscal foyer) {
+        EtatCalcul etat = new EtatCalcul();
+        etat.initialiser(foyer);
+        // Le nombre de parts ne dépend pas du barème
+        MoteurCalculImpot.calculerParts(jeux.get(0), etat);
+
+        ResultatCalculImpot[] resultats = new ResultatCalculImpot[jeux.size()];
+        for (int i = 0; i < resultats.length; i++) {
+            JeuCalculateurs jeu = jeux.get(i);
+            MoteurCalculImpot.calculerRevenuImposable(jeu, etat);
+            MoteurCalculImpot.calculerImpot(jeu, etat);
+            resultats[i] = etat.versResultat();
+        }
+        return new SimulationPluriannuelle(baremes, List.of(resultats));
+    }
+}
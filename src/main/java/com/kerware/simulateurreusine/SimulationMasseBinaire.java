@@ -0,0 +1,131 @@
+package com.kerware.simulateurreusine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Simulation en masse d'un fichier binaire de foyers du {@link FichierFoyersBinaire}.
+ * Les fichiers d'entrée et de sortie sont projetés en mémoire par fenêtres de
+ * {@value #FOYERS_PAR_FENETRE} enregistrements : une vue {@link FoyerBinaire} lit
+ * chaque foyer dans la fenêtre d'entrée et une vue {@link ResultatBinaire} écrit son
+ * résultat au même rang dans la fenêtre de sortie. Aucune analyse de texte et aucun
+ * objet par foyer : le coût restant est celui du calcul.
+ * Une instance ne doit pas être utilisée par plusieurs threads à la fois.
+ */
+public final class SimulationMasseBinaire {
+    /** Nombre de foyers projetés en mémoire à la fois. */
+    public static final int FOYERS_PAR_FENETRE = 1_048_576;
+
+    private static final int NB_ARGUMENTS = 3;
+    private static final long NANOS_PAR_MS = 1_000_000L;
+
+    private final MoteurCalculImpot moteur;
+    private final EtatCalcul etat = new EtatCalcul();
+
+    /**
+     * Crée une simulation en masse.
+     *
+     * @param moteurCalcul le moteur de calcul à utiliser
+     */
+    public SimulationMasseBinaire(MoteurCalculImpot moteurCalcul) {
+        this.moteur = moteurCalcul;
+    }
+
+    /**
+     * Simule tous les foyers du fichier d'entrée et écrit les résultats.
+     *
+     * @param entree le fichier binaire des foyers
+     * @param sortie le fichier binaire des résultats, écrasé s'il existe
+     * @return le nombre de foyers simulés
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     * @throws IllegalArgumentException si l'en-tête est invalide ou un foyer incohérent
+     */
+    public long simuler(Path entree, Path sortie) throws IOException {
+        try (FileChannel canalEntree = FileChannel.open(entree, StandardOpenOption.READ);
+             FileChannel canalSortie = FileChannel.open(sortie, StandardOpenOption.READ,
+                     StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer enTete = canalEntree.map(FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(canalEntree.size(), FichierFoyersBinaire.TAILLE_EN_TETE))
+                    .order(FichierFoyersBinaire.ORDRE);
+            int taille = FichierFoyersBinaire.lireTailleEnregistrement(enTete,
+                    FichierFoyersBinaire.SIGNATURE_FOYERS);
+            long nbFoyers = FichierFoyersBinaire.lireNombre(enTete);
+            if (taille != FichierFoyersBinaire.TAILLE_FOYER
+                    && taille != FichierFoyersBinaire.TAILLE_FOYER_IDENTIFIE) {
+                throw new IllegalArgumentException("Fichier de foyers tronqué ou invalide");
+            }
+            // Comparé par division : le produit d'un nombre corrompu déborderait
+            long tailleDonnees = canalEntree.size() - FichierFoyersBinaire.TAILLE_EN_TETE;
+            if (nbFoyers < 0 || nbFoyers > tailleDonnees / taille) {
+                throw new IllegalArgumentException("Fichier de foyers tronqué ou invalide");
+            }
+
+            MappedByteBuffer enTeteSortie = canalSortie.map(FileChannel.MapMode.READ_WRITE, 0,
+                    FichierFoyersBinaire.TAILLE_EN_TETE);
+            enTeteSortie.order(FichierFoyersBinaire.ORDRE);
+            FichierFoyersBinaire.ecrireEnTete(enTeteSortie,
+                    FichierFoyersBinaire.SIGNATURE_RESULTATS,
+                    FichierFoyersBinaire.TAILLE_RESULTAT, nbFoyers);
+
+            for (long debut = 0; debut < nbFoyers; debut += FOYERS_PAR_FENETRE) {
+                int nbFenetre = (int) Math.min(FOYERS_PAR_FENETRE, nbFoyers - debut);
+                simulerFenetre(canalEntree, canalSortie, taille, debut, nbFenetre);
+            }
+            return nbFoyers;
+        }
+    }
+
+    private void simulerFenetre(FileChannel entree, FileChannel sortie, int taille,
+                                long debut, int nbFoyers) throws IOException {
+        ByteBuffer foyers = entree.map(FileChannel.MapMode.READ_ONLY,
+                FichierFoyersBinaire.TAILLE_EN_TETE + debut * taille, (long) nbFoyers * taille)
+                .order(FichierFoyersBinaire.ORDRE);
+        ByteBuffer resultats = sortie.map(FileChannel.MapMode.READ_WRITE,
+                FichierFoyersBinaire.TAILLE_EN_TETE + debut * FichierFoyersBinaire.TAILLE_RESULTAT,
+                (long) nbFoyers * FichierFoyersBinaire.TAILLE_RESULTAT)
+                .order(FichierFoyersBinaire.ORDRE);
+        FoyerBinaire foyer = new FoyerBinaire(foyers,
+                taille == FichierFoyersBinaire.TAILLE_FOYER_IDENTIFIE);
+        ResultatBinaire resultat = new ResultatBinaire(resultats);
+        // Un seul barème pour toute la fenêtre, comme pour un lot
+        JeuCalculateurs jeu = moteur.jeu();
+        for (int i = 0; i < nbFoyers; i++) {
+            try {
+                foyer.positionner(i).copierDans(etat);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Foyer " + (debut + i) + " : "
+                        + e.getMessage(), e);
+            }
+            moteur.calculer(jeu, etat);
+            resultat.positionner(i).ecrire(etat);
+        }
+    }
+
+    /**
+     * Convertit puis simule un fichier CSV en ligne de commande.
+     *
+     * @param args le fichier CSV d'entrée, le fichier binaire des foyers à écrire,
+     *             puis le fichier binaire des résultats
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != NB_ARGUMENTS) {
+            System.err.println(
+                    "Usage : SimulationMasseBinaire <entree.csv> <foyers.bin> <resultats.bin>");
+            return;
+        }
+        long debut = System.nanoTime();
+        FichierFoyersBinaire.convertirCsv(Path.of(args[0]), Path.of(args[1]), false);
+        long conversion = System.nanoTime();
+        long nbFoyers = new SimulationMasseBinaire(new MoteurCalculImpot())
+                .simuler(Path.of(args[1]), Path.of(args[2]));
+        long fin = System.nanoTime();
+        System.out.println(nbFoyers + " foyers convertis en " + (conversion - debut) / NANOS_PAR_MS
+                + " ms, simulés en " + (fin - conversion) / NANOS_PAR_MS + " ms");
+    }
+}
@@ -0,0 +1,377 @@
+package com.kerware.simulateurreusine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Simulation en masse d'un fichier CSV de foyers fiscaux, en flux.
+ * Le fichier d'entrée suit le format de {@code datasImposition.csv} :
+ * <pre>revenuNet1,revenuNet2,situationFamiliale,nbEnfants,nbEnfantsHandicap,parentIsole[,...]</pre>
+ * Les colonnes suivantes éventuelles (impôt attendu) sont ignorées ; les lignes vides
+ * sont acceptées, ainsi qu'une ligne d'en-tête : la première ligne non vide, si elle
+ * ne commence pas par un chiffre. Toute autre ligne doit décrire un foyer.
+ * Le fichier de sortie reprend les données du foyer suivies de toutes les valeurs
+ * exposées par {@link ICalculateurImpot}.
+ * La lecture et l'écriture passent par deux tampons réutilisés : la mémoire
+ * consommée ne dépend pas de la taille des fichiers et aucun objet n'est
+ * alloué par ligne. Une instance ne doit pas être utilisée par plusieurs
+ * threads à la fois.
+ */
+public class SimulationMasseCsv {
+    /** Taille par défaut des tampons de lecture et d'écriture. */
+    public static final int TAILLE_TAMPON_DEFAUT = 1_048_576;
+    /** Taille minimale des tampons. */
+    public static final int TAILLE_TAMPON_MIN = 1_024;
+
+    // Majorant de la longueur d'une ligne de résultat
+    private static final int LONGUEUR_MAX_RESULTAT = 256;
+    private static final long NANOS_PAR_MS = 1_000_000;
+
+    private static final byte[] EN_TETE_SORTIE = ("revenuNet1,revenuNet2,sitFam,nbEnfants,"
+            + "nbEnfantsHandicap,isole,nbParts,abattement,revenuFiscalReference,"
+            + "impotAvantDecote,decote,contributionExceptionnelle,impotNet\n")
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+    private static final byte[][] NOMS_SITUATIONS = new byte[SITUATIONS.length][];
+    private static final byte[] VRAI = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FAUX = "false".getBytes(StandardCharsets.US_ASCII);
+    // Marque d'ordre des octets UTF-8, tolérée au début du fichier
+    private static final byte[] MARQUE_ORDRE = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] DEMI = ".5".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ENTIER = ".0".getBytes(StandardCharsets.US_ASCII);
+    private static final int BASE = 10;
+    private static final int CHIFFRES_LONG_MAX = 20;
+
+    static {
+        for (SituationFamiliale situation : SITUATIONS) {
+            NOMS_SITUATIONS[situation.ordinal()] =
+                    situation.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final MoteurCalculImpot moteur;
+    private final ByteBuffer lecture;
+    private final ByteBuffer ecriture;
+    private final byte[] chiffres = new byte[CHIFFRES_LONG_MAX];
+    private final EtatCalcul etat = new EtatCalcul();
+
+    // Position courante dans la ligne en cours d'analyse
+    private int curseur;
+    private long numeroLigne;
+    // Vrai tant qu'aucune ligne non vide n'a été lue
+    private boolean enTetePossible;
+
+    /**
+     * Crée une simulation en masse avec des tampons de taille par défaut.
+     *
+     * @param moteurCalcul le moteur de calcul à utiliser
+     */
+    public SimulationMasseCsv(MoteurCalculImpot moteurCalcul) {
+        this(moteurCalcul, TAILLE_TAMPON_DEFAUT);
+    }
+
+    /**
+     * Crée une simulation en masse.
+     *
+     * @param moteurCalcul le moteur de calcul à utiliser
+     * @param tailleTampon la taille des tampons de lecture et d'écriture,
+     *                     qui borne aussi la longueur d'une ligne
+     */
+    public SimulationMasseCsv(MoteurCalculImpot moteurCalcul, int tailleTampon) {
+        if (tailleTampon < TAILLE_TAMPON_MIN) {
+            throw new IllegalArgumentException("Les tampons doivent faire au moins "
+                    + TAILLE_TAMPON_MIN + " octets");
+        }
+        this.moteur = moteurCalcul;
+        this.lecture = ByteBuffer.allocateDirect(tailleTampon);
+        this.ecriture = ByteBuffer.allocateDirect(tailleTampon);
+    }
+
+    /**
+     * Simule tous les foyers du fichier d'entrée et écrit les résultats.
+     *
+     * @param entree le fichier CSV des foyers
+     * @param sortie le fichier CSV des résultats, écrasé s'il existe
+     * @return le nombre de foyers simulés
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     * @throws IllegalArgumentException si une ligne est mal formée ou incohérente
+     */
+    public long simuler(Path entree, Path sortie) throws IOException {
+        try (FileChannel canalEntree = FileChannel.open(entree, StandardOpenOption.READ);
+             FileChannel canalSortie = FileChannel.open(sortie, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return simuler(canalEntree, canalSortie);
+        }
+    }
+
+    private long simuler(FileChannel entree, FileChannel sortie) throws IOException {
+        lecture.clear();
+        ecriture.clear();
+        numeroLigne = 0;
+        enTetePossible = true;
+        long nbFoyers = 0;
+        ecriture.put(EN_TETE_SORTIE);
+
+        boolean finFichier = false;
+        while (!finFichier) {
+            finFichier = entree.read(lecture) < 0;
+            lecture.flip();
+            int debutLigne = lecture.position();
+            for (int i = debutLigne; i < lecture.limit(); i++) {
+                if (lecture.get(i) == '\n') {
+                    nbFoyers += traiterLigne(debutLigne, i, sortie);
+                    debutLigne = i + 1;
+                }
+            }
+            if (finFichier && debutLigne < lecture.limit()) {
+                nbFoyers += traiterLigne(debutLigne, lecture.limit(), sortie);
+                debutLigne = lecture.limit();
+            }
+            lecture.position(debutLigne);
+            lecture.compact();
+            if (!finFichier && !lecture.hasRemaining()) {
+                throw new IllegalArgumentException("Ligne " + (numeroLigne + 1)
+                        + " : ligne plus longue que le tampon de lecture");
+            }
+        }
+        vider(sortie);
+        return nbFoyers;
+    }
+
+    private int traiterLigne(int debut, int fin, FileChannel sortie) throws IOException {
+        numeroLigne++;
+        int finUtile = fin;
+        while (finUtile > debut && estEspace(lecture.get(finUtile - 1))) {
+            finUtile--;
+        }
+        curseur = debut;
+        if (numeroLigne == 1) {
+            sauterMarqueOrdre(finUtile);
+        }
+        sauterEspaces(finUtile);
+        if (ligneIgnoree(finUtile)) {
+            return 0;
+        }
+        int revenu1 = lireEntier(finUtile);
+        int revenu2 = lireEntier(finUtile);
+        SituationFamiliale situation = lireSituation(finUtile);
+        int nbEnfants = lireEntier(finUtile);
+        int nbEnfantsHandicap = lireEntier(finUtile);
+        boolean parentIsole = lireBooleen(finUtile);
+
+        try {
+            DonneesFoyerFiscal.valider(revenu1, revenu2, situation, nbEnfants,
+                    nbEnfantsHandicap, parentIsole);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ligne " + numeroLigne + " : " + e.getMessage(), e);
+        }
+        etat.initialiser(revenu1, revenu2, situation, nbEnfants, nbEnfantsHandicap, parentIsole);
+        moteur.calculer(etat);
+
+        if (ecriture.remaining() < LONGUEUR_MAX_RESULTAT) {
+            vider(sortie);
+        }
+        ecrireResultat();
+        return 1;
+    }
+
+    // Ligne vide, ou en-tête : seule la première ligne non vide peut l'être
+    private boolean ligneIgnoree(int fin) {
+        if (curseur == fin) {
+            return true;
+        }
+        boolean enTete = enTetePossible && !estChiffre(lecture.get(curseur));
+        enTetePossible = false;
+        return enTete;
+    }
+
+    private void sauterMarqueOrdre(int fin) {
+        if (fin - curseur < MARQUE_ORDRE.length) {
+            return;
+        }
+        for (int i = 0; i < MARQUE_ORDRE.length; i++) {
+            if (lecture.get(curseur + i) != MARQUE_ORDRE[i]) {
+                return;
+            }
+        }
+        curseur += MARQUE_ORDRE.length;
+    }
+
+    private void ecrireResultat() {
+        ecrireEntier(etat.getRevenuNetDeclarant1());
+        ecriture.put((byte) ',');
+        ecrireEntier(etat.getRevenuNetDeclarant2());
+        ecriture.put((byte) ',');
+        ecriture.put(NOMS_SITUATIONS[etat.getSituation().ordinal()]);
+        ecriture.put((byte) ',');
+        ecrireEntier(etat.getNbEnfants());
+        ecriture.put((byte) ',');
+        ecrireEntier(etat.getNbEnfantsHandicap());
+        ecriture.put((byte) ',');
+        ecriture.put(etat.isParentIsole() ? VRAI : FAUX);
+        ecriture.put((byte) ',');
+        ecrireDecimal(etat.getNombreParts());
+        ecriture.put((byte) ',');
+        // Mêmes conversions que les accesseurs de l'adaptateur
+        ecrireEntier((int) etat.getAbattement());
+        ecriture.put((byte) ',');
+        ecrireEntier((int) etat.getRevenuFiscalReference());
+        ecriture.put((byte) ',');
+        ecrireEntier((int) etat.getImpotAvantDecote());
+        ecriture.put((byte) ',');
+        ecrireEntier((int) etat.getDecote());
+        ecriture.put((byte) ',');
+        ecrireDecimal(etat.getContributionExceptionnelle());
+        ecriture.put((byte) ',');
+        ecrireEntier((int) etat.getImpotNet());
+        ecriture.put((byte) '\n');
+    }
+
+    private void vider(FileChannel sortie) throws IOException {
+        ecriture.flip();
+        while (ecriture.hasRemaining()) {
+            sortie.write(ecriture);
+        }
+        ecriture.clear();
+    }
+
+    private int lireEntier(int fin) {
+        sauterEspaces(fin);
+        long valeur = 0;
+        int debut = curseur;
+        while (curseur < fin && estChiffre(lecture.get(curseur))) {
+            valeur = valeur * BASE + (lecture.get(curseur) - '0');
+            if (valeur > Integer.MAX_VALUE) {
+                throw erreurFormat("nombre trop grand");
+            }
+            curseur++;
+        }
+        if (curseur == debut) {
+            throw erreurFormat("nombre entier attendu");
+        }
+        finirChamp(fin);
+        return (int) valeur;
+    }
+
+    private SituationFamiliale lireSituation(int fin) {
+        sauterEspaces(fin);
+        for (SituationFamiliale situation : SITUATIONS) {
+            if (champEgal(NOMS_SITUATIONS[situation.ordinal()], fin)) {
+                curseur += NOMS_SITUATIONS[situation.ordinal()].length;
+                finirChamp(fin);
+                return situation;
+            }
+        }
+        throw erreurFormat("situation familiale inconnue");
+    }
+
+    private boolean lireBooleen(int fin) {
+        sauterEspaces(fin);
+        boolean valeur;
+        if (champEgal(VRAI, fin)) {
+            curseur += VRAI.length;
+            valeur = true;
+        } else if (champEgal(FAUX, fin)) {
+            curseur += FAUX.length;
+            valeur = false;
+        } else {
+            throw erreurFormat("true ou false attendu");
+        }
+        finirChamp(fin);
+        return valeur;
+    }
+
+    private boolean champEgal(byte[] attendu, int fin) {
+        if (fin - curseur < attendu.length) {
+            return false;
+        }
+        for (int i = 0; i < attendu.length; i++) {
+            if (lecture.get(curseur + i) != attendu[i]) {
+                return false;
+            }
+        }
+        int apres = curseur + attendu.length;
+        return apres == fin || lecture.get(apres) == ','
+                || estEspace(lecture.get(apres));
+    }
+
+    private void sauterEspaces(int fin) {
+        while (curseur < fin && estEspace(lecture.get(curseur))) {
+            curseur++;
+        }
+    }
+
+    private void finirChamp(int fin) {
+        sauterEspaces(fin);
+        if (curseur < fin) {
+            if (lecture.get(curseur) != ',') {
+                throw erreurFormat("séparateur ',' attendu");
+            }
+            curseur++;
+        }
+    }
+
+    private IllegalArgumentException erreurFormat(String message) {
+        return new IllegalArgumentException("Ligne " + numeroLigne + " : " + message);
+    }
+
+    // Les octets non ASCII sont négatifs : ils ne sont jamais des espaces
+    private static boolean estEspace(byte octet) {
+        return octet == ' ' || octet == '\t' || octet == '\r';
+    }
+
+    private static boolean estChiffre(byte octet) {
+        return octet >= '0' && octet <= '9';
+    }
+
+    private void ecrireEntier(long valeur) {
+        long reste = valeur;
+        if (reste < 0) {
+            ecriture.put((byte) '-');
+            reste = -reste;
+        }
+        int n = 0;
+        do {
+            chiffres[n++] = (byte) ('0' + reste % BASE);
+            reste /= BASE;
+        } while (reste > 0);
+        while (n > 0) {
+            ecriture.put(chiffres[--n]);
+        }
+    }
+
+    /**
+     * Écrit un nombre de parts ou un montant arrondi sans passer par une chaîne.
+     */
+    private void ecrireDecimal(double valeur) {
+        double double2 = valeur * 2;
+        if (double2 == Math.rint(double2)) {
+            ecrireEntier((long) Math.floor(valeur));
+            ecriture.put(double2 % 2 == 0 ? ENTIER : DEMI);
+        } else {
+            ecriture.put(Double.toString(valeur).getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * Lance la simulation en masse en ligne de commande.
+     *
+     * @param args le fichier d'entrée puis le fichier de sortie
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage : SimulationMasseCsv <entree.csv> <sortie.csv>");
+            return;
+        }
+        long debut = System.nanoTime();
+        long nbFoyers = new SimulationMasseCsv(new MoteurCalculImpot())
+                .simuler(Path.of(args[0]), Path.of(args[1]));
+        long dureeMs = (System.nanoTime() - debut) / NANOS_PAR_MS;
+        System.out.println(nbFoyers + " foyers simulés en " + dureeMs + " ms");
+    }
+}
@@ -0,0 +1,29 @@
+package com.kerware.simulateurreusine;
+
+import java.util.List;
+
+/**
+ * Résultats d'un même foyer calculés avec plusieurs barèmes.
+ *
+ * @param baremes les barèmes, dans l'ordre de la demande
+ * @param resultats le résultat obtenu avec chaque barème, au même rang
+ */
+public record SimulationPluriannuelle(List<Bareme> baremes,
+                                      List<ResultatCalculImpot> resultats) {
+
+    /**
+     * Retourne le résultat obtenu avec le barème d'une année fiscale.
+     *
+     * @param annee l'année fiscale
+     * @return le résultat du premier barème de cette année
+     * @throws IllegalArgumentException si aucun barème n'est de cette année
+     */
+    public ResultatCalculImpot pourAnnee(int annee) {
+        for (int i = 0; i < baremes.size(); i++) {
+            if (baremes.get(i).getAnnee() == annee) {
+                return resultats.get(i);
+            }
+        }
+        throw new IllegalArgumentException("Aucun barème pour l'année " + annee);
+    }
+}
@@ -0,0 +1,358 @@
+package com.kerware.simulateurreusine;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * Recherche le revenu du premier déclarant qui produit un impôt net donné ou qui
+ * franchit un seuil du barème, pour un profil de foyer fixé. Les autres données du
+ * profil, dont le revenu du second déclarant, restent fixes ; la recherche part du
+ * revenu du premier déclarant du profil.
+ *
+ * <p>Chaque étape du calcul est linéaire par morceaux et croissante : le revenu
+ * imposable visé est obtenu en inversant directement, segment par segment, le
+ * modèle continu (tranches, plafonnement, décote, contribution exceptionnelle),
+ * puis le revenu par l'inversion de l'abattement. Les arrondis du calcul exact
+ * ne déplacent la solution que de quelques euros : quelques calculs complets autour
+ * de l'estimation suffisent à trouver le plus petit revenu entier qui convient,
+ * là où une dichotomie sur toute la plage en demande une trentaine.
+ */
+public class SolveurImpotInverse {
+    /** Revenu retourné quand aucun revenu de la plage de recherche ne convient. */
+    public static final int REVENU_INTROUVABLE = -1;
+    /** Revenu maximal du premier déclarant exploré par les recherches. */
+    public static final int REVENU_MAX_RECHERCHE = 1_000_000_000;
+
+    private final ReferentielBareme referentiel;
+
+    /**
+     * Crée un solveur sur le référentiel de barème global.
+     */
+    public SolveurImpotInverse() {
+        this(ReferentielBareme.global());
+    }
+
+    /**
+     * Crée un solveur sur un référentiel de barème.
+     *
+     * @param referentielBareme le référentiel qui fournit le barème en vigueur
+     */
+    public SolveurImpotInverse(ReferentielBareme referentielBareme) {
+        this.referentiel = referentielBareme;
+    }
+
+    /**
+     * Retourne le plus petit revenu du premier déclarant pour lequel l'impôt net
+     * atteint un montant. Le revenu précédent est le revenu maximal avant de payer
+     * ce montant.
+     *
+     * @param profil le foyer qui donne le revenu de départ et le profil familial
+     * @param impotNet l'impôt net visé
+     * @return le revenu, ou {@link #REVENU_INTROUVABLE}
+     */
+    public int revenuMinimalPourImpot(DonneesFoyerFiscal profil, double impotNet) {
+        Inversion inversion = new Inversion(referentiel.jeu(), profil);
+        return inversion.premierRevenu(inversion.revenuImposablePourImpotNet(impotNet),
+                etat -> etat.getImpotNet() >= impotNet);
+    }
+
+    /**
+     * Retourne la plage des revenus du premier déclarant pour lesquels l'impôt net
+     * vaut exactement un montant. Si l'impôt saute ce montant, la plage est vide et
+     * commence au premier revenu dont l'impôt le dépasse.
+     *
+     * @param profil le foyer qui donne le revenu de départ et le profil familial
+     * @param impotNet l'impôt net visé
+     * @return la plage des revenus, éventuellement vide
+     */
+    public PlageRevenus revenusPourImpot(DonneesFoyerFiscal profil, double impotNet) {
+        Inversion inversion = new Inversion(referentiel.jeu(), profil);
+        int debut = inversion.premierRevenu(inversion.revenuImposablePourImpotNet(impotNet),
+                etat -> etat.getImpotNet() >= impotNet);
+        if (debut == REVENU_INTROUVABLE) {
+            return new PlageRevenus(REVENU_MAX_RECHERCHE + 1, REVENU_MAX_RECHERCHE);
+        }
+        // L'impôt net est arrondi à l'euro : le montant suivant est l'euro supérieur
+        double impotSuivant = Math.floor(impotNet) + 1;
+        int suivant = inversion.premierRevenu(
+                inversion.revenuImposablePourImpotNet(impotSuivant),
+                etat -> etat.getImpotNet() >= impotSuivant);
+        return new PlageRevenus(debut,
+                suivant == REVENU_INTROUVABLE ? REVENU_MAX_RECHERCHE : suivant - 1);
+    }
+
+    /**
+     * Retourne le premier revenu du premier déclarant pour lequel le foyer sort de la
+     * décote : l'impôt avant décote atteint le seuil de décote.
+     *
+     * @param profil le foyer qui donne le revenu de départ et le profil familial
+     * @return le revenu, ou {@link #REVENU_INTROUVABLE}
+     */
+    public int revenuFinDecote(DonneesFoyerFiscal profil) {
+        Inversion inversion = new Inversion(referentiel.jeu(), profil);
+        double seuil = inversion.bareme.getSeuilDecote(inversion.situation.estCouple());
+        return inversion.premierRevenu(inversion.revenuImposablePourImpotAvantDecote(seuil),
+                etat -> etat.getImpotAvantDecote() >= seuil);
+    }
+
+    /**
+     * Retourne le premier revenu du premier déclarant pour lequel l'avantage des
+     * parts supplémentaires est plafonné.
+     *
+     * @param profil le foyer qui donne le revenu de départ et le profil familial
+     * @return le revenu, ou {@link #REVENU_INTROUVABLE} si le foyer n'a pas de part
+     *         supplémentaire ou si le plafond n'est jamais atteint
+     */
+    public int revenuDebutPlafonnement(DonneesFoyerFiscal profil) {
+        Inversion inversion = new Inversion(referentiel.jeu(), profil);
+        if (inversion.nombreParts == inversion.partsDeclarants) {
+            return REVENU_INTROUVABLE;
+        }
+        double plafond = inversion.plafondBaisse;
+        return inversion.premierRevenu(inversion.revenuImposablePourBaisse(plafond),
+                etat -> etat.getImpotBrutDeclarants() - etat.getImpotBrutFoyer() >= plafond);
+    }
+
+    /**
+     * Retourne le premier revenu du premier déclarant pour lequel le revenu imposable
+     * par part du foyer entre dans une tranche d'imposition.
+     *
+     * @param profil le foyer qui donne le revenu de départ et le profil familial
+     * @param rang le rang de la tranche, à partir de 0
+     * @return le revenu, ou {@link #REVENU_INTROUVABLE}
+     * @throws IllegalArgumentException si la tranche n'existe pas
+     */
+    public int revenuDebutTranche(DonneesFoyerFiscal profil, int rang) {
+        Inversion inversion = new Inversion(referentiel.jeu(), profil);
+        double borne = borne(inversion.tranches, rang);
+        return inversion.premierRevenu(borne * inversion.nombreParts,
+                etat -> etat.getRevenuFiscalReference() / etat.getNombreParts() >= borne);
+    }
+
+    /**
+     * Retourne le premier revenu du premier déclarant pour lequel le revenu fiscal de
+     * référence entre dans une tranche de la contribution exceptionnelle.
+     *
+     * @param profil le foyer qui donne le revenu de départ et le profil familial
+     * @param rang le rang de la tranche, à partir de 0
+     * @return le revenu, ou {@link #REVENU_INTROUVABLE}
+     * @throws IllegalArgumentException si la tranche n'existe pas
+     */
+    public int revenuDebutContribution(DonneesFoyerFiscal profil, int rang) {
+        Inversion inversion = new Inversion(referentiel.jeu(), profil);
+        double borne = borne(inversion.contribution, rang);
+        return inversion.premierRevenu(borne, etat -> etat.getRevenuFiscalReference() >= borne);
+    }
+
+    private static double borne(BaremeCompile bareme, int rang) {
+        if (rang < 0 || rang >= bareme.nbSegments()) {
+            throw new IllegalArgumentException("Tranche inconnue : " + rang);
+        }
+        return bareme.abscisse(rang);
+    }
+
+    /**
+     * Constantes d'un profil et modèle continu de l'impôt en fonction du revenu imposable.
+     */
+    private static final class Inversion {
+        private final JeuCalculateurs jeu;
+        private final Bareme bareme;
+        private final BaremeCompile tranches;
+        private final BaremeCompile decote;
+        private final BaremeCompile contribution;
+        private final SituationFamiliale situation;
+        private final DonneesFoyerFiscal profil;
+        private final double nombreParts;
+        private final double partsDeclarants;
+        private final double plafondBaisse;
+        private final double abattementDeclarant2;
+        // Revenus imposables où le modèle continu change de pente, triés
+        private final double[] cassures;
+        private double[] cassuresAvantDecote;
+        private final EtatCalcul etat = new EtatCalcul();
+
+        Inversion(JeuCalculateurs jeuCalculateurs, DonneesFoyerFiscal profilFoyer) {
+            this.jeu = jeuCalculateurs;
+            this.bareme = jeuCalculateurs.bareme();
+            this.profil = profilFoyer;
+            this.situation = profilFoyer.situationFamiliale();
+            this.tranches = bareme.getImpot();
+            this.decote = bareme.getDecote(situation.estCouple());
+            this.contribution = bareme.getContribution(situation.estCouple());
+            this.nombreParts = jeu.parts().calculerNombreParts(situation,
+                    profilFoyer.nbEnfantsACharge(), profilFoyer.nbEnfantsSituationHandicap(),
+                    profilFoyer.parentIsole());
+            this.partsDeclarants = jeu.parts().calculerPartsDeclarants(situation);
+            this.plafondBaisse =
+                    jeu.plafonneur().calculerPlafondBaisse(nombreParts, partsDeclarants);
+            // À revenu nul, l'abattement du premier déclarant est le minimum
+            this.abattementDeclarant2 = jeu.abattement().calculerAbattement(0,
+                    profilFoyer.revenuNetDeclarant2(), situation) - bareme.getAbattementMinimal();
+            this.cassures = cassuresBareme();
+        }
+
+        // Bornes des tranches pour chaque quotient, de la contribution, et fin de recherche
+        private double[] cassuresBareme() {
+            int nbTranches = tranches.nbSegments();
+            int nbContribution = contribution.nbSegments();
+            double[] points = new double[2 * nbTranches + nbContribution + 1];
+            int n = 0;
+            for (int k = 0; k < nbTranches; k++) {
+                points[n++] = tranches.abscisse(k) * partsDeclarants;
+                points[n++] = tranches.abscisse(k) * nombreParts;
+            }
+            for (int k = 0; k < nbContribution; k++) {
+                points[n++] = contribution.abscisse(k);
+            }
+            points[n] = (double) REVENU_MAX_RECHERCHE + profil.revenuNetDeclarant2();
+            Arrays.sort(points);
+            return points;
+        }
+
+        private double impotBrutDeclarants(double revenuImposable) {
+            return tranches.evaluer(revenuImposable / partsDeclarants) * partsDeclarants;
+        }
+
+        private double baisse(double revenuImposable) {
+            return impotBrutDeclarants(revenuImposable)
+                    - tranches.evaluer(revenuImposable / nombreParts) * nombreParts;
+        }
+
+        private double impotAvantDecote(double revenuImposable) {
+            double brutDeclarants = impotBrutDeclarants(revenuImposable);
+            double brutFoyer = tranches.evaluer(revenuImposable / nombreParts) * nombreParts;
+            return brutDeclarants - brutFoyer >= plafondBaisse
+                    ? brutDeclarants - plafondBaisse : brutFoyer;
+        }
+
+        private double impotNet(double revenuImposable) {
+            double avant = impotAvantDecote(revenuImposable);
+            return avant - Math.min(decote.evaluer(avant), avant)
+                    + contribution.evaluer(revenuImposable);
+        }
+
+        double revenuImposablePourBaisse(double baisse) {
+            return racine(this::baisse, baisse, cassures);
+        }
+
+        double revenuImposablePourImpotAvantDecote(double impot) {
+            return racine(this::impotAvantDecote, impot, cassuresPlafonnement());
+        }
+
+        double revenuImposablePourImpotNet(double impot) {
+            // La décote ajoute deux cassures : son seuil et l'annulation de l'impôt
+            boolean estCouple = situation.estCouple();
+            double annulation = bareme.getMaximumDecote(estCouple) / (1 + bareme.getTauxDecote());
+            double[] points = ajouter(cassuresPlafonnement(),
+                    revenuImposablePourImpotAvantDecote(bareme.getSeuilDecote(estCouple)),
+                    revenuImposablePourImpotAvantDecote(annulation));
+            return racine(this::impotNet, impot, points);
+        }
+
+        // Le début du plafonnement ajoute une cassure à l'impôt avant décote
+        private double[] cassuresPlafonnement() {
+            if (cassuresAvantDecote == null) {
+                cassuresAvantDecote = ajouter(cassures, revenuImposablePourBaisse(plafondBaisse));
+            }
+            return cassuresAvantDecote;
+        }
+
+        private static double[] ajouter(double[] points, double... ajouts) {
+            double[] tous = Arrays.copyOf(points, points.length + ajouts.length);
+            System.arraycopy(ajouts, 0, tous, points.length, ajouts.length);
+            Arrays.sort(tous);
+            return tous;
+        }
+
+        // La fonction est croissante et linéaire entre deux cassures consécutives
+        private static double racine(DoubleUnaryOperator fonction, double cible,
+                                     double[] points) {
+            double precedent = points[0];
+            double valeurPrecedente = fonction.applyAsDouble(precedent);
+            if (valeurPrecedente >= cible) {
+                return precedent;
+            }
+            for (int i = 1; i < points.length; i++) {
+                double valeur = fonction.applyAsDouble(points[i]);
+                if (valeur >= cible) {
+                    return precedent + (cible - valeurPrecedente) * (points[i] - precedent)
+                            / (valeur - valeurPrecedente);
+                }
+                precedent = points[i];
+                valeurPrecedente = valeur;
+            }
+            return precedent;
+        }
+
+        // Inverse revenu imposable = revenu1 + revenu2 - abattement, segment par segment
+        private double revenuPourRevenuImposable(double revenuImposable) {
+            double taux = bareme.getTauxAbattement();
+            double minimum = bareme.getAbattementMinimal();
+            double maximum = bareme.getAbattementMaximal();
+            double horsAbattement = revenuImposable - profil.revenuNetDeclarant2()
+                    + abattementDeclarant2;
+            if (taux == 0 || horsAbattement <= minimum / taux - minimum) {
+                return horsAbattement + minimum;
+            }
+            if (horsAbattement >= maximum / taux - maximum) {
+                return horsAbattement + maximum;
+            }
+            return horsAbattement / (1 - taux);
+        }
+
+        /**
+         * Retourne le plus petit revenu entier qui vérifie une condition croissante avec
+         * le revenu, en partant de l'estimation tirée du revenu imposable visé : la
+         * recherche s'éloigne de l'estimation par pas doublés, puis procède par dichotomie.
+         */
+        int premierRevenu(double revenuImposableVise, Predicate<EtatCalcul> condition) {
+            long minimum = profil.revenuNetDeclarant1();
+            if (minimum > REVENU_MAX_RECHERCHE) {
+                return REVENU_INTROUVABLE;
+            }
+            long estimation = Math.round(revenuPourRevenuImposable(revenuImposableVise));
+            long depart = Math.max(minimum, Math.min(REVENU_MAX_RECHERCHE, estimation));
+            // Invariant : le revenu cherché est dans ]faux, vrai]
+            long faux;
+            long vrai;
+            long pas = 1;
+            if (verifie(depart, condition)) {
+                vrai = depart;
+                faux = Math.max(minimum - 1, vrai - pas);
+                while (faux >= minimum && verifie(faux, condition)) {
+                    vrai = faux;
+                    pas *= 2;
+                    faux = Math.max(minimum - 1, vrai - pas);
+                }
+            } else {
+                faux = depart;
+                vrai = Math.min(REVENU_MAX_RECHERCHE + 1L, faux + pas);
+                while (vrai <= REVENU_MAX_RECHERCHE && !verifie(vrai, condition)) {
+                    faux = vrai;
+                    pas *= 2;
+                    vrai = Math.min(REVENU_MAX_RECHERCHE + 1L, faux + pas);
+                }
+            }
+            while (vrai - faux > 1) {
+                long milieu = (faux + vrai) >>> 1;
+                if (verifie(milieu, condition)) {
+                    vrai = milieu;
+                } else {
+                    faux = milieu;
+                }
+            }
+            return vrai > REVENU_MAX_RECHERCHE ? REVENU_INTROUVABLE : (int) vrai;
+        }
+
+        private boolean verifie(long revenu1, Predicate<EtatCalcul> condition) {
+            etat.initialiser((int) revenu1, profil.revenuNetDeclarant2(), situation,
+                    profil.nbEnfantsACharge(), profil.nbEnfantsSituationHandicap(),
+                    profil.parentIsole());
+            MoteurCalculImpot.calculerParts(jeu, etat);
+            MoteurCalculImpot.calculerRevenuImposable(jeu, etat);
+            MoteurCalculImpot.calculerImpot(jeu, etat);
+            return condition.test(etat);
+        }
+    }
+}
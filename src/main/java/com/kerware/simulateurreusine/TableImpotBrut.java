@@ -0,0 +1,218 @@
+package com.kerware.simulateurreusine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Table précalculée de l'impôt brut, pour chaque revenu imposable entier de 0 à un
+ * plafond et chaque nombre de parts atteignable (de 1 à {@value #PARTS_MAX} par
+ * demi-part). La table est construite une fois dans un fichier, puis projetée en
+ * mémoire en lecture seule : plusieurs JVM d'une même machine partagent alors les
+ * mêmes pages du cache du système.
+ * Le fichier porte une empreinte des tranches du barème : il n'est utilisé qu'avec
+ * le barème qui l'a produit. Un revenu non entier ou au-delà du plafond n'est pas
+ * dans la table ; le {@link CalculateurImpot} applique alors la formule.
+ */
+public final class TableImpotBrut {
+    /** Plafond de revenu imposable par défaut. */
+    public static final int REVENU_MAX_DEFAUT = 300_000;
+    /** Nombre de parts maximal : veuf, sept enfants handicapés, parent isolé. */
+    public static final double PARTS_MAX = 12;
+    /** Valeur retournée pour un revenu ou un nombre de parts absent de la table. */
+    public static final double ABSENT = -1;
+
+    private static final int SIGNATURE = 0x424D5049;  // "IPMB"
+    private static final int VERSION = 1;
+    private static final int TAILLE_EN_TETE = 24;
+    private static final int POSITION_VERSION = 4;
+    private static final int POSITION_REVENU_MAX = 8;
+    private static final int POSITION_NB_COLONNES = 12;
+    private static final int POSITION_EMPREINTE = 16;
+    private static final ByteOrder ORDRE = ByteOrder.LITTLE_ENDIAN;
+    private static final int DEMI_PARTS_MIN = 2;
+    private static final int NB_COLONNES = (int) (PARTS_MAX * 2) - DEMI_PARTS_MIN + 1;
+    private static final int MULTIPLICATEUR_EMPREINTE = 31;
+
+    private final int revenuMax;
+    private final long empreinte;
+    private final IntBuffer valeurs;
+
+    private TableImpotBrut(int revenuMaximal, long empreinteBareme, IntBuffer valeursTable) {
+        this.revenuMax = revenuMaximal;
+        this.empreinte = empreinteBareme;
+        this.valeurs = valeursTable;
+    }
+
+    /**
+     * Ouvre la table d'un fichier, ou la construit si le fichier n'existe pas ou a
+     * été produit pour un autre barème ou un autre plafond.
+     *
+     * @param fichier le fichier de la table
+     * @param bareme le barème de la table
+     * @param revenuMaximal le plus grand revenu imposable de la table
+     * @return la table projetée en mémoire
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     */
+    public static TableImpotBrut ouvrirOuConstruire(Path fichier, Bareme bareme,
+                                                    int revenuMaximal) throws IOException {
+        if (Files.exists(fichier)) {
+            try {
+                TableImpotBrut table = ouvrir(fichier, bareme);
+                if (table.revenuMax == revenuMaximal) {
+                    return table;
+                }
+            } catch (IllegalArgumentException e) {
+                // Fichier d'un autre barème ou d'une autre version : reconstruit
+            }
+        }
+        construire(fichier, bareme, revenuMaximal);
+        return ouvrir(fichier, bareme);
+    }
+
+    /**
+     * Construit le fichier d'une table. Le fichier est écrit sous un nom temporaire
+     * puis renommé : une autre JVM ne peut pas ouvrir une table à moitié écrite.
+     *
+     * @param fichier le fichier de la table, remplacé s'il existe
+     * @param bareme le barème de la table
+     * @param revenuMaximal le plus grand revenu imposable de la table
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public static void construire(Path fichier, Bareme bareme, int revenuMaximal)
+            throws IOException {
+        long nbValeurs = (long) NB_COLONNES * (revenuMaximal + 1L);
+        if (revenuMaximal < 0
+                || TAILLE_EN_TETE + nbValeurs * Integer.BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Plafond de revenu invalide : " + revenuMaximal);
+        }
+        Path repertoire = fichier.toAbsolutePath().getParent();
+        Path temporaire = Files.createTempFile(repertoire, fichier.getFileName().toString(),
+                ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                MappedByteBuffer contenu = canal.map(FileChannel.MapMode.READ_WRITE, 0,
+                        TAILLE_EN_TETE + nbValeurs * Integer.BYTES);
+                contenu.order(ORDRE).putInt(SIGNATURE).putInt(VERSION).putInt(revenuMaximal)
+                        .putInt(NB_COLONNES).putLong(empreinte(bareme.getImpot()));
+                remplir(contenu.slice().order(ORDRE).asIntBuffer(), bareme, revenuMaximal);
+                contenu.force();
+            }
+            Files.move(temporaire, fichier, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaire);
+        }
+    }
+
+    // Les valeurs sont celles de la formule elle-même : la table lui est identique
+    private static void remplir(IntBuffer valeurs, Bareme bareme, int revenuMaximal) {
+        CalculateurImpot formule = new CalculateurImpot(bareme);
+        for (int colonne = 0; colonne < NB_COLONNES; colonne++) {
+            double nombreParts = (colonne + DEMI_PARTS_MIN) / 2.0;
+            for (int revenu = 0; revenu <= revenuMaximal; revenu++) {
+                valeurs.put(Math.toIntExact(
+                        (long) formule.calculerImpotBrut(revenu, nombreParts)));
+            }
+        }
+    }
+
+    /**
+     * Ouvre en lecture seule la table d'un fichier.
+     *
+     * @param fichier le fichier de la table
+     * @param bareme le barème attendu
+     * @return la table projetée en mémoire
+     * @throws IOException en cas d'erreur de lecture
+     * @throws IllegalArgumentException si le fichier n'est pas une table de ce barème
+     */
+    public static TableImpotBrut ouvrir(Path fichier, Bareme bareme) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            if (canal.size() < TAILLE_EN_TETE || canal.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Table d'impôt brut invalide : " + fichier);
+            }
+            ByteBuffer contenu = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size())
+                    .order(ORDRE);
+            int revenuMaximal = contenu.getInt(POSITION_REVENU_MAX);
+            long empreinteFichier = contenu.getLong(POSITION_EMPREINTE);
+            if (!enTeteValide(contenu, revenuMaximal, canal.size())) {
+                throw new IllegalArgumentException("Table d'impôt brut invalide : " + fichier);
+            }
+            if (empreinteFichier != empreinte(bareme.getImpot())) {
+                throw new IllegalArgumentException(
+                        "Table d'impôt brut d'un autre barème : " + fichier);
+            }
+            IntBuffer valeurs = contenu.position(TAILLE_EN_TETE).slice().order(ORDRE)
+                    .asIntBuffer();
+            return new TableImpotBrut(revenuMaximal, empreinteFichier, valeurs);
+        }
+    }
+
+    static long empreinte(BaremeCompile tranches) {
+        long empreinte = tranches.nbSegments();
+        for (int k = 0; k < tranches.nbSegments(); k++) {
+            empreinte = empreinte * MULTIPLICATEUR_EMPREINTE
+                    + Double.doubleToLongBits(tranches.abscisse(k));
+            empreinte = empreinte * MULTIPLICATEUR_EMPREINTE
+                    + Double.doubleToLongBits(tranches.ordonnee(k));
+            empreinte = empreinte * MULTIPLICATEUR_EMPREINTE
+                    + Double.doubleToLongBits(tranches.pente(k));
+        }
+        return empreinte * MULTIPLICATEUR_EMPREINTE
+                + Double.doubleToLongBits(tranches.abscisseMax());
+    }
+
+    /**
+     * Indique si la table a été construite pour les tranches d'un barème.
+     *
+     * @param bareme le barème
+     * @return vrai si la table peut être utilisée avec ce barème
+     */
+    public boolean correspondA(Bareme bareme) {
+        return empreinte == empreinte(bareme.getImpot());
+    }
+
+    public int getRevenuMax() {
+        return revenuMax;
+    }
+
+    // Signature, version et dimensions de l'en-tête cohérentes avec la taille du fichier
+    private static boolean enTeteValide(ByteBuffer contenu, int revenuMaximal, long taille) {
+        if (contenu.getInt(0) != SIGNATURE || contenu.getInt(POSITION_VERSION) != VERSION) {
+            return false;
+        }
+        if (contenu.getInt(POSITION_NB_COLONNES) != NB_COLONNES || revenuMaximal < 0) {
+            return false;
+        }
+        return taille == TAILLE_EN_TETE + (long) NB_COLONNES * (revenuMaximal + 1L) * Integer.BYTES;
+    }
+
+    /**
+     * Retourne l'impôt brut précalculé.
+     *
+     * @param revenuImposable le revenu imposable du foyer
+     * @param nombreParts le nombre de parts du foyer
+     * @return l'impôt brut, ou {@link #ABSENT} si le revenu n'est pas un entier de la
+     *         table ou le nombre de parts pas un nombre de demi-parts de la table
+     */
+    public double impotBrut(double revenuImposable, double nombreParts) {
+        int revenu = (int) revenuImposable;
+        if (revenu != revenuImposable || revenu < 0 || revenu > revenuMax) {
+            return ABSENT;
+        }
+        double demiParts = nombreParts * 2;
+        int colonne = (int) demiParts - DEMI_PARTS_MIN;
+        if (colonne + DEMI_PARTS_MIN != demiParts || colonne < 0 || colonne >= NB_COLONNES) {
+            return ABSENT;
+        }
+        return valeurs.get(colonne * (revenuMax + 1) + revenu);
+    }
+}
@@ -0,0 +1,38 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Totaux pondérés d'un groupe de foyers d'une microsimulation : chaque montant est
+ * la somme exacte des montants des foyers multipliés par leur poids, arrondie au
+ * {@code double} le plus proche.
+ *
+ * @param nbFoyers nombre de foyers de l'échantillon
+ * @param nbFoyersImposables nombre de foyers de l'échantillon dont l'impôt net est positif
+ * @param poids somme des poids des foyers
+ * @param poidsImposables somme des poids des foyers imposables
+ * @param impotBrut total pondéré de l'impôt brut après plafonnement, en euros
+ * @param decote total pondéré de la décote, en euros
+ * @param contributionExceptionnelle total pondéré de la contribution exceptionnelle
+ * @param impotNet total pondéré de l'impôt net, en euros
+ */
+public record TotauxMicrosimulation(long nbFoyers, long nbFoyersImposables, double poids,
+                                    double poidsImposables, double impotBrut, double decote,
+                                    double contributionExceptionnelle, double impotNet) {
+
+    /**
+     * Retourne le nombre de foyers de l'échantillon qui ne paient pas d'impôt net.
+     *
+     * @return le nombre de foyers non imposables
+     */
+    public long nbFoyersNonImposables() {
+        return nbFoyers - nbFoyersImposables;
+    }
+
+    /**
+     * Retourne la somme des poids des foyers qui ne paient pas d'impôt net.
+     *
+     * @return le poids des foyers non imposables
+     */
+    public double poidsNonImposables() {
+        return poids - poidsImposables;
+    }
+}
@@ -0,0 +1,93 @@
+package com.kerware.simulateurreusine;
+
+import java.util.Arrays;
+
+/**
+ * Trace structurée d'un calcul d'impôt : la valeur de chaque {@link EtapeCalcul}.
+ * Une trace est réutilisable : chaque calcul tracé la réinitialise avant de la
+ * remplir, sans allocation. Elle n'est jamais partagée entre threads.
+ * Les moteurs ne tracent que si une trace leur est fournie ; sans trace, le
+ * calcul ne fait ni allocation ni construction de texte supplémentaire.
+ */
+public final class TraceCalcul {
+    private static final EtapeCalcul[] ETAPES = EtapeCalcul.values();
+
+    private final double[] valeurs = new double[ETAPES.length];
+    private final boolean[] renseignees = new boolean[ETAPES.length];
+
+    /**
+     * Efface toutes les valeurs de la trace.
+     */
+    public void reinitialiser() {
+        Arrays.fill(renseignees, false);
+    }
+
+    /**
+     * Enregistre la valeur d'une étape.
+     *
+     * @param etape l'étape du calcul
+     * @param valeur la valeur calculée à cette étape
+     */
+    public void enregistrer(EtapeCalcul etape, double valeur) {
+        valeurs[etape.ordinal()] = valeur;
+        renseignees[etape.ordinal()] = true;
+    }
+
+    /**
+     * Enregistre toutes les étapes d'un calcul terminé.
+     */
+    void enregistrer(EtatCalcul etat, PlafonneurImpot plafonneur) {
+        reinitialiser();
+        enregistrer(EtapeCalcul.ABATTEMENT, etat.getAbattement());
+        enregistrer(EtapeCalcul.REVENU_FISCAL_REFERENCE, etat.getRevenuFiscalReference());
+        enregistrer(EtapeCalcul.PARTS_DECLARANTS, etat.getPartsDeclarants());
+        enregistrer(EtapeCalcul.NOMBRE_PARTS, etat.getNombreParts());
+        enregistrer(EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE, etat.getContributionExceptionnelle());
+        enregistrer(EtapeCalcul.IMPOT_BRUT_DECLARANTS, etat.getImpotBrutDeclarants());
+        enregistrer(EtapeCalcul.IMPOT_BRUT_FOYER, etat.getImpotBrutFoyer());
+        enregistrer(EtapeCalcul.PLAFOND_BAISSE,
+                plafonneur.calculerPlafondBaisse(etat.getNombreParts(), etat.getPartsDeclarants()));
+        enregistrer(EtapeCalcul.IMPOT_AVANT_DECOTE, etat.getImpotAvantDecote());
+        enregistrer(EtapeCalcul.DECOTE, etat.getDecote());
+        enregistrer(EtapeCalcul.IMPOT_NET, etat.getImpotNet());
+    }
+
+    /**
+     * Indique si une étape a été enregistrée depuis la dernière réinitialisation.
+     *
+     * @param etape l'étape du calcul
+     * @return vrai si l'étape a une valeur
+     */
+    public boolean estRenseignee(EtapeCalcul etape) {
+        return renseignees[etape.ordinal()];
+    }
+
+    /**
+     * Retourne la valeur enregistrée pour une étape.
+     *
+     * @param etape l'étape du calcul
+     * @return la valeur de l'étape
+     * @throws IllegalStateException si l'étape n'a pas été enregistrée
+     */
+    public double getValeur(EtapeCalcul etape) {
+        if (!renseignees[etape.ordinal()]) {
+            throw new IllegalStateException("Étape non enregistrée : " + etape);
+        }
+        return valeurs[etape.ordinal()];
+    }
+
+    /**
+     * Décrit les étapes renseignées, une par ligne, dans l'ordre du calcul.
+     */
+    @Override
+    public String toString() {
+        StringBuilder texte = new StringBuilder();
+        for (EtapeCalcul etape : ETAPES) {
+            if (renseignees[etape.ordinal()]) {
+                texte.append(etape.getLibelle()).append(" : ")
+                        .append(valeurs[etape.ordinal()]).append(System.lineSeparator());
+            }
+        }
+        return texte.toString();
+    }
+}
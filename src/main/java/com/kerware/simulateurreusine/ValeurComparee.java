@@ -0,0 +1,47 @@
+package com.kerware.simulateurreusine;
+
+/**
+ * Valeurs exposées par les deux {@code ICalculateurImpot}, comparées par
+ * l'{@link ExecutionFantome}.
+ */
+public enum ValeurComparee {
+    REVENU_NET_DECLARANT_1,
+    REVENU_NET_DECLARANT_2,
+    NOMBRE_PARTS,
+    ABATTEMENT,
+    REVENU_FISCAL_REFERENCE,
+    IMPOT_AVANT_DECOTE,
+    DECOTE,
+    CONTRIBUTION_EXCEPTIONNELLE,
+    IMPOT_NET;
+
+    static final int NB_VALEURS = values().length;
+
+    static double[] lire(ICalculateurImpot calculateur) {
+        double[] valeurs = new double[NB_VALEURS];
+        valeurs[REVENU_NET_DECLARANT_1.ordinal()] = calculateur.getRevenuNetDeclatant1();
+        valeurs[REVENU_NET_DECLARANT_2.ordinal()] = calculateur.getRevenuNetDeclatant2();
+        valeurs[NOMBRE_PARTS.ordinal()] = calculateur.getNbPartsFoyerFiscal();
+        valeurs[ABATTEMENT.ordinal()] = calculateur.getAbattement();
+        valeurs[REVENU_FISCAL_REFERENCE.ordinal()] = calculateur.getRevenuFiscalReference();
+        valeurs[IMPOT_AVANT_DECOTE.ordinal()] = calculateur.getImpotAvantDecote();
+        valeurs[DECOTE.ordinal()] = calculateur.getDecote();
+        valeurs[CONTRIBUTION_EXCEPTIONNELLE.ordinal()] = calculateur.getContribExceptionnelle();
+        valeurs[IMPOT_NET.ordinal()] = calculateur.getImpotSurRevenuNet();
+        return valeurs;
+    }
+
+    static double[] lire(com.kerware.simulateur.ICalculateurImpot calculateur) {
+        double[] valeurs = new double[NB_VALEURS];
+        valeurs[REVENU_NET_DECLARANT_1.ordinal()] = calculateur.getRevenuNetDeclatant1();
+        valeurs[REVENU_NET_DECLARANT_2.ordinal()] = calculateur.getRevenuNetDeclatant2();
+        valeurs[NOMBRE_PARTS.ordinal()] = calculateur.getNbPartsFoyerFiscal();
+        valeurs[ABATTEMENT.ordinal()] = calculateur.getAbattement();
+        valeurs[REVENU_FISCAL_REFERENCE.ordinal()] = calculateur.getRevenuFiscalReference();
+        valeurs[IMPOT_AVANT_DECOTE.ordinal()] = calculateur.getImpotAvantDecote();
+        valeurs[DECOTE.ordinal()] = calculateur.getDecote();
+        valeurs[CONTRIBUTION_EXCEPTIONNELLE.ordinal()] = calculateur.getContribExceptionnelle();
+        valeurs[IMPOT_NET.ordinal()] = calculateur.getImpotSurRevenuNet();
+        return valeurs;
+    }
+}
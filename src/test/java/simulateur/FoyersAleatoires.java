@@ -0,0 +1,35 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.Simulateur;
+import com.kerware.simulateurreusine.SituationFamiliale;
+
+import java.util.Random;
+
+/**
+ * Foyers fiscaux aléatoires et cohérents, pour les tests qui comparent deux calculs
+ * sur un grand nombre de foyers. Les tirages ne dépendent que de la graine.
+ */
+final class FoyersAleatoires {
+    static final int REVENU_MAX = 300_000;
+    static final int REVENU_MAX_DECLARANT2 = 150_000;
+
+    private FoyersAleatoires() {
+    }
+
+    static DonneesFoyerFiscal foyer(Random aleatoire) {
+        return foyer(aleatoire, REVENU_MAX, REVENU_MAX_DECLARANT2);
+    }
+
+    // Le second déclarant n'a de revenu que dans un couple
+    static DonneesFoyerFiscal foyer(Random aleatoire, int revenuMax, int revenuMaxDeclarant2) {
+        SituationFamiliale situation =
+                SituationFamiliale.values()[aleatoire.nextInt(SituationFamiliale.values().length)];
+        boolean couple = situation.estCouple();
+        int nbEnfants = aleatoire.nextInt(Simulateur.NB_ENFANTS_MAX + 1);
+        return new DonneesFoyerFiscal(aleatoire.nextInt(revenuMax),
+                couple ? aleatoire.nextInt(revenuMaxDeclarant2) : 0, situation, nbEnfants,
+                aleatoire.nextInt(nbEnfants + 1), !couple && nbEnfants > 0
+                        && aleatoire.nextBoolean());
+    }
+}
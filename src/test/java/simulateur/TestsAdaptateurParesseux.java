@@ -0,0 +1,140 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.AdaptateurSimulateur;
+import com.kerware.simulateurreusine.AdaptateurSimulateurParesseux;
+import com.kerware.simulateurreusine.ContexteCalcul;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.EtapeCalcul;
+import com.kerware.simulateurreusine.GrapheCalcul;
+import com.kerware.simulateurreusine.ICalculateurImpot;
+import com.kerware.simulateurreusine.NoeudCalcul;
+import com.kerware.simulateurreusine.ReferentielBareme;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsAdaptateurParesseux {
+
+    // Étape standard qui note chacune de ses évaluations
+    private record EtapeComptee(EtapeCalcul etape, Set<EtapeCalcul> evaluees)
+            implements NoeudCalcul {
+        @Override
+        public String getNom() {
+            return etape.getNom();
+        }
+
+        @Override
+        public List<EtapeCalcul> getPrerequis() {
+            return etape.getPrerequis();
+        }
+
+        @Override
+        public double evaluer(ContexteCalcul contexte) {
+            evaluees.add(etape);
+            return etape.evaluer(contexte);
+        }
+    }
+
+    private static AdaptateurSimulateurParesseux adaptateurCompte(Set<EtapeCalcul> evaluees) {
+        GrapheCalcul graphe = GrapheCalcul.standard();
+        for (EtapeCalcul etape : EtapeCalcul.values()) {
+            graphe = graphe.remplacer(etape, new EtapeComptee(etape, evaluees));
+        }
+        return new AdaptateurSimulateurParesseux(ReferentielBareme.global(), graphe);
+    }
+
+    private static void saisir(ICalculateurImpot calculateur, int revenu1, int revenu2,
+                               SituationFamiliale situation, int nbEnfants,
+                               int nbEnfantsHandicap, boolean parentIsole) {
+        calculateur.setRevenusNetDeclarant1(revenu1);
+        calculateur.setRevenusNetDeclarant2(revenu2);
+        calculateur.setSituationFamiliale(situation);
+        calculateur.setNbEnfantsACharge(nbEnfants);
+        calculateur.setNbEnfantsSituationHandicap(nbEnfantsHandicap);
+        calculateur.setParentIsole(parentIsole);
+    }
+
+    @DisplayName("L'adaptateur paresseux donne les valeurs de l'adaptateur standard")
+    @Test
+    public void testAccordAdaptateurStandard() {
+        ICalculateurImpot reference = new AdaptateurSimulateur();
+        ICalculateurImpot paresseux = new AdaptateurSimulateurParesseux();
+        Random aleatoire = new Random(23);
+        for (int i = 0; i < 10_000; i++) {
+            DonneesFoyerFiscal foyer = FoyersAleatoires.foyer(aleatoire);
+            for (ICalculateurImpot calculateur : List.of(reference, paresseux)) {
+                saisir(calculateur, foyer.revenuNetDeclarant1(), foyer.revenuNetDeclarant2(),
+                        foyer.situationFamiliale(), foyer.nbEnfantsACharge(),
+                        foyer.nbEnfantsSituationHandicap(), foyer.parentIsole());
+                calculateur.calculImpotSurRevenuNet();
+            }
+
+            assertEquals(reference.getImpotSurRevenuNet(), paresseux.getImpotSurRevenuNet());
+            assertEquals(reference.getNbPartsFoyerFiscal(), paresseux.getNbPartsFoyerFiscal());
+            assertEquals(reference.getRevenuFiscalReference(),
+                    paresseux.getRevenuFiscalReference());
+            assertEquals(reference.getAbattement(), paresseux.getAbattement());
+            assertEquals(reference.getImpotAvantDecote(), paresseux.getImpotAvantDecote());
+            assertEquals(reference.getDecote(), paresseux.getDecote());
+            assertEquals(reference.getContribExceptionnelle(),
+                    paresseux.getContribExceptionnelle());
+        }
+    }
+
+    @DisplayName("Chaque accesseur ne calcule que les étapes dont il dépend")
+    @Test
+    public void testCalculALaDemande() {
+        Set<EtapeCalcul> evaluees = EnumSet.noneOf(EtapeCalcul.class);
+        AdaptateurSimulateurParesseux adaptateur = adaptateurCompte(evaluees);
+        saisir(adaptateur, 45_000, 30_000, SituationFamiliale.MARIE, 2, 0, false);
+        adaptateur.calculImpotSurRevenuNet();
+        assertEquals(Set.of(), evaluees);
+
+        assertEquals(3, adaptateur.getNbPartsFoyerFiscal());
+        assertEquals(EnumSet.of(EtapeCalcul.NOMBRE_PARTS), evaluees);
+
+        evaluees.clear();
+        adaptateur.getRevenuFiscalReference();
+        assertEquals(EnumSet.of(EtapeCalcul.ABATTEMENT, EtapeCalcul.REVENU_FISCAL_REFERENCE),
+                evaluees);
+
+        // Le nombre de parts et le revenu imposable sont déjà calculés
+        evaluees.clear();
+        adaptateur.getImpotSurRevenuNet();
+        assertEquals(EnumSet.complementOf(EnumSet.of(EtapeCalcul.NOMBRE_PARTS,
+                EtapeCalcul.ABATTEMENT, EtapeCalcul.REVENU_FISCAL_REFERENCE)), evaluees);
+    }
+
+    @DisplayName("Seul un changement de saisie invalide les étapes déjà calculées")
+    @Test
+    public void testInvalidation() {
+        Set<EtapeCalcul> evaluees = EnumSet.noneOf(EtapeCalcul.class);
+        AdaptateurSimulateurParesseux adaptateur = adaptateurCompte(evaluees);
+        saisir(adaptateur, 45_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        adaptateur.calculImpotSurRevenuNet();
+        int impot = adaptateur.getImpotSurRevenuNet();
+
+        // Les mêmes saisies ne recalculent rien
+        evaluees.clear();
+        saisir(adaptateur, 45_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        assertEquals(impot, adaptateur.getImpotSurRevenuNet());
+        assertEquals(Set.of(), evaluees);
+
+        // Un accesseur lu après un changement calcule le nouveau foyer, même sans appel
+        // à calculImpotSurRevenuNet
+        adaptateur.setNbEnfantsACharge(2);
+        assertEquals(2, adaptateur.getNbPartsFoyerFiscal());
+        assertEquals(EnumSet.of(EtapeCalcul.NOMBRE_PARTS), evaluees);
+        adaptateur.setRevenusNetDeclarant2(10_000);
+        assertThrows(IllegalArgumentException.class, adaptateur::calculImpotSurRevenuNet);
+        assertThrows(IllegalArgumentException.class, adaptateur::getImpotSurRevenuNet);
+    }
+}
@@ -0,0 +1,196 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.AdaptateurSimulateur;
+import com.kerware.simulateurreusine.AdaptateurSimulateurParesseux;
+import com.kerware.simulateurreusine.EtatCalcul;
+import com.kerware.simulateurreusine.ICalculateurImpot;
+import com.kerware.simulateurreusine.LotFoyers;
+import com.kerware.simulateurreusine.LotResultats;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.MoteurCalculImpotCache;
+import com.kerware.simulateurreusine.Simulateur;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class TestsAllocationCalcul {
+
+    private static final int NB_CHAUFFE = 50_000;
+    private static final int NB_MESURES = 20_000;
+    private static final int NB_FENETRES = 5;
+    private static final SituationFamiliale[] SITUATIONS = {
+        SituationFamiliale.CELIBATAIRE, SituationFamiliale.MARIE, SituationFamiliale.PACSE,
+        SituationFamiliale.DIVORCE, SituationFamiliale.VEUF};
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeAll
+    public static void activerMesure() {
+        assumeTrue(ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    // Nombre total d'octets alloués par NB_MESURES appels, après la chauffe : une
+    // allocation même rare, un objet tous les quelques appels, n'est pas masquée. La
+    // compilation en cours alloue parfois quelques octets sur le thread ; la plus
+    // petite mesure sur quelques fenêtres l'écarte sans tolérer une allocation régulière
+    private static long octetsAlloues(Runnable calcul) {
+        for (int i = 0; i < NB_CHAUFFE; i++) {
+            calcul.run();
+        }
+        long minimum = Long.MAX_VALUE;
+        for (int fenetre = 0; fenetre < NB_FENETRES; fenetre++) {
+            long avant = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < NB_MESURES; i++) {
+                calcul.run();
+            }
+            minimum = Math.min(minimum, threads.getCurrentThreadAllocatedBytes() - avant);
+        }
+        return minimum;
+    }
+
+    // Foyer valide qui varie d'un appel à l'autre : les revenus et la composition changent
+    private static final class Foyers {
+        private int numero;
+
+        int revenu1() {
+            return 10_000 + (numero * 7_919) % 200_000;
+        }
+
+        int revenu2() {
+            return situation().estCouple() ? (numero * 3_571) % 90_000 : 0;
+        }
+
+        SituationFamiliale situation() {
+            return SITUATIONS[numero % SITUATIONS.length];
+        }
+
+        int nbEnfants() {
+            return numero % 4;
+        }
+
+        int nbEnfantsHandicap() {
+            return numero % 8 == 3 ? 1 : 0;
+        }
+
+        boolean parentIsole() {
+            return !situation().estCouple() && nbEnfants() > 0 && numero % 2 == 0;
+        }
+
+        // Le numéro reste borné pour que les produits ci-dessus ne débordent pas
+        void suivant() {
+            numero = (numero + 1) % 100_000;
+        }
+    }
+
+    @DisplayName("Le simulateur reusine n'alloue aucun objet par calcul")
+    @Test
+    public void testSimulateurSansAllocation() {
+        Simulateur simulateur = new Simulateur();
+        Foyers foyers = new Foyers();
+        long[] total = new long[1];
+
+        assertEquals(0, octetsAlloues(() -> {
+            total[0] += simulateur.calculImpot(foyers.revenu1(), foyers.revenu2(),
+                    foyers.situation(), foyers.nbEnfants(), foyers.nbEnfantsHandicap(),
+                    foyers.parentIsole());
+            foyers.suivant();
+        }));
+        assertTrue(total[0] > 0);
+    }
+
+    @DisplayName("Les adaptateurs et le moteur avec zone de travail n'allouent aucun objet")
+    @Test
+    public void testAdaptateurEtMoteurSansAllocation() {
+        Foyers foyers = new Foyers();
+        long[] total = new long[1];
+        for (ICalculateurImpot adaptateur : new ICalculateurImpot[] {
+            new AdaptateurSimulateur(), new AdaptateurSimulateurParesseux()}) {
+            assertEquals(0, octetsAlloues(() -> {
+                adaptateur.setRevenusNetDeclarant1(foyers.revenu1());
+                adaptateur.setRevenusNetDeclarant2(foyers.revenu2());
+                adaptateur.setSituationFamiliale(foyers.situation());
+                adaptateur.setNbEnfantsACharge(foyers.nbEnfants());
+                adaptateur.setNbEnfantsSituationHandicap(foyers.nbEnfantsHandicap());
+                adaptateur.setParentIsole(foyers.parentIsole());
+                adaptateur.calculImpotSurRevenuNet();
+                total[0] += adaptateur.getImpotSurRevenuNet();
+                foyers.suivant();
+            }), adaptateur.getClass().getSimpleName());
+        }
+
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+        EtatCalcul etat = new EtatCalcul();
+        assertEquals(0, octetsAlloues(() -> {
+            moteur.calculer(foyers.revenu1(), foyers.revenu2(), foyers.situation(),
+                    foyers.nbEnfants(), foyers.nbEnfantsHandicap(), foyers.parentIsole(), etat);
+            total[0] += (long) etat.getImpotNet();
+            foyers.suivant();
+        }));
+        assertTrue(total[0] > 0);
+        // La zone de travail donne le même résultat que le calcul qui alloue
+        assertEquals(moteur.calculer(foyers.revenu1(), foyers.revenu2(), foyers.situation(),
+                        foyers.nbEnfants(), foyers.nbEnfantsHandicap(), foyers.parentIsole()),
+                calculerDans(moteur, foyers, etat).versResultat());
+    }
+
+    @DisplayName("Un succès du cache derrière l'adaptateur n'alloue aucun objet")
+    @Test
+    public void testAdaptateurSurCacheSansAllocation() {
+        MoteurCalculImpotCache cache = new MoteurCalculImpotCache(1024);
+        AdaptateurSimulateur adaptateur = new AdaptateurSimulateur(cache);
+        adaptateur.setRevenusNetDeclarant1(65_000);
+        adaptateur.setRevenusNetDeclarant2(35_000);
+        adaptateur.setSituationFamiliale(SituationFamiliale.MARIE);
+        adaptateur.setNbEnfantsACharge(2);
+        adaptateur.setNbEnfantsSituationHandicap(0);
+        adaptateur.setParentIsole(false);
+        long[] total = new long[1];
+
+        assertEquals(0, octetsAlloues(() -> {
+            adaptateur.calculImpotSurRevenuNet();
+            total[0] += adaptateur.getImpotSurRevenuNet();
+        }));
+        assertEquals(1, cache.getNbEchecs());
+        assertTrue(total[0] > 0);
+    }
+
+    private static EtatCalcul calculerDans(MoteurCalculImpot moteur, Foyers foyers,
+                                           EtatCalcul etat) {
+        moteur.calculer(foyers.revenu1(), foyers.revenu2(), foyers.situation(),
+                foyers.nbEnfants(), foyers.nbEnfantsHandicap(), foyers.parentIsole(), etat);
+        return etat;
+    }
+
+    @DisplayName("Le calcul par lot n'alloue aucun objet par foyer")
+    @Test
+    public void testLotSansAllocation() {
+        int taille = 256;
+        LotFoyers lot = LotFoyers.allouer(taille);
+        Foyers foyers = new Foyers();
+        for (int i = 0; i < taille; i++, foyers.suivant()) {
+            lot.revenusDeclarant1()[i] = foyers.revenu1();
+            lot.revenusDeclarant2()[i] = foyers.revenu2();
+            lot.situations()[i] = (byte) foyers.situation().ordinal();
+            lot.nbEnfants()[i] = (byte) foyers.nbEnfants();
+            lot.nbEnfantsHandicap()[i] = (byte) foyers.nbEnfantsHandicap();
+            lot.parentsIsoles()[i] = foyers.parentIsole();
+        }
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+        LotResultats resultats = LotResultats.allouer(taille);
+
+        // Une zone de travail par lot : moins d'un octet par foyer
+        assertTrue(octetsAlloues(() -> moteur.calculerLot(lot, resultats))
+                < (long) taille * NB_MESURES);
+    }
+}
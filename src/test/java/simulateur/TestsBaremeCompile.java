@@ -0,0 +1,86 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.BaremeCompile;
+import com.kerware.simulateurreusine.CalculateurContributionExceptionnelle;
+import com.kerware.simulateurreusine.CalculateurDecote;
+import com.kerware.simulateurreusine.CalculateurImpot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestsBaremeCompile {
+
+    private static final int[] BORNES = {0, 11294, 28797, 82341, 177106, Integer.MAX_VALUE};
+    private static final double[] TAUX = {0.0, 0.11, 0.30, 0.41, 0.45};
+    private static final int[] BORNES_CEHR = {0, 250000, 500000, 1000000, Integer.MAX_VALUE};
+    private static final double[] TAUX_CEHR_SEUL = {0.0, 0.03, 0.04, 0.04};
+    private static final int[] BORNES_CEHR_COUPLE = {0, 500000, 1000000, Integer.MAX_VALUE};
+    private static final double[] TAUX_CEHR_COUPLE = {0.0, 0.03, 0.04};
+
+    // Parcours des tranches, tel qu'implémenté avant la compilation des barèmes
+    private static double parcourirTranches(double revenu, int[] bornes, double[] taux) {
+        double impot = 0;
+        for (int i = 0; i < taux.length; i++) {
+            if (revenu > bornes[i]) {
+                impot += (Math.min(revenu, bornes[i + 1]) - bornes[i]) * taux[i];
+            }
+        }
+        return impot;
+    }
+
+    private static double decoteParSeuil(double impotBrut, boolean estCouple) {
+        double seuil = estCouple ? 3191 : 1929;
+        double maximum = estCouple ? 1444 : 873;
+        if (impotBrut < seuil) {
+            return Math.min(Math.round(maximum - (impotBrut * 0.4525)), impotBrut);
+        }
+        return 0;
+    }
+
+    @DisplayName("Le barème compilé est identique au parcours des tranches, au bit près")
+    @Test
+    public void testBaremeCompileIdentiqueAuParcoursDesTranches() {
+        BaremeCompile bareme = BaremeCompile.depuisTranches(
+                new int[] {0, 11294, 28797, 82341, 177106}, TAUX, Integer.MAX_VALUE);
+        Random aleatoire = new Random(6);
+        for (int i = 0; i < 200_000; i++) {
+            double revenu = aleatoire.nextDouble() * 400_000;
+            assertEquals(parcourirTranches(revenu, BORNES, TAUX), bareme.evaluer(revenu));
+        }
+        for (int borne : BORNES) {
+            for (double revenu : new double[] {borne - 0.5, borne, borne + 0.5}) {
+                assertEquals(parcourirTranches(revenu, BORNES, TAUX), bareme.evaluer(revenu));
+            }
+        }
+    }
+
+    @DisplayName("Les calculateurs compilés sont identiques aux calculs par tranches")
+    @Test
+    public void testCalculateursIdentiquesAuxCalculsParTranches() {
+        CalculateurImpot calculateurImpot = new CalculateurImpot();
+        CalculateurContributionExceptionnelle calculateurContribution =
+                new CalculateurContributionExceptionnelle();
+        CalculateurDecote calculateurDecote = new CalculateurDecote();
+        Random aleatoire = new Random(2024);
+        for (int i = 0; i < 200_000; i++) {
+            double revenu = aleatoire.nextInt(3_000_000) + aleatoire.nextInt(10) / 10.0;
+            double parts = 1 + aleatoire.nextInt(12) * 0.5;
+            assertEquals(Math.round(parcourirTranches(revenu / parts, BORNES, TAUX) * parts),
+                    calculateurImpot.calculerImpotBrut(revenu, parts));
+            assertEquals(Math.round(parcourirTranches(revenu, BORNES_CEHR, TAUX_CEHR_SEUL)),
+                    calculateurContribution.calculerContribution(revenu, false));
+            assertEquals(Math.round(parcourirTranches(revenu, BORNES_CEHR_COUPLE,
+                            TAUX_CEHR_COUPLE)),
+                    calculateurContribution.calculerContribution(revenu, true));
+
+            double impotBrut = aleatoire.nextInt(4000) + aleatoire.nextInt(2) / 2.0;
+            assertEquals(decoteParSeuil(impotBrut, false),
+                    calculateurDecote.calculerDecote(impotBrut, false));
+            assertEquals(decoteParSeuil(impotBrut, true),
+                    calculateurDecote.calculerDecote(impotBrut, true));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.ComparaisonDeclarations;
+import com.kerware.simulateurreusine.ComparateurDeclarations;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.OptionDeclaration;
+import com.kerware.simulateurreusine.ResultatCalculImpot;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsComparateurDeclarations {
+
+    private final ComparateurDeclarations comparateur = new ComparateurDeclarations();
+    private final MoteurCalculImpot moteur = new MoteurCalculImpot();
+
+    @DisplayName("Chaque option est identique à des calculs indépendants")
+    @Test
+    public void testOptionsIdentiquesAuMoteur() {
+        Random aleatoire = new Random(13);
+        for (int i = 0; i < 2000; i++) {
+            int revenu1 = aleatoire.nextInt(150_000);
+            int revenu2 = aleatoire.nextInt(150_000);
+            int nbEnfants = aleatoire.nextInt(5);
+            int nbHandicap = nbEnfants == 0 ? 0 : aleatoire.nextInt(nbEnfants + 1);
+            ComparaisonDeclarations comparaison =
+                    comparateur.comparer(revenu1, revenu2, nbEnfants, nbHandicap);
+
+            OptionDeclaration commune = comparaison.options().get(0);
+            assertTrue(commune.impositionCommune());
+            assertEquals(moteur.calculer(revenu1, revenu2, SituationFamiliale.MARIE, nbEnfants,
+                    nbHandicap, false), commune.declarations().get(0));
+            double minimum = commune.impotNet();
+            for (OptionDeclaration option : comparaison.options().subList(1,
+                    comparaison.options().size())) {
+                ResultatCalculImpot attendu1 = moteur.calculer(revenu1, 0,
+                        SituationFamiliale.CELIBATAIRE, option.nbEnfantsDeclarant1(),
+                        option.nbEnfantsHandicapDeclarant1(), false);
+                ResultatCalculImpot attendu2 = moteur.calculer(revenu2, 0,
+                        SituationFamiliale.CELIBATAIRE, nbEnfants - option.nbEnfantsDeclarant1(),
+                        nbHandicap - option.nbEnfantsHandicapDeclarant1(), false);
+                assertEquals(attendu1, option.declarations().get(0));
+                assertEquals(attendu2, option.declarations().get(1));
+                assertEquals(attendu1.impotNet() + attendu2.impotNet(), option.impotNet());
+                minimum = Math.min(minimum, option.impotNet());
+            }
+            assertEquals(minimum, comparaison.meilleure().impotNet());
+        }
+    }
+
+    @DisplayName("Toutes les répartitions des enfants sont évaluées")
+    @Test
+    public void testRepartitionsEnfants() {
+        // Deux enfants dont un handicapé : 4 répartitions et l'imposition commune
+        assertEquals(5, comparateur.comparer(40000, 30000, 2, 1).options().size());
+        assertEquals(2, comparateur.comparer(40000, 30000, 0, 0).options().size());
+        assertThrows(IllegalArgumentException.class, () -> comparateur.comparer(40000, 30000, 1, 2));
+    }
+
+    @DisplayName("Deux décotes séparées peuvent coûter moins qu'une imposition commune")
+    @Test
+    public void testDeclarationsSepareesMoinsImposees() {
+        ComparaisonDeclarations comparaison = comparateur.comparer(25000, 25000, 0, 0);
+
+        assertFalse(comparaison.meilleure().impositionCommune());
+        assertEquals(1836, comparaison.meilleure().impotNet());
+        assertEquals(2136, comparaison.options().get(0).impotNet());
+        assertTrue(comparateur.comparer(80000, 0, 0, 0).meilleure().impositionCommune());
+    }
+}
@@ -0,0 +1,74 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.CourbeImpot;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.GenerateurCourbeImpot;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsCourbeImpot {
+
+    private final GenerateurCourbeImpot generateur = new GenerateurCourbeImpot();
+
+    @DisplayName("La courbe donne à chaque point l'impôt net du moteur de calcul")
+    @Test
+    public void testCourbeIdentiqueAuMoteur() {
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+        List<DonneesFoyerFiscal> profils = List.of(
+                new DonneesFoyerFiscal(0, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false),
+                new DonneesFoyerFiscal(0, 35000, SituationFamiliale.MARIE, 3, 1, false),
+                new DonneesFoyerFiscal(1000, 0, SituationFamiliale.DIVORCE, 2, 0, true),
+                new DonneesFoyerFiscal(0, 3000, SituationFamiliale.PACSE, 1, 0, false));
+
+        for (DonneesFoyerFiscal profil : profils) {
+            CourbeImpot courbe = generateur.generer(profil, 1_200_000, 137);
+            for (int i = 0; i < courbe.taille(); i++) {
+                DonneesFoyerFiscal foyer = new DonneesFoyerFiscal(courbe.revenus()[i],
+                        profil.revenuNetDeclarant2(), profil.situationFamiliale(),
+                        profil.nbEnfantsACharge(), profil.nbEnfantsSituationHandicap(),
+                        profil.parentIsole());
+                assertEquals(moteur.calculer(foyer).impotNet(), courbe.impotsNets()[i],
+                        foyer.toString());
+            }
+        }
+    }
+
+    @DisplayName("Le taux marginal suit la tranche, l'abattement et la décote")
+    @Test
+    public void testTauxMarginaux() {
+        DonneesFoyerFiscal profil =
+                new DonneesFoyerFiscal(30000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        CourbeImpot courbe = generateur.generer(profil, 200000, 20000);
+
+        assertEquals(9, courbe.taille());
+        // Décote : la pente de l'impôt brut est augmentée de 45,25 %
+        assertEquals(0.9 * 0.11 * 1.4525, courbe.tauxMarginaux()[0], 1e-12);
+        assertEquals(0.9 * 0.30, courbe.tauxMarginaux()[1], 1e-12);
+        // Abattement plafonné : chaque euro est imposable
+        assertEquals(0.41, courbe.tauxMarginaux()[6], 1e-12);
+        assertEquals(courbe.impotsNets()[1] / 50000, courbe.tauxEffectifs()[1], 1e-12);
+    }
+
+    @DisplayName("Une plage de revenus vide, un pas nul ou une courbe trop longue est refusé")
+    @Test
+    public void testPlageInvalide() {
+        DonneesFoyerFiscal profil =
+                new DonneesFoyerFiscal(30000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+
+        assertThrows(IllegalArgumentException.class, () -> generateur.generer(profil, 20000, 10));
+        assertThrows(IllegalArgumentException.class, () -> generateur.generer(profil, 40000, 0));
+        assertEquals(1, generateur.generer(profil, 30000, 10).taille());
+        // 2^31 points : le nombre de points ne tient pas dans un int
+        DonneesFoyerFiscal sansRevenu =
+                new DonneesFoyerFiscal(0, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        assertThrows(IllegalArgumentException.class,
+                () -> generateur.generer(sansRevenu, Integer.MAX_VALUE, 1));
+    }
+}
@@ -0,0 +1,120 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.AdaptateurSimulateur;
+import com.kerware.simulateurreusine.CalculateurFantome;
+import com.kerware.simulateurreusine.EcartFantome;
+import com.kerware.simulateurreusine.ExecutionFantome;
+import com.kerware.simulateurreusine.ICalculateurImpot;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import com.kerware.simulateurreusine.ValeurComparee;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsExecutionFantome {
+
+    // Calculateur principal qui se trompe d'un euro sur l'impôt net
+    private static final class CalculateurFaux extends AdaptateurSimulateur {
+        @Override
+        public int getImpotSurRevenuNet() {
+            return super.getImpotSurRevenuNet() + 1;
+        }
+    }
+
+    private static void calculer(ICalculateurImpot calculateur, int revenu1, int revenu2,
+                                 SituationFamiliale situation, int nbEnfants) {
+        calculateur.setRevenusNetDeclarant1(revenu1);
+        calculateur.setRevenusNetDeclarant2(revenu2);
+        calculateur.setSituationFamiliale(situation);
+        calculateur.setNbEnfantsACharge(nbEnfants);
+        calculateur.setNbEnfantsSituationHandicap(0);
+        calculateur.setParentIsole(false);
+        calculateur.calculImpotSurRevenuNet();
+    }
+
+    @DisplayName("Les deux simulateurs s'accordent sur un échantillon de foyers aléatoires")
+    @Test
+    public void testAccordSimulateurs() {
+        ExecutionFantome execution = new ExecutionFantome("accord");
+        execution.setPeriodeEchantillonnage(4);
+        CalculateurFantome calculateur = new CalculateurFantome(execution);
+        AdaptateurSimulateur reference = new AdaptateurSimulateur();
+        Random aleatoire = new Random(17);
+        try (execution) {
+            for (int i = 0; i < 2000; i++) {
+                boolean couple = aleatoire.nextBoolean();
+                // Hors des désaccords connus : l'abattement legacy est arrondi à l'euro,
+                // et il s'applique même à un second revenu d'au plus 4950
+                int revenu1 = aleatoire.nextInt(40_000) * 10;
+                int revenu2 = couple ? 5_000 + aleatoire.nextInt(20_000) * 10 : 0;
+                SituationFamiliale situation =
+                        couple ? SituationFamiliale.MARIE : SituationFamiliale.VEUF;
+                int nbEnfants = aleatoire.nextInt(5);
+                calculer(calculateur, revenu1, revenu2, situation, nbEnfants);
+                calculer(reference, revenu1, revenu2, situation, nbEnfants);
+                // Le calculateur fantôme rend les résultats du principal
+                assertEquals(reference.getImpotSurRevenuNet(),
+                        calculateur.getImpotSurRevenuNet());
+            }
+        }
+        assertEquals(500, execution.getNbSoumissions());
+        assertEquals(500, execution.getNbComparaisons() + execution.getNbAbandons());
+        assertEquals(0, execution.getNbEcarts());
+        assertEquals(0, execution.getNbErreursFantome());
+    }
+
+    @DisplayName("Un désaccord est compté par valeur et gardé en exemple")
+    @Test
+    public void testEcartsEtExemples() {
+        ExecutionFantome execution = new ExecutionFantome("ecarts", 1, 100, 3);
+        execution.setPeriodeEchantillonnage(1);
+        CalculateurFantome calculateur = new CalculateurFantome(new CalculateurFaux(), execution);
+        try (execution) {
+            for (int i = 0; i < 10; i++) {
+                calculer(calculateur, 30_000 + 10 * i, 0, SituationFamiliale.CELIBATAIRE, 0);
+            }
+        }
+        assertEquals(10, execution.getNbComparaisons());
+        assertEquals(10, execution.getNbEcarts());
+        assertEquals(10, execution.getNbEcarts(ValeurComparee.IMPOT_NET));
+        assertEquals(0, execution.getNbEcarts(ValeurComparee.DECOTE));
+
+        // Seuls les trois derniers désaccords sont conservés, dans l'ordre
+        List<EcartFantome> exemples = execution.getExemples();
+        assertEquals(3, exemples.size());
+        for (int i = 0; i < 3; i++) {
+            EcartFantome ecart = exemples.get(i);
+            assertEquals(30_070 + 10 * i, ecart.foyer().revenuNetDeclarant1());
+            assertEquals(EnumSet.of(ValeurComparee.IMPOT_NET), ecart.ecarts());
+            assertEquals(ecart.fantome(ValeurComparee.IMPOT_NET) + 1,
+                    ecart.principale(ValeurComparee.IMPOT_NET));
+        }
+    }
+
+    @DisplayName("Une file pleine abandonne des comparaisons sans bloquer le calcul principal")
+    @Test
+    public void testFileBornee() {
+        ExecutionFantome execution = new ExecutionFantome("file", 1, 1, 1);
+        execution.setPeriodeEchantillonnage(1);
+        CalculateurFantome calculateur = new CalculateurFantome(execution);
+        try (execution) {
+            for (int i = 0; i < 5000; i++) {
+                calculer(calculateur, 20_000 + 10 * i, 20_000, SituationFamiliale.PACSE, 1);
+            }
+            // Un calcul principal qui échoue n'est pas soumis
+            assertThrows(IllegalArgumentException.class, () ->
+                    calculer(calculateur, -1, 0, SituationFamiliale.PACSE, 0));
+        }
+        assertEquals(5000, execution.getNbSoumissions());
+        assertEquals(5000, execution.getNbComparaisons() + execution.getNbAbandons());
+        assertTrue(execution.getNbComparaisons() > 0);
+        assertEquals(0, execution.getNbEcarts());
+    }
+}
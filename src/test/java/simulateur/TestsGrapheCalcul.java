@@ -0,0 +1,157 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.ContexteCalcul;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.EtapeCalcul;
+import com.kerware.simulateurreusine.GrapheCalcul;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.NoeudCalcul;
+import com.kerware.simulateurreusine.ReferentielBareme;
+import com.kerware.simulateurreusine.ResultatCalculImpot;
+import com.kerware.simulateurreusine.Simulateur;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsGrapheCalcul {
+
+    // Nœud défini par ses prérequis et une fonction du contexte
+    private record Noeud(String getNom, List<NoeudCalcul> getPrerequis,
+                         ToDoubleFunction<ContexteCalcul> calcul) implements NoeudCalcul {
+        @Override
+        public double evaluer(ContexteCalcul contexte) {
+            return calcul.applyAsDouble(contexte);
+        }
+    }
+
+    @DisplayName("Le graphe standard et le simulateur donnent le résultat du moteur")
+    @Test
+    public void testGrapheStandard() {
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+        ContexteCalcul contexte =
+                GrapheCalcul.standard().nouveauContexte(ReferentielBareme.global());
+        Simulateur simulateur = new Simulateur();
+        Random aleatoire = new Random(22);
+        for (int i = 0; i < 10_000; i++) {
+            DonneesFoyerFiscal foyer = FoyersAleatoires.foyer(aleatoire);
+            ResultatCalculImpot attendu = moteur.calculer(foyer);
+            contexte.calculer(foyer);
+            int impot = simulateur.calculImpot(foyer.revenuNetDeclarant1(),
+                    foyer.revenuNetDeclarant2(), foyer.situationFamiliale(),
+                    foyer.nbEnfantsACharge(), foyer.nbEnfantsSituationHandicap(),
+                    foyer.parentIsole());
+
+            assertEquals(attendu.impotNet(), contexte.valeur(EtapeCalcul.IMPOT_NET));
+            assertEquals(attendu.decote(), contexte.valeur(EtapeCalcul.DECOTE));
+            assertEquals(Math.round(attendu.impotNet()), impot);
+            assertEquals(attendu.nombreParts(), simulateur.getNbParts());
+            assertEquals(attendu.impotAvantDecote(), simulateur.getImpotAvantDecote());
+            assertEquals(attendu.contributionExceptionnelle(),
+                    simulateur.getContribExceptionnelle());
+        }
+    }
+
+    @DisplayName("Après un tour complet du numéro de calcul, les valeurs anciennes sont oubliées")
+    @Test
+    public void testNumeroCalculRebouclant() throws ReflectiveOperationException {
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+        ContexteCalcul contexte =
+                GrapheCalcul.standard().nouveauContexte(ReferentielBareme.global());
+        DonneesFoyerFiscal ancien =
+                new DonneesFoyerFiscal(65_000, 35_000, SituationFamiliale.MARIE, 2, 0, false);
+        DonneesFoyerFiscal courant =
+                new DonneesFoyerFiscal(30_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        contexte.calculer(ancien);
+        // Le calcul suivant ferait reboucler le numéro jusqu'à celui du foyer ancien
+        Field calcul = ContexteCalcul.class.getDeclaredField("calcul");
+        calcul.setAccessible(true);
+        calcul.setInt(contexte, -1);
+
+        contexte.preparer(courant);
+        assertEquals(moteur.calculer(courant).impotNet(),
+                contexte.exiger(EtapeCalcul.IMPOT_NET));
+        assertEquals(1, calcul.getInt(contexte));
+    }
+
+    @DisplayName("Chaque nœud est évalué une seule fois par foyer")
+    @Test
+    public void testEvaluationUnique() {
+        Map<EtapeCalcul, int[]> evaluations = new EnumMap<>(EtapeCalcul.class);
+        GrapheCalcul graphe = GrapheCalcul.standard();
+        for (EtapeCalcul etape : EtapeCalcul.values()) {
+            int[] compteur = new int[1];
+            evaluations.put(etape, compteur);
+            graphe = graphe.remplacer(etape, new Noeud(etape.getNom(),
+                    List.copyOf(etape.getPrerequis()), contexte -> {
+                        compteur[0]++;
+                        return etape.evaluer(contexte);
+                    }));
+        }
+        Simulateur simulateur = new Simulateur(ReferentielBareme.global(), null, graphe);
+
+        assertEquals(1_256, simulateur.calculImpot(65_000, 0, SituationFamiliale.VEUF, 3, 0,
+                false));
+        evaluations.forEach((etape, compteur) -> assertEquals(1, compteur[0], etape.name()));
+        simulateur.getContribExceptionnelle();
+        simulateur.getImpotNet();
+        evaluations.forEach((etape, compteur) -> assertEquals(1, compteur[0], etape.name()));
+    }
+
+    @DisplayName("Un nœud ajouté ou une étape remplacée se branche dans le calcul")
+    @Test
+    public void testNoeudsPersonnalises() {
+        NoeudCalcul tauxMoyen = new Noeud("TAUX_MOYEN",
+                List.of(EtapeCalcul.IMPOT_NET, EtapeCalcul.REVENU_FISCAL_REFERENCE),
+                contexte -> contexte.valeur(EtapeCalcul.IMPOT_NET)
+                        / contexte.valeur(EtapeCalcul.REVENU_FISCAL_REFERENCE));
+        // Sans décote : l'impôt net suit l'impôt avant décote
+        NoeudCalcul sansDecote = new Noeud("SANS_DECOTE", List.of(), contexte -> 0);
+        GrapheCalcul graphe = GrapheCalcul.standard()
+                .remplacer(EtapeCalcul.DECOTE, sansDecote)
+                .ajouter(tauxMoyen);
+        Simulateur simulateur = new Simulateur(ReferentielBareme.global(), null, graphe);
+        Simulateur standard = new Simulateur();
+
+        standard.calculImpot(20_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        int impot = simulateur.calculImpot(20_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0,
+                false);
+        assertEquals(0, simulateur.getDecote());
+        assertEquals(standard.getImpotAvantDecote(), impot);
+        assertEquals(impot / simulateur.getRevenuReference(),
+                simulateur.getValeur(tauxMoyen), 1e-12);
+        assertThrows(IllegalArgumentException.class, () -> standard.getValeur(tauxMoyen));
+    }
+
+    @DisplayName("Un cycle, un prérequis absent ou un nœud en double sont rejetés")
+    @Test
+    public void testGraphesInvalides() {
+        NoeudCalcul absent = new Noeud("ABSENT", List.of(), contexte -> 1);
+        NoeudCalcul orphelin = new Noeud("ORPHELIN", List.of(absent), contexte -> 2);
+        // La décote remplacée ne peut pas dépendre d'elle-même
+        NoeudCalcul decote = new Noeud("DECOTE_BOUCLE", List.of(EtapeCalcul.IMPOT_NET),
+                contexte -> 0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> GrapheCalcul.standard().ajouter(orphelin));
+        assertThrows(IllegalArgumentException.class,
+                () -> GrapheCalcul.standard().remplacer(EtapeCalcul.DECOTE, decote));
+        assertThrows(IllegalArgumentException.class,
+                () -> GrapheCalcul.standard().ajouter(absent, absent));
+        assertThrows(IllegalArgumentException.class,
+                () -> GrapheCalcul.standard().ajouter(EtapeCalcul.DECOTE));
+        // Une valeur ne se lit qu'une fois calculée
+        ContexteCalcul contexte = GrapheCalcul.standard().ajouter(absent)
+                .nouveauContexte(ReferentielBareme.global());
+        assertThrows(IllegalStateException.class, () -> contexte.valeur(absent));
+    }
+}
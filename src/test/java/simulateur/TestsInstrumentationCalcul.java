@@ -0,0 +1,84 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.EtapeInstrumentee;
+import com.kerware.simulateurreusine.HistogrammeLatence;
+import com.kerware.simulateurreusine.InstrumentationCalcul;
+import com.kerware.simulateurreusine.ReferentielBareme;
+import com.kerware.simulateurreusine.Simulateur;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsInstrumentationCalcul {
+
+    @DisplayName("L'histogramme restitue les centiles à la précision de ses classes")
+    @Test
+    public void testCentilesHistogramme() {
+        HistogrammeLatence histogramme = new HistogrammeLatence();
+        for (long duree = 1; duree <= 10_000; duree++) {
+            histogramme.enregistrer(duree);
+        }
+
+        assertEquals(10_000, histogramme.getNbMesures());
+        assertEquals(5000.5, histogramme.getMoyenneNs());
+        assertEquals(10_000, histogramme.getMaxNs());
+        long p50 = histogramme.getP50Ns();
+        long p99 = histogramme.getP99Ns();
+        assertTrue(p50 >= 5000 && p50 <= 5000 * 1.25, String.valueOf(p50));
+        assertTrue(p99 >= 9900 && p99 <= 10_000, String.valueOf(p99));
+    }
+
+    @DisplayName("Le simulateur instrumenté compte les calculs, les erreurs et les mesures")
+    @Test
+    public void testSimulateurInstrumente() {
+        InstrumentationCalcul instrumentation = new InstrumentationCalcul("test");
+        instrumentation.setPeriodeEchantillonnage(4);
+        Simulateur simulateur = new Simulateur(ReferentielBareme.global(), instrumentation);
+
+        for (int i = 0; i < 100; i++) {
+            simulateur.calculImpot(30_000 + i, 0, SituationFamiliale.CELIBATAIRE, 1, 0, true);
+        }
+        assertThrows(IllegalArgumentException.class, () ->
+                simulateur.calculImpot(-1, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false));
+
+        assertEquals(101, instrumentation.getNbCalculs());
+        assertEquals(1, instrumentation.getNbErreurs());
+        assertEquals(25, instrumentation.getNbCalculsMesures());
+        for (EtapeInstrumentee etape : EtapeInstrumentee.values()) {
+            assertEquals(25, instrumentation.getHistogramme(etape).getNbMesures(), etape.name());
+        }
+    }
+
+    @DisplayName("Les mesures sont publiées et retirées comme MBeans JMX")
+    @Test
+    public void testPublicationJmx() throws Exception {
+        MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+        InstrumentationCalcul instrumentation = new InstrumentationCalcul("jmx");
+        ObjectName compteurs = new ObjectName(
+                "com.kerware.simulateurreusine:type=InstrumentationCalcul,name=\"jmx\"");
+
+        instrumentation.publier(serveur);
+        try {
+            new Simulateur(ReferentielBareme.global(), instrumentation)
+                    .calculImpot(45_000, 0, SituationFamiliale.VEUF, 2, 0, false);
+            assertEquals(1L, serveur.getAttribute(compteurs, "NbCalculs"));
+            serveur.setAttribute(compteurs,
+                    new javax.management.Attribute("PeriodeEchantillonnage", 8));
+            assertEquals(8, instrumentation.getPeriodeEchantillonnage());
+            assertEquals(1L, serveur.getAttribute(new ObjectName(compteurs + ",etape=DECOTE"),
+                    "NbMesures"));
+        } finally {
+            instrumentation.retirer(serveur);
+        }
+        assertFalse(serveur.isRegistered(compteurs));
+    }
+}
@@ -0,0 +1,173 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.AgregatsMicrosimulation;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.FoyerPondere;
+import com.kerware.simulateurreusine.MicrosimulationImpot;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.ResultatCalculImpot;
+import com.kerware.simulateurreusine.Simulateur;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import com.kerware.simulateurreusine.TotauxMicrosimulation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsMicrosimulation {
+
+    private static final MicrosimulationImpot MICROSIMULATION = new MicrosimulationImpot();
+
+    // Échantillon reproductible ; poids entiers si demandé, sinon au millionième
+    private static List<FoyerPondere> echantillon(long graine, int taille, boolean poidsEntiers) {
+        Random aleatoire = new Random(graine);
+        List<FoyerPondere> foyers = new ArrayList<>();
+        for (int i = 0; i < taille; i++) {
+            DonneesFoyerFiscal foyer = FoyersAleatoires.foyer(aleatoire, 400_000,
+                    FoyersAleatoires.REVENU_MAX_DECLARANT2);
+            double poids = poidsEntiers ? 1 + aleatoire.nextInt(5_000)
+                    : aleatoire.nextInt(2_000_000_000) / 1e6;
+            foyers.add(new FoyerPondere(foyer, poids));
+        }
+        return foyers;
+    }
+
+    @DisplayName("Les totaux pondérés sont ceux du calcul foyer par foyer")
+    @Test
+    public void testTotauxFoyerParFoyer() {
+        List<FoyerPondere> foyers = echantillon(25, 20_000, true);
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+        double poids = 0;
+        double impotBrut = 0;
+        double decote = 0;
+        double contribution = 0;
+        double impotNet = 0;
+        long nbImposables = 0;
+        for (FoyerPondere foyerPondere : foyers) {
+            ResultatCalculImpot resultat = moteur.calculer(foyerPondere.foyer());
+            poids += foyerPondere.poids();
+            impotBrut += foyerPondere.poids() * resultat.impotAvantDecote();
+            decote += foyerPondere.poids() * resultat.decote();
+            contribution += foyerPondere.poids() * resultat.contributionExceptionnelle();
+            impotNet += foyerPondere.poids() * resultat.impotNet();
+            nbImposables += resultat.impotNet() > 0 ? 1 : 0;
+        }
+
+        // Montants entiers et poids entiers : les sommes en double sont exactes
+        TotauxMicrosimulation total = MICROSIMULATION.simuler(foyers.stream()).total();
+        assertEquals(foyers.size(), total.nbFoyers());
+        assertEquals(nbImposables, total.nbFoyersImposables());
+        assertEquals(foyers.size() - nbImposables, total.nbFoyersNonImposables());
+        assertEquals(poids, total.poids());
+        assertEquals(impotBrut, total.impotBrut());
+        assertEquals(decote, total.decote());
+        assertEquals(contribution, total.contributionExceptionnelle());
+        assertEquals(impotNet, total.impotNet());
+        assertTrue(decote > 0 && contribution > 0 && nbImposables < foyers.size());
+    }
+
+    @DisplayName("Les répartitions par situation et par nombre d'enfants redonnent le total")
+    @Test
+    public void testRepartitions() {
+        AgregatsMicrosimulation agregats =
+                MICROSIMULATION.simuler(echantillon(250, 20_000, true).stream());
+        TotauxMicrosimulation total = agregats.total();
+
+        long nbFoyers = 0;
+        double impotNet = 0;
+        for (SituationFamiliale situation : SituationFamiliale.values()) {
+            TotauxMicrosimulation parSituation = agregats.parSituation(situation);
+            nbFoyers += parSituation.nbFoyers();
+            impotNet += parSituation.impotNet();
+            long nbFoyersSituation = 0;
+            for (int nbEnfants = 0; nbEnfants <= Simulateur.NB_ENFANTS_MAX; nbEnfants++) {
+                nbFoyersSituation += agregats.pour(situation, nbEnfants).nbFoyers();
+            }
+            assertEquals(parSituation.nbFoyers(), nbFoyersSituation);
+        }
+        assertEquals(total.nbFoyers(), nbFoyers);
+        assertEquals(total.impotNet(), impotNet);
+
+        long nbImposables = 0;
+        double decote = 0;
+        for (int nbEnfants = 0; nbEnfants <= Simulateur.NB_ENFANTS_MAX; nbEnfants++) {
+            nbImposables += agregats.parNbEnfants(nbEnfants).nbFoyersImposables();
+            decote += agregats.parNbEnfants(nbEnfants).decote();
+        }
+        assertEquals(total.nbFoyersImposables(), nbImposables);
+        assertEquals(total.decote(), decote);
+        assertThrows(IllegalArgumentException.class,
+                () -> agregats.parNbEnfants(Simulateur.NB_ENFANTS_MAX + 1));
+    }
+
+    @DisplayName("La fusion est associative et ne dépend pas du découpage de l'échantillon")
+    @Test
+    public void testFusionAssociative() {
+        List<FoyerPondere> foyers = echantillon(2500, 30_000, false);
+        AgregatsMicrosimulation tout = MICROSIMULATION.simuler(foyers.stream());
+        AgregatsMicrosimulation a = MICROSIMULATION.simuler(foyers.subList(0, 7_000).stream());
+        AgregatsMicrosimulation b =
+                MICROSIMULATION.simuler(foyers.subList(7_000, 19_000).stream());
+        AgregatsMicrosimulation c =
+                MICROSIMULATION.simuler(foyers.subList(19_000, foyers.size()).stream());
+
+        // Poids au millionième : les cumuls exacts donnent les mêmes agrégats au bit près
+        assertEquals(tout, a.fusionner(b).fusionner(c));
+        assertEquals(tout, a.fusionner(b.fusionner(c)));
+        assertEquals(tout, c.fusionner(a).fusionner(b));
+        assertEquals(tout.total(), c.fusionner(b).fusionner(a).total());
+        assertNotEquals(tout, a.fusionner(b));
+
+        // Les cumuls dépassent 2^63 : le total est la somme exacte, arrondie une fois
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+        BigDecimal impotBrut = BigDecimal.ZERO;
+        for (FoyerPondere foyerPondere : foyers) {
+            impotBrut = impotBrut.add(BigDecimal.valueOf(foyerPondere.poids()).multiply(
+                    BigDecimal.valueOf(moteur.calculer(foyerPondere.foyer()).impotAvantDecote())));
+        }
+        assertTrue(impotBrut.movePointRight(8).compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0);
+        assertEquals(impotBrut.doubleValue(), tout.total().impotBrut());
+    }
+
+    @DisplayName("Un flux séquentiel, lu par blocs, donne les agrégats du flux découpable")
+    @Test
+    public void testFluxSequentielParBlocs() {
+        List<FoyerPondere> foyers = echantillon(2025, 10_000, false);
+        int taille = 2 * MicrosimulationImpot.TAILLE_BLOC + 1_000;
+        AgregatsMicrosimulation attendu = MICROSIMULATION.simuler(IntStream.range(0, taille)
+                .mapToObj(i -> foyers.get(i % foyers.size())));
+        // Itération sans taille connue : ni découpage parallèle ni lecture du flux entier
+        AgregatsMicrosimulation agregats = MICROSIMULATION.simuler(Stream.iterate(0, i -> i + 1)
+                .limit(taille).map(i -> foyers.get(i % foyers.size())));
+
+        assertEquals(attendu, agregats);
+        assertEquals(taille, agregats.total().nbFoyers());
+        assertEquals(0, MICROSIMULATION.simuler(Stream.iterate(0, i -> i + 1).limit(0)
+                .map(foyers::get)).total().nbFoyers());
+    }
+
+    @DisplayName("Un poids négatif, infini ou non numérique est refusé")
+    @Test
+    public void testPoidsInvalide() {
+        DonneesFoyerFiscal foyer =
+                new DonneesFoyerFiscal(30_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+
+        assertThrows(IllegalArgumentException.class, () -> new FoyerPondere(foyer, -1));
+        assertThrows(IllegalArgumentException.class, () -> new FoyerPondere(foyer, Double.NaN));
+        assertThrows(IllegalArgumentException.class,
+                () -> new FoyerPondere(foyer, Double.POSITIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> new FoyerPondere(null, 1));
+        assertEquals(0, MICROSIMULATION.simuler(
+                List.of(new FoyerPondere(foyer, 0)).stream()).total().poids());
+    }
+}
@@ -0,0 +1,148 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.Bareme;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.LotFoyers;
+import com.kerware.simulateurreusine.MoteurCalculCentimes;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.ReferentielBareme;
+import com.kerware.simulateurreusine.ResultatCalculCentimes;
+import com.kerware.simulateurreusine.ResultatCalculImpot;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsMoteurCalculCentimes {
+
+    private static final MoteurCalculCentimes MOTEUR = new MoteurCalculCentimes();
+
+    // Revenus jusqu'aux tranches hautes et à la contribution exceptionnelle
+    private static DonneesFoyerFiscal foyerAleatoire(Random aleatoire) {
+        return FoyersAleatoires.foyer(aleatoire, 600_000, 300_000);
+    }
+
+    @DisplayName("Le calcul en centimes donne les impôts nets attendus du jeu de données")
+    @ParameterizedTest(name = "{0}, {1}, {2}, {3}, {4}, {5} - impôt net attendu = {6}")
+    @CsvFileSource(resources = {"/datasImposition.csv"}, numLinesToSkip = 1)
+    public void testJeuDeDonnees(int revenu1, int revenu2, SituationFamiliale situation,
+                                 int nbEnfants, int nbEnfantsHandicap, boolean parentIsole,
+                                 int impotAttendu) {
+        ResultatCalculCentimes resultat = MOTEUR.calculer(new DonneesFoyerFiscal(revenu1,
+                revenu2, situation, nbEnfants, nbEnfantsHandicap, parentIsole));
+
+        assertEquals(impotAttendu, resultat.impotNetEuros());
+        assertEquals(0, resultat.impotNet() % 100);
+    }
+
+    @DisplayName("Le calcul en centimes s'accorde avec le moteur en double, sauf aux demi-euros")
+    @Test
+    public void testAccordMoteurDouble() {
+        MoteurCalculImpot reference = new MoteurCalculImpot();
+        // Impôt brut des déclarants exactement égal à 2 × 16162,25 = 32324,50 : le calcul
+        // en double donne 32324,4999... et arrondit à l'euro inférieur
+        DonneesFoyerFiscal demiEuro = new DonneesFoyerFiscal(34_362, 135_090,
+                SituationFamiliale.PACSE, 1, 1, false);
+        assertEquals(28_806, reference.calculer(demiEuro).impotAvantDecote());
+        assertEquals(2_880_700, MOTEUR.calculer(demiEuro).impotAvantDecote());
+
+        Random aleatoire = new Random(19);
+        int nbDemiEuros = 0;
+        for (int i = 0; i < 100_000; i++) {
+            DonneesFoyerFiscal foyer = foyerAleatoire(aleatoire);
+            ResultatCalculImpot attendu = reference.calculer(foyer);
+            ResultatCalculImpot resultat = MOTEUR.calculer(foyer).enEuros();
+
+            assertEquals(attendu.nombreParts(), resultat.nombreParts());
+            assertEquals(attendu.abattement(), resultat.abattement(), 1e-6, foyer.toString());
+            assertEquals(attendu.revenuFiscalReference(), resultat.revenuFiscalReference(),
+                    1e-6, foyer.toString());
+            assertEquals(attendu.contributionExceptionnelle(),
+                    resultat.contributionExceptionnelle(), foyer.toString());
+            if (attendu.impotAvantDecote() != resultat.impotAvantDecote()) {
+                // Seul écart admis : un demi-euro que le double arrondit vers le bas
+                assertEquals(attendu.impotAvantDecote() + 1, resultat.impotAvantDecote(),
+                        foyer.toString());
+                nbDemiEuros++;
+                continue;
+            }
+            assertEquals(attendu.decote(), resultat.decote(), foyer.toString());
+            assertEquals(attendu.impotNet(), resultat.impotNet(), foyer.toString());
+        }
+        assertTrue(nbDemiEuros < 100, "Demi-euros : " + nbDemiEuros);
+    }
+
+    @DisplayName("Le calcul par lot donne l'impôt net du calcul foyer par foyer")
+    @Test
+    public void testCalculLot() {
+        Random aleatoire = new Random(190);
+        int taille = 1_000;
+        LotFoyers lot = LotFoyers.allouer(taille);
+        DonneesFoyerFiscal[] foyers = new DonneesFoyerFiscal[taille];
+        for (int i = 0; i < taille; i++) {
+            foyers[i] = foyerAleatoire(aleatoire);
+            lot.revenusDeclarant1()[i] = foyers[i].revenuNetDeclarant1();
+            lot.revenusDeclarant2()[i] = foyers[i].revenuNetDeclarant2();
+            lot.situations()[i] = (byte) foyers[i].situationFamiliale().ordinal();
+            lot.nbEnfants()[i] = (byte) foyers[i].nbEnfantsACharge();
+            lot.nbEnfantsHandicap()[i] = (byte) foyers[i].nbEnfantsSituationHandicap();
+            lot.parentsIsoles()[i] = foyers[i].parentIsole();
+        }
+        long[] impotsNets = new long[taille];
+        MOTEUR.calculerLot(lot, 0, taille, impotsNets);
+
+        for (int i = 0; i < taille; i++) {
+            assertEquals(MOTEUR.calculer(foyers[i]).impotNet(), impotsNets[i]);
+        }
+        lot.nbEnfantsHandicap()[3] = 9;
+        assertThrows(IllegalArgumentException.class,
+                () -> MOTEUR.calculerLot(lot, 0, taille, impotsNets));
+    }
+
+    @DisplayName("Un barème non représentable en millionièmes et centimes est rejeté")
+    @Test
+    public void testBaremeNonRepresentable() throws IOException {
+        Properties proprietes = new Properties();
+        try (InputStream flux = TestsMoteurCalculCentimes.class
+                .getResourceAsStream("/baremes/bareme-2024.properties")) {
+            proprietes.load(new InputStreamReader(flux, StandardCharsets.UTF_8));
+        }
+        proprietes.setProperty("impot.taux", "0.0,0.1100001,0.30,0.41,0.45");
+        Bareme bareme = Bareme.depuisProprietes(proprietes);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new MoteurCalculCentimes(new ReferentielBareme(bareme)));
+        // Un remplacement est pris en compte au calcul suivant
+        ReferentielBareme referentiel = new ReferentielBareme(Bareme.charger(2024));
+        MoteurCalculCentimes moteur = new MoteurCalculCentimes(referentiel);
+        DonneesFoyerFiscal foyer =
+                new DonneesFoyerFiscal(50_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        moteur.calculer(foyer);
+        referentiel.remplacer(bareme);
+        assertThrows(IllegalArgumentException.class, () -> moteur.calculer(foyer));
+
+        // Les montants de l'abattement et du plafonnement sont vérifiés comme les taux
+        proprietes.setProperty("impot.taux", "0.0,0.11,0.30,0.41,0.45");
+        for (String cle : new String[] {"abattement.minimum", "abattement.maximum",
+            "abattement.revenuMinimalDeclarant2", "plafonnement.demiPart"}) {
+            Properties modifiees = new Properties();
+            modifiees.putAll(proprietes);
+            modifiees.setProperty(cle, "1759.004");
+            Bareme baremeModifie = Bareme.depuisProprietes(modifiees);
+            assertThrows(IllegalArgumentException.class,
+                    () -> new MoteurCalculCentimes(new ReferentielBareme(baremeModifie)), cle);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.LotFoyers;
+import com.kerware.simulateurreusine.LotResultats;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.MoteurCalculParallele;
+import com.kerware.simulateurreusine.ResultatCalculImpot;
+import com.kerware.simulateurreusine.Simulateur;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsMoteurCalculImpot {
+
+    static List<DonneesFoyerFiscal> genererFoyers() {
+        List<DonneesFoyerFiscal> foyers = new ArrayList<>();
+        for (SituationFamiliale sf : SituationFamiliale.values()) {
+            for (int revenu = 0; revenu <= 1_200_000; revenu += 7_919) {
+                for (int nbEnfants = 0; nbEnfants <= 4; nbEnfants++) {
+                    int revenu2 = sf.estCouple() ? revenu / 3 : 0;
+                    boolean parentIsole = !sf.estCouple() && nbEnfants % 2 == 1;
+                    foyers.add(new DonneesFoyerFiscal(revenu, revenu2, sf, nbEnfants,
+                            nbEnfants / 3, parentIsole));
+                }
+            }
+        }
+        return foyers;
+    }
+
+    @DisplayName("Le moteur partagé entre threads donne les mêmes résultats que le simulateur")
+    @Test
+    public void testMoteurPartageEquivalentAuSimulateur() {
+        List<DonneesFoyerFiscal> foyers = genererFoyers();
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+
+        List<ResultatCalculImpot> resultats = foyers.parallelStream()
+                .map(moteur::calculer)
+                .toList();
+
+        Simulateur simulateur = new Simulateur();
+        for (int i = 0; i < foyers.size(); i++) {
+            DonneesFoyerFiscal f = foyers.get(i);
+            ResultatCalculImpot r = resultats.get(i);
+            int impot = simulateur.calculImpot(f.revenuNetDeclarant1(), f.revenuNetDeclarant2(),
+                    f.situationFamiliale(), f.nbEnfantsACharge(),
+                    f.nbEnfantsSituationHandicap(), f.parentIsole());
+
+            assertEquals(impot, r.impotNetArrondi(), f.toString());
+            assertEquals(simulateur.getNbParts(), r.nombreParts(), f.toString());
+            assertEquals(simulateur.getAbattement(), r.abattement(), f.toString());
+            assertEquals(simulateur.getRevenuReference(), r.revenuFiscalReference(), f.toString());
+            assertEquals(simulateur.getImpotAvantDecote(), r.impotAvantDecote(), f.toString());
+            assertEquals(simulateur.getDecote(), r.decote(), f.toString());
+            assertEquals(simulateur.getContribExceptionnelle(),
+                    r.contributionExceptionnelle(), f.toString());
+            assertEquals(simulateur.getImpotNet(), r.impotNet(), f.toString());
+        }
+    }
+
+    static LotFoyers versLot(List<DonneesFoyerFiscal> foyers) {
+        LotFoyers lot = LotFoyers.allouer(foyers.size());
+        for (int i = 0; i < foyers.size(); i++) {
+            DonneesFoyerFiscal f = foyers.get(i);
+            lot.revenusDeclarant1()[i] = f.revenuNetDeclarant1();
+            lot.revenusDeclarant2()[i] = f.revenuNetDeclarant2();
+            lot.situations()[i] = (byte) f.situationFamiliale().ordinal();
+            lot.nbEnfants()[i] = (byte) f.nbEnfantsACharge();
+            lot.nbEnfantsHandicap()[i] = (byte) f.nbEnfantsSituationHandicap();
+            lot.parentsIsoles()[i] = f.parentIsole();
+        }
+        return lot;
+    }
+
+    @DisplayName("Le calcul par lot donne les mêmes résultats que le calcul foyer par foyer")
+    @Test
+    public void testCalculLotEquivalentAuCalculUnitaire() {
+        List<DonneesFoyerFiscal> foyers = genererFoyers();
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+        LotFoyers lot = versLot(foyers);
+        LotResultats resultats = LotResultats.allouer(lot.taille());
+
+        moteur.calculerLot(lot, resultats);
+
+        for (int i = 0; i < foyers.size(); i++) {
+            ResultatCalculImpot attendu = moteur.calculer(foyers.get(i));
+            assertEquals(attendu, new ResultatCalculImpot(resultats.nombresParts()[i],
+                    resultats.abattements()[i], resultats.revenusFiscauxReference()[i],
+                    resultats.impotsAvantDecote()[i], resultats.decotes()[i],
+                    resultats.contributionsExceptionnelles()[i], resultats.impotsNets()[i]));
+        }
+    }
+
+    @DisplayName("Le calcul par lot rejette un foyer incohérent")
+    @Test
+    public void testCalculLotFoyerIncoherent() {
+        LotFoyers lot = LotFoyers.allouer(2);
+        lot.situations()[1] = (byte) SituationFamiliale.CELIBATAIRE.ordinal();
+        lot.revenusDeclarant2()[1] = 10000;
+        LotResultats resultats = LotResultats.allouer(2);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new MoteurCalculImpot().calculerLot(lot, resultats));
+    }
+
+    @DisplayName("Le calcul parallèle donne les mêmes résultats que le calcul séquentiel")
+    @Test
+    public void testCalculParalleleEquivalentAuCalculSequentiel() {
+        List<DonneesFoyerFiscal> foyers = genererFoyers();
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+        LotFoyers lot = versLot(foyers);
+        LotResultats sequentiel = LotResultats.allouer(lot.taille());
+        LotResultats parallele = LotResultats.allouer(lot.taille());
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        moteur.calculerLot(lot, sequentiel);
+        MoteurCalculParallele moteurParallele = new MoteurCalculParallele(moteur, pool, 100);
+        moteurParallele.calculerLot(lot, parallele);
+        ResultatCalculImpot[] resultats =
+                moteurParallele.calculer(foyers.toArray(new DonneesFoyerFiscal[0]));
+        pool.shutdown();
+
+        assertArrayEquals(sequentiel.nombresParts(), parallele.nombresParts());
+        assertArrayEquals(sequentiel.abattements(), parallele.abattements());
+        assertArrayEquals(sequentiel.revenusFiscauxReference(),
+                parallele.revenusFiscauxReference());
+        assertArrayEquals(sequentiel.impotsAvantDecote(), parallele.impotsAvantDecote());
+        assertArrayEquals(sequentiel.decotes(), parallele.decotes());
+        assertArrayEquals(sequentiel.contributionsExceptionnelles(),
+                parallele.contributionsExceptionnelles());
+        assertArrayEquals(sequentiel.impotsNets(), parallele.impotsNets());
+        for (int i = 0; i < foyers.size(); i++) {
+            assertEquals(moteur.calculer(foyers.get(i)), resultats[i]);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.AdaptateurSimulateur;
+import com.kerware.simulateurreusine.Bareme;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.LotFoyers;
+import com.kerware.simulateurreusine.LotResultats;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.MoteurCalculImpotCache;
+import com.kerware.simulateurreusine.MoteurCalculParallele;
+import com.kerware.simulateurreusine.ReferentielBareme;
+import com.kerware.simulateurreusine.ResultatCalculImpot;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import com.kerware.simulateurreusine.TraceCalcul;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsMoteurCalculImpotCache {
+
+    @DisplayName("Le cache donne les mêmes résultats que le moteur, en parallèle")
+    @Test
+    public void testCacheEquivalentAuMoteur() {
+        List<DonneesFoyerFiscal> foyers = TestsMoteurCalculImpot.genererFoyers();
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+        MoteurCalculImpotCache cache = new MoteurCalculImpotCache(1 << 16);
+
+        for (int passage = 0; passage < 3; passage++) {
+            List<ResultatCalculImpot> resultats =
+                    foyers.parallelStream().map(cache::calculer).toList();
+            for (int i = 0; i < foyers.size(); i++) {
+                assertEquals(moteur.calculer(foyers.get(i)), resultats.get(i));
+            }
+        }
+
+        assertEquals(3L * foyers.size(), cache.getNbSucces() + cache.getNbEchecs());
+        assertTrue(cache.getNbSucces() >= 2L * foyers.size() - cache.getNbEchecs());
+    }
+
+    @DisplayName("Le cache borné évince des entrées et reste exact")
+    @Test
+    public void testCacheBorneEvince() {
+        List<DonneesFoyerFiscal> foyers = TestsMoteurCalculImpot.genererFoyers();
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+        MoteurCalculImpotCache cache = new MoteurCalculImpotCache(256);
+
+        for (DonneesFoyerFiscal foyer : foyers) {
+            assertEquals(moteur.calculer(foyer), cache.calculer(foyer));
+            assertEquals(moteur.calculer(foyer), cache.calculer(foyer));
+        }
+
+        assertTrue(cache.getNbEvictions() > 0);
+        assertTrue(cache.getNbEchecs() >= foyers.size());
+    }
+
+    @DisplayName("Le cache est invalidé par un changement de barème")
+    @Test
+    public void testCacheInvalideParChangementDeBareme() {
+        Bareme bareme2024 = Bareme.charger(2024);
+        ReferentielBareme referentiel = new ReferentielBareme(bareme2024);
+        MoteurCalculImpotCache cache = new MoteurCalculImpotCache(referentiel, 1024);
+        DonneesFoyerFiscal foyer =
+                new DonneesFoyerFiscal(52000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        ResultatCalculImpot avant = cache.calculer(foyer);
+
+        Properties proprietes = new Properties();
+        proprietes.setProperty("annee", "2024");
+        proprietes.setProperty("impot.bornes", "0,10000");
+        proprietes.setProperty("impot.taux", "0.0,0.2");
+        proprietes.setProperty("abattement.taux", "0.1");
+        proprietes.setProperty("abattement.minimum", "495");
+        proprietes.setProperty("abattement.maximum", "14171");
+        proprietes.setProperty("abattement.revenuMinimalDeclarant2", "4950");
+        proprietes.setProperty("plafonnement.demiPart", "1759");
+        proprietes.setProperty("decote.seul.seuil", "1929");
+        proprietes.setProperty("decote.seul.maximum", "873");
+        proprietes.setProperty("decote.couple.seuil", "3191");
+        proprietes.setProperty("decote.couple.maximum", "1444");
+        proprietes.setProperty("decote.taux", "0.4525");
+        proprietes.setProperty("contribution.seul.bornes", "0");
+        proprietes.setProperty("contribution.seul.taux", "0.0");
+        proprietes.setProperty("contribution.couple.bornes", "0");
+        proprietes.setProperty("contribution.couple.taux", "0.0");
+        referentiel.remplacer(Bareme.depuisProprietes(proprietes));
+
+        assertEquals(7360, cache.calculer(foyer).impotNetArrondi());
+        referentiel.remplacer(bareme2024);
+        assertEquals(avant, cache.calculer(foyer));
+        assertEquals(0, cache.getNbSucces());
+    }
+
+    @DisplayName("Le calcul par lot et le moteur parallèle passent par le cache")
+    @Test
+    public void testCalculLotParLeCache() {
+        List<DonneesFoyerFiscal> foyers = TestsMoteurCalculImpot.genererFoyers();
+        int taille = foyers.size();
+        LotFoyers lot = LotFoyers.allouer(taille);
+        for (int i = 0; i < taille; i++) {
+            DonneesFoyerFiscal foyer = foyers.get(i);
+            lot.revenusDeclarant1()[i] = foyer.revenuNetDeclarant1();
+            lot.revenusDeclarant2()[i] = foyer.revenuNetDeclarant2();
+            lot.situations()[i] = (byte) foyer.situationFamiliale().ordinal();
+            lot.nbEnfants()[i] = (byte) foyer.nbEnfantsACharge();
+            lot.nbEnfantsHandicap()[i] = (byte) foyer.nbEnfantsSituationHandicap();
+            lot.parentsIsoles()[i] = foyer.parentIsole();
+        }
+        LotResultats attendus = LotResultats.allouer(taille);
+        new MoteurCalculImpot().calculerLot(lot, attendus);
+
+        MoteurCalculImpotCache cache = new MoteurCalculImpotCache(1 << 16);
+        LotResultats resultats = LotResultats.allouer(taille);
+        cache.calculerLot(lot, resultats);
+        assertEquals(taille, cache.getNbEchecs());
+        new MoteurCalculParallele(cache, ForkJoinPool.commonPool(), 1_000)
+                .calculerLot(lot, resultats);
+        assertEquals(taille, cache.getNbSucces());
+        assertArrayEquals(attendus.impotsNets(), resultats.impotsNets());
+        assertArrayEquals(attendus.decotes(), resultats.decotes());
+        assertArrayEquals(attendus.nombresParts(), resultats.nombresParts());
+
+        // Le calcul tracé ne passe pas par le cache
+        cache.calculer(foyers.get(0), new TraceCalcul());
+        assertEquals(2L * taille, cache.getNbSucces() + cache.getNbEchecs());
+    }
+
+    @DisplayName("L'adaptateur sur un moteur avec cache passe par le cache")
+    @Test
+    public void testAdaptateurParLeCache() {
+        List<DonneesFoyerFiscal> foyers = TestsMoteurCalculImpot.genererFoyers();
+        MoteurCalculImpotCache cache = new MoteurCalculImpotCache(1 << 16);
+        AdaptateurSimulateur adaptateur = new AdaptateurSimulateur(cache);
+        AdaptateurSimulateur reference = new AdaptateurSimulateur();
+
+        for (int passe = 0; passe < 2; passe++) {
+            for (DonneesFoyerFiscal foyer : foyers) {
+                for (AdaptateurSimulateur calcul : List.of(adaptateur, reference)) {
+                    calcul.setRevenusNetDeclarant1(foyer.revenuNetDeclarant1());
+                    calcul.setRevenusNetDeclarant2(foyer.revenuNetDeclarant2());
+                    calcul.setSituationFamiliale(foyer.situationFamiliale());
+                    calcul.setNbEnfantsACharge(foyer.nbEnfantsACharge());
+                    calcul.setNbEnfantsSituationHandicap(foyer.nbEnfantsSituationHandicap());
+                    calcul.setParentIsole(foyer.parentIsole());
+                    calcul.calculImpotSurRevenuNet();
+                }
+                assertEquals(reference.getImpotSurRevenuNet(), adaptateur.getImpotSurRevenuNet());
+                assertEquals(reference.getDecote(), adaptateur.getDecote());
+                assertEquals(reference.getNbPartsFoyerFiscal(),
+                        adaptateur.getNbPartsFoyerFiscal());
+            }
+            assertEquals((passe + 1L) * foyers.size(),
+                    cache.getNbSucces() + cache.getNbEchecs());
+        }
+        assertTrue(cache.getNbSucces() >= foyers.size());
+    }
+}
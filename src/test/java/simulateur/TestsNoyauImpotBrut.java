@@ -0,0 +1,118 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.Bareme;
+import com.kerware.simulateurreusine.CalculateurImpot;
+import com.kerware.simulateurreusine.NoyauImpotBrut;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsNoyauImpotBrut {
+
+    private static final int TAILLE = 100_003;
+
+    // Compare chaque noyau au calculateur scalaire, au bit près
+    private static void verifierEquivalence(Bareme bareme, double[] revenus, double[] parts) {
+        CalculateurImpot reference = new CalculateurImpot(bareme);
+        for (NoyauImpotBrut noyau
+                : new NoyauImpotBrut[] {NoyauImpotBrut.pour(bareme), NoyauImpotBrut.scalaire(bareme)}) {
+            double[] impots = new double[revenus.length];
+            noyau.calculer(revenus, parts, impots, 0, revenus.length);
+            for (int i = 0; i < revenus.length; i++) {
+                assertEquals(reference.calculerImpotBrut(revenus[i], parts[i]), impots[i],
+                        revenus[i] + " / " + parts[i]);
+            }
+        }
+    }
+
+    private static double[] partsAleatoires(Random aleatoire, int taille) {
+        double[] parts = new double[taille];
+        for (int i = 0; i < taille; i++) {
+            parts[i] = (2 + aleatoire.nextInt(23)) / 2.0;
+        }
+        return parts;
+    }
+
+    @DisplayName("Le noyau vectoriel est utilisé quand le module est chargé")
+    @Test
+    public void testNoyauVectorielDisponible() {
+        Bareme bareme = Bareme.charger(2024);
+
+        // La configuration des tests charge jdk.incubator.vector
+        assertTrue(NoyauImpotBrut.vectorielDisponible());
+        assertTrue(NoyauImpotBrut.pour(bareme).estVectoriel());
+        assertFalse(NoyauImpotBrut.scalaire(bareme).estVectoriel());
+    }
+
+    @DisplayName("Les noyaux donnent l'impôt brut du calcul scalaire, y compris aux limites")
+    @Test
+    public void testEquivalenceCalculScalaire() throws IOException {
+        Random aleatoire = new Random(21);
+        double[] revenus = new double[TAILLE];
+        double[] parts = partsAleatoires(aleatoire, TAILLE);
+        Bareme bareme = Bareme.charger(2024);
+        for (int i = 0; i < TAILLE; i++) {
+            switch (i % 4) {
+                // Revenus d'abattement non arrondi, au dixième d'euro
+                case 0 -> revenus[i] = aleatoire.nextInt(3_000_000) / 10.0;
+                // Bornes des tranches exactement atteintes par part
+                case 1 -> revenus[i] = parts[i] * bareme.getImpot().abscisse(
+                        aleatoire.nextInt(bareme.getImpot().nbSegments()));
+                // Hauts revenus
+                case 2 -> revenus[i] = aleatoire.nextDouble() * 1e9;
+                default -> revenus[i] = aleatoire.nextInt(200_000);
+            }
+        }
+        // Demi-euro exact : 2 × 16162,25 = 32324,50
+        revenus[0] = 152_506.8;
+        parts[0] = 2;
+        revenus[1] = 0;
+        verifierEquivalence(bareme, revenus, parts);
+
+        Properties proprietes = new Properties();
+        try (InputStream flux = TestsNoyauImpotBrut.class
+                .getResourceAsStream("/baremes/bareme-2024.properties")) {
+            proprietes.load(new InputStreamReader(flux, StandardCharsets.UTF_8));
+        }
+        proprietes.setProperty("impot.bornes", "0,10000,20000,40000,80000,160000,320000");
+        proprietes.setProperty("impot.taux", "0.0,0.05,0.15,0.25,0.35,0.45,0.55");
+        verifierEquivalence(Bareme.depuisProprietes(proprietes), revenus, parts);
+    }
+
+    @DisplayName("Seul l'intervalle demandé est calculé, quelle que soit sa longueur")
+    @Test
+    public void testIntervalle() {
+        Bareme bareme = Bareme.charger(2024);
+        NoyauImpotBrut noyau = NoyauImpotBrut.pour(bareme);
+        CalculateurImpot reference = new CalculateurImpot(bareme);
+        Random aleatoire = new Random(210);
+        double[] revenus = new double[64];
+        double[] parts = partsAleatoires(aleatoire, revenus.length);
+        for (int i = 0; i < revenus.length; i++) {
+            revenus[i] = 20_000 + aleatoire.nextInt(100_000);
+        }
+        for (int debut = 0; debut < 10; debut++) {
+            for (int fin = debut; fin <= revenus.length; fin += 7) {
+                double[] impots = new double[revenus.length];
+                Arrays.fill(impots, -1);
+                noyau.calculer(revenus, parts, impots, debut, fin);
+                for (int i = 0; i < revenus.length; i++) {
+                    double attendu = i >= debut && i < fin
+                            ? reference.calculerImpotBrut(revenus[i], parts[i]) : -1;
+                    assertEquals(attendu, impots[i]);
+                }
+            }
+        }
+    }
+}
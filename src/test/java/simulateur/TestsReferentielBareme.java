@@ -0,0 +1,124 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.Bareme;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.ReferentielBareme;
+import com.kerware.simulateurreusine.ResultatCalculImpot;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsReferentielBareme {
+
+    private static final DonneesFoyerFiscal FOYER =
+            new DonneesFoyerFiscal(65000, 40000, SituationFamiliale.MARIE, 2, 0, false);
+
+    private static Properties proprietes2024() throws IOException {
+        Properties proprietes = new Properties();
+        try (InputStream flux = TestsReferentielBareme.class
+                .getResourceAsStream("/baremes/bareme-2024.properties")) {
+            proprietes.load(new InputStreamReader(flux, StandardCharsets.UTF_8));
+        }
+        return proprietes;
+    }
+
+    private static Bareme bareme2024Modifie() throws IOException {
+        Properties proprietes = proprietes2024();
+        proprietes.setProperty("impot.taux", "0.0,0.12,0.31,0.42,0.46");
+        proprietes.setProperty("plafonnement.demiPart", "1800");
+        return Bareme.depuisProprietes(proprietes);
+    }
+
+    @DisplayName("Le barème 2024 est chargé depuis les ressources")
+    @Test
+    public void testChargementBareme2024() {
+        Bareme bareme = Bareme.charger(2024);
+
+        assertEquals(2024, bareme.getAnnee());
+        assertEquals(5, bareme.getImpot().nbSegments());
+        assertEquals(1759, bareme.getPlafondDemiPart());
+        assertEquals(3191, bareme.getSeuilDecote(true));
+        assertThrows(IllegalArgumentException.class, () -> Bareme.charger(1990));
+    }
+
+    @DisplayName("Un barème incomplet ou incohérent est rejeté au chargement")
+    @Test
+    public void testBaremeInvalideRejete() throws IOException {
+        Properties sansTaux = proprietes2024();
+        sansTaux.remove("decote.taux");
+        Properties bornesDecroissantes = proprietes2024();
+        bornesDecroissantes.setProperty("impot.bornes", "0,28797,11294,82341,177106");
+        Properties tauxIncomplets = proprietes2024();
+        tauxIncomplets.setProperty("contribution.couple.taux", "0.0,0.03");
+
+        for (Properties invalide : List.of(sansTaux, bornesDecroissantes, tauxIncomplets)) {
+            assertThrows(IllegalArgumentException.class, () -> Bareme.depuisProprietes(invalide));
+        }
+    }
+
+    @DisplayName("Le remplacement du barème s'applique au moteur existant")
+    @Test
+    public void testRemplacementSansRecreerLeMoteur() throws IOException {
+        Bareme initial = Bareme.charger(2024);
+        Bareme modifie = bareme2024Modifie();
+        ReferentielBareme referentiel = new ReferentielBareme(initial);
+        MoteurCalculImpot moteur = new MoteurCalculImpot(referentiel);
+        ResultatCalculImpot avant = moteur.calculer(FOYER);
+
+        assertSame(initial, referentiel.remplacer(modifie));
+
+        assertEquals(new MoteurCalculImpot(new ReferentielBareme(modifie)).calculer(FOYER),
+                moteur.calculer(FOYER));
+        assertNotEquals(avant, moteur.calculer(FOYER));
+    }
+
+    @DisplayName("Un calcul ne mélange jamais deux barèmes pendant un remplacement")
+    @Test
+    public void testRemplacementConcurrent() throws Exception {
+        Bareme initial = Bareme.charger(2024);
+        Bareme modifie = bareme2024Modifie();
+        ResultatCalculImpot attenduInitial =
+                new MoteurCalculImpot(new ReferentielBareme(initial)).calculer(FOYER);
+        ResultatCalculImpot attenduModifie =
+                new MoteurCalculImpot(new ReferentielBareme(modifie)).calculer(FOYER);
+        ReferentielBareme referentiel = new ReferentielBareme(initial);
+        MoteurCalculImpot moteur = new MoteurCalculImpot(referentiel);
+        AtomicBoolean arret = new AtomicBoolean();
+
+        ExecutorService executeur = Executors.newFixedThreadPool(2);
+        Future<Integer> calculs = executeur.submit(() -> {
+            int nbCalculs = 0;
+            while (!arret.get()) {
+                ResultatCalculImpot resultat = moteur.calculer(FOYER);
+                assertTrue(resultat.equals(attenduInitial) || resultat.equals(attenduModifie),
+                        resultat.toString());
+                nbCalculs++;
+            }
+            return nbCalculs;
+        });
+        for (int i = 0; i < 20_000; i++) {
+            referentiel.remplacer(i % 2 == 0 ? modifie : initial);
+        }
+        arret.set(true);
+        assertTrue(calculs.get() > 0);
+        executeur.shutdown();
+    }
+}
@@ -0,0 +1,125 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.GenerateurCharge;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.RapportCharge;
+import com.kerware.simulateurreusine.ResultatCalculImpot;
+import com.kerware.simulateurreusine.ServiceSimulation;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsServiceSimulation {
+
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+    private static ServiceSimulation service;
+
+    private final MoteurCalculImpot moteur = new MoteurCalculImpot();
+
+    @BeforeAll
+    public static void demarrer() throws IOException {
+        ServiceSimulation.activerSansDelai();
+        service = ServiceSimulation.demarrer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                new MoteurCalculImpot());
+    }
+
+    @AfterAll
+    public static void arreter() {
+        service.close();
+    }
+
+    private static URI uri(String chemin) {
+        return URI.create("http://127.0.0.1:" + service.getPort() + chemin);
+    }
+
+    private static HttpResponse<String> poster(String chemin, String json)
+            throws IOException, InterruptedException {
+        HttpRequest requete = HttpRequest.newBuilder(uri(chemin))
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+        return CLIENT.send(requete, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String attendu(int revenu1, int revenu2, ResultatCalculImpot r) {
+        return "{\"revenuNetDeclarant1\":" + revenu1 + ",\"revenuNetDeclarant2\":" + revenu2
+                + ",\"nbPartsFoyerFiscal\":" + r.nombreParts()
+                + ",\"abattement\":" + (int) r.abattement()
+                + ",\"revenuFiscalReference\":" + (int) r.revenuFiscalReference()
+                + ",\"impotAvantDecote\":" + (int) r.impotAvantDecote()
+                + ",\"decote\":" + (int) r.decote()
+                + ",\"contribExceptionnelle\":" + r.contributionExceptionnelle()
+                + ",\"impotSurRevenuNet\":" + (int) r.impotNet() + "}";
+    }
+
+    @DisplayName("Un foyer posté au service a le résultat du moteur")
+    @Test
+    public void testCalculFoyer() throws Exception {
+        HttpResponse<String> reponse = poster(ServiceSimulation.CHEMIN_CALCUL,
+                "{ \"revenuNetDeclarant1\": 250000, \"revenuNetDeclarant2\": 300000,\n"
+                        + "  \"situationFamiliale\": \"MARIE\", \"nbEnfantsACharge\": 2 }");
+        assertEquals(200, reponse.statusCode());
+        assertEquals(attendu(250000, 300000, moteur.calculer(250000, 300000,
+                SituationFamiliale.MARIE, 2, 0, false)), reponse.body());
+    }
+
+    @DisplayName("Un lot posté au service a les résultats du moteur, dans l'ordre")
+    @Test
+    public void testCalculLot() throws Exception {
+        HttpResponse<String> reponse = poster(ServiceSimulation.CHEMIN_LOT,
+                "[{\"revenuNetDeclarant1\":20000,\"situationFamiliale\":\"CELIBATAIRE\"},"
+                        + "{\"revenuNetDeclarant1\":35000,\"situationFamiliale\":\"DIVORCE\","
+                        + "\"nbEnfantsACharge\":3,\"nbEnfantsSituationHandicap\":1,"
+                        + "\"parentIsole\":true}]");
+        assertEquals(200, reponse.statusCode());
+        assertEquals("[" + attendu(20000, 0, moteur.calculer(20000, 0,
+                        SituationFamiliale.CELIBATAIRE, 0, 0, false))
+                + "," + attendu(35000, 0, moteur.calculer(35000, 0,
+                        SituationFamiliale.DIVORCE, 3, 1, true)) + "]", reponse.body());
+
+        assertEquals("[]", poster(ServiceSimulation.CHEMIN_LOT, " [ ] ").body());
+    }
+
+    @DisplayName("Les requêtes invalides reçoivent un code d'erreur")
+    @Test
+    public void testRequetesInvalides() throws Exception {
+        String chemin = ServiceSimulation.CHEMIN_CALCUL;
+        assertEquals(400, poster(chemin, "{\"revenuNetDeclarant1\":1").statusCode());
+        assertEquals(400, poster(chemin, "{\"situationFamiliale\":\"MARIE\"}").statusCode());
+        assertEquals(400, poster(chemin, "{\"revenuNetDeclarant1\":1,\"situationFamiliale\":"
+                + "\"MARIE\",\"inconnu\":2}").statusCode());
+        // Données bien formées mais incohérentes : un célibataire avec un second revenu
+        HttpResponse<String> incoherent = poster(chemin, "{\"revenuNetDeclarant1\":1,"
+                + "\"revenuNetDeclarant2\":2,\"situationFamiliale\":\"CELIBATAIRE\"}");
+        assertEquals(400, incoherent.statusCode());
+        assertTrue(incoherent.body().startsWith("{\"erreur\":"));
+
+        HttpResponse<String> get = CLIENT.send(HttpRequest.newBuilder(uri(chemin)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, get.statusCode());
+        assertEquals(404, poster("/impot/autre", "{}").statusCode());
+    }
+
+    @DisplayName("Un tir de charge court aboutit sans erreur")
+    @Test
+    public void testGenerateurCharge() throws Exception {
+        RapportCharge rapport = new GenerateurCharge(uri(ServiceSimulation.CHEMIN_LOT), 8, 15)
+                .tirer(4, Duration.ofMillis(500));
+        assertTrue(rapport.nbRequetes() > 0);
+        assertEquals(0, rapport.nbErreurs());
+        assertTrue(rapport.p50Ns() <= rapport.p999Ns());
+    }
+}
@@ -0,0 +1,148 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.Bareme;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.EtapeCalcul;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.ReferentielBareme;
+import com.kerware.simulateurreusine.SessionCalcul;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import com.kerware.simulateurreusine.TraceCalcul;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsSessionCalcul {
+
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+
+    private final MoteurCalculImpot moteur = new MoteurCalculImpot();
+
+    private TraceCalcul tracer(DonneesFoyerFiscal foyer) {
+        TraceCalcul trace = new TraceCalcul();
+        moteur.calculer(foyer, trace);
+        return trace;
+    }
+
+    // Change une seule donnée du foyer, ou retourne null si le foyer obtenu est incohérent
+    private static DonneesFoyerFiscal modifier(DonneesFoyerFiscal f, int donnee, Random aleatoire) {
+        try {
+            return switch (donnee) {
+                case 0 -> new DonneesFoyerFiscal(aleatoire.nextInt(300_000),
+                        f.revenuNetDeclarant2(), f.situationFamiliale(), f.nbEnfantsACharge(),
+                        f.nbEnfantsSituationHandicap(), f.parentIsole());
+                case 1 -> new DonneesFoyerFiscal(f.revenuNetDeclarant1(),
+                        aleatoire.nextInt(100_000), f.situationFamiliale(), f.nbEnfantsACharge(),
+                        f.nbEnfantsSituationHandicap(), f.parentIsole());
+                case 2 -> new DonneesFoyerFiscal(f.revenuNetDeclarant1(), f.revenuNetDeclarant2(),
+                        SITUATIONS[aleatoire.nextInt(SITUATIONS.length)], f.nbEnfantsACharge(),
+                        f.nbEnfantsSituationHandicap(), f.parentIsole());
+                case 3 -> new DonneesFoyerFiscal(f.revenuNetDeclarant1(), f.revenuNetDeclarant2(),
+                        f.situationFamiliale(), aleatoire.nextInt(5),
+                        f.nbEnfantsSituationHandicap(), f.parentIsole());
+                case 4 -> new DonneesFoyerFiscal(f.revenuNetDeclarant1(), f.revenuNetDeclarant2(),
+                        f.situationFamiliale(), f.nbEnfantsACharge(), aleatoire.nextInt(3),
+                        f.parentIsole());
+                default -> new DonneesFoyerFiscal(f.revenuNetDeclarant1(),
+                        f.revenuNetDeclarant2(), f.situationFamiliale(), f.nbEnfantsACharge(),
+                        f.nbEnfantsSituationHandicap(), !f.parentIsole());
+            };
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void appliquer(SessionCalcul session, DonneesFoyerFiscal f) {
+        session.setRevenuNetDeclarant1(f.revenuNetDeclarant1());
+        session.setRevenuNetDeclarant2(f.revenuNetDeclarant2());
+        session.setSituationFamiliale(f.situationFamiliale());
+        session.setNbEnfantsACharge(f.nbEnfantsACharge());
+        session.setNbEnfantsSituationHandicap(f.nbEnfantsSituationHandicap());
+        session.setParentIsole(f.parentIsole());
+    }
+
+    @DisplayName("Après chaque changement, la session donne le résultat et les étapes modifiées")
+    @Test
+    public void testChangementsSuccessifs() {
+        Random aleatoire = new Random(14);
+        DonneesFoyerFiscal foyer =
+                new DonneesFoyerFiscal(45000, 30000, SituationFamiliale.MARIE, 2, 0, false);
+        SessionCalcul session = new SessionCalcul(foyer);
+        assertEquals(EnumSet.allOf(EtapeCalcul.class), session.calculer());
+        TraceCalcul precedente = tracer(foyer);
+
+        for (int i = 0; i < 20_000; i++) {
+            DonneesFoyerFiscal suivant = modifier(foyer, aleatoire.nextInt(6), aleatoire);
+            if (suivant == null) {
+                continue;
+            }
+            appliquer(session, suivant);
+            Set<EtapeCalcul> modifiees = session.calculer();
+
+            TraceCalcul trace = tracer(suivant);
+            Set<EtapeCalcul> attendues = EnumSet.noneOf(EtapeCalcul.class);
+            for (EtapeCalcul etape : EtapeCalcul.values()) {
+                if (trace.getValeur(etape) != precedente.getValeur(etape)) {
+                    attendues.add(etape);
+                }
+                assertEquals(trace.getValeur(etape), session.getValeur(etape));
+            }
+            assertEquals(attendues, modifiees, suivant.toString());
+            assertEquals(moteur.calculer(suivant), session.getResultat());
+            foyer = suivant;
+            precedente = trace;
+        }
+    }
+
+    @DisplayName("Un enfant de plus ne recalcule ni l'abattement ni le revenu imposable")
+    @Test
+    public void testEtapesRecalculees() {
+        SessionCalcul session = new SessionCalcul(
+                new DonneesFoyerFiscal(45000, 30000, SituationFamiliale.MARIE, 2, 0, false));
+        session.calculer();
+
+        session.setNbEnfantsACharge(3);
+        session.calculer();
+        assertEquals(EnumSet.of(EtapeCalcul.NOMBRE_PARTS, EtapeCalcul.IMPOT_BRUT_FOYER,
+                EtapeCalcul.PLAFOND_BAISSE, EtapeCalcul.IMPOT_AVANT_DECOTE, EtapeCalcul.DECOTE,
+                EtapeCalcul.IMPOT_NET), session.getEtapesRecalculees());
+
+        // Sans changement, rien n'est recalculé
+        assertEquals(EnumSet.noneOf(EtapeCalcul.class), session.calculer());
+        assertEquals(EnumSet.noneOf(EtapeCalcul.class), session.getEtapesRecalculees());
+    }
+
+    @DisplayName("Les données incohérentes sont refusées au calcul, pas à la saisie")
+    @Test
+    public void testEtatIntermediaireIncoherent() {
+        SessionCalcul session = new SessionCalcul(
+                new DonneesFoyerFiscal(45000, 30000, SituationFamiliale.MARIE, 0, 0, false));
+        session.calculer();
+
+        session.setSituationFamiliale(SituationFamiliale.DIVORCE);
+        assertThrows(IllegalArgumentException.class, session::calculer);
+        session.setRevenuNetDeclarant2(0);
+        session.calculer();
+        assertEquals(moteur.calculer(45000, 0, SituationFamiliale.DIVORCE, 0, 0, false),
+                session.getResultat());
+    }
+
+    @DisplayName("Un remplacement du barème recalcule toutes les étapes")
+    @Test
+    public void testRemplacementBareme() {
+        ReferentielBareme referentiel = new ReferentielBareme(Bareme.charger(2024));
+        SessionCalcul session = new SessionCalcul(referentiel,
+                new DonneesFoyerFiscal(45000, 30000, SituationFamiliale.MARIE, 2, 0, false));
+        session.calculer();
+
+        referentiel.remplacer(Bareme.charger(2024));
+        session.calculer();
+        assertEquals(EnumSet.allOf(EtapeCalcul.class), session.getEtapesRecalculees());
+    }
+}
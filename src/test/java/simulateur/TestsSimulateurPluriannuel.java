@@ -0,0 +1,82 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.Bareme;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.ReferentielBareme;
+import com.kerware.simulateurreusine.SimulateurPluriannuel;
+import com.kerware.simulateurreusine.SimulationPluriannuelle;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsSimulateurPluriannuel {
+
+    // Projection de l'année suivante : barème 2024 dont les tranches sont revalorisées
+    static Bareme projection2025() throws IOException {
+        Properties proprietes = new Properties();
+        try (InputStream flux = TestsSimulateurPluriannuel.class
+                .getResourceAsStream("/baremes/bareme-2024.properties")) {
+            proprietes.load(new InputStreamReader(flux, StandardCharsets.UTF_8));
+        }
+        proprietes.setProperty("annee", "2025");
+        proprietes.setProperty("impot.bornes", "0,11497,29315,83823,180294");
+        return Bareme.depuisProprietes(proprietes);
+    }
+
+    @DisplayName("Chaque année donne le résultat d'un moteur sur le barème de l'année")
+    @Test
+    public void testAccordMoteurParAnnee() throws IOException {
+        List<Bareme> baremes = List.of(Bareme.charger(2023), Bareme.charger(2024),
+                projection2025());
+        SimulateurPluriannuel simulateur = new SimulateurPluriannuel(baremes);
+        List<MoteurCalculImpot> moteurs = baremes.stream()
+                .map(bareme -> new MoteurCalculImpot(new ReferentielBareme(bareme))).toList();
+        Random aleatoire = new Random(24);
+        for (int i = 0; i < 10_000; i++) {
+            DonneesFoyerFiscal foyer = FoyersAleatoires.foyer(aleatoire);
+
+            SimulationPluriannuelle simulation = simulateur.calculer(foyer);
+            for (int annee = 0; annee < baremes.size(); annee++) {
+                assertEquals(moteurs.get(annee).calculer(foyer),
+                        simulation.resultats().get(annee), foyer.toString());
+            }
+        }
+    }
+
+    @DisplayName("Le barème 2023 donne l'impôt 2023 sur les revenus 2022")
+    @Test
+    public void testBareme2023() {
+        SimulationPluriannuelle simulation = SimulateurPluriannuel.pourAnnees(2023, 2024)
+                .calculer(new DonneesFoyerFiscal(30_000, 0, SituationFamiliale.CELIBATAIRE,
+                        0, 0, false));
+
+        // 27 000 imposables : 11 % de 16 223, décote 833 - 45,25 % de 1 785
+        assertEquals(1_785, simulation.pourAnnee(2023).impotAvantDecote());
+        assertEquals(25, simulation.pourAnnee(2023).decote());
+        assertEquals(1_760, simulation.pourAnnee(2023).impotNet());
+        assertEquals(1_637, simulation.pourAnnee(2024).impotNet());
+    }
+
+    @DisplayName("Une liste de barèmes vide ou une année absente sont rejetées")
+    @Test
+    public void testAnneesInvalides() {
+        SimulationPluriannuelle simulation = SimulateurPluriannuel.pourAnnees(2024).calculer(
+                new DonneesFoyerFiscal(30_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false));
+
+        assertThrows(IllegalArgumentException.class, () -> simulation.pourAnnee(2023));
+        assertThrows(IllegalArgumentException.class, SimulateurPluriannuel::pourAnnees);
+        assertThrows(IllegalArgumentException.class, () -> SimulateurPluriannuel.pourAnnees(2022));
+    }
+}
@@ -0,0 +1,162 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.FichierFoyersBinaire;
+import com.kerware.simulateurreusine.FoyerBinaire;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.ResultatBinaire;
+import com.kerware.simulateurreusine.ResultatCalculImpot;
+import com.kerware.simulateurreusine.SimulationMasseBinaire;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsSimulationMasseBinaire {
+
+    @TempDir
+    Path repertoire;
+
+    private static ByteBuffer enregistrements(Path fichier) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(fichier))
+                .position(FichierFoyersBinaire.TAILLE_EN_TETE).slice()
+                .order(FichierFoyersBinaire.ORDRE);
+    }
+
+    @DisplayName("Le jeu de données converti en binaire donne les impôts attendus")
+    @Test
+    public void testSimulationJeuDeDonnees() throws IOException {
+        Path csv = repertoire.resolve("datasImposition.csv");
+        try (InputStream donnees = getClass().getResourceAsStream("/datasImposition.csv")) {
+            Files.copy(donnees, csv);
+        }
+        Path foyers = repertoire.resolve("foyers.bin");
+        Path resultats = repertoire.resolve("resultats.bin");
+
+        long nbConvertis = FichierFoyersBinaire.convertirCsv(csv, foyers, true);
+        long nbFoyers = new SimulationMasseBinaire(new MoteurCalculImpot())
+                .simuler(foyers, resultats);
+
+        List<String> lignes = Files.readAllLines(csv);
+        assertEquals(nbConvertis, nbFoyers);
+        assertEquals(FichierFoyersBinaire.TAILLE_EN_TETE
+                + nbFoyers * FichierFoyersBinaire.TAILLE_RESULTAT, Files.size(resultats));
+        FoyerBinaire foyer = new FoyerBinaire(enregistrements(foyers), true);
+        ResultatBinaire resultat = new ResultatBinaire(enregistrements(resultats));
+        assertEquals(nbFoyers, resultat.taille());
+        for (int i = 0; i < nbFoyers; i++) {
+            // L'identifiant est le numéro de ligne du foyer dans le CSV
+            String ligne = lignes.get((int) foyer.positionner(i).getIdentifiant() - 1);
+            String[] colonnes = ligne.split(",");
+            assertEquals(Integer.parseInt(colonnes[0]), foyer.getRevenuNetDeclarant1());
+            assertEquals(SituationFamiliale.valueOf(colonnes[2]), foyer.getSituationFamiliale());
+            assertEquals(Integer.parseInt(colonnes[colonnes.length - 1]),
+                    resultat.positionner(i).getImpotSurRevenuNet(), ligne);
+        }
+    }
+
+    @DisplayName("Les résultats binaires ont les valeurs du moteur, au rang du foyer")
+    @Test
+    public void testValeursResultats() throws IOException {
+        List<String> lignes = new ArrayList<>();
+        List<ResultatCalculImpot> attendus = new ArrayList<>();
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+        for (int revenu = 0; revenu < 1_500_000; revenu += 3_677) {
+            int nbEnfants = revenu % 8;
+            lignes.add(revenu + "," + revenu / 2 + ",PACSE," + nbEnfants + ","
+                    + nbEnfants / 3 + ",false");
+            attendus.add(moteur.calculer(revenu, revenu / 2, SituationFamiliale.PACSE,
+                    nbEnfants, nbEnfants / 3, false));
+            lignes.add(revenu + ",0,VEUF," + revenu % 4 + ",0," + (revenu % 2 == 0));
+            attendus.add(moteur.calculer(revenu, 0, SituationFamiliale.VEUF, revenu % 4, 0,
+                    revenu % 2 == 0));
+        }
+        Path csv = repertoire.resolve("foyers.csv");
+        Files.write(csv, lignes);
+        Path foyers = repertoire.resolve("foyers.bin");
+        Path resultats = repertoire.resolve("resultats.bin");
+
+        FichierFoyersBinaire.convertirCsv(csv, foyers, false);
+        assertEquals(FichierFoyersBinaire.TAILLE_EN_TETE
+                + lignes.size() * FichierFoyersBinaire.TAILLE_FOYER, Files.size(foyers));
+        new SimulationMasseBinaire(moteur).simuler(foyers, resultats);
+
+        FoyerBinaire foyer = new FoyerBinaire(enregistrements(foyers), false);
+        ResultatBinaire resultat = new ResultatBinaire(enregistrements(resultats));
+        for (int i = 0; i < attendus.size(); i++) {
+            String[] colonnes = lignes.get(i).split(",");
+            foyer.positionner(i);
+            assertEquals(Integer.parseInt(colonnes[3]), foyer.getNbEnfantsACharge());
+            assertEquals(Integer.parseInt(colonnes[4]), foyer.getNbEnfantsSituationHandicap());
+            assertEquals(Boolean.parseBoolean(colonnes[5]), foyer.isParentIsole());
+
+            ResultatCalculImpot attendu = attendus.get(i);
+            resultat.positionner(i);
+            assertEquals(attendu.nombreParts(), resultat.getNbPartsFoyerFiscal());
+            assertEquals((int) attendu.abattement(), resultat.getAbattement());
+            assertEquals((int) attendu.revenuFiscalReference(),
+                    resultat.getRevenuFiscalReference());
+            assertEquals((int) attendu.impotAvantDecote(), resultat.getImpotAvantDecote());
+            assertEquals((int) attendu.decote(), resultat.getDecote());
+            assertEquals(attendu.contributionExceptionnelle(),
+                    resultat.getContribExceptionnelle());
+            assertEquals((int) attendu.impotNet(), resultat.getImpotSurRevenuNet());
+        }
+    }
+
+    @DisplayName("Les foyers incohérents et les fichiers invalides sont refusés")
+    @Test
+    public void testDonneesInvalides() throws IOException {
+        Path csv = repertoire.resolve("foyers.csv");
+        Files.write(csv, List.of("revenuNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole",
+                "30000,20000,CELIBATAIRE,0,0,false"));
+        IllegalArgumentException erreur = assertThrows(IllegalArgumentException.class,
+                () -> FichierFoyersBinaire.convertirCsv(csv, repertoire.resolve("f.bin"), false));
+        assertTrue(erreur.getMessage().startsWith("Ligne 2 : "));
+
+        // Seule la première ligne non vide peut être un en-tête
+        for (String ligne : List.of("-1500,0,CELIBATAIRE,0,0,false", "texte parasite")) {
+            Files.write(csv, List.of("revenuNet1,revenuNet2,sitFam,nbEnfants,"
+                    + "nbEnfantsHandicap,isole", "", "30000,0,CELIBATAIRE,0,0,false", ligne));
+            IllegalArgumentException ligneRefusee = assertThrows(IllegalArgumentException.class,
+                    () -> FichierFoyersBinaire.convertirCsv(csv, repertoire.resolve("f.bin"),
+                            false), ligne);
+            assertTrue(ligneRefusee.getMessage().startsWith("Ligne 4 : "),
+                    ligneRefusee.getMessage());
+        }
+
+        Path tronque = repertoire.resolve("tronque.bin");
+        Files.write(csv, List.of("30000,0,CELIBATAIRE,0,0,false"));
+        FichierFoyersBinaire.convertirCsv(csv, tronque, false);
+        byte[] octets = Files.readAllBytes(tronque);
+        Files.write(tronque, Arrays.copyOf(octets, octets.length - 1));
+        SimulationMasseBinaire simulation = new SimulationMasseBinaire(new MoteurCalculImpot());
+        assertThrows(IllegalArgumentException.class,
+                () -> simulation.simuler(tronque, repertoire.resolve("r.bin")));
+        assertThrows(IllegalArgumentException.class,
+                () -> simulation.simuler(csv, repertoire.resolve("r.bin")));
+
+        // Nombre de foyers corrompu dont la taille totale déborde en un petit positif
+        Path corrompu = repertoire.resolve("corrompu.bin");
+        long nbCorrompu = (Long.MIN_VALUE / -FichierFoyersBinaire.TAILLE_FOYER) * 2 + 1;
+        assertTrue(FichierFoyersBinaire.TAILLE_EN_TETE
+                + nbCorrompu * FichierFoyersBinaire.TAILLE_FOYER <= octets.length);
+        ByteBuffer.wrap(octets).order(FichierFoyersBinaire.ORDRE)
+                .putLong(FichierFoyersBinaire.TAILLE_EN_TETE - Long.BYTES, nbCorrompu);
+        Files.write(corrompu, octets);
+        assertThrows(IllegalArgumentException.class,
+                () -> simulation.simuler(corrompu, repertoire.resolve("r.bin")));
+    }
+}
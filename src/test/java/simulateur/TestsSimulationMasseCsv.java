@@ -0,0 +1,137 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.AdaptateurSimulateur;
+import com.kerware.simulateurreusine.ICalculateurImpot;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.SimulationMasseCsv;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsSimulationMasseCsv {
+
+    @TempDir
+    Path repertoire;
+
+    @DisplayName("La simulation en masse retrouve les impôts attendus du jeu de données")
+    @Test
+    public void testSimulationJeuDeDonnees() throws IOException {
+        Path entree = repertoire.resolve("datasImposition.csv");
+        try (InputStream donnees = getClass().getResourceAsStream("/datasImposition.csv")) {
+            Files.copy(donnees, entree);
+        }
+        Path sortie = repertoire.resolve("resultats.csv");
+
+        long nbFoyers = new SimulationMasseCsv(new MoteurCalculImpot()).simuler(entree, sortie);
+
+        List<String> attendus = Files.readAllLines(entree).stream()
+                .skip(1).filter(l -> !l.isBlank()).toList();
+        List<String> resultats = Files.readAllLines(sortie);
+        assertEquals(attendus.size(), nbFoyers);
+        assertEquals(attendus.size() + 1, resultats.size());
+        for (int i = 0; i < attendus.size(); i++) {
+            String[] attendu = attendus.get(i).split(",");
+            String[] resultat = resultats.get(i + 1).split(",");
+            assertEquals(attendu[attendu.length - 1], resultat[resultat.length - 1],
+                    attendus.get(i));
+        }
+    }
+
+    @DisplayName("La simulation en masse donne les valeurs de l'adaptateur avec un petit tampon")
+    @Test
+    public void testSimulationPetitTampon() throws IOException {
+        List<String> lignes = new ArrayList<>();
+        lignes.add("revenuNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole");
+        for (int revenu = 0; revenu < 1_500_000; revenu += 3_677) {
+            lignes.add(revenu + "," + revenu / 2 + ",MARIE," + revenu % 4 + ",0,false");
+            lignes.add(revenu + ",0,DIVORCE," + revenu % 3 + ",0," + (revenu % 2 == 0));
+        }
+        Path entree = repertoire.resolve("foyers.csv");
+        Files.write(entree, lignes);
+        Path sortie = repertoire.resolve("resultats.csv");
+
+        new SimulationMasseCsv(new MoteurCalculImpot(), SimulationMasseCsv.TAILLE_TAMPON_MIN)
+                .simuler(entree, sortie);
+
+        List<String> resultats = Files.readAllLines(sortie);
+        assertEquals(lignes.size(), resultats.size());
+        ICalculateurImpot adaptateur = new AdaptateurSimulateur();
+        for (int i = 1; i < lignes.size(); i++) {
+            String[] foyer = lignes.get(i).split(",");
+            adaptateur.setRevenusNetDeclarant1(Integer.parseInt(foyer[0]));
+            adaptateur.setRevenusNetDeclarant2(Integer.parseInt(foyer[1]));
+            adaptateur.setSituationFamiliale(SituationFamiliale.valueOf(foyer[2]));
+            adaptateur.setNbEnfantsACharge(Integer.parseInt(foyer[3]));
+            adaptateur.setNbEnfantsSituationHandicap(Integer.parseInt(foyer[4]));
+            adaptateur.setParentIsole(Boolean.parseBoolean(foyer[5]));
+            adaptateur.calculImpotSurRevenuNet();
+
+            String attendu = String.join(",", foyer) + "," + adaptateur.getNbPartsFoyerFiscal()
+                    + "," + adaptateur.getAbattement() + "," + adaptateur.getRevenuFiscalReference()
+                    + "," + adaptateur.getImpotAvantDecote() + "," + adaptateur.getDecote()
+                    + "," + adaptateur.getContribExceptionnelle()
+                    + "," + adaptateur.getImpotSurRevenuNet();
+            assertEquals(attendu, resultats.get(i));
+        }
+    }
+
+    @DisplayName("La simulation en masse signale la ligne d'un foyer incohérent")
+    @Test
+    public void testSimulationLigneIncoherente() throws IOException {
+        Path entree = repertoire.resolve("foyers.csv");
+        Files.write(entree, List.of("35000,0,CELIBATAIRE,0,0,false", "35000,100,VEUF,0,0,false"));
+        Path sortie = repertoire.resolve("resultats.csv");
+
+        IllegalArgumentException erreur = assertThrows(IllegalArgumentException.class,
+                () -> new SimulationMasseCsv(new MoteurCalculImpot()).simuler(entree, sortie));
+        assertTrue(erreur.getMessage().startsWith("Ligne 2"), erreur.getMessage());
+    }
+
+    @DisplayName("Un octet non ASCII en fin de ligne n'est pas pris pour un espace")
+    @Test
+    public void testOctetNonAsciiRefuse() throws IOException {
+        Path entree = repertoire.resolve("foyers.csv");
+        Files.write(entree, List.of("35000,0,CELIBATAIRE,0,0,false\t", "35000,0,VEUF,0,0,falseé"),
+                StandardCharsets.UTF_8);
+        Path sortie = repertoire.resolve("resultats.csv");
+
+        IllegalArgumentException erreur = assertThrows(IllegalArgumentException.class,
+                () -> new SimulationMasseCsv(new MoteurCalculImpot()).simuler(entree, sortie));
+        assertTrue(erreur.getMessage().startsWith("Ligne 2"), erreur.getMessage());
+    }
+
+    @DisplayName("Seule la première ligne non vide peut être un en-tête")
+    @Test
+    public void testLigneMalFormeeAuMilieu() throws IOException {
+        Path sortie = repertoire.resolve("resultats.csv");
+        SimulationMasseCsv simulation = new SimulationMasseCsv(new MoteurCalculImpot());
+        Path entree = repertoire.resolve("foyers.csv");
+        for (String ligne : List.of("-1500,0,CELIBATAIRE,0,0,false", "texte parasite",
+                "revenuNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole")) {
+            Files.write(entree, List.of("revenuNet1,revenuNet2,sitFam,nbEnfants,"
+                    + "nbEnfantsHandicap,isole", "35000,0,CELIBATAIRE,0,0,false", "", ligne,
+                    "40000,0,VEUF,0,0,false"));
+            IllegalArgumentException erreur = assertThrows(IllegalArgumentException.class,
+                    () -> simulation.simuler(entree, sortie), ligne);
+            assertTrue(erreur.getMessage().startsWith("Ligne 4 : "), erreur.getMessage());
+        }
+
+        // Une marque d'ordre UTF-8 en tête de fichier ne masque pas le premier foyer
+        Files.write(entree, List.of("\uFEFF35000,0,CELIBATAIRE,0,0,false",
+                "40000,0,VEUF,0,0,false"), StandardCharsets.UTF_8);
+        assertEquals(2, simulation.simuler(entree, sortie));
+    }
+}
@@ -0,0 +1,133 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.EtapeCalcul;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.PlageRevenus;
+import com.kerware.simulateurreusine.ResultatCalculImpot;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import com.kerware.simulateurreusine.SolveurImpotInverse;
+import com.kerware.simulateurreusine.TraceCalcul;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsSolveurImpotInverse {
+
+    private static final int REVENU_MAX = 200_000;
+
+    private static final List<DonneesFoyerFiscal> PROFILS = List.of(
+            new DonneesFoyerFiscal(0, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false),
+            new DonneesFoyerFiscal(0, 28000, SituationFamiliale.MARIE, 3, 1, false),
+            new DonneesFoyerFiscal(0, 0, SituationFamiliale.DIVORCE, 2, 0, true),
+            new DonneesFoyerFiscal(0, 4000, SituationFamiliale.PACSE, 1, 0, false));
+
+    private final MoteurCalculImpot moteur = new MoteurCalculImpot();
+    private final SolveurImpotInverse solveur = new SolveurImpotInverse();
+
+    private ResultatCalculImpot calculer(DonneesFoyerFiscal profil, int revenu1) {
+        return moteur.calculer(new DonneesFoyerFiscal(revenu1, profil.revenuNetDeclarant2(),
+                profil.situationFamiliale(), profil.nbEnfantsACharge(),
+                profil.nbEnfantsSituationHandicap(), profil.parentIsole()));
+    }
+
+    private double[] impotsNets(DonneesFoyerFiscal profil) {
+        double[] impots = new double[REVENU_MAX + 1];
+        for (int revenu = 0; revenu <= REVENU_MAX; revenu++) {
+            impots[revenu] = calculer(profil, revenu).impotNet();
+        }
+        return impots;
+    }
+
+    private boolean plafonnementAtteint(DonneesFoyerFiscal profil, int revenu1) {
+        TraceCalcul trace = new TraceCalcul();
+        moteur.calculer(new DonneesFoyerFiscal(revenu1, profil.revenuNetDeclarant2(),
+                profil.situationFamiliale(), profil.nbEnfantsACharge(),
+                profil.nbEnfantsSituationHandicap(), profil.parentIsole()), trace);
+        return trace.getValeur(EtapeCalcul.IMPOT_BRUT_DECLARANTS)
+                - trace.getValeur(EtapeCalcul.IMPOT_BRUT_FOYER)
+                >= trace.getValeur(EtapeCalcul.PLAFOND_BAISSE);
+    }
+
+    @DisplayName("Le revenu trouvé est le premier dont l'impôt net atteint le montant visé")
+    @Test
+    public void testRevenuPourImpotIdentiqueAuParcours() {
+        for (DonneesFoyerFiscal profil : PROFILS) {
+            double[] impots = impotsNets(profil);
+            for (double cible = 0; cible < impots[REVENU_MAX]; cible += 97.5) {
+                int attendu = 0;
+                while (impots[attendu] < cible) {
+                    attendu++;
+                }
+                assertEquals(attendu, solveur.revenuMinimalPourImpot(profil, cible),
+                        profil + " cible " + cible);
+            }
+        }
+    }
+
+    @DisplayName("La plage de revenus couvre exactement les revenus de l'impôt visé")
+    @Test
+    public void testPlageRevenus() {
+        DonneesFoyerFiscal profil = PROFILS.get(0);
+        double[] impots = impotsNets(profil);
+
+        PlageRevenus plage = solveur.revenusPourImpot(profil, 5000);
+        assertFalse(plage.estVide());
+        assertEquals(5000, impots[plage.debut()]);
+        assertEquals(5000, impots[plage.fin()]);
+        assertTrue(impots[plage.debut() - 1] < 5000);
+        assertTrue(impots[plage.fin() + 1] > 5000);
+        // La fin de la décote fait sauter l'impôt de plusieurs euros
+        int finDecote = solveur.revenuFinDecote(profil);
+        PlageRevenus sautee = solveur.revenusPourImpot(profil, impots[finDecote] - 1);
+        assertTrue(sautee.estVide());
+        assertEquals(finDecote, sautee.debut());
+    }
+
+    @DisplayName("Les seuils du barème sont franchis exactement au revenu trouvé")
+    @Test
+    public void testSeuils() {
+        for (DonneesFoyerFiscal profil : PROFILS) {
+            boolean estCouple = profil.situationFamiliale().estCouple();
+            int finDecote = solveur.revenuFinDecote(profil);
+            assertTrue(calculer(profil, finDecote).impotAvantDecote() >= (estCouple ? 3191 : 1929));
+            assertTrue(calculer(profil, finDecote - 1).impotAvantDecote()
+                    < (estCouple ? 3191 : 1929));
+
+            for (int rang = 1; rang < 5; rang++) {
+                int debut = solveur.revenuDebutTranche(profil, rang);
+                ResultatCalculImpot resultat = calculer(profil, debut);
+                ResultatCalculImpot precedent = calculer(profil, debut - 1);
+                double borne = new int[] {0, 11294, 28797, 82341, 177106}[rang];
+                assertTrue(resultat.revenuFiscalReference() / resultat.nombreParts() >= borne);
+                assertTrue(precedent.revenuFiscalReference() / precedent.nombreParts() < borne);
+            }
+            int debutContribution = solveur.revenuDebutContribution(profil, 1);
+            assertEquals(estCouple ? 500000 : 250000,
+                    calculer(profil, debutContribution).revenuFiscalReference());
+        }
+        assertEquals(SolveurImpotInverse.REVENU_INTROUVABLE,
+                solveur.revenuDebutPlafonnement(PROFILS.get(0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> solveur.revenuDebutTranche(PROFILS.get(0), 5));
+    }
+
+    @DisplayName("Le plafonnement commence au revenu trouvé")
+    @Test
+    public void testDebutPlafonnement() {
+        for (DonneesFoyerFiscal profil : PROFILS.subList(1, PROFILS.size())) {
+            int debut = solveur.revenuDebutPlafonnement(profil);
+            assertTrue(debut > 0 && debut < REVENU_MAX, profil.toString());
+            assertTrue(plafonnementAtteint(profil, debut));
+            assertFalse(plafonnementAtteint(profil, debut - 1));
+        }
+        assertEquals(SolveurImpotInverse.REVENU_INTROUVABLE,
+                solveur.revenuMinimalPourImpot(PROFILS.get(0), 1e12));
+    }
+}
@@ -0,0 +1,126 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.Bareme;
+import com.kerware.simulateurreusine.CalculateurImpot;
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.ReferentielBareme;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import com.kerware.simulateurreusine.TableImpotBrut;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsTableImpotBrut {
+
+    private static final int REVENU_MAX = 50_000;
+
+    @TempDir
+    Path repertoire;
+
+    private static Bareme bareme2024TauxModifies() throws IOException {
+        Properties proprietes = new Properties();
+        try (InputStream flux = TestsTableImpotBrut.class
+                .getResourceAsStream("/baremes/bareme-2024.properties")) {
+            proprietes.load(new InputStreamReader(flux, StandardCharsets.UTF_8));
+        }
+        proprietes.setProperty("impot.taux", "0.0,0.12,0.31,0.42,0.46");
+        return Bareme.depuisProprietes(proprietes);
+    }
+
+    @DisplayName("La table donne l'impôt brut de la formule pour tous les revenus et parts")
+    @Test
+    public void testTableIdentiqueALaFormule() throws IOException {
+        Bareme bareme = Bareme.charger(2024);
+        Path fichier = repertoire.resolve("impot-2024.bin");
+        TableImpotBrut table = TableImpotBrut.ouvrirOuConstruire(fichier, bareme, REVENU_MAX);
+        CalculateurImpot formule = new CalculateurImpot(bareme);
+
+        assertEquals(REVENU_MAX, table.getRevenuMax());
+        for (int demiParts = 2; demiParts <= 24; demiParts++) {
+            double parts = demiParts / 2.0;
+            for (int revenu = 0; revenu <= REVENU_MAX; revenu++) {
+                assertEquals(formule.calculerImpotBrut(revenu, parts),
+                        table.impotBrut(revenu, parts), revenu + " / " + parts);
+            }
+        }
+        // Une seconde ouverture réutilise le fichier
+        long modification = Files.getLastModifiedTime(fichier).toMillis();
+        TableImpotBrut.ouvrirOuConstruire(fichier, bareme, REVENU_MAX);
+        assertEquals(modification, Files.getLastModifiedTime(fichier).toMillis());
+    }
+
+    @DisplayName("Hors de la table, le calculateur et le moteur appliquent la formule")
+    @Test
+    public void testRepliSurLaFormule() throws IOException {
+        Bareme bareme = Bareme.charger(2024);
+        TableImpotBrut table = TableImpotBrut.ouvrirOuConstruire(
+                repertoire.resolve("impot-2024.bin"), bareme, REVENU_MAX);
+        CalculateurImpot formule = new CalculateurImpot(bareme);
+        CalculateurImpot calculateur = new CalculateurImpot(bareme, table);
+
+        // Revenu au-delà du plafond, revenu non entier, parts hors de la grille
+        assertEquals(TableImpotBrut.ABSENT, table.impotBrut(REVENU_MAX + 1, 1));
+        assertEquals(TableImpotBrut.ABSENT, table.impotBrut(30_000.5, 1));
+        assertEquals(TableImpotBrut.ABSENT, table.impotBrut(30_000, 1.25));
+        assertEquals(TableImpotBrut.ABSENT, table.impotBrut(30_000, 12.5));
+        for (double[] cas : new double[][] {{REVENU_MAX + 1, 1}, {250_000, 3},
+                {30_000.5, 1}, {30_000, 1.25}, {45_123, 2.5}}) {
+            assertEquals(formule.calculerImpotBrut(cas[0], cas[1]),
+                    calculateur.calculerImpotBrut(cas[0], cas[1]));
+        }
+
+        MoteurCalculImpot reference = new MoteurCalculImpot(new ReferentielBareme(bareme));
+        MoteurCalculImpot moteur = new MoteurCalculImpot(new ReferentielBareme(bareme, table));
+        Random aleatoire = new Random(18);
+        for (int i = 0; i < 5_000; i++) {
+            boolean couple = aleatoire.nextBoolean();
+            int nbEnfants = aleatoire.nextInt(5);
+            DonneesFoyerFiscal foyer = new DonneesFoyerFiscal(aleatoire.nextInt(120_000),
+                    couple ? aleatoire.nextInt(60_000) : 0,
+                    couple ? SituationFamiliale.PACSE : SituationFamiliale.CELIBATAIRE,
+                    nbEnfants, aleatoire.nextInt(nbEnfants + 1), !couple && nbEnfants > 0);
+            assertEquals(reference.calculer(foyer), moteur.calculer(foyer));
+        }
+    }
+
+    @DisplayName("Une table d'un autre barème ou corrompue est rejetée, puis reconstruite")
+    @Test
+    public void testTableRejetee() throws IOException {
+        Bareme bareme = Bareme.charger(2024);
+        Bareme modifie = bareme2024TauxModifies();
+        Path fichier = repertoire.resolve("impot.bin");
+        TableImpotBrut table = TableImpotBrut.ouvrirOuConstruire(fichier, bareme, 30_000);
+
+        assertFalse(table.correspondA(modifie));
+        assertThrows(IllegalArgumentException.class, () -> TableImpotBrut.ouvrir(fichier, modifie));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CalculateurImpot(modifie, table));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReferentielBareme(modifie, table));
+
+        Path tronque = repertoire.resolve("tronque.bin");
+        byte[] contenu = Files.readAllBytes(fichier);
+        Files.write(tronque, Arrays.copyOf(contenu, contenu.length - 4));
+        assertThrows(IllegalArgumentException.class, () -> TableImpotBrut.ouvrir(tronque, bareme));
+
+        // Le fichier d'un autre barème est remplacé par la table du barème demandé
+        TableImpotBrut reconstruite = TableImpotBrut.ouvrirOuConstruire(fichier, modifie, 30_000);
+        assertEquals(new CalculateurImpot(modifie).calculerImpotBrut(20_000, 1),
+                reconstruite.impotBrut(20_000, 1));
+    }
+}
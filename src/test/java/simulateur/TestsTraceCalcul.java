@@ -0,0 +1,77 @@
+package simulateur;
+
+import com.kerware.simulateurreusine.DonneesFoyerFiscal;
+import com.kerware.simulateurreusine.EtapeCalcul;
+import com.kerware.simulateurreusine.MoteurCalculImpot;
+import com.kerware.simulateurreusine.ResultatCalculImpot;
+import com.kerware.simulateurreusine.SituationFamiliale;
+import com.kerware.simulateurreusine.TraceCalcul;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsTraceCalcul {
+
+    @DisplayName("La trace du moteur reprend les valeurs du résultat")
+    @Test
+    public void testTraceMoteur() {
+        MoteurCalculImpot moteur = new MoteurCalculImpot();
+        TraceCalcul trace = new TraceCalcul();
+        DonneesFoyerFiscal foyer =
+                new DonneesFoyerFiscal(65000, 40000, SituationFamiliale.MARIE, 3, 1, false);
+
+        ResultatCalculImpot resultat = moteur.calculer(foyer, trace);
+
+        assertEquals(resultat, moteur.calculer(foyer, null));
+        assertEquals(resultat.nombreParts(), trace.getValeur(EtapeCalcul.NOMBRE_PARTS));
+        assertEquals(2, trace.getValeur(EtapeCalcul.PARTS_DECLARANTS));
+        assertEquals(resultat.abattement(), trace.getValeur(EtapeCalcul.ABATTEMENT));
+        assertEquals(resultat.impotAvantDecote(),
+                trace.getValeur(EtapeCalcul.IMPOT_AVANT_DECOTE));
+        assertEquals(5 * 1759, trace.getValeur(EtapeCalcul.PLAFOND_BAISSE));
+        assertEquals(resultat.impotNet(), trace.getValeur(EtapeCalcul.IMPOT_NET));
+        assertTrue(trace.toString().startsWith("Abattement : "));
+    }
+
+    @DisplayName("Le simulateur legacy trace les mêmes étapes que le moteur")
+    @Test
+    public void testTraceLegacyIdentiqueAuMoteur() {
+        TraceCalcul traceMoteur = new TraceCalcul();
+        TraceCalcul traceLegacy = new TraceCalcul();
+        com.kerware.simulateur.Simulateur legacy = new com.kerware.simulateur.Simulateur();
+        legacy.setTrace(traceLegacy);
+
+        new MoteurCalculImpot().calculer(new DonneesFoyerFiscal(160000, 38000,
+                SituationFamiliale.PACSE, 2, 0, false), traceMoteur);
+        legacy.calculImpot(160000, 38000, com.kerware.simulateur.SituationFamiliale.PACSE,
+                2, 0, false);
+
+        for (EtapeCalcul etape : EtapeCalcul.values()) {
+            assertEquals(traceMoteur.getValeur(etape), traceLegacy.getValeur(etape),
+                    etape.name());
+        }
+    }
+
+    @DisplayName("Une trace réutilisée ne garde rien du calcul précédent")
+    @Test
+    public void testTraceReinitialisee() {
+        TraceCalcul trace = new TraceCalcul();
+        trace.enregistrer(EtapeCalcul.DECOTE, 12);
+        com.kerware.simulateur.Simulateur legacy = new com.kerware.simulateur.Simulateur();
+        assertNull(legacy.getTrace());
+        legacy.setTrace(trace);
+
+        trace.reinitialiser();
+        assertFalse(trace.estRenseignee(EtapeCalcul.DECOTE));
+        assertThrows(IllegalStateException.class, () -> trace.getValeur(EtapeCalcul.DECOTE));
+
+        legacy.calculImpot(30000, 0, com.kerware.simulateur.SituationFamiliale.CELIBATAIRE,
+                0, 0, false);
+        assertEquals(legacy.getImpotNet(), trace.getValeur(EtapeCalcul.IMPOT_NET));
+    }
+}